@@ -6,6 +6,7 @@ import com.oskopek.transport.model.problem.Problem;
 import com.oskopek.transport.persistence.DefaultProblemIO;
 import com.oskopek.transport.persistence.IOUtils;
 import com.oskopek.transport.persistence.VariableDomainIO;
+import com.oskopek.transport.validation.TemporalPlanValidator;
 import com.oskopek.transport.validation.ValValidator;
 import com.oskopek.transport.benchmark.Benchmark;
 import com.oskopek.transport.benchmark.ScoreFunction;
@@ -19,6 +20,7 @@ import javaslang.control.Try;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +36,7 @@ public final class BenchmarkConfig {
     private String domain;
     private Map<String, ProblemInfo> problems;
     private ScoreFunctionType scoreFunctionType;
+    private Boolean valCrossCheck;
 
     /**
      * Empty constructor.
@@ -166,6 +169,16 @@ public final class BenchmarkConfig {
         return scoreFunctionType;
     }
 
+    /**
+     * Get the valCrossCheck: if true, VAL is required and every in-process validation result is cross-checked
+     * with it, disagreements are logged.
+     *
+     * @return the valCrossCheck, may be null (false)
+     */
+    public Boolean getValCrossCheck() {
+        return valCrossCheck;
+    }
+
     /**
      * Creates a benchmark from the configuration instance.
      * Initialized the score function and planners, parses the domain and problems.
@@ -178,8 +191,10 @@ public final class BenchmarkConfig {
 
         List<Problem> problems = new ArrayList<>(this.problems.size());
         DefaultProblemIO problemIO = new DefaultProblemIO(domain);
-        this.problems.forEach((name, problemInfo) -> problems
-                .add(problemIO.parse(problemInfo.getFileContents()).putName(name)));
+        this.problems.forEach((name, problemInfo) -> problems.add(Try.of(() -> problemIO
+                .parseDefault(Paths.get(problemInfo.getFilePath()))).getOrElseThrow(e ->
+                new IllegalStateException("Failed to parse problem file: " + problemInfo.getFilePath(), e))
+                .putName(name)));
 
         List<Planner> planners = toPlanners(this.planners);
         Function2<Problem, Planner, Boolean> skipFunction = (problem, planner) -> false; // TODO: add skipping support
@@ -192,13 +207,19 @@ public final class BenchmarkConfig {
         Map<Problem, ProblemInfo> problemInfo = Stream.ofAll(this.problems.entrySet())
                 .toJavaMap(t -> Tuple.of(problemNames.get(t.getKey()), t.getValue()));
 
-        ValValidator valValidator = new ValValidator();
-        if (!valValidator.isAvailable()) {
-            throw new IllegalStateException("VAL is not available, exiting.");
+        TemporalPlanValidator validator;
+        if (Boolean.TRUE.equals(valCrossCheck)) {
+            ValValidator valValidator = new ValValidator();
+            if (!valValidator.isAvailable()) {
+                throw new IllegalStateException("VAL is not available, exiting.");
+            }
+            validator = new TemporalPlanValidator(valValidator);
+        } else {
+            validator = new TemporalPlanValidator();
         }
 
         return new Benchmark(new BenchmarkMatrix(domain, problems, planners, problemInfo, timeout), scoreFunction,
-                skipFunction, valValidator);
+                skipFunction, validator);
     }
 
     /**
@@ -20,10 +20,12 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * A thin wrapper around an external executable planner for any Transport domain
@@ -33,11 +35,15 @@ import java.util.concurrent.TimeUnit;
  * from a specified path. Uses a {@link Process}. Logs the process' stderr and stdout via
  * {@link com.oskopek.transport.tools.executables.AbstractLogStreamable#log(String)}.
  * Returns a success iff the process exits with a 0 return code and the plan is parsable from the output file.
- * Is cancellable via {@link Cancellable#cancel()}. Does not have a no-arg constructor, because it is a
- * special case, handled separately in the UI.
+ * The files are exchanged through a {@link TemporaryWorkspace} of the calling thread.
+ * Is cancellable via {@link Cancellable#cancel()}, which destroys the process and its descendants.
+ * Does not have a no-arg constructor, because it is a special case, handled separately in the UI.
  */
 public class ExternalPlanner extends CancellableLogStreamable implements Planner {
 
+    private static final long OUTPUT_DRAIN_TIMEOUT_MS = 1000L;
+    private static final long STABLE_CHECK_INTERVAL_MS = 5L;
+    private static final int STABLE_CHECK_LIMIT = 200;
     private transient String name;
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
     private final ExecutableWithParameters executable;
@@ -113,6 +119,9 @@ public class ExternalPlanner extends CancellableLogStreamable implements Planner
 
     /**
      * Run the external planning process and supply the cancellation option.
+     * <p>
+     * The output of the process is streamed on a separate thread and the process is awaited without polling.
+     * After it exits, the plan file is read as soon as its size and modification time are stable.
      *
      * @param domain the domain to plan with
      * @param problem the problem to plan
@@ -125,64 +134,48 @@ public class ExternalPlanner extends CancellableLogStreamable implements Planner
                     serializer.getProblemTmpFile().toAbsolutePath(), serializer.getPlanTmpFile().toAbsolutePath());
             ProcessBuilder builder = new ProcessBuilder(parameters);
             builder.redirectErrorStream(true);
+            Process process;
             try {
-                plannerProcessProperty.set(builder.start());
+                process = builder.start();
             } catch (IOException e) {
                 throw new IllegalStateException("An error occurred during creating the planner process.", e);
             }
-            CompletableFuture<Integer> retValFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    while (!shouldCancel()) {
-                        boolean finished = plannerProcessProperty.get().waitFor(500, TimeUnit.MILLISECONDS);
-                        if (finished) {
-                            break;
-                        }
-                    }
-                    if (shouldCancel()) {
-                        logger.debug("Destroying process...");
-                        plannerProcessProperty.get().destroy();
-                        logger.debug("Destroyed process.");
-                        return 1;
-                    }
-                } catch (InterruptedException e) {
-                    throw new IllegalStateException("Planning failed.", e);
-                }
-                return plannerProcessProperty.get().exitValue();
-            }).toCompletableFuture();
-
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(plannerProcessProperty.get()
-                    .getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    logger.debug(line);
-                    log(line);
-                }
-            } catch (IOException e) {
-                if (e.getMessage().contains("Stream closed")) {
-                    logger.warn("Stream closed while reading stdout.");
+            plannerProcessProperty.set(process);
+            Thread outputThread = new Thread(() -> streamOutput(process), "planner-output");
+            outputThread.setDaemon(true);
+            outputThread.start();
 
-                } else {
-                    throw new IllegalStateException("Error while reading stderr/out of planner process.", e);
-                }
+            if (shouldCancel()) { // cancelled before the process was set
+                destroy(process);
             }
-
-            int retVal = Try.of(retValFuture::get)
+            int retVal = Try.of(process::waitFor)
                     .getOrElseThrow(e -> new IllegalStateException("Failed waiting for planner process.", e));
+            if (shouldCancel()) {
+                logger.debug("Destroyed process.");
+                retVal = 1;
+            }
+            Try.run(() -> outputThread.join(OUTPUT_DRAIN_TIMEOUT_MS));
+            if (outputThread.isAlive()) { // a surviving descendant holds the output open, its run is deleted at close
+                logger.warn("Planner output not closed after the planner exited, closing.");
+                Try.run(() -> process.getInputStream().close());
+            }
             if (retVal != 0) {
                 logger.warn("Planning failed: return value {}.", retVal);
                 bestPlan.setValue(null);
             }
 
             // Try to parse a plan even if planning failed:
-            Try.run(() -> Thread.sleep(1500)); // sleep to let the filesystem rest
+            awaitStable(serializer.getPlanTmpFile());
             StringBuilder planOutput = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                    Files.newInputStream(serializer.getPlanTmpFile())))) {
+            try (BufferedReader reader = Files.newBufferedReader(serializer.getPlanTmpFile(),
+                    StandardCharsets.UTF_8)) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     logger.debug("plan: {}", line);
                     planOutput.append(line).append('\n');
                 }
+            } catch (NoSuchFileException e) {
+                logger.debug("Plan file was deleted by the planner.");
             } catch (IOException e) {
                 throw new IllegalStateException("Error while reading plan file.", e);
             }
@@ -201,6 +194,58 @@ public class ExternalPlanner extends CancellableLogStreamable implements Planner
         return getCurrentPlan();
     }
 
+    /**
+     * Destroy the descendants of the process and the process itself. The descendants have to be destroyed first,
+     * they are not reachable from the process after it exits.
+     *
+     * @param process the process
+     */
+    private static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+    }
+
+    /**
+     * Stream the (merged) stdout and stderr of the process to the log, until it is closed.
+     *
+     * @param process the process
+     */
+    private void streamOutput(Process process) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logger.debug(line);
+                log(line);
+            }
+        } catch (IOException e) {
+            logger.debug("Stream closed while reading stdout: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Wait until the size and modification time of the file do not change between two checks,
+     * for at most {@link #STABLE_CHECK_LIMIT} checks. Returns immediately if the file does not exist.
+     * Usually, the file is complete when the process exits and this takes a single check interval.
+     *
+     * @param file the file to wait for
+     * @throws IOException if an error during reading the file attributes occurs
+     */
+    private void awaitStable(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        BasicFileAttributes last = Files.readAttributes(file, BasicFileAttributes.class);
+        for (int i = 0; i < STABLE_CHECK_LIMIT; i++) {
+            Try.run(() -> Thread.sleep(STABLE_CHECK_INTERVAL_MS));
+            BasicFileAttributes current = Files.readAttributes(file, BasicFileAttributes.class);
+            if (current.size() == last.size() && current.lastModifiedTime().equals(last.lastModifiedTime())) {
+                return;
+            }
+            last = current;
+        }
+        logger.warn("Plan file {} is still changing, reading anyway.", file);
+    }
+
     /**
      * Tries to parse a plan based on its string representation. A util method to differentiate between temporal
      * and sequential plans and delegating. Used for parsing stdout of external planners.
@@ -233,6 +278,17 @@ public class ExternalPlanner extends CancellableLogStreamable implements Planner
         return bestPlan;
     }
 
+    @Override
+    public boolean cancel() {
+        super.cancel();
+        Process process = plannerProcessProperty.get();
+        if (process != null) {
+            logger.debug("Destroying process...");
+            destroy(process);
+        }
+        return true;
+    }
+
     @Override
     public synchronized ObservableValue<Boolean> isPlanning() {
         return plannerProcessProperty.isNotNull();
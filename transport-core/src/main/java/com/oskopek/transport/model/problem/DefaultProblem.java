@@ -3,22 +3,34 @@ package com.oskopek.transport.model.problem;
 import com.oskopek.transport.model.problem.graph.RoadGraph;
 import com.oskopek.transport.model.problem.graph.VisualRoadGraph;
 import org.apache.commons.lang3.builder.EqualsBuilder;
+import javaslang.collection.HashMap;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
 /**
  * Default problem implementation. Provides basic data properties and immutable update methods.
+ * <p>
+ * Vehicles and packages are stored in persistent hash array mapped tries, therefore updating a vehicle or package
+ * shares all unchanged entries with the original problem and allocates only the changed path: O(log n) instead of
+ * copying the whole maps. The maps are exposed as unmodifiable {@link Map} views.
+ * <p>
+ * Together with the {@link SymbolTable}, arrays of the vehicles and packages indexed by their ids are kept
+ * for {@link #getVehicle(int)} and {@link #getPackage(int)}. Updating a vehicle or package copies the respective
+ * array and shares the rest with the original problem. The symbol table is rebuilt if the shared road graph
+ * was modified since it was built.
  */
 public class DefaultProblem implements Problem {
 
     private final String name;
     private final RoadGraph roadGraph;
+    private final HashMap<String, Vehicle> vehicles;
+    private final HashMap<String, Package> packages;
     private final Map<String, Vehicle> vehicleMap;
     private final Map<String, Package> packageMap;
+    private Symbols symbols;
 
     /**
      * Copy constructor.
@@ -28,8 +40,7 @@ public class DefaultProblem implements Problem {
     public DefaultProblem(Problem problem) {
         // vehicles are immutable
         // packages are immutable
-        this(problem.getName(), problem.getRoadGraph().copy(),
-                new HashMap<>(problem.getVehicleMap()), new HashMap<>(problem.getPackageMap()));
+        this(problem.getName(), problem.getRoadGraph().copy(), problem.getVehicleMap(), problem.getPackageMap());
     }
 
     /**
@@ -37,15 +48,33 @@ public class DefaultProblem implements Problem {
      *
      * @param name the name
      * @param roadGraph the graph
-     * @param vehicleMap the vehicle map
-     * @param packageMap the package map
+     * @param vehicleMap the vehicle map, copied
+     * @param packageMap the package map, copied
      */
     public DefaultProblem(String name, RoadGraph roadGraph, Map<String, Vehicle> vehicleMap,
             Map<String, Package> packageMap) {
+        this(name, roadGraph, PersistentMapView.toPersistent(vehicleMap), PersistentMapView.toPersistent(packageMap),
+                null);
+    }
+
+    /**
+     * Private constructor, reusing already computed symbols.
+     *
+     * @param name the name
+     * @param roadGraph the graph
+     * @param vehicles the persistent vehicle map
+     * @param packages the persistent package map
+     * @param symbols the symbols, have to be valid for the given maps and graph, may be null
+     */
+    private DefaultProblem(String name, RoadGraph roadGraph, HashMap<String, Vehicle> vehicles,
+            HashMap<String, Package> packages, Symbols symbols) {
         this.name = name;
         this.roadGraph = roadGraph;
-        this.vehicleMap = vehicleMap;
-        this.packageMap = packageMap;
+        this.vehicles = vehicles;
+        this.packages = packages;
+        this.vehicleMap = new PersistentMapView<>(vehicles);
+        this.packageMap = new PersistentMapView<>(packages);
+        this.symbols = symbols;
     }
 
     @Override
@@ -65,12 +94,12 @@ public class DefaultProblem implements Problem {
 
     @Override
     public Vehicle getVehicle(String name) {
-        return vehicleMap.get(name);
+        return vehicles.get(name).getOrElse((Vehicle) null);
     }
 
     @Override
     public Package getPackage(String name) {
-        return packageMap.get(name);
+        return packages.get(name).getOrElse((Package) null);
     }
 
     @Override
@@ -103,6 +132,41 @@ public class DefaultProblem implements Problem {
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The table is computed lazily and shared with all problems created by updating vehicles, packages or the name
+     * of this one, as long as no action objects are added or removed and the road graph is not modified.
+     */
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbols().table;
+    }
+
+    @Override
+    public Vehicle getVehicle(int id) {
+        return symbols().vehicles[id];
+    }
+
+    @Override
+    public Package getPackage(int id) {
+        return symbols().packages[id];
+    }
+
+    /**
+     * Get the current symbols, building them if they were not built yet or the road graph was modified since.
+     *
+     * @return the symbols
+     */
+    private Symbols symbols() {
+        Symbols current = symbols;
+        if (current == null || !current.table.isCurrent(roadGraph)) {
+            current = new Symbols(SymbolTable.of(this), vehicles, packages);
+            symbols = current;
+        }
+        return current;
+    }
+
     @Override
     public Collection<Vehicle> getAllVehicles() {
         return vehicleMap.values();
@@ -125,9 +189,9 @@ public class DefaultProblem implements Problem {
 
     @Override
     public Problem putVehicle(String name, Vehicle vehicle) {
-        Map<String, Vehicle> newVehicleMap = new HashMap<>(vehicleMap);
-        newVehicleMap.put(name, vehicle);
-        return new DefaultProblem(this.name, roadGraph, newVehicleMap, packageMap);
+        boolean added = !vehicles.containsKey(name);
+        return new DefaultProblem(this.name, roadGraph, vehicles.put(name, vehicle), packages,
+                added || symbols == null ? null : symbols.putVehicle(name, vehicle));
     }
 
     /**
@@ -138,16 +202,18 @@ public class DefaultProblem implements Problem {
      * @see #putVehicle(String, Vehicle)
      */
     public Problem putAllVehicles(Stream<Vehicle> vehicles) {
-        Map<String, Vehicle> newVehicleMap = new HashMap<>(vehicleMap);
-        vehicles.forEach(v -> newVehicleMap.put(v.getName(), v));
-        return new DefaultProblem(name, roadGraph, newVehicleMap, packageMap);
+        HashMap<String, Vehicle> newVehicles = vehicles.sequential().reduce(this.vehicles,
+                (map, v) -> map.put(v.getName(), v), HashMap::merge);
+        boolean added = newVehicles.size() != this.vehicles.size();
+        return new DefaultProblem(name, roadGraph, newVehicles, packages,
+                added || symbols == null ? null : new Symbols(symbols.table, newVehicles, packages));
     }
 
     @Override
     public Problem putPackage(String name, Package pkg) {
-        Map<String, Package> newPackageMap = new HashMap<>(packageMap);
-        newPackageMap.put(name, pkg);
-        return new DefaultProblem(this.name, roadGraph, vehicleMap, newPackageMap);
+        boolean added = !packages.containsKey(name);
+        return new DefaultProblem(this.name, roadGraph, vehicles, packages.put(name, pkg),
+                added || symbols == null ? null : symbols.putPackage(name, pkg));
     }
 
     @Override
@@ -197,16 +263,12 @@ public class DefaultProblem implements Problem {
 
     @Override
     public Problem removeVehicle(String name) {
-        Map<String, Vehicle> newVehicleMap = new HashMap<>(vehicleMap);
-        newVehicleMap.remove(name);
-        return new DefaultProblem(this.name, roadGraph, newVehicleMap, packageMap);
+        return new DefaultProblem(this.name, roadGraph, vehicles.remove(name), packages, null);
     }
 
     @Override
     public Problem removePackage(String name) {
-        Map<String, Package> newPackageMap = new HashMap<>(packageMap);
-        newPackageMap.remove(name);
-        return new DefaultProblem(this.name, roadGraph, vehicleMap, newPackageMap);
+        return new DefaultProblem(this.name, roadGraph, vehicles, packages.remove(name), null);
     }
 
     @Override
@@ -224,13 +286,13 @@ public class DefaultProblem implements Problem {
 
     @Override
     public Problem putName(String newName) {
-        return new DefaultProblem(newName, roadGraph, vehicleMap, packageMap);
+        return new DefaultProblem(newName, roadGraph, vehicles, packages, symbols);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37).append(name).append(roadGraph).append(vehicleMap).append(
-                packageMap).toHashCode();
+        return new HashCodeBuilder(17, 37).append(name).append(roadGraph).append(vehicles).append(packages)
+                .toHashCode();
     }
 
     @Override
@@ -243,6 +305,73 @@ public class DefaultProblem implements Problem {
         }
         DefaultProblem that = (DefaultProblem) o;
         return new EqualsBuilder().append(name, that.name).append(roadGraph, that.roadGraph).append(
-                vehicleMap, that.vehicleMap).append(packageMap, that.packageMap).isEquals();
+                vehicles, that.vehicles).append(packages, that.packages).isEquals();
+    }
+
+    /**
+     * The symbol table of a problem, together with its vehicles and packages indexed by their ids.
+     * Immutable, therefore safely shared between problems and threads.
+     */
+    private static final class Symbols {
+
+        private final SymbolTable table;
+        private final Vehicle[] vehicles;
+        private final Package[] packages;
+
+        /**
+         * Default constructor, looks up the vehicles and packages of all ids.
+         *
+         * @param table the symbol table
+         * @param vehicles the vehicle map
+         * @param packages the package map
+         */
+        Symbols(SymbolTable table, HashMap<String, Vehicle> vehicles, HashMap<String, Package> packages) {
+            this(table, new Vehicle[table.getVehicleCount()], new Package[table.getPackageCount()]);
+            for (int id = 0; id < this.vehicles.length; id++) {
+                this.vehicles[id] = vehicles.get(table.getVehicleName(id)).get();
+            }
+            for (int id = 0; id < this.packages.length; id++) {
+                this.packages[id] = packages.get(table.getPackageName(id)).get();
+            }
+        }
+
+        /**
+         * Private constructor.
+         *
+         * @param table the symbol table
+         * @param vehicles the vehicles indexed by their ids, not copied
+         * @param packages the packages indexed by their ids, not copied
+         */
+        private Symbols(SymbolTable table, Vehicle[] vehicles, Package[] packages) {
+            this.table = table;
+            this.vehicles = vehicles;
+            this.packages = packages;
+        }
+
+        /**
+         * Replace an existing vehicle.
+         *
+         * @param name the name of the vehicle
+         * @param vehicle the new vehicle
+         * @return the updated symbols
+         */
+        Symbols putVehicle(String name, Vehicle vehicle) {
+            Vehicle[] newVehicles = vehicles.clone();
+            newVehicles[table.getVehicleId(name)] = vehicle;
+            return new Symbols(table, newVehicles, packages);
+        }
+
+        /**
+         * Replace an existing package.
+         *
+         * @param name the name of the package
+         * @param pkg the new package
+         * @return the updated symbols
+         */
+        Symbols putPackage(String name, Package pkg) {
+            Package[] newPackages = packages.clone();
+            newPackages[table.getPackageId(name)] = pkg;
+            return new Symbols(table, vehicles, newPackages);
+        }
     }
 }
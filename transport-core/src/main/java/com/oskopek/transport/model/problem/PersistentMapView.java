@@ -0,0 +1,125 @@
+package com.oskopek.transport.model.problem;
+
+import javaslang.Tuple2;
+import javaslang.collection.HashMap;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An unmodifiable {@link Map} view of a persistent (structurally shared) javaslang {@link HashMap}, keyed by names.
+ * Lookups are delegated to the persistent map, no entries are copied. The values are collected into an array
+ * on the first call of {@link #values()}, after which iterating them does not allocate (the view is immutable).
+ *
+ * @param <V> the type of values
+ */
+final class PersistentMapView<V> extends AbstractMap<String, V> {
+
+    private final HashMap<String, V> map;
+    private transient Set<Map.Entry<String, V>> entrySet;
+    private transient Collection<V> values;
+
+    /**
+     * Default constructor.
+     *
+     * @param map the persistent map to view
+     */
+    PersistentMapView(HashMap<String, V> map) {
+        this.map = map;
+    }
+
+    /**
+     * Get a persistent map with the entries of the given map. If the map is a view of a persistent map,
+     * that map is returned without copying.
+     *
+     * @param map the map
+     * @param <V> the type of values
+     * @return the persistent map
+     */
+    @SuppressWarnings("unchecked")
+    static <V> HashMap<String, V> toPersistent(Map<String, ? extends V> map) {
+        if (map instanceof PersistentMapView) {
+            return ((PersistentMapView<V>) map).map;
+        }
+        return HashMap.ofAll(map);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return map.get((String) key).getOrElse((V) null);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && map.containsKey((String) key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, V>>() {
+                @Override
+                public Iterator<Map.Entry<String, V>> iterator() {
+                    return map.iterator().<Map.Entry<String, V>>map(PersistentMapView::toEntry);
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<V> values() {
+        if (values == null) {
+            Object[] array = new Object[map.size()];
+            int i = 0;
+            for (Tuple2<String, V> tuple : map) {
+                array[i++] = tuple._2;
+            }
+            List<V> list = (List<V>) Arrays.asList(array); // fixed-size, its iterator does not support removal
+            values = new AbstractCollection<V>() { // identity equality, like AbstractMap#values()
+                @Override
+                public Iterator<V> iterator() {
+                    return list.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return list.size();
+                }
+            };
+        }
+        return values;
+    }
+
+    /**
+     * Convert a persistent map entry to an immutable {@link Map.Entry}.
+     *
+     * @param tuple the entry tuple
+     * @param <V> the type of values
+     * @return the entry
+     */
+    private static <V> Map.Entry<String, V> toEntry(Tuple2<String, V> tuple) {
+        return new AbstractMap.SimpleImmutableEntry<>(tuple._1, tuple._2);
+    }
+}
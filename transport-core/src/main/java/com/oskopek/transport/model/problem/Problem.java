@@ -94,6 +94,37 @@ public interface Problem {
      */
     Map<String, Package> getPackageMap();
 
+    /**
+     * Get the symbol table, assigning dense integer ids to all action objects of this problem.
+     * Implementations may cache the table, as long as it is {@link SymbolTable#isCurrent(RoadGraph) current}
+     * for the road graph.
+     *
+     * @return the symbol table
+     */
+    default SymbolTable getSymbolTable() {
+        return SymbolTable.of(this);
+    }
+
+    /**
+     * Get the vehicle.
+     *
+     * @param id the id of the vehicle in this problem's {@link #getSymbolTable() symbol table}
+     * @return the vehicle
+     */
+    default Vehicle getVehicle(int id) {
+        return getVehicle(getSymbolTable().getVehicleName(id));
+    }
+
+    /**
+     * Get the package.
+     *
+     * @param id the id of the package in this problem's {@link #getSymbolTable() symbol table}
+     * @return the package
+     */
+    default Package getPackage(int id) {
+        return getPackage(getSymbolTable().getPackageName(id));
+    }
+
     /**
      * Update the name of the problem, creating a new problem.
      *
@@ -0,0 +1,338 @@
+package com.oskopek.transport.model.problem;
+
+import com.oskopek.transport.model.problem.graph.RoadEdge;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable per-problem symbol table. Assigns dense integer ids (starting at 0, in the lexicographic order of
+ * their names) to all locations, vehicles, packages and roads of a problem. Additionally, stores
+ * the road graph in an id-based adjacency list form.
+ * <p>
+ * The ids are only valid for problems with the same action objects and road graph as the problem
+ * the table was built from. The {@link RoadGraph#getModificationCount() modification count} of the graph
+ * is recorded, so that tables of graphs modified since can be detected, see {@link #isCurrent(RoadGraph)}.
+ * Vehicles and packages change with every applied action, therefore only their names are stored,
+ * see {@link Problem#getVehicle(int)} and {@link Problem#getPackage(int)}.
+ */
+public final class SymbolTable {
+
+    private final Location[] locations;
+    private final Map<String, Integer> locationIds;
+    private final String[] vehicleNames;
+    private final Map<String, Integer> vehicleIds;
+    private final String[] packageNames;
+    private final Map<String, Integer> packageIds;
+    private final Road[] roads;
+    private final Map<String, Integer> roadIds;
+    private final int[] roadFrom;
+    private final int[] roadTo;
+    private final int[] roadLength;
+    private final int[][] outgoingRoads;
+    private final long graphModificationCount;
+
+    /**
+     * Private default constructor.
+     *
+     * @param graph the road graph
+     * @param vehicleNames the vehicle names, sorted
+     * @param packageNames the package names, sorted
+     */
+    private SymbolTable(RoadGraph graph, String[] vehicleNames, String[] packageNames) {
+        graphModificationCount = graph.getModificationCount();
+        locations = graph.getAllLocations().sorted(Comparator.comparing(Location::getName)).toArray(Location[]::new);
+        locationIds = new HashMap<>(locations.length * 2);
+        for (int i = 0; i < locations.length; i++) {
+            locationIds.put(locations[i].getName(), i);
+        }
+        this.vehicleNames = vehicleNames;
+        vehicleIds = indexOf(vehicleNames);
+        this.packageNames = packageNames;
+        packageIds = indexOf(packageNames);
+
+        List<RoadEdge> edges = graph.getAllRoads().sorted(Comparator.comparing(e -> e.getRoad().getName()))
+                .collect(Collectors.toList());
+        roads = new Road[edges.size()];
+        roadIds = new HashMap<>(edges.size() * 2);
+        roadFrom = new int[edges.size()];
+        roadTo = new int[edges.size()];
+        roadLength = new int[edges.size()];
+        List<List<Integer>> outgoing = new ArrayList<>(locations.length);
+        for (int i = 0; i < locations.length; i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (int i = 0; i < roads.length; i++) {
+            RoadEdge edge = edges.get(i);
+            roads[i] = edge.getRoad();
+            roadIds.put(roads[i].getName(), i);
+            roadFrom[i] = locationIds.get(edge.getFrom().getName());
+            roadTo[i] = locationIds.get(edge.getTo().getName());
+            roadLength[i] = roads[i].getLength().getCost();
+            outgoing.get(roadFrom[i]).add(i);
+        }
+        outgoingRoads = new int[locations.length][];
+        for (int i = 0; i < locations.length; i++) {
+            outgoingRoads[i] = outgoing.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Build the symbol table of the given problem.
+     *
+     * @param problem the problem
+     * @return the symbol table
+     */
+    public static SymbolTable of(Problem problem) {
+        return new SymbolTable(problem.getRoadGraph(),
+                problem.getVehicleMap().keySet().stream().sorted().toArray(String[]::new),
+                problem.getPackageMap().keySet().stream().sorted().toArray(String[]::new));
+    }
+
+    /**
+     * Build the symbol table of the given road graph. The table contains no vehicles and packages, the location
+     * and road ids are the same as in the table of any problem with this road graph.
+     *
+     * @param graph the road graph
+     * @return the symbol table
+     */
+    public static SymbolTable of(RoadGraph graph) {
+        return new SymbolTable(graph, new String[0], new String[0]);
+    }
+
+    /**
+     * Create a name to index lookup map.
+     *
+     * @param names the names
+     * @return the map
+     */
+    private static Map<String, Integer> indexOf(String[] names) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        return ids;
+    }
+
+    /**
+     * Null-safe id lookup.
+     *
+     * @param ids the id map
+     * @param name the name
+     * @return the id, or -1 if not found
+     */
+    private static int idOf(Map<String, Integer> ids, String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Test if the table is still valid for the given graph, i.e. if the graph was not modified since the table
+     * was built from it.
+     *
+     * @param graph the road graph the table was built from
+     * @return true iff the graph was not modified since
+     */
+    public boolean isCurrent(RoadGraph graph) {
+        return graph.getModificationCount() == graphModificationCount;
+    }
+
+    /**
+     * Get the number of locations.
+     *
+     * @return the location count
+     */
+    public int getLocationCount() {
+        return locations.length;
+    }
+
+    /**
+     * Get the number of vehicles.
+     *
+     * @return the vehicle count
+     */
+    public int getVehicleCount() {
+        return vehicleNames.length;
+    }
+
+    /**
+     * Get the number of packages.
+     *
+     * @return the package count
+     */
+    public int getPackageCount() {
+        return packageNames.length;
+    }
+
+    /**
+     * Get the number of roads.
+     *
+     * @return the road count
+     */
+    public int getRoadCount() {
+        return roads.length;
+    }
+
+    /**
+     * Get the location id.
+     *
+     * @param name the location name
+     * @return the id, or -1 if there is no such location
+     */
+    public int getLocationId(String name) {
+        return idOf(locationIds, name);
+    }
+
+    /**
+     * Get the location id.
+     *
+     * @param location the location
+     * @return the id, or -1 if there is no such location
+     */
+    public int getLocationId(Location location) {
+        return getLocationId(location.getName());
+    }
+
+    /**
+     * Get the location.
+     *
+     * @param id the location id
+     * @return the location, as it was when this table was built
+     */
+    public Location getLocation(int id) {
+        return locations[id];
+    }
+
+    /**
+     * Get the vehicle id.
+     *
+     * @param name the vehicle name
+     * @return the id, or -1 if there is no such vehicle
+     */
+    public int getVehicleId(String name) {
+        return idOf(vehicleIds, name);
+    }
+
+    /**
+     * Get the vehicle name.
+     *
+     * @param id the vehicle id
+     * @return the name
+     */
+    public String getVehicleName(int id) {
+        return vehicleNames[id];
+    }
+
+    /**
+     * Get the package id.
+     *
+     * @param name the package name
+     * @return the id, or -1 if there is no such package
+     */
+    public int getPackageId(String name) {
+        return idOf(packageIds, name);
+    }
+
+    /**
+     * Get the package name.
+     *
+     * @param id the package id
+     * @return the name
+     */
+    public String getPackageName(int id) {
+        return packageNames[id];
+    }
+
+    /**
+     * Get the road id.
+     *
+     * @param name the road name
+     * @return the id, or -1 if there is no such road
+     */
+    public int getRoadId(String name) {
+        return idOf(roadIds, name);
+    }
+
+    /**
+     * Get the id of the shortest road between the two locations.
+     *
+     * @param fromId the from location id
+     * @param toId the to location id
+     * @return the road id, or -1 if there is no road from {@code fromId} to {@code toId}
+     */
+    public int getRoadId(int fromId, int toId) {
+        int shortest = -1;
+        for (int road : outgoingRoads[fromId]) {
+            if (roadTo[road] == toId && (shortest < 0 || roadLength[road] < roadLength[shortest])) {
+                shortest = road;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Get the road.
+     *
+     * @param id the road id
+     * @return the road
+     */
+    public Road getRoad(int id) {
+        return roads[id];
+    }
+
+    /**
+     * Get the id of the location the road starts at.
+     *
+     * @param roadId the road id
+     * @return the from location id
+     */
+    public int getRoadFrom(int roadId) {
+        return roadFrom[roadId];
+    }
+
+    /**
+     * Get the id of the location the road leads to.
+     *
+     * @param roadId the road id
+     * @return the to location id
+     */
+    public int getRoadTo(int roadId) {
+        return roadTo[roadId];
+    }
+
+    /**
+     * Get the road length.
+     *
+     * @param roadId the road id
+     * @return the road length
+     */
+    public int getRoadLength(int roadId) {
+        return roadLength[roadId];
+    }
+
+    /**
+     * Get the road edge of the road.
+     *
+     * @param roadId the road id
+     * @return the road edge
+     */
+    public RoadEdge getRoadEdge(int roadId) {
+        return RoadEdge.of(roads[roadId], locations[roadFrom[roadId]], locations[roadTo[roadId]]);
+    }
+
+    /**
+     * Get the ids of all roads leaving the location. Intentionally not copied, do not modify.
+     *
+     * @param locationId the location id
+     * @return the outgoing road ids
+     */
+    public int[] getOutgoingRoads(int locationId) {
+        return outgoingRoads[locationId];
+    }
+
+}
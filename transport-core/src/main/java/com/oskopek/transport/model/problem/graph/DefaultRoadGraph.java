@@ -7,6 +7,8 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.ElementNotFoundException;
 import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractEdge;
+import org.graphstream.graph.implementations.AbstractNode;
 import org.graphstream.graph.implementations.MultiGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +26,7 @@ import java.util.stream.Stream;
 public class DefaultRoadGraph extends MultiGraph implements RoadGraph {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private long modificationCount; // no initializer, the callbacks are called from the super constructor
 
     /**
      * Copy constructor.
@@ -50,6 +53,41 @@ public class DefaultRoadGraph extends MultiGraph implements RoadGraph {
         return new DefaultRoadGraph(this);
     }
 
+    @Override
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    @Override
+    protected void addNodeCallback(AbstractNode node) {
+        super.addNodeCallback(node);
+        modificationCount++;
+    }
+
+    @Override
+    protected void removeNodeCallback(AbstractNode node) {
+        super.removeNodeCallback(node);
+        modificationCount++;
+    }
+
+    @Override
+    protected void addEdgeCallback(AbstractEdge edge) {
+        super.addEdgeCallback(edge);
+        modificationCount++;
+    }
+
+    @Override
+    protected void removeEdgeCallback(AbstractEdge edge) {
+        super.removeEdgeCallback(edge);
+        modificationCount++;
+    }
+
+    @Override
+    protected void clearCallback() {
+        super.clearCallback();
+        modificationCount++;
+    }
+
     /**
      * Add a new node to the graph representing the location.
      *
@@ -99,6 +137,7 @@ public class DefaultRoadGraph extends MultiGraph implements RoadGraph {
         Location original = getAttribute(name);
         Location newLocation = new Location(original.getName(), newX, newY);
         setAttribute(newLocation.getName(), newLocation);
+        modificationCount++;
         return original;
     }
 
@@ -114,6 +153,7 @@ public class DefaultRoadGraph extends MultiGraph implements RoadGraph {
         Location original = getAttribute(locationName);
         Location newLocation = original.updateHasPetrolStation(hasPetrolStation);
         setAttribute(newLocation.getName(), newLocation);
+        modificationCount++;
         return original;
     }
 
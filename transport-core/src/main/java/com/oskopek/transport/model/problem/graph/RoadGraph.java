@@ -22,6 +22,14 @@ public interface RoadGraph extends Graph {
      */
     RoadGraph copy();
 
+    /**
+     * Get the number of modifications of the locations and roads of this graph so far. Any addition or removal
+     * of a node or an edge and any replacement of a location increments it.
+     *
+     * @return the modification count
+     */
+    long getModificationCount();
+
     /**
      * Add a new node to the graph representing the location.
      *
@@ -30,6 +30,15 @@ public class DefaultPlanState implements PlanState {
         this.problem = problem;
     }
 
+    /**
+     * Get the current (immutable) problem describing this state.
+     *
+     * @return the problem
+     */
+    Problem getProblem() {
+        return problem;
+    }
+
     @Override
     public void applyPreconditions(Action action) {
         logger.trace("Checking preconditions of action {}.", action.getName());
@@ -8,24 +8,39 @@ import org.apache.commons.lang3.builder.CompareToBuilder;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.stream.Collectors;
-import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 /**
  * A plan state manager for temporal domains. Can be used for sequential domains too.
  * Checkpoints in this manager are defined as applying the end of the next/previous action in the plan with respect to
  * time.
+ * <p>
+ * The start and end events of all actions are sorted once, times are looked up using binary search.
+ * Moving forward in time applies only the events between the current and the target time. Every
+ * {@link #SNAPSHOT_INTERVAL} applied events, the state is saved (states are immutable problems, therefore cheap
+ * to keep), and moving backward in time resumes from the nearest preceding snapshot.
  */
 public class TemporalPlanStateManager implements PlanStateManager {
 
+    /**
+     * The number of events between two consecutive state snapshots.
+     */
+    private static final int SNAPSHOT_INTERVAL = 64;
+
     private final Problem problem;
     private final List<TemporalPlanAction> temporalPlanActions;
+    private final double[] actionStarts;
+    private final TimeElement<TemporalPlanAction>[] events;
+    private final double[] eventTimes;
+    private final List<Problem> snapshots = new ArrayList<>();
+    private int appliedEvents;
     private PlanActionPointer pointer;
-    private PlanState state;
+    private DefaultPlanState state;
 
     /**
      * Default constructor.
@@ -34,10 +49,16 @@ public class TemporalPlanStateManager implements PlanStateManager {
      * @param problem the problem (beginning state)
      * @param plan the plan to simulate
      */
+    @SuppressWarnings("unchecked")
     public TemporalPlanStateManager(Domain domain, Problem problem, Plan plan) {
         this.problem = problem;
         this.temporalPlanActions = plan.getTemporalPlanActions().stream().sorted().collect(Collectors.toList());
+        this.actionStarts = temporalPlanActions.stream().mapToDouble(TemporalPlanAction::getStartTimestamp).toArray();
+        this.events = temporalPlanActions.stream().flatMap(t -> Stream.of(new TimeElement<>(t.getStartTimestamp(),
+                false, t), new TimeElement<>(t.getEndTimestamp(), true, t))).sorted().toArray(TimeElement[]::new);
+        this.eventTimes = Arrays.stream(events).mapToDouble(TimeElement::getTime).toArray();
         this.state = getBeginningState();
+        this.snapshots.add(problem);
         this.pointer = new PlanActionPointer(0, false);
     }
 
@@ -56,78 +77,116 @@ public class TemporalPlanStateManager implements PlanStateManager {
      *
      * @return the beginning state
      */
-    private PlanState getBeginningState() {
+    private DefaultPlanState getBeginningState() {
         return new DefaultPlanState(problem);
     }
 
     @Override
     public void goToTime(Double time, boolean applyStarts) {
-        state = getBeginningState();
-        double simulationTime = applyAll(time, applyStarts);
+        int target = countEventsUpTo(time, applyStarts);
+        if (target < appliedEvents) {
+            int snapshot = target / SNAPSHOT_INTERVAL;
+            state = new DefaultPlanState(snapshots.get(snapshot));
+            appliedEvents = snapshot * SNAPSHOT_INTERVAL;
+        } else {
+            state = new DefaultPlanState(state.getProblem()); // do not mutate the previously returned state
+        }
+        applyUpTo(target);
         pointer = new PlanActionPointer(time, applyStarts);
     }
 
     /**
-     * Applies all actions from the beginning of the plan to the given time, including. If apply starts is true,
-     * also applies the "at start" effects of actions at the given time. Mutates the internal plan state.
+     * Count the events that occur up to the given time, including. Ends of actions at the given time are counted,
+     * starts of actions at the given time are counted only if apply starts is true. Because events are sorted by time
+     * and ends precede starts, these events are a prefix of the sorted events.
      *
-     * @param upToIncluding the time up to which to apply actions from the plan, including
-     * @param applyStarts if true, will apply the "at start" effects of actions at time {@code upToIncluding}
-     * @return the last time an action effect was applied
+     * @param upToIncluding the time up to which to count events, including
+     * @param applyStarts if true, will count the starts of actions at time {@code upToIncluding}
+     * @return the number of events
      */
-    private double applyAll(double upToIncluding, boolean applyStarts) {
-        Stream<TimeElement<TemporalPlanAction>> actions = temporalPlanActions.stream()
-                .flatMap(t -> Stream.of(new TimeElement<>(t.getStartTimestamp(), false, t),
-                        new TimeElement<>(t.getEndTimestamp(), true, t)))
-                .filter(t -> t.getTime() <= upToIncluding);
-
-        if (!applyStarts) {
-            actions = actions.filter(t -> !(t.getTime() == upToIncluding && !t.isEnd()));
+    private int countEventsUpTo(double upToIncluding, boolean applyStarts) {
+        int from = firstIndexAfter(eventTimes, upToIncluding, false);
+        int to = firstIndexAfter(eventTimes, upToIncluding, true);
+        if (applyStarts) {
+            return to;
+        }
+        while (from < to && events[from].isEnd()) {
+            from++;
         }
+        return from;
+    }
 
-        PriorityQueue<TimeElement<TemporalPlanAction>> applyQueue = new PriorityQueue<>(
-                actions.collect(Collectors.toList()));
-
-        double simulationTime = 0;
-        TimeElement<TemporalPlanAction> head;
-        while ((head = applyQueue.poll()) != null) {
-            TemporalPlanAction action = head.getPayload();
-            simulationTime = head.getTime();
-            if (simulationTime == action.getStartTimestamp()) {
-                state.applyPreconditions(action.getAction());
-            } else if (simulationTime == action.getEndTimestamp()) {
-                state.applyEffects(action.getAction());
+    /**
+     * Binary search for the first index with a value after the given time in a sorted array.
+     *
+     * @param sorted the sorted array
+     * @param time the time
+     * @param inclusive if true, values equal to the time are not after it
+     * @return the first index with a value greater than the time (or greater or equal, if not inclusive),
+     * or the array length if there is none
+     */
+    private static int firstIndexAfter(double[] sorted, double time, boolean inclusive) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < time || (inclusive && sorted[mid] == time)) {
+                low = mid + 1;
             } else {
-                throw new IllegalStateException("Cannot occur.");
+                high = mid;
             }
+        }
+        return low;
+    }
 
+    /**
+     * Applies the events from the current position up to the given number of applied events, saving snapshots
+     * of the state along the way. Mutates the internal plan state.
+     *
+     * @param target the number of events that should be applied
+     */
+    private void applyUpTo(int target) {
+        while (appliedEvents < target) {
+            TimeElement<TemporalPlanAction> event = events[appliedEvents];
+            if (event.isEnd()) {
+                state.applyEffects(event.getPayload().getAction());
+            } else {
+                state.applyPreconditions(event.getPayload().getAction());
+            }
+            appliedEvents++;
+            if (appliedEvents % SNAPSHOT_INTERVAL == 0 && snapshots.size() == appliedEvents / SNAPSHOT_INTERVAL) {
+                snapshots.add(state.getProblem());
+            }
         }
-        return simulationTime;
     }
 
     @Override
     public void goToNextCheckpoint() {
-        temporalPlanActions.stream().flatMapToDouble(t -> DoubleStream.of(t.getStartTimestamp(), t.getEndTimestamp()))
-                .filter(t -> t > pointer.getTime()).min().ifPresent(res -> goToTime(res, false));
+        int next = firstIndexAfter(eventTimes, pointer.getTime(), true);
+        if (next < eventTimes.length) {
+            goToTime(eventTimes[next], false);
+        }
     }
 
     @Override
     public void goToPreviousCheckpoint() {
-        temporalPlanActions.stream().flatMapToDouble(t -> DoubleStream.of(t.getStartTimestamp(), t.getEndTimestamp()))
-                .filter(t -> t < pointer.getTime()).max()
-                .ifPresent(res -> goToTime(res, false));
+        int previous = firstIndexAfter(eventTimes, pointer.getTime(), false) - 1;
+        if (previous >= 0) {
+            goToTime(eventTimes[previous], false);
+        }
     }
 
     @Override
     public Optional<TemporalPlanAction> getLastAction() {
-        return javaslang.collection.Stream.ofAll(temporalPlanActions).reverse()
-                .dropWhile(t -> t.getStartTimestamp() > pointer.getTime())
-                .dropWhile(t -> !pointer.isStartsApplied() && t.getStartTimestamp() == pointer.getTime())
-                .take(1).toJavaOptional();
+        int started = firstIndexAfter(actionStarts, pointer.getTime(), pointer.isStartsApplied());
+        if (started == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(temporalPlanActions.get(started - 1));
     }
 
     /**
-     * Simple data struct, used in a time-oriented priority queue.
+     * Simple data struct, used for sorting action events by time.
      * <p>
      * The ordering is based on the time. If the time is inconclusive, elements with {@code isEnd == true}
      * are ranked before {@code isEnd == false} (ends of actions before starts of actions).
@@ -143,7 +202,7 @@ public class TemporalPlanStateManager implements PlanStateManager {
         /**
          * Default constructor.
          *
-         * @param time the time of the element (priority in the priority queue)
+         * @param time the time of the element (the primary sort key)
          * @param isEnd true iff this element represent an end of an action (not a start)
          * @param payload the payload object
          */
@@ -172,7 +231,7 @@ public class TemporalPlanStateManager implements PlanStateManager {
         }
 
         /**
-         * Get the time (priority in the priority queue).
+         * Get the time (the primary sort key).
          *
          * @return the time
          */
@@ -6,42 +6,35 @@ import com.oskopek.transport.model.domain.action.ActionCost;
 import com.oskopek.transport.model.problem.*;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.model.problem.graph.DefaultRoadGraph;
+import com.oskopek.transport.model.problem.graph.RoadEdge;
 import com.oskopek.transport.model.problem.graph.RoadGraph;
 import com.oskopek.transport.persistence.antlr4.PddlLexer;
 import com.oskopek.transport.persistence.antlr4.PddlParser;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
-import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
-import javaslang.Tuple;
-import javaslang.Tuple3;
-import javaslang.collection.Array;
-import javaslang.collection.Seq;
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Reader and writer for {@link DefaultProblem} to and from PDDL (supports only Transport domains).
- * Uses a Freemarker template internally for serialization and ANTLR for deserialization.
+ * Serializes by writing the PDDL directly, line by line, and uses ANTLR for deserialization from strings.
+ * Large problems can be read from a {@link Reader} or a {@link Path} by a streaming parser, which builds the graph,
+ * vehicles and packages directly from the tokens without reading the whole input or building a parse tree.
  */
 public class DefaultProblemIO implements DataIO<Problem> {
 
-    private static final Configuration configuration = new Configuration(Configuration.VERSION_2_3_25);
-
-    static {
-        configuration.setClassForTemplateLoading(DefaultProblemIO.class, "");
-        configuration.setDefaultEncoding("UTF-8");
-        configuration.setLocale(Locale.US);
-        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-    }
-
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
     private final Domain domain;
 
@@ -56,51 +49,180 @@ public class DefaultProblemIO implements DataIO<Problem> {
 
     @Override
     public String serialize(Problem object) {
-        Map<String, Object> input = new HashMap<>(30);
-        input.put("date", new Date());
-        input.put("title", object.getName().replaceFirst("transport-", ""));
-        input.put("domain", domain);
-        input.put("problem", object);
-        input.put("packageList",
-                object.getAllPackages().stream().sorted(Comparator.comparing(DefaultActionObject::getName))
-                        .collect(Collectors.toList()));
-        input.put("locationList",
-                object.getRoadGraph().getAllLocations().sorted(Comparator.comparing(Location::getName))
-                        .collect(Collectors.toList()));
-        input.put("vehicleList",
-                object.getAllVehicles().stream().sorted(Comparator.comparing(DefaultActionObject::getName))
-                        .collect(Collectors.toList()));
-        Seq<Location> allLocations = object.getRoadGraph().getAllLocations().collect(Array.collector());
-        List<Tuple3<Location, Location, Road>> roads = allLocations.crossProduct().map(
-                t -> Tuple.of(t._1, t._2, object.getRoadGraph().getShortestRoadBetween(t._1, t._2)))
-                .filter(t -> t._3 != null).toJavaList();
-        input.put("roads", roads);
-        input.put("petrolLocationList", allLocations.filter(Location::hasPetrolStation).toJavaList());
-        Optional<Integer> maxCapacityOpt = object.getAllVehicles().stream().map(Vehicle::getMaxCapacity).map(
-                ActionCost::getCost).max(Integer::compare);
-        int maxCapacity = 0;
-        if (maxCapacityOpt.isPresent()) {
-            maxCapacity = maxCapacityOpt.get();
-        }
-        input.put("maxCapacity", maxCapacity);
-        input.put("actionCost", PddlLabel.ActionCost);
-        input.put("numeric", PddlLabel.Numeric);
-        input.put("temporal", PddlLabel.Temporal);
-
-        Template template;
+        StringWriter writer = new StringWriter();
         try {
-            template = configuration.getTemplate("problem.pddl.ftl");
+            serialize(object, writer);
         } catch (IOException e) {
-            throw new IllegalStateException("Error occurred during reading template file.", e);
+            throw new IllegalStateException("Error occurred during serializing problem.", e);
         }
+        return writer.toString();
+    }
 
-        StringWriter writer = new StringWriter();
-        try {
-            template.process(input, writer);
-        } catch (IOException | TemplateException e) {
-            throw new IllegalStateException("Error occurred during processing template.", e);
+    /**
+     * Serialize the problem to a file, see {@link #serialize(Problem, Writer)}. The file is written as UTF-8.
+     *
+     * @param problem the problem to serialize
+     * @param path the path of the file to write, overwritten if it exists
+     * @throws IOException if an error during writing occurs
+     */
+    public void serialize(Problem problem, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            serialize(problem, writer);
+        }
+    }
+
+    /**
+     * Serialize the problem to a writer line by line, without building the whole output in memory.
+     * Roads are listed from a single pass over the graph's edges (the shortest road for every pair of locations),
+     * ordered by the graph's location order.
+     *
+     * @param problem the problem to serialize
+     * @param writer the writer to write to, not closed
+     * @throws IOException if an error during writing occurs
+     */
+    public void serialize(Problem problem, Writer writer) throws IOException {
+        Set<PddlLabel> labels = domain.getPddlLabels();
+        boolean capacityNumbers = labels.contains(PddlLabel.ActionCost) || labels.contains(PddlLabel.Numeric);
+        boolean temporal = labels.contains(PddlLabel.Temporal);
+        List<Location> allLocations = problem.getRoadGraph().getAllLocations().collect(Collectors.toList());
+        List<Package> packages = problem.getAllPackages().stream()
+                .sorted(Comparator.comparing(DefaultActionObject::getName)).collect(Collectors.toList());
+        List<Vehicle> vehicles = problem.getAllVehicles().stream()
+                .sorted(Comparator.comparing(DefaultActionObject::getName)).collect(Collectors.toList());
+        int maxCapacity = vehicles.stream().mapToInt(v -> v.getMaxCapacity().getCost()).max().orElse(0);
+
+        writeLine(writer, "; Transport ", problem.getName().replaceFirst("transport-", ""));
+        writeLine(writer);
+        writeLine(writer, "(define (problem ", problem.getName(), ")");
+        writeLine(writer, "(:domain transport)");
+        writeLine(writer, "(:objects");
+        for (Location location : allLocations.stream().sorted(Comparator.comparing(Location::getName))
+                .collect(Collectors.toList())) {
+            writeLine(writer, location.getName(), " - location");
+        }
+        for (Vehicle vehicle : vehicles) {
+            writeLine(writer, vehicle.getName(), " - vehicle");
+        }
+        for (Package pkg : packages) {
+            writeLine(writer, pkg.getName(), " - package");
+        }
+        if (capacityNumbers) {
+            for (int i = 0; i <= maxCapacity; i++) {
+                writeLine(writer, "capacity-", i, " - capacity-number");
+            }
+        }
+        writeLine(writer, ")");
+
+        writeLine(writer, "(:init");
+        if (capacityNumbers) {
+            writeLine(writer, "(= (total-cost) 0)");
+            for (int i = 1; i <= maxCapacity; i++) {
+                writeLine(writer, "(capacity-predecessor capacity-", i - 1, " capacity-", i, ")");
+            }
+        }
+        boolean fuelDemand = domain.getFunctionMap().get("fuel-demand") != null;
+        for (RoadEdge edge : listShortestRoads(problem.getRoadGraph(), allLocations)) {
+            Location from = edge.getFrom();
+            Location to = edge.getTo();
+            writeLine(writer, "; ", from.getxCoordinate(), ",", from.getyCoordinate(), " -> ", to.getxCoordinate(),
+                    ",", to.getyCoordinate());
+            writeLine(writer, "(road ", from.getName(), " ", to.getName(), ")");
+            writeLine(writer, "(= (road-length ", from.getName(), " ", to.getName(), ") ", edge.getRoad().getLength(),
+                    ")");
+            if (fuelDemand) {
+                ActionCost fuelCost = edge.getRoad() instanceof FuelRoad ? ((FuelRoad) edge.getRoad()).getFuelCost()
+                        : null;
+                writeLine(writer, "(= (fuel-demand ", from.getName(), " ", to.getName(), ") ",
+                        fuelCost == null ? 0 : fuelCost, ")");
+            }
+        }
+        for (Package pkg : packages) {
+            writeLine(writer, "(at ", pkg.getName(), " ", pkg.getLocation().getName(), ")");
+            if (temporal) {
+                writeLine(writer, "(= (package-size ", pkg.getName(), ") ", pkg.getSize(), ")");
+            }
+        }
+        if (domain.getPredicateMap().get("has-petrol-station") != null) {
+            for (Location location : allLocations) {
+                if (location.hasPetrolStation()) {
+                    writeLine(writer, "(has-petrol-station ", location.getName(), ")");
+                }
+            }
+        }
+        boolean fuel = domain.getFunctionMap().get("fuel-left") != null;
+        for (Vehicle vehicle : vehicles) {
+            writeLine(writer, "(at ", vehicle.getName(), " ", vehicle.getLocation().getName(), ")");
+            if (temporal) {
+                writeLine(writer, "(ready-loading ", vehicle.getName(), ")");
+                writeLine(writer, "(= (capacity ", vehicle.getName(), ") ", vehicle.getMaxCapacity(), ")");
+            } else {
+                writeLine(writer, "(capacity ", vehicle.getName(), " capacity-", vehicle.getMaxCapacity(), ")");
+            }
+            if (fuel) {
+                writeLine(writer, "(= (fuel-left ", vehicle.getName(), ") ", vehicle.getCurFuelCapacity(), ")");
+                writeLine(writer, "(= (fuel-max ", vehicle.getName(), ") ", vehicle.getMaxFuelCapacity(), ")");
+            }
+        }
+        writeLine(writer, ")");
+
+        writeLine(writer, "(:goal (and");
+        for (Package pkg : packages) {
+            writeLine(writer, "(at ", pkg.getName(), " ", pkg.getTarget().getName(), ")");
+        }
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getTarget() != null) {
+                writeLine(writer, "(at ", vehicle.getName(), " ", vehicle.getTarget().getName(), ")");
+            }
+        }
+        writeLine(writer, "))");
+        writeLine(writer, temporal ? "(:metric minimize (total-time))" : "(:metric minimize (total-cost))");
+        writeLine(writer, ")");
+        writer.flush();
+    }
+
+    /**
+     * List the shortest road between every pair of locations connected by a road, in a single pass over
+     * the graph's roads. The roads are ordered by the from location, then by the to location, both in the order
+     * of the given location list.
+     *
+     * @param graph the graph
+     * @param locations all locations of the graph, in the graph's order
+     * @return the shortest roads
+     */
+    private static List<RoadEdge> listShortestRoads(RoadGraph graph, List<Location> locations) {
+        Map<String, Integer> indices = new HashMap<>(locations.size() * 2);
+        for (int i = 0; i < locations.size(); i++) {
+            indices.put(locations.get(i).getName(), i);
+        }
+        List<SortedMap<Integer, RoadEdge>> leaving = new ArrayList<>(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            leaving.add(new TreeMap<>());
         }
-        return writer.toString().replaceAll("\\r\\n", "\n");
+        graph.getAllRoads().forEach(edge -> {
+            SortedMap<Integer, RoadEdge> roads = leaving.get(indices.get(edge.getFrom().getName()));
+            int to = indices.get(edge.getTo().getName());
+            RoadEdge shortest = roads.get(to);
+            if (shortest == null || edge.getRoad().getLength().compareTo(shortest.getRoad().getLength()) < 0) {
+                roads.put(to, edge);
+            }
+        });
+        List<RoadEdge> roads = new ArrayList<>();
+        leaving.forEach(map -> roads.addAll(map.values()));
+        return roads;
+    }
+
+    /**
+     * Write the parts and a line separator ({@code \n}).
+     *
+     * @param writer the writer
+     * @param parts the parts of the line, written using {@link String#valueOf(Object)}
+     * @throws IOException if an error during writing occurs
+     */
+    private static void writeLine(Writer writer, Object... parts) throws IOException {
+        for (Object part : parts) {
+            writer.write(String.valueOf(part));
+        }
+        writer.write('\n');
     }
 
     /**
@@ -135,6 +257,224 @@ public class DefaultProblemIO implements DataIO<Problem> {
         return new DefaultProblem(parsed.name(), parsed.graph(), parsed.vehicleMap(), parsed.packageMap());
     }
 
+    /**
+     * Parse a default problem from a file using the streaming parser, see {@link #parseDefault(Reader)}.
+     * The file is read as UTF-8.
+     *
+     * @param path the path of the problem file
+     * @return an initialized instance of the problem object
+     * @throws IOException if an error during reading occurs
+     * @throws IllegalArgumentException if the contents cannot be parsed
+     */
+    public DefaultProblem parseDefault(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parseDefault(reader);
+        }
+    }
+
+    /**
+     * Parse a default problem from a reader using the streaming parser. Sections other than the problem name,
+     * domain, objects, initial state and goal are skipped. Unlike {@link #parseDefault(String)},
+     * which reads them as positive literals, negated and timed literals of the initial state are rejected,
+     * and the goal does not have to be a conjunction.
+     *
+     * @param reader the reader of the problem, not closed
+     * @return an initialized instance of the problem object
+     * @throws IOException if an error during reading occurs
+     * @throws IllegalArgumentException if the contents cannot be parsed or contain negated or timed initial literals
+     */
+    public DefaultProblem parseDefault(Reader reader) throws IOException {
+        PddlTokenizer tokens = new PddlTokenizer(reader);
+        tokens.expect(PddlTokenizer.OPEN);
+        tokens.expect("define");
+        tokens.expect(PddlTokenizer.OPEN);
+        tokens.expect("problem");
+        ParsedProblemContainer parsed = new ParsedProblemContainer(tokens.nextAtom());
+        tokens.expect(PddlTokenizer.CLOSE);
+        for (String token = tokens.next(); !PddlTokenizer.CLOSE.equals(token); token = tokens.next()) {
+            if (!PddlTokenizer.OPEN.equals(token)) {
+                throw tokens.unexpected(token, "a section");
+            }
+            String section = tokens.nextAtom();
+            switch (section) {
+                case ":domain":
+                    if (!tokens.nextAtom().equals("transport")) {
+                        throw new IllegalArgumentException("Domain is not a transport domain!");
+                    }
+                    tokens.expect(PddlTokenizer.CLOSE);
+                    break;
+                case ":objects":
+                    streamObjects(tokens, parsed);
+                    break;
+                case ":init":
+                    streamInit(tokens, parsed);
+                    break;
+                case ":goal":
+                    streamGoal(tokens, parsed);
+                    break;
+                default:
+                    tokens.skipList(); // requirements, constraints, metric
+                    break;
+            }
+        }
+        return new DefaultProblem(parsed.name(), parsed.graph(), parsed.vehicleMap(), parsed.packageMap());
+    }
+
+    /**
+     * Stream the contents of the {@code (:objects ...)} section, up to and including its closing parenthesis.
+     * Names without a type are ignored.
+     *
+     * @param tokens the tokenizer
+     * @param parsed intermediate problem properties aggregator
+     * @throws IOException if an error during reading occurs
+     */
+    private void streamObjects(PddlTokenizer tokens, ParsedProblemContainer parsed) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (String token = tokens.next(); !PddlTokenizer.CLOSE.equals(token); token = tokens.next()) {
+            if (token == null || PddlTokenizer.OPEN.equals(token)) {
+                throw tokens.unexpected(token, "an object name");
+            } else if ("-".equals(token)) {
+                String typeName = tokens.nextAtom();
+                for (String name : names) {
+                    parseObject(name, typeName, parsed);
+                }
+                names.clear();
+            } else {
+                names.add(token);
+            }
+        }
+    }
+
+    /**
+     * Stream the contents of the {@code (:init ...)} section, up to and including its closing parenthesis.
+     * Negated and timed literals are not supported.
+     *
+     * @param tokens the tokenizer
+     * @param parsed intermediate problem properties aggregator
+     * @throws IOException if an error during reading occurs
+     */
+    private void streamInit(PddlTokenizer tokens, ParsedProblemContainer parsed) throws IOException {
+        List<String> arguments = new ArrayList<>();
+        for (String token = tokens.next(); !PddlTokenizer.CLOSE.equals(token); token = tokens.next()) {
+            if (!PddlTokenizer.OPEN.equals(token)) {
+                throw tokens.unexpected(token, "an init element");
+            }
+            String head = tokens.nextAtom();
+            if ("=".equals(head)) { // (= (function terms*) number)
+                tokens.expect(PddlTokenizer.OPEN);
+                String function = tokens.nextAtom();
+                streamArguments(tokens, arguments);
+                int number = parseNumber(tokens, tokens.nextAtom());
+                tokens.expect(PddlTokenizer.CLOSE);
+                parseFunction(function, arguments, number, parsed);
+            } else if ("not".equals(head)) {
+                throw tokens.unexpected(head, "a positive initial literal");
+            } else {
+                streamArguments(tokens, arguments);
+                if ("at".equals(head) && (arguments.isEmpty() || isNumber(arguments.get(0)))) {
+                    throw tokens.unexpected(head, "an untimed initial literal");
+                } else if (!arguments.isEmpty()) {
+                    parsePredicate(head, arguments, parsed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the atoms of the current list into the buffer, up to and including its closing parenthesis.
+     * Nested lists are skipped and clear the buffer.
+     *
+     * @param tokens the tokenizer
+     * @param arguments the buffer to fill, cleared first
+     * @throws IOException if an error during reading occurs
+     */
+    private static void streamArguments(PddlTokenizer tokens, List<String> arguments) throws IOException {
+        arguments.clear();
+        boolean nested = false;
+        for (String token = tokens.next(); !PddlTokenizer.CLOSE.equals(token); token = tokens.next()) {
+            if (token == null) {
+                throw tokens.unexpected(null, PddlTokenizer.CLOSE);
+            } else if (PddlTokenizer.OPEN.equals(token)) {
+                tokens.skipList();
+                nested = true;
+            } else {
+                arguments.add(token);
+            }
+        }
+        if (nested) {
+            arguments.clear();
+        }
+    }
+
+    /**
+     * Stream the contents of the {@code (:goal ...)} section, up to and including its closing parenthesis.
+     * The goal is either a single atom or a conjunction of atoms.
+     *
+     * @param tokens the tokenizer
+     * @param parsed intermediate problem properties aggregator
+     * @throws IOException if an error during reading occurs
+     */
+    private static void streamGoal(PddlTokenizer tokens, ParsedProblemContainer parsed) throws IOException {
+        tokens.expect(PddlTokenizer.OPEN);
+        String head = tokens.nextAtom();
+        List<String> arguments = new ArrayList<>();
+        if ("and".equals(head)) {
+            for (String token = tokens.next(); !PddlTokenizer.CLOSE.equals(token); token = tokens.next()) {
+                if (!PddlTokenizer.OPEN.equals(token)) {
+                    throw tokens.unexpected(token, "a goal atom");
+                }
+                String predicate = tokens.nextAtom();
+                streamArguments(tokens, arguments);
+                streamGoalAtom(tokens, predicate, arguments, parsed);
+            }
+        } else {
+            streamArguments(tokens, arguments);
+            streamGoalAtom(tokens, head, arguments, parsed);
+        }
+        tokens.expect(PddlTokenizer.CLOSE);
+    }
+
+    /**
+     * Parse a streamed goal atom.
+     *
+     * @param tokens the tokenizer, used for error reporting
+     * @param predicate the predicate
+     * @param arguments the arguments
+     * @param parsed intermediate problem properties aggregator
+     */
+    private static void streamGoalAtom(PddlTokenizer tokens, String predicate, List<String> arguments,
+            ParsedProblemContainer parsed) {
+        if (arguments.size() != 2) {
+            throw tokens.unexpected(predicate, "a goal atom with two arguments");
+        }
+        parseGoal(predicate, arguments.get(0), arguments.get(1), parsed);
+    }
+
+    /**
+     * Test if the atom is a number.
+     *
+     * @param atom the atom
+     * @return true iff the atom starts with a digit
+     */
+    private static boolean isNumber(String atom) {
+        return !atom.isEmpty() && Character.isDigit(atom.charAt(0));
+    }
+
+    /**
+     * Parse an integer number atom.
+     *
+     * @param tokens the tokenizer, used for error reporting
+     * @param atom the atom
+     * @return the number
+     */
+    private static int parseNumber(PddlTokenizer tokens, String atom) {
+        try {
+            return Integer.parseInt(atom);
+        } catch (NumberFormatException e) {
+            throw tokens.unexpected(atom, "an integer");
+        }
+    }
+
 
     @Override
     public Problem parse(String contents) {
@@ -150,23 +490,30 @@ public class DefaultProblemIO implements DataIO<Problem> {
     private void parseInit(PddlParser.InitContext initContext, ParsedProblemContainer parsed) {
         for (PddlParser.InitElContext initElContext : initContext.initEl()) {
             if (initElContext.nameLiteral() != null) {
-                parsePredicate(initElContext, parsed);
+                PddlParser.AtomicNameFormulaContext formula = initElContext.nameLiteral().atomicNameFormula();
+                parsePredicate(formula.predicate().getText(),
+                        formula.NAME().stream().map(ParseTree::getText).collect(Collectors.toList()), parsed);
             }
             if (initElContext.fHead() != null) {
-                parseFunction(initElContext, parsed);
+                PddlParser.FHeadContext fhead = initElContext.fHead();
+                if (fhead.functionSymbol() != null) {
+                    parseFunction(fhead.functionSymbol().getText(),
+                            fhead.term().stream().map(ParseTree::getText).collect(Collectors.toList()),
+                            Integer.parseInt(initElContext.NUMBER().getText()), parsed);
+                }
             }
         }
     }
 
     /**
-     * Parse a predicate of the {@code (:init ...)} context.
+     * Parse a predicate of the {@code (:init ...)} section.
      *
-     * @param initElContext the context to parse
+     * @param predicate the predicate name
+     * @param arguments the arguments, at least one
      * @param parsed intermediate problem properties aggregator
      */
-    private void parsePredicate(PddlParser.InitElContext initElContext, ParsedProblemContainer parsed) {
-        String predicate = initElContext.nameLiteral().atomicNameFormula().predicate().getText();
-        String arg1 = initElContext.nameLiteral().atomicNameFormula().NAME(0).getText();
+    private void parsePredicate(String predicate, List<String> arguments, ParsedProblemContainer parsed) {
+        String arg1 = arguments.get(0);
 
         if ("has-petrol-station".equals(predicate)) {
             if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
@@ -180,7 +527,10 @@ public class DefaultProblemIO implements DataIO<Problem> {
             return;
         }
 
-        String arg2 = initElContext.nameLiteral().atomicNameFormula().NAME(1).getText();
+        if (arguments.size() < 2) {
+            return; // ignore other unary predicates
+        }
+        String arg2 = arguments.get(1);
         switch (predicate) {
             case "at": {
                 Vehicle vehicle = parsed.vehicleMap().get(arg1);
@@ -225,22 +575,18 @@ public class DefaultProblemIO implements DataIO<Problem> {
     }
 
     /**
-     * Parse a function of the {@code (:init ...)} context.
+     * Parse a function assignment of the {@code (:init ...)} section.
      *
-     * @param initElContext the context to parse
+     * @param function the function name
+     * @param terms the function terms
+     * @param number the assigned value
      * @param parsed intermediate problem properties aggregator
      */
-    private void parseFunction(PddlParser.InitElContext initElContext, ParsedProblemContainer parsed) {
-        PddlParser.FHeadContext fhead = initElContext.fHead();
-        int number = Integer.parseInt(initElContext.NUMBER().getText());
-        PddlParser.FunctionSymbolContext functionSymbol = fhead.functionSymbol();
-        if (functionSymbol == null) {
-            return;
-        }
-        switch (functionSymbol.getText()) {
+    private void parseFunction(String function, List<String> terms, int number, ParsedProblemContainer parsed) {
+        switch (function) {
             case "road-length": {
-                String fromName = fhead.term(0).getText();
-                String toName = fhead.term(1).getText();
+                String fromName = terms.get(0);
+                String toName = terms.get(1);
                 Location from = parsed.graph().getLocation(fromName);
                 Location to = parsed.graph().getLocation(toName);
                 Road newRoad = parsed.graph().getShortestRoadBetween(from, to)
@@ -249,7 +595,7 @@ public class DefaultProblemIO implements DataIO<Problem> {
                 break;
             }
             case "package-size": {
-                String packageName = fhead.term(0).getText();
+                String packageName = terms.get(0);
                 Package pkg = parsed.packageMap().get(packageName);
                 if (pkg != null) {
                     ActionCost size = ActionCost.valueOf(number);
@@ -260,7 +606,7 @@ public class DefaultProblemIO implements DataIO<Problem> {
                 break;
             }
             case "capacity": {
-                String vehicleName = fhead.term(0).getText();
+                String vehicleName = terms.get(0);
                 Vehicle vehicle = parsed.vehicleMap().get(vehicleName);
                 if (vehicle != null) {
                     ActionCost capacity = ActionCost.valueOf(number);
@@ -272,11 +618,10 @@ public class DefaultProblemIO implements DataIO<Problem> {
             }
             case "fuel-left": {
                 if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
-                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.",
-                            functionSymbol.getText());
+                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.", function);
                     break;
                 }
-                String vehicleName = fhead.term(0).getText();
+                String vehicleName = terms.get(0);
                 Vehicle vehicle = parsed.vehicleMap().get(vehicleName);
                 if (vehicle != null) {
                     ActionCost fuelLeft = ActionCost.valueOf(number);
@@ -288,11 +633,10 @@ public class DefaultProblemIO implements DataIO<Problem> {
             }
             case "fuel-max": {
                 if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
-                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.",
-                            functionSymbol.getText());
+                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.", function);
                     break;
                 }
-                String vehicleName = fhead.term(0).getText();
+                String vehicleName = terms.get(0);
                 Vehicle vehicle = parsed.vehicleMap().get(vehicleName);
                 if (vehicle != null) {
                     ActionCost fuelMax = ActionCost.valueOf(number);
@@ -304,12 +648,11 @@ public class DefaultProblemIO implements DataIO<Problem> {
             }
             case "fuel-demand": {
                 if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
-                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.",
-                            functionSymbol.getText());
+                    logger.debug("Fuel fuel-related function ({}) in non-fuel domain, skipping.", function);
                     break;
                 }
-                String fromName = fhead.term(0).getText();
-                String toName = fhead.term(1).getText();
+                String fromName = terms.get(0);
+                String toName = terms.get(1);
                 Location from = parsed.graph().getLocation(fromName);
                 Location to = parsed.graph().getLocation(toName);
                 Road road = parsed.graph().getShortestRoadBetween(from, to);
@@ -328,39 +671,47 @@ public class DefaultProblemIO implements DataIO<Problem> {
      * @param parsed intermediate problem properties aggregator
      */
     private void parseObjectDecl(PddlParser.ObjectDeclContext objectDecl, ParsedProblemContainer parsed) {
-        int maxCapacity = -1;
         for (PddlParser.SingleTypeNameListContext typeNameListContext : objectDecl.typedNameList()
                 .singleTypeNameList()) {
             String typeName = typeNameListContext.type().getText();
-            String objectName = typeNameListContext.NAME(0).getText();
-            switch (typeName) {
-                case "vehicle":
-                    parsed.vehicleMap().put(objectName, new Vehicle(objectName, null, null, null, null, true,
-                            Collections.emptyList()));
-                    break;
-                case "package":
-                    parsed.packageMap().put(objectName, new Package(objectName, null, null, ActionCost.ONE));
-                    break;
-                case "location":
-                    parsed.graph().addLocation(new Location(objectName, 0, 0,
-                            domain.getPddlLabels().contains(PddlLabel.Fuel) ? false : null));
-                    break;
-                case "capacity-number":
-                    String[] split = objectName.split("-");
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException("Invalid capacity-number value: " + objectName);
-                    }
-                    int capacity = Integer.parseInt(split[1]);
-                    if (capacity > maxCapacity) {
-                        maxCapacity = capacity;
-                    }
-                    break;
-                default:
-                    throw new IllegalArgumentException("Invalid type: " + typeName);
+            for (TerminalNode objectName : typeNameListContext.NAME()) {
+                parseObject(objectName.getText(), typeName, parsed);
             }
         }
     }
 
+    /**
+     * Parse a typed object of the {@code (:objects ...)} section.
+     *
+     * @param objectName the object name
+     * @param typeName the type name
+     * @param parsed intermediate problem properties aggregator
+     */
+    private void parseObject(String objectName, String typeName, ParsedProblemContainer parsed) {
+        switch (typeName) {
+            case "vehicle":
+                parsed.vehicleMap().put(objectName, new Vehicle(objectName, null, null, null, null, true,
+                        Collections.emptyList()));
+                break;
+            case "package":
+                parsed.packageMap().put(objectName, new Package(objectName, null, null, ActionCost.ONE));
+                break;
+            case "location":
+                parsed.graph().addLocation(new Location(objectName, 0, 0,
+                        domain.getPddlLabels().contains(PddlLabel.Fuel) ? false : null));
+                break;
+            case "capacity-number":
+                String[] split = objectName.split("-");
+                if (split.length != 2) {
+                    throw new IllegalArgumentException("Invalid capacity-number value: " + objectName);
+                }
+                Integer.parseInt(split[1]); // validate
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid type: " + typeName);
+        }
+    }
+
     /**
      * Parse the {@code (:goal ...)} context.
      *
@@ -372,28 +723,40 @@ public class DefaultProblemIO implements DataIO<Problem> {
             String predicate = goalDescContext.atomicTermFormula().predicate().getText();
             String arg1 = goalDescContext.atomicTermFormula().term(0).getText();
             String arg2 = goalDescContext.atomicTermFormula().term(1).getText();
-            switch (predicate) {
-                case "at": {
-                    Location target = parsed.graph().getLocation(arg2);
-
-                    Package pkg = parsed.packageMap().get(arg1);
-                    if (pkg != null) {
-                        Package newpkg = pkg.updateTarget(target);
-                        parsed.packageMap().put(newpkg.getName(), newpkg);
-                        break;
-                    }
+            parseGoal(predicate, arg1, arg2, parsed);
+        }
+    }
 
-                    Vehicle vehicle = parsed.vehicleMap().get(arg1);
-                    if (vehicle != null) {
-                        Vehicle newVehicle = vehicle.updateTarget(target);
-                        parsed.vehicleMap().put(newVehicle.getName(), newVehicle);
-                        break;
-                    }
+    /**
+     * Parse an atom of the {@code (:goal ...)} section.
+     *
+     * @param predicate the predicate name
+     * @param arg1 the first argument
+     * @param arg2 the second argument
+     * @param parsed intermediate problem properties aggregator
+     */
+    private static void parseGoal(String predicate, String arg1, String arg2, ParsedProblemContainer parsed) {
+        switch (predicate) {
+            case "at": {
+                Location target = parsed.graph().getLocation(arg2);
+
+                Package pkg = parsed.packageMap().get(arg1);
+                if (pkg != null) {
+                    Package newpkg = pkg.updateTarget(target);
+                    parsed.packageMap().put(newpkg.getName(), newpkg);
                     break;
                 }
-                default:
-                    throw new IllegalArgumentException("Invalid predicate in goalDesc: " + predicate);
+
+                Vehicle vehicle = parsed.vehicleMap().get(arg1);
+                if (vehicle != null) {
+                    Vehicle newVehicle = vehicle.updateTarget(target);
+                    parsed.vehicleMap().put(newVehicle.getName(), newVehicle);
+                    break;
+                }
+                break;
             }
+            default:
+                throw new IllegalArgumentException("Invalid predicate in goalDesc: " + predicate);
         }
     }
 
@@ -0,0 +1,177 @@
+package com.oskopek.transport.persistence;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A minimal streaming tokenizer of PDDL s-expressions, reading from a {@link Reader} through a small buffer.
+ * Tokens are the parentheses {@link #OPEN} and {@link #CLOSE} and atoms (names, keywords and numbers),
+ * separated by whitespace or parentheses. Line comments (starting with {@code ;}) are skipped.
+ * Does not retain any read input, therefore the memory use does not depend on the input size.
+ * <p>
+ * Not thread-safe.
+ */
+final class PddlTokenizer {
+
+    /**
+     * The opening parenthesis token.
+     */
+    static final String OPEN = "(";
+
+    /**
+     * The closing parenthesis token.
+     */
+    static final String CLOSE = ")";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder atom = new StringBuilder();
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    /**
+     * Default constructor.
+     *
+     * @param reader the reader to tokenize, not closed by the tokenizer
+     */
+    PddlTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next character.
+     *
+     * @return the character, or {@link #EOF} at the end of the input
+     * @throws IOException if an error during reading occurs
+     */
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Return the last read character to the input. Only one character can be returned between reads.
+     */
+    private void unread() {
+        position--;
+    }
+
+    /**
+     * Read the next token.
+     *
+     * @return the token ({@link #OPEN}, {@link #CLOSE} or an atom), or null at the end of the input
+     * @throws IOException if an error during reading occurs
+     */
+    String next() throws IOException {
+        int c = read();
+        while (c != EOF && (Character.isWhitespace(c) || c == ';')) {
+            if (c == ';') {
+                while (c != EOF && c != '\n') {
+                    c = read();
+                }
+            }
+            if (c == '\n') {
+                line++;
+            }
+            c = read();
+        }
+        if (c == EOF) {
+            return null;
+        } else if (c == '(') {
+            return OPEN;
+        } else if (c == ')') {
+            return CLOSE;
+        }
+        atom.setLength(0);
+        while (c != EOF && c != '(' && c != ')' && c != ';' && !Character.isWhitespace(c)) {
+            atom.append((char) c);
+            c = read();
+        }
+        if (c != EOF) {
+            unread();
+        }
+        return atom.toString();
+    }
+
+    /**
+     * Read the next token, which has to be the expected one.
+     *
+     * @param expected the expected token
+     * @throws IOException if an error during reading occurs
+     * @throws IllegalArgumentException if another token was read
+     */
+    void expect(String expected) throws IOException {
+        String token = next();
+        if (!expected.equals(token)) {
+            throw unexpected(token, expected);
+        }
+    }
+
+    /**
+     * Read the next token, which has to be an atom.
+     *
+     * @return the atom
+     * @throws IOException if an error during reading occurs
+     * @throws IllegalArgumentException if a parenthesis was read or the input ended
+     */
+    String nextAtom() throws IOException {
+        String token = next();
+        if (token == null || isParenthesis(token)) {
+            throw unexpected(token, "a name");
+        }
+        return token;
+    }
+
+    /**
+     * Skip all tokens up to and including the closing parenthesis of the current list.
+     *
+     * @throws IOException if an error during reading occurs
+     * @throws IllegalArgumentException if the input ended
+     */
+    void skipList() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            String token = next();
+            if (token == null) {
+                throw unexpected(null, CLOSE);
+            } else if (OPEN.equals(token)) {
+                depth++;
+            } else if (CLOSE.equals(token)) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Test if the token is a parenthesis.
+     *
+     * @param token the token
+     * @return true iff the token is {@link #OPEN} or {@link #CLOSE}
+     */
+    static boolean isParenthesis(String token) {
+        return OPEN.equals(token) || CLOSE.equals(token);
+    }
+
+    /**
+     * Build the exception describing an unexpected token.
+     *
+     * @param token the read token, or null at the end of the input
+     * @param expected the description of the expected token
+     * @return the exception
+     */
+    IllegalArgumentException unexpected(String token, String expected) {
+        return new IllegalArgumentException("Failed to parse problem pddl: expected " + expected + " but found "
+                + (token == null ? "end of input" : '\'' + token + '\'') + " on line " + line + '.');
+    }
+}
@@ -0,0 +1,190 @@
+package com.oskopek.transport.persistence;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.PddlLabel;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.Road;
+import com.oskopek.transport.model.problem.Vehicle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser of VAL-format plan lines of a single problem, shared by {@link SequentialPlanIO} and {@link TemporalPlanIO}.
+ * Indexes the problem's vehicles, packages, locations and shortest roads once, so that every action is built
+ * by hash lookups instead of searching the graph. The patterns are precompiled and their matchers reused
+ * between lines, therefore an instance must not be shared between threads.
+ */
+final class PlanActionParser {
+
+    private static final Pattern actionPattern = Pattern.compile("\\((([-a-zA-Z0-9_]+ )+([-a-zA-Z0-9_]+))\\)");
+    private static final Pattern temporalActionPattern = Pattern.compile(
+            "\\s*([0-9]+(?:\\.[0-9]+)?)\\s*:\\s*(\\(.*\\))\\s*\\[([0-9]+(?:\\.[0-9]+)?)]\\s*");
+    private static final Pattern separatorPattern = Pattern.compile(" ");
+
+    private final Domain domain;
+    private final Map<String, Vehicle> vehicleMap;
+    private final Map<String, Package> packageMap;
+    private final Map<String, Location> locationMap = new HashMap<>();
+    private final Map<String, Map<String, Road>> roadMap = new HashMap<>();
+    private final Matcher actionMatcher = actionPattern.matcher("");
+    private final Matcher temporalActionMatcher = temporalActionPattern.matcher("");
+
+    /**
+     * Default constructor. Indexes the problem.
+     *
+     * @param domain the domain to parse to
+     * @param problem the problem to parse to
+     */
+    PlanActionParser(Domain domain, Problem problem) {
+        this.domain = domain;
+        this.vehicleMap = problem.getVehicleMap();
+        this.packageMap = problem.getPackageMap();
+        problem.getRoadGraph().getAllLocations().forEach(location -> locationMap.put(location.getName(), location));
+        problem.getRoadGraph().getAllRoads().forEach(edge -> roadMap.computeIfAbsent(edge.getFrom().getName(),
+                from -> new HashMap<>()).merge(edge.getTo().getName(), edge.getRoad(),
+                    (road, other) -> other.getLength().compareTo(road.getLength()) < 0 ? other : road));
+    }
+
+    /**
+     * Parse all non-empty lines of the reader (ignoring comments, starting with {@code ;}) into the collection.
+     * Lines that fail to parse are skipped and their errors collected.
+     *
+     * @param reader the reader, not closed
+     * @param lineParser the parser of a single line, throwing a runtime exception on errors
+     * @param parsed the collection to add the parsed lines to
+     * @param <T> the type of a parsed line
+     * @return the errors of the lines that failed to parse, prefixed with the line number
+     * @throws IOException if an error during reading occurs
+     */
+    static <T> List<String> parseLines(Reader reader, Function<String, T> lineParser, Collection<T> parsed)
+            throws IOException {
+        BufferedReader buffered = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
+        List<String> lineErrors = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line = buffered.readLine(); line != null; line = buffered.readLine()) {
+            lineNumber++;
+            int index = line.indexOf(';');
+            String contents = (index >= 0 ? line.substring(0, index) : line).trim();
+            if (contents.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(lineParser.apply(contents));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                lineErrors.add("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return lineErrors;
+    }
+
+    /**
+     * Parse an action from a VAL-format plan line. Does not handle time.
+     *
+     * @param line the line to parse
+     * @return the parsed action
+     * @throws IllegalArgumentException if an error during parsing occurs
+     * @throws IllegalStateException if a refuel action occurs in a fuel-less domain
+     */
+    Action parseAction(String line) {
+        if (!actionMatcher.reset(line).find()) {
+            throw new IllegalArgumentException("Couldn't parse line: " + line);
+        }
+        String[] groups = separatorPattern.split(actionMatcher.group(1));
+
+        String actionName = groups[0];
+        Vehicle vehicle = lookup(vehicleMap, argument(groups, 1), "vehicle");
+        Location where = lookup(locationMap, argument(groups, 2), "location");
+        switch (actionName) {
+            case "drop": {
+                return domain.buildDrop(vehicle, where, lookup(packageMap, argument(groups, 3), "package"));
+            }
+            case "pick-up": {
+                return domain.buildPickUp(vehicle, where, lookup(packageMap, argument(groups, 3), "package"));
+            }
+            case "refuel": {
+                if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
+                    throw new IllegalStateException("Cannot have a refuel action in a domain without fuel.");
+                }
+                return domain.buildRefuel(vehicle, where);
+            }
+            case "drive": {
+                Location to = lookup(locationMap, argument(groups, 3), "location");
+                Road road = roadMap.getOrDefault(where.getName(), Collections.emptyMap()).get(to.getName());
+                if (road == null) {
+                    throw new IllegalArgumentException(
+                            "Could not find road \"" + where.getName() + "\" -> \"" + to.getName() + "\".");
+                }
+                return domain.buildDrive(vehicle, where, to, road);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown action name: " + actionName);
+        }
+    }
+
+    /**
+     * Parse a temporal action from a VAL-format temporal plan line ({@code time: (action args*) [duration]}).
+     *
+     * @param line the line to parse
+     * @return the parsed temporal action
+     * @throws IllegalArgumentException if an error during parsing occurs
+     * @throws IllegalStateException if a refuel action occurs in a fuel-less domain
+     */
+    TemporalPlanAction parseTemporalAction(String line) {
+        if (!temporalActionMatcher.reset(line).matches()) {
+            throw new IllegalArgumentException("Couldn't parse temporal line: " + line);
+        }
+        double time = Double.parseDouble(temporalActionMatcher.group(1));
+        double duration = Double.parseDouble(temporalActionMatcher.group(3));
+        return new TemporalPlanAction(parseAction(temporalActionMatcher.group(2)), time, time + duration);
+    }
+
+    /**
+     * Get an argument of an action.
+     *
+     * @param groups the action name and arguments
+     * @param index the index of the argument
+     * @return the argument
+     * @throws IllegalArgumentException if there is no such argument
+     */
+    private static String argument(String[] groups, int index) {
+        if (index >= groups.length) {
+            throw new IllegalArgumentException("Missing argument " + index + " of action " + groups[0] + ".");
+        }
+        return groups[index];
+    }
+
+    /**
+     * Look up an object in the index.
+     *
+     * @param map the index
+     * @param name the name of the object
+     * @param type the type name, for error reporting
+     * @param <T> the object type
+     * @return the object
+     * @throws IllegalArgumentException if there is no such object
+     */
+    private static <T> T lookup(Map<String, T> map, String name, String type) {
+        T object = map.get(name);
+        if (object == null) {
+            throw new IllegalArgumentException("Unknown " + type + ": " + name);
+        }
+        return object;
+    }
+
+}
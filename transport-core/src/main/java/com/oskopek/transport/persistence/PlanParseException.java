@@ -0,0 +1,49 @@
+package com.oskopek.transport.persistence;
+
+import com.oskopek.transport.model.plan.Plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Signalizes that some lines of a plan could not be parsed. Carries the errors of every such line
+ * and the partial plan of all lines that were parsed successfully.
+ */
+public class PlanParseException extends IllegalArgumentException {
+
+    private final transient Plan partialPlan;
+    private final List<String> lineErrors;
+
+    /**
+     * Default constructor.
+     *
+     * @param partialPlan the plan of the successfully parsed lines
+     * @param lineErrors the errors of the lines that failed to parse, prefixed with the line number, non-empty
+     */
+    public PlanParseException(Plan partialPlan, List<String> lineErrors) {
+        super("Plan failed to parse (" + lineErrors.size() + " line(s)): " + lineErrors.get(0)
+                + (lineErrors.size() > 1 ? " ..." : ""));
+        this.partialPlan = partialPlan;
+        this.lineErrors = Collections.unmodifiableList(new ArrayList<>(lineErrors));
+    }
+
+    /**
+     * Get the plan of the successfully parsed lines.
+     *
+     * @return the partial plan
+     */
+    public Plan getPartialPlan() {
+        return partialPlan;
+    }
+
+    /**
+     * Get the errors of the lines that failed to parse.
+     *
+     * @return an unmodifiable list of the errors, prefixed with the line number
+     */
+    public List<String> getLineErrors() {
+        return lineErrors;
+    }
+
+}
@@ -1,26 +1,24 @@
 package com.oskopek.transport.persistence;
 
 import com.oskopek.transport.model.domain.Domain;
-import com.oskopek.transport.model.domain.PddlLabel;
 import com.oskopek.transport.model.domain.action.*;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.plan.SequentialPlan;
 import com.oskopek.transport.model.problem.*;
-import com.oskopek.transport.model.problem.Package;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Reader and writer for {@link SequentialPlan} to and from the VAL format (supports only Transport domain plans).
- * Uses regexps for parsing.
+ * Uses precompiled regexps and an index of the problem's objects for parsing, see {@link PlanActionParser}.
  */
 public class SequentialPlanIO implements DataIO<Plan> {
 
@@ -75,56 +73,6 @@ public class SequentialPlanIO implements DataIO<Plan> {
         return serializeActionSimple(action).append(')').toString();
     }
 
-    /**
-     * Util method for parsing an action from a VAL-format plan line. Does not handle time.
-     *
-     * @param domain the domain to parse to
-     * @param problem the problem to parse to
-     * @param line the line to parse
-     * @return the parsed action
-     * @throws IllegalArgumentException if an error during parsing occurs
-     * @throws IllegalStateException if a refuel action occurs in a fuel-less domain
-     */
-    static Action parsePlanAction(Domain domain, Problem problem, String line) {
-        Pattern actionPattern = Pattern.compile("\\((([-a-zA-Z0-9]+ )+([-a-zA-Z0-9]+))\\)");
-        Matcher matcher = actionPattern.matcher(line);
-
-        String inside;
-        if (matcher.find()) {
-            inside = matcher.group(1);
-        } else {
-            throw new IllegalArgumentException("Couldn't parse line: " + line);
-        }
-
-        String[] groups = inside.split(" ");
-
-        String actionName = groups[0];
-        Vehicle vehicle = problem.getVehicle(groups[1]);
-        Location where = problem.getRoadGraph().getLocation(groups[2]);
-        switch (actionName) {
-            case "drop": {
-                Package what = problem.getPackage(groups[3]);
-                return domain.buildDrop(vehicle, where, what);
-            }
-            case "pick-up": {
-                Package what = problem.getPackage(groups[3]);
-                return domain.buildPickUp(vehicle, where, what);
-            }
-            case "refuel": {
-                if (!domain.getPddlLabels().contains(PddlLabel.Fuel)) {
-                    throw new IllegalStateException("Cannot have a refuel action in a domain without fuel.");
-                }
-                return domain.buildRefuel(vehicle, where);
-            }
-            case "drive": {
-                Location to = problem.getRoadGraph().getLocation(groups[3]);
-                return domain.buildDrive(vehicle, where, to, problem.getRoadGraph());
-            }
-            default:
-                throw new IllegalArgumentException("Unknown action name: " + actionName);
-        }
-    }
-
     /**
      * Internal capacity-aware action serialization.
      *
@@ -180,11 +128,30 @@ public class SequentialPlanIO implements DataIO<Plan> {
 
     @Override
     public SequentialPlan parse(String contents) {
-        List<Action> actions = Arrays.stream(contents.split("\n")).map(s -> {
-            int index = s.indexOf(';');
-            return index >= 0 ? s.substring(0, index) : s;
-        }).filter(s -> !s.isEmpty()).map(s -> SequentialPlanIO.parsePlanAction(domain, problem, s)).collect(
-                Collectors.toList());
-        return new SequentialPlan(actions);
+        try {
+            return parse(new StringReader(contents));
+        } catch (IOException e) {
+            throw new IllegalStateException("Error occurred during reading plan.", e);
+        }
+    }
+
+    /**
+     * Parse a plan from a reader, line by line. Every line that fails to parse is reported
+     * in the thrown exception, together with the plan of all the other lines.
+     *
+     * @param reader the reader of the plan, not closed
+     * @return the parsed plan
+     * @throws IOException if an error during reading occurs
+     * @throws PlanParseException if some lines cannot be parsed
+     */
+    public SequentialPlan parse(Reader reader) throws IOException {
+        PlanActionParser parser = new PlanActionParser(domain, problem);
+        List<Action> actions = new ArrayList<>();
+        List<String> lineErrors = PlanActionParser.parseLines(reader, parser::parseAction, actions);
+        SequentialPlan plan = new SequentialPlan(actions);
+        if (!lineErrors.isEmpty()) {
+            throw new PlanParseException(plan, lineErrors);
+        }
+        return plan;
     }
 }
@@ -6,21 +6,19 @@ import com.oskopek.transport.model.domain.action.TemporalPlanAction;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.plan.TemporalPlan;
 import com.oskopek.transport.model.problem.Problem;
-import com.oskopek.transport.persistence.antlr4.PlanLexer;
-import com.oskopek.transport.persistence.antlr4.PlanParser;
 import javaslang.Tuple;
 import javaslang.Tuple2;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Reader and writer for {@link TemporalPlan} to and from the VAL format (supports only Transport domain plans).
- * Uses ANTLR and {@link SequentialPlanIO}.
+ * Uses precompiled regexps and an index of the problem's objects for parsing, see {@link PlanActionParser}.
  */
 public class TemporalPlanIO implements DataIO<Plan> {
 
@@ -83,32 +81,30 @@ public class TemporalPlanIO implements DataIO<Plan> {
 
     @Override
     public TemporalPlan parse(String contents) {
-        Set<TemporalPlanAction> actions = new HashSet<>();
-
-        PlanParser parser = new PlanParser(new CommonTokenStream(new PlanLexer(new ANTLRInputStream(contents))));
-        ErrorDetectionListener listener = new ErrorDetectionListener();
-        parser.addErrorListener(listener);
-        PlanParser.PlanContext context = parser.plan();
-        if (listener.isFail()) {
-            throw new IllegalArgumentException("Plan failed to parse.");
-        }
-        PlanParser.TemporalPlanContext tempContext = context.temporalPlan();
-        if (tempContext == null) {
-            return null;
-        }
-        for (PlanParser.TemporalActionContext action : tempContext.temporalAction()) {
-            double duration = Double.parseDouble(action.duration().NUMBER().getText());
-            double time = Double.parseDouble(action.time().NUMBER().getText());
-            String actionString = String.format("(%s)",
-                    String.join(" ", action.sequentialAction().action().NAME().getText(),
-                            action.sequentialAction().object().stream().map(o -> o.NAME().getText())
-                                    .collect(Collectors.joining(" "))));
-            Action actionObj = SequentialPlanIO.parsePlanAction(domain, problem, actionString);
-            TemporalPlanAction temporalPlanAction = new TemporalPlanAction(actionObj, time, time + duration);
-            actions.add(temporalPlanAction);
+        try {
+            return parse(new StringReader(contents));
+        } catch (IOException e) {
+            throw new IllegalStateException("Error occurred during reading plan.", e);
         }
+    }
 
-        return new TemporalPlan(actions);
+    /**
+     * Parse a plan from a reader, line by line ({@code time: (action args*) [duration]} per line). Every line
+     * that fails to parse is reported in the thrown exception, together with the plan of all the other lines.
+     *
+     * @param reader the reader of the plan, not closed
+     * @return the parsed plan, or null if there are no actions and no errors
+     * @throws IOException if an error during reading occurs
+     * @throws PlanParseException if some lines cannot be parsed
+     */
+    public TemporalPlan parse(Reader reader) throws IOException {
+        PlanActionParser parser = new PlanActionParser(domain, problem);
+        Set<TemporalPlanAction> actions = new HashSet<>();
+        List<String> lineErrors = PlanActionParser.parseLines(reader, parser::parseTemporalAction, actions);
+        if (!lineErrors.isEmpty()) {
+            throw new PlanParseException(new TemporalPlan(actions), lineErrors);
+        }
+        return actions.isEmpty() ? null : new TemporalPlan(actions);
     }
 
 }
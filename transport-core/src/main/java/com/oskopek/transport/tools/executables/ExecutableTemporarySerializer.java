@@ -5,20 +5,17 @@ import com.oskopek.transport.model.domain.PddlLabel;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.problem.Problem;
 import com.oskopek.transport.persistence.*;
-import javaslang.Tuple;
-import javaslang.collection.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
- * Auto-closeable PDDL serializer of model objects. Makes them available at temporary locations and tries to delete
- * them at close. To be used with Java 8's try-with-resources.
+ * Auto-closeable PDDL serializer of model objects. Makes them available in the {@link TemporaryWorkspace}
+ * of the current thread and deletes them at close. To be used with Java 8's try-with-resources.
  * <pre>
  * {@code
  * try (ExecutableTemporarySerializer serializer = new ExecutableTemporarySerializer(domain, problem, null)) {
@@ -30,12 +27,13 @@ import java.nio.file.Path;
 public class ExecutableTemporarySerializer implements AutoCloseable {
 
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
+    private final TemporaryWorkspace workspace;
     private final Path domainTmpFile;
     private final Path problemTmpFile;
     private final Path planTmpFile;
 
     /**
-     * Serializes the non-null objects and makes them available at a temporary location.
+     * Serializes the non-null objects and makes them available in the workspace of the current thread.
      *
      * @param domain the domain to serialize, non-null
      * @param problem the problem to serialize, nullable
@@ -58,30 +56,24 @@ public class ExecutableTemporarySerializer implements AutoCloseable {
         }
 
         String serializedDomain = domainIO.serialize(domain);
-        String serializedProblem = problem == null ? "" : problemIO.serialize(problem);
         String serializedPlan = planIO == null || plan == null ? "" : planIO.serialize(plan);
-        domainTmpFile = Files.createTempFile("domain-", ".pddl");
-        problemTmpFile = Files.createTempFile("problem-", ".pddl");
-        planTmpFile = Files.createTempFile("plan-", ".val");
+        workspace = TemporaryWorkspace.acquire();
+        domainTmpFile = workspace.resolve("domain.pddl");
+        problemTmpFile = workspace.resolve("problem.pddl");
+        planTmpFile = workspace.resolve("plan.val");
 
         try {
-            Stream.of(Tuple.of(serializedDomain, domainTmpFile), Tuple.of(serializedProblem, problemTmpFile),
-                    Tuple.of(serializedPlan, planTmpFile)).forEach(tpl -> {
-                Path path = tpl._2;
-                try (BufferedWriter writer = Files.newBufferedWriter(path, Charset.forName("UTF-8"))) {
-                    writer.write(tpl._1);
-                } catch (IOException e) {
-                    logger.warn("An error occurred during creating and writing temp file: {}", path);
-                    try {
-                        Files.deleteIfExists(path);
-                    } catch (IOException e2) {
-                        // intentionally ignore
-                    }
-                    throw new IllegalStateException("An error occurred during creating and writing temp files.", e);
-                }
-            });
-        } catch (IllegalStateException e) {
-            throw new IOException("An error occurred during creating and writing temp files.", e.getCause());
+            Files.write(domainTmpFile, serializedDomain.getBytes(StandardCharsets.UTF_8));
+            if (problem == null) {
+                Files.write(problemTmpFile, new byte[0]);
+            } else {
+                problemIO.serialize(problem, problemTmpFile); // streamed, large problems are not kept in memory
+            }
+            Files.write(planTmpFile, serializedPlan.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("An error occurred during creating and writing temp files in: {}", workspace.getDirectory());
+            workspace.release();
+            throw new IOException("An error occurred during creating and writing temp files.", e);
         }
     }
 
@@ -112,17 +104,18 @@ public class ExecutableTemporarySerializer implements AutoCloseable {
         return planTmpFile;
     }
 
+    /**
+     * Get the workspace the files are in. Executables may create other files in it, they are deleted at close too.
+     *
+     * @return the workspace
+     */
+    public TemporaryWorkspace getWorkspace() {
+        return workspace;
+    }
+
     @Override
     public void close() throws IOException {
         logger.debug("Deleting serialized files...");
-        if (!Files.deleteIfExists(planTmpFile)) {
-            logger.warn("Couldn't delete plan temp file: {}", planTmpFile);
-        }
-        if (!Files.deleteIfExists(problemTmpFile)) {
-            logger.warn("Couldn't delete problem temp file: {}", problemTmpFile);
-        }
-        if (!Files.deleteIfExists(domainTmpFile)) {
-            logger.warn("Couldn't delete domain temp file: {}", domainTmpFile);
-        }
+        workspace.release();
     }
 }
@@ -0,0 +1,119 @@
+package com.oskopek.transport.tools.executables;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A temporary directory for the files exchanged with external executables. Every thread (worker) reuses
+ * its own workspace directory between invocations, so that it is not created for every run. The directory is placed
+ * in RAM-backed storage ({@code /dev/shm}), if it is available and writable, and in the default temporary directory
+ * otherwise. Can be disabled by setting the {@value #RAM_DIRECTORY_PROPERTY} system property to {@code false}.
+ * <p>
+ * A workspace is acquired by {@link #acquire()} and has to be released by {@link #release()}. Every acquired
+ * workspace is a uniquely named run directory inside the directory of the thread, deleted with its contents
+ * on release. Therefore, nested use is safe and a process surviving its run (e.g. a descendant of a cancelled planner)
+ * can never write into the files of the next run.
+ */
+public final class TemporaryWorkspace {
+
+    /**
+     * The system property enabling (default) or disabling the RAM-backed storage.
+     */
+    public static final String RAM_DIRECTORY_PROPERTY = "transport.workspace.ram";
+
+    private static final Path ramDirectory = Paths.get("/dev/shm");
+    private static final ThreadLocal<Path> workerDirectory = new ThreadLocal<>();
+    private static final Logger logger = LoggerFactory.getLogger(TemporaryWorkspace.class);
+
+    private final Path directory;
+
+    /**
+     * Private constructor, use {@link #acquire()}.
+     *
+     * @param directory the existing run directory
+     */
+    private TemporaryWorkspace(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Acquire a new workspace in the directory of the current thread, creating the directory on first use.
+     *
+     * @return the acquired workspace, to be released after use
+     * @throws IOException if the workspace directory could not be created
+     */
+    public static TemporaryWorkspace acquire() throws IOException {
+        Path parent = workerDirectory.get();
+        if (parent == null || !Files.isDirectory(parent)) {
+            parent = createDirectory();
+            parent.toFile().deleteOnExit(); // succeeds only if empty, i.e. all runs were released
+            workerDirectory.set(parent);
+        }
+        return new TemporaryWorkspace(Files.createTempDirectory(parent, "run-"));
+    }
+
+    /**
+     * Create a new temporary directory, preferring RAM-backed storage.
+     *
+     * @return the created directory
+     * @throws IOException if the directory could not be created
+     */
+    private static Path createDirectory() throws IOException {
+        if (Boolean.parseBoolean(System.getProperty(RAM_DIRECTORY_PROPERTY, "true"))
+                && Files.isDirectory(ramDirectory) && Files.isWritable(ramDirectory)) {
+            try {
+                return Files.createTempDirectory(ramDirectory, "transport-");
+            } catch (IOException e) {
+                logger.debug("Could not create a workspace in {}, falling back.", ramDirectory, e);
+            }
+        }
+        return Files.createTempDirectory("transport-");
+    }
+
+    /**
+     * Get the path of a file in the workspace.
+     *
+     * @param fileName the name of the file
+     * @return the path of the file, which does not need to exist
+     */
+    public Path resolve(String fileName) {
+        return directory.resolve(fileName);
+    }
+
+    /**
+     * Get the run directory of the workspace.
+     *
+     * @return the directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Release the workspace: delete the run directory with all its contents.
+     *
+     * @throws IOException if an error during deleting occurs
+     */
+    public void release() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> contents;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            contents = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList()); // children first
+        }
+        for (Path path : contents) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
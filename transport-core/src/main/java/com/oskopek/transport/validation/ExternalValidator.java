@@ -92,6 +92,7 @@ public class ExternalValidator extends CancellableLogStreamable implements Valid
                         }
                     }
                     if (shouldCancel()) {
+                        validatorProcessProperty.get().descendants().forEach(ProcessHandle::destroyForcibly);
                         validatorProcessProperty.get().destroyForcibly().waitFor();
                     }
                 } catch (InterruptedException e) {
@@ -0,0 +1,341 @@
+package com.oskopek.transport.validation;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.PddlLabel;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.domain.action.Refuel;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.domain.action.TemporalQuantifier;
+import com.oskopek.transport.model.domain.action.predicates.Predicate;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.Vehicle;
+import com.oskopek.transport.model.state.PlanState;
+import com.oskopek.transport.model.state.TemporalPlanStateManager;
+import com.oskopek.transport.tools.executables.AbstractLogStreamable;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An in-process validator of temporal (and sequential) plans, simulating the plan on the DOM we built when parsing
+ * using a {@link TemporalPlanStateManager}. At every happening (a time at which actions start or end),
+ * the ends of actions are applied before the starts, checking the "at start" preconditions and the effects,
+ * after which the "over all" preconditions of all actions running after the happening are checked. These catch
+ * overlapping mutually exclusive actions, e.g. a vehicle driving away while loading. Fuel and capacity constraints
+ * are checked by the preconditions of the actions. Finally, the goal (package and vehicle targets) is checked.
+ * <p>
+ * Like VAL with a tolerance of {@link #EPSILON} (the separation used by our schedulers), the starts and ends
+ * of mutex actions (see {@link #areMutex(Action, Action)}) have to be at least {@link #EPSILON} apart,
+ * otherwise they are considered simultaneous and the plan is invalid.
+ * Optionally, another validator (usually a {@link ValValidator}) can be used as a cross-check: its results
+ * are only compared to the in-process results, and disagreements are logged.
+ * <p>
+ * Log messages of a validation are collected and delivered to the log listeners together, under a lock,
+ * therefore plans can be validated from several threads, see {@link #areValid(Domain, Problem, Collection)}.
+ */
+public class TemporalPlanValidator extends AbstractLogStreamable implements Validator {
+
+    /**
+     * The minimal separation of the happenings of mutex actions.
+     */
+    static final double EPSILON = 0.001;
+
+    /**
+     * The allowed floating point error of a separation, timestamps are sums of durations and separations.
+     */
+    private static final double PRECISION = 1e-9;
+
+    private final transient Logger logger = LoggerFactory.getLogger(getClass());
+    private final Validator crossCheck;
+
+    /**
+     * Default constructor, without a cross-check.
+     */
+    public TemporalPlanValidator() {
+        this(null);
+    }
+
+    /**
+     * Constructor with a cross-check.
+     *
+     * @param crossCheck the validator to cross-check every result with, nullable
+     */
+    public TemporalPlanValidator(Validator crossCheck) {
+        this.crossCheck = crossCheck;
+    }
+
+    /**
+     * Get the cross-check validator.
+     *
+     * @return the cross-check validator, or null if there is none
+     */
+    public Validator getCrossCheck() {
+        return crossCheck;
+    }
+
+    @Override
+    public boolean isValid(Domain domain, Problem problem, Plan plan) {
+        List<String> messages = new ArrayList<>();
+        boolean valid = isValid(domain, problem, plan, messages);
+        log(messages);
+        return valid;
+    }
+
+    /**
+     * Validate all the plans in parallel. The log messages are delivered on the calling thread,
+     * in the order of the plans.
+     *
+     * @param domain the domain to validate against
+     * @param problem the problem to validate against
+     * @param plans the plans to validate
+     * @return the results, in the order of the plans
+     */
+    public List<Boolean> areValid(Domain domain, Problem problem, Collection<? extends Plan> plans) {
+        List<Plan> planList = new ArrayList<>(plans);
+        List<List<String>> messages = planList.stream().map(plan -> new ArrayList<String>())
+                .collect(Collectors.toList());
+        List<Boolean> results = IntStream.range(0, planList.size()).parallel()
+                .mapToObj(i -> isValid(domain, problem, planList.get(i), messages.get(i)))
+                .collect(Collectors.toList());
+        messages.forEach(this::log);
+        return results;
+    }
+
+    /**
+     * Validate the plan in-process and cross-check the result, if there is a cross-check.
+     *
+     * @param domain the domain to validate against
+     * @param problem the problem to validate against
+     * @param plan the plan to validate
+     * @param messages the log messages, appended to
+     * @return true iff the plan is valid according to the in-process validation
+     */
+    private boolean isValid(Domain domain, Problem problem, Plan plan, List<String> messages) {
+        boolean valid = isValidInProcess(domain, problem, plan, messages);
+        if (crossCheck != null) {
+            boolean crossCheckValid = crossCheck.isValid(domain, problem, plan);
+            if (valid != crossCheckValid) {
+                logger.warn("In-process validation ({}) disagrees with the cross-check ({}) for problem {}.",
+                        valid, crossCheckValid, problem.getName());
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Deliver the log messages of one validation to the log listeners, without interleaving them
+     * with messages of other validations.
+     *
+     * @param messages the messages
+     */
+    private void log(List<String> messages) {
+        synchronized (this) {
+            messages.forEach(this::log);
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return crossCheck == null || crossCheck.isAvailable();
+    }
+
+    /**
+     * Runs the in-process validation and reports the results.
+     *
+     * @param domain the domain to validate against
+     * @param problem the problem to validate against
+     * @param plan the plan to validate
+     * @param messages the log messages, appended to
+     * @return true iff the plan is valid in the domain according to the in-process simulation
+     */
+    private static boolean isValidInProcess(Domain domain, Problem problem, Plan plan, List<String> messages) {
+        boolean temporal = domain.getPddlLabels().contains(PddlLabel.Temporal);
+        List<TemporalPlanAction> actions = plan.getTemporalPlanActions().stream().sorted()
+                .collect(Collectors.toList());
+        if (temporal && !areMutexesSeparated(actions, messages)) {
+            return false;
+        }
+        double[] happenings = actions.stream().flatMapToDouble(a -> DoubleStream.of(
+                a.getStartTimestamp(), a.getEndTimestamp())).sorted().distinct().toArray();
+        TemporalPlanStateManager manager = new TemporalPlanStateManager(domain, problem, plan);
+        List<TemporalPlanAction> running = new ArrayList<>();
+        int started = 0;
+        for (double time : happenings) {
+            try {
+                manager.goToTime(time, true);
+            } catch (IllegalStateException e) {
+                messages.add("Invalid at time " + time + ": " + e.getMessage());
+                return false;
+            }
+            if (!temporal) {
+                continue; // sequential domains have no invariants
+            }
+            while (started < actions.size() && actions.get(started).getStartTimestamp() <= time) {
+                running.add(actions.get(started++));
+            }
+            PlanState state = manager.getCurrentPlanState();
+            for (Iterator<TemporalPlanAction> iterator = running.iterator(); iterator.hasNext();) {
+                TemporalPlanAction runningAction = iterator.next();
+                if (runningAction.getEndTimestamp() <= time) {
+                    iterator.remove();
+                } else if (!areInvariantsValid(state, runningAction.getAction())) {
+                    messages.add("Invariants of \"" + runningAction.getAction() + "\" are invalid at time " + time
+                            + '.');
+                    return false;
+                }
+            }
+        }
+        return isGoal(manager.getCurrentPlanState(), messages);
+    }
+
+    /**
+     * Check that the happenings (starts and ends) of mutex actions are at least {@link #EPSILON} apart.
+     * Mutex happenings of the same time are not separated either, as in VAL.
+     *
+     * @param actions the actions of the plan
+     * @param messages the log messages, appended to
+     * @return true iff all happenings of mutex actions are separated
+     */
+    private static boolean areMutexesSeparated(List<TemporalPlanAction> actions, List<String> messages) {
+        List<Happening> happenings = actions.stream().flatMap(a -> Stream.of(
+                new Happening(a.getStartTimestamp(), a), new Happening(a.getEndTimestamp(), a)))
+                .sorted(Comparator.comparingDouble(h -> h.time)).collect(Collectors.toList());
+        for (int i = 0; i < happenings.size(); i++) {
+            Happening happening = happenings.get(i);
+            for (int j = i + 1; j < happenings.size(); j++) {
+                Happening next = happenings.get(j);
+                if (next.time - happening.time >= EPSILON - PRECISION) {
+                    break;
+                }
+                if (next.action != happening.action && areMutex(happening.action.getAction(),
+                        next.action.getAction())) {
+                    messages.add("Mutex actions \"" + happening.action.getAction() + "\" and \""
+                            + next.action.getAction() + "\" are not separated at time " + next.time + '.');
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the actions are mutex: actions of the same vehicle, except refuels with pick-ups and drops,
+     * and pick-ups and drops of the same package. The same relation is used for scheduling sequential plans.
+     *
+     * @param action the first action
+     * @param other the second action
+     * @return true iff the actions are mutex
+     */
+    private static boolean areMutex(Action action, Action other) {
+        boolean loading = action instanceof PickUp || action instanceof Drop;
+        boolean otherLoading = other instanceof PickUp || other instanceof Drop;
+        if (action.getWho().getName().equals(other.getWho().getName())) {
+            return !(action instanceof Refuel && otherLoading || loading && other instanceof Refuel);
+        }
+        return loading && otherLoading && action.getWhat().getName().equals(other.getWhat().getName());
+    }
+
+    /**
+     * Check the "over all" preconditions of the action.
+     *
+     * @param state the state
+     * @param action the running action
+     * @return true iff all "over all" preconditions are valid in the state
+     */
+    private static boolean areInvariantsValid(Problem state, Action action) {
+        for (Predicate predicate : action.getPreconditions()) {
+            if (predicate.getTemporalQuantifier() == TemporalQuantifier.OVER_ALL && !predicate.isValid(state,
+                    action)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the state is a goal state: all packages and all vehicles with a target are at their targets.
+     *
+     * @param state the state
+     * @param messages the log messages, appended to
+     * @return true iff the state is a goal state
+     */
+    private static boolean isGoal(Problem state, List<String> messages) {
+        for (Package pkg : state.getAllPackages()) {
+            if (!isAtTarget(pkg.getLocation(), pkg.getTarget())) {
+                messages.add("Package " + pkg.getName() + " is not at its target.");
+                return false;
+            }
+        }
+        for (Vehicle vehicle : state.getAllVehicles()) {
+            if (vehicle.getTarget() != null && !isAtTarget(vehicle.getLocation(), vehicle.getTarget())) {
+                messages.add("Vehicle " + vehicle.getName() + " is not at its target.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the location is the target, by name.
+     *
+     * @param location the location, nullable
+     * @param target the target, nullable
+     * @return true iff both are non-null and have the same name
+     */
+    private static boolean isAtTarget(Location location, Location target) {
+        return location != null && target != null && location.getName().equals(target.getName());
+    }
+
+    /**
+     * A start or an end of an action.
+     */
+    private static final class Happening {
+
+        private final double time;
+        private final TemporalPlanAction action;
+
+        /**
+         * Default constructor.
+         *
+         * @param time the time of the happening
+         * @param action the action starting or ending
+         */
+        Happening(double time, TemporalPlanAction action) {
+            this.time = time;
+            this.action = action;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 31).append(crossCheck).toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TemporalPlanValidator)) {
+            return false;
+        }
+        TemporalPlanValidator that = (TemporalPlanValidator) o;
+        return new EqualsBuilder().append(crossCheck, that.crossCheck).isEquals();
+    }
+}
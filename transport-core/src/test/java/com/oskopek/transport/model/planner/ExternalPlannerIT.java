@@ -0,0 +1,85 @@
+package com.oskopek.transport.model.planner;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.persistence.SequentialPlanIO;
+import com.oskopek.transport.persistence.SequentialPlanIOIT;
+import com.oskopek.transport.tools.executables.DefaultExecutableWithParameters;
+import javaslang.control.Try;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ExternalPlannerIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("seq");
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        SequentialPlanIOIT.initialize();
+    }
+
+    @Test(timeout = 10000L)
+    public void readsPlanFileAfterExit() throws Exception {
+        assumeTrue("cp has to be installed.", new DefaultExecutableWithParameters("cp", "").isExecutableValid());
+        Path planFile = Files.createTempFile("plan-", ".val");
+        try {
+            Files.write(planFile, SequentialPlanIOIT.P20SequentialPlanFileContents.getBytes(StandardCharsets.UTF_8));
+            ExternalPlanner planner = new ExternalPlanner("cp", planFile.toAbsolutePath() + " {2}");
+            Plan plan = planner.startAndWait(domain, SequentialPlanIOIT.p20Problem);
+            assertThat(plan).isNotNull().isEqualTo(new SequentialPlanIO(domain, SequentialPlanIOIT.p20Problem)
+                    .parse(SequentialPlanIOIT.P20SequentialPlanFileContents));
+            assertThat(planner.isPlanning().getValue()).isFalse();
+        } finally {
+            Files.deleteIfExists(planFile);
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public void cancelDestroysProcess() throws Exception {
+        assumeTrue("sleep has to be installed.", new DefaultExecutableWithParameters("sleep", "").isExecutableValid());
+        ExternalPlanner planner = new ExternalPlanner("sleep", "60");
+        CompletableFuture<Plan> planFuture = CompletableFuture.supplyAsync(
+                () -> planner.startAndWait(domain, SequentialPlanIOIT.p20Problem));
+        Thread.sleep(100L); // cancels the running process, or the process right after it is started
+        assertThat(planner.cancel()).isTrue();
+        planFuture.get();
+        assertThat(planner.isPlanning().getValue()).isFalse();
+    }
+
+    @Test(timeout = 10000L)
+    public void cancelDestroysDescendants() throws Exception {
+        assumeTrue("sh has to be installed.", new DefaultExecutableWithParameters("sh", "").isExecutableValid());
+        Path script = Files.createTempFile("planner-", ".sh");
+        Path pidFile = Files.createTempFile("planner-", ".pid");
+        try {
+            Files.write(script, ("sleep 60 &\necho $! > " + pidFile.toAbsolutePath() + "\nwait\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            ExternalPlanner planner = new ExternalPlanner("sh", script.toAbsolutePath().toString());
+            CompletableFuture<Plan> planFuture = CompletableFuture.supplyAsync(
+                    () -> planner.startAndWait(domain, SequentialPlanIOIT.p20Problem));
+            while (Files.size(pidFile) == 0) {
+                Thread.sleep(10L);
+            }
+            Thread.sleep(10L); // the pid is written completely
+            long pid = Long.parseLong(new String(Files.readAllBytes(pidFile), StandardCharsets.UTF_8).trim());
+            assertThat(planner.cancel()).isTrue();
+            planFuture.get();
+            ProcessHandle.of(pid).ifPresent(descendant -> Try.run(() -> descendant.onExit()
+                    .get(5L, TimeUnit.SECONDS)));
+            assertThat(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)).isFalse();
+        } finally {
+            Files.deleteIfExists(script);
+            Files.deleteIfExists(pidFile);
+        }
+    }
+
+}
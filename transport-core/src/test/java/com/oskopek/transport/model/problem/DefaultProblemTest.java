@@ -1,5 +1,83 @@
 package com.oskopek.transport.model.problem;
 
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.*;
+
 public class DefaultProblemTest {
 
+    private DefaultProblem problem;
+
+    @Before
+    public void setUp() throws Exception {
+        problem = TestUtils.P01SequentialProblem();
+    }
+
+    @Test
+    public void putVehicleDoesNotChangeOriginal() throws Exception {
+        SymbolTable symbols = problem.getSymbolTable();
+        Vehicle truck = problem.getVehicle("truck-1");
+        Vehicle moved = truck.updateLocation(problem.getRoadGraph().getLocation("city-loc-5"));
+        Problem updated = problem.putVehicle(moved.getName(), moved);
+        assertThat(problem.getVehicle("truck-1")).isSameAs(truck);
+        assertThat(updated.getVehicle("truck-1")).isSameAs(moved);
+        assertThat(updated.getVehicle("truck-2")).isSameAs(problem.getVehicle("truck-2"));
+        assertThat(updated.getPackageMap()).isEqualTo(problem.getPackageMap());
+        assertThat(updated).isNotEqualTo(problem);
+        assertThat(updated.getSymbolTable()).isSameAs(symbols);
+        int truckId = symbols.getVehicleId("truck-1");
+        assertThat(problem.getVehicle(truckId)).isSameAs(truck);
+        assertThat(updated.getVehicle(truckId)).isSameAs(moved);
+    }
+
+    @Test
+    public void symbolTableFollowsGraphModifications() throws Exception {
+        SymbolTable symbols = problem.getSymbolTable();
+        Problem derived = problem.putName("derived");
+        assertThat(derived.getSymbolTable()).isSameAs(symbols);
+        String road = symbols.getRoad(0).getName();
+        problem.getRoadGraph().removeRoad(road);
+        assertThat(symbols.isCurrent(problem.getRoadGraph())).isFalse();
+        assertThat(problem.getSymbolTable().getRoadCount()).isEqualTo(symbols.getRoadCount() - 1);
+        assertThat(derived.getSymbolTable().getRoadId(road)).isEqualTo(-1);
+        assertThat(derived.getVehicle(0)).isSameAs(problem.getVehicle(0));
+    }
+
+    @Test
+    public void removePackage() throws Exception {
+        Problem updated = problem.removePackage("package-1");
+        assertThat(updated.getPackage("package-1")).isNull();
+        assertThat(updated.getAllPackages()).hasSize(1);
+        assertThat(problem.getAllPackages()).hasSize(2);
+        assertThat(updated.getSymbolTable().getPackageCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void mapsAreUnmodifiableViews() throws Exception {
+        assertThat(problem.getVehicleMap()).isEqualTo(new HashMap<>(problem.getVehicleMap()))
+                .containsKeys("truck-1", "truck-2").doesNotContainKey("truck-3");
+        assertThatThrownBy(() -> problem.getVehicleMap().put("truck-3", problem.getVehicle("truck-1")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void valuesAreCachedUnmodifiable() throws Exception {
+        assertThat(problem.getAllVehicles()).isSameAs(problem.getAllVehicles())
+                .containsOnly(problem.getVehicle("truck-1"), problem.getVehicle("truck-2"));
+        assertThat(problem.getAllPackages()).hasSameSizeAs(problem.getPackageMap().keySet());
+        assertThatThrownBy(() -> problem.getAllVehicles().clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void equalsCopy() throws Exception {
+        DefaultProblem copy = new DefaultProblem(problem.getName(), problem.getRoadGraph(),
+                new HashMap<>(problem.getVehicleMap()), new HashMap<>(problem.getPackageMap()));
+        assertThat(copy).isEqualTo(problem);
+        assertThat(copy.hashCode()).isEqualTo(problem.hashCode());
+    }
+
 }
@@ -0,0 +1,77 @@
+package com.oskopek.transport.model.problem;
+
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SymbolTableTest {
+
+    private DefaultProblem problem;
+    private SymbolTable symbols;
+
+    @Before
+    public void setUp() throws Exception {
+        problem = TestUtils.P01SequentialProblem();
+        symbols = SymbolTable.of(problem);
+    }
+
+    @Test
+    public void counts() throws Exception {
+        assertThat(symbols.getLocationCount()).isEqualTo(5);
+        assertThat(symbols.getVehicleCount()).isEqualTo(2);
+        assertThat(symbols.getPackageCount()).isEqualTo(2);
+        assertThat(symbols.getRoadCount()).isEqualTo(12);
+    }
+
+    @Test
+    public void idsAreSortedByName() throws Exception {
+        assertThat(symbols.getLocationId("city-loc-1")).isEqualTo(0);
+        assertThat(symbols.getLocationId("city-loc-5")).isEqualTo(4);
+        assertThat(symbols.getLocation(2)).isEqualTo(problem.getRoadGraph().getLocation("city-loc-3"));
+        assertThat(symbols.getVehicleName(0)).isEqualTo("truck-1");
+        assertThat(symbols.getPackageId("package-2")).isEqualTo(1);
+        assertThat(symbols.getRoad(symbols.getRoadId("l1l4"))).isEqualTo(problem.getRoadGraph().getRoad("l1l4"));
+    }
+
+    @Test
+    public void unknownNames() throws Exception {
+        assertThat(symbols.getLocationId("city-loc-6")).isEqualTo(-1);
+        assertThat(symbols.getVehicleId("truck-3")).isEqualTo(-1);
+        assertThat(symbols.getPackageId("package-3")).isEqualTo(-1);
+        assertThat(symbols.getRoadId("l1l2")).isEqualTo(-1);
+    }
+
+    @Test
+    public void roads() throws Exception {
+        int loc1 = symbols.getLocationId("city-loc-1");
+        int loc4 = symbols.getLocationId("city-loc-4");
+        int road = symbols.getRoadId(loc1, loc4);
+        assertThat(symbols.getRoad(road).getName()).isEqualTo("l1l4");
+        assertThat(symbols.getRoadFrom(road)).isEqualTo(loc1);
+        assertThat(symbols.getRoadTo(road)).isEqualTo(loc4);
+        assertThat(symbols.getRoadLength(road)).isEqualTo(28);
+        assertThat(symbols.getRoadEdge(road)).isEqualTo(problem.getRoadGraph().getRoadEdge("l1l4"));
+        assertThat(symbols.getRoadId(loc1, symbols.getLocationId("city-loc-2"))).isEqualTo(-1);
+        assertThat(symbols.getOutgoingRoads(symbols.getLocationId("city-loc-5"))).hasSize(4);
+    }
+
+    @Test
+    public void problemIdAccessors() throws Exception {
+        assertThat(problem.getVehicle(symbols.getVehicleId("truck-2"))).isEqualTo(problem.getVehicle("truck-2"));
+        assertThat(problem.getPackage(symbols.getPackageId("package-1"))).isEqualTo(problem.getPackage("package-1"));
+    }
+
+    @Test
+    public void problemSharesSymbolTable() throws Exception {
+        SymbolTable cached = problem.getSymbolTable();
+        assertThat(problem.getSymbolTable()).isSameAs(cached);
+        Vehicle truck = problem.getVehicle("truck-1");
+        assertThat(problem.putVehicle(truck.getName(), truck).getSymbolTable()).isSameAs(cached);
+        assertThat(problem.putName("other").getSymbolTable()).isSameAs(cached);
+        assertThat(problem.removeVehicle(truck.getName()).getSymbolTable()).isNotSameAs(cached);
+        assertThat(problem.removeVehicle(truck.getName()).getSymbolTable().getVehicleCount()).isEqualTo(1);
+    }
+
+}
@@ -6,12 +6,16 @@ import com.oskopek.transport.model.domain.action.TemporalPlanAction;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.model.problem.*;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.TemporalPlanIO;
+import com.oskopek.transport.persistence.VariableDomainIO;
 import com.oskopek.transport.tools.test.TestUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -258,4 +262,25 @@ public class TemporalPlanStateManagerTest {
         assertThat(planStateManager.getCurrentTime()).isEqualTo(2d);
     }
 
+    @Test
+    public void seekingMatchesReplayFromBeginning() throws Exception {
+        Domain tempDomain = new VariableDomainIO().parse(TestUtils.getPersistenceTestFile("variableDomainTemp.pddl"));
+        Problem tempProblem = new DefaultProblemIO(tempDomain).parse(TestUtils
+                .getPersistenceTestFile("p30TempProblem.pddl"));
+        Plan tempPlan = new TemporalPlanIO(tempDomain, tempProblem).parse(TestUtils
+                .getPersistenceTestFile("p30TempPlan.val"));
+        double makespan = tempPlan.calculateMakespan();
+        TemporalPlanStateManager seeking = new TemporalPlanStateManager(tempDomain, tempProblem, tempPlan);
+        Random random = new Random(2017L);
+        for (int i = 0; i < 50; i++) {
+            double time = i == 0 ? makespan : Math.floor(random.nextDouble() * makespan);
+            boolean applyStarts = random.nextBoolean();
+            seeking.goToTime(time, applyStarts);
+            TemporalPlanStateManager replaying = new TemporalPlanStateManager(tempDomain, tempProblem, tempPlan);
+            replaying.goToTime(time, applyStarts);
+            assertThat(seeking.getCurrentPlanState()).isEqualTo(replaying.getCurrentPlanState());
+            assertThat(seeking.getLastAction()).isEqualTo(replaying.getLastAction());
+        }
+    }
+
 }
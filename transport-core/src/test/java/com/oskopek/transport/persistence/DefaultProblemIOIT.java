@@ -1,5 +1,6 @@
 package com.oskopek.transport.persistence;
 
+import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.domain.PddlLabel;
 import com.oskopek.transport.model.domain.SequentialDomain;
 import com.oskopek.transport.model.domain.VariableDomain;
@@ -11,6 +12,10 @@ import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -18,6 +23,7 @@ import java.util.stream.Collectors;
 
 import static com.oskopek.transport.persistence.IOUtils.readAllLines;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.*;
 
 public class DefaultProblemIOIT {
@@ -277,4 +283,70 @@ public class DefaultProblemIOIT {
         assertEquals(323, truck1.getMaxFuelCapacity().getCost());
     }
 
+    private static DefaultProblem assertStreamedEqually(Domain domain, String problemFileContents)
+            throws Exception {
+        DefaultProblemIO io = new DefaultProblemIO(domain);
+        DefaultProblem problem = io.parseDefault(problemFileContents);
+        DefaultProblem streamed = io.parseDefault(new StringReader(problemFileContents));
+        assertThat(streamed).isEqualTo(problem);
+        TestUtils.assertPDDLContentEquals(io.serialize(problem), io.serialize(streamed));
+        return streamed;
+    }
+
+    @Test
+    public void streamSequential() throws Exception {
+        TestUtils.assertP01Sequential(sequentialDomain, assertStreamedEqually(sequentialDomain,
+                seqProblemFileContents));
+        assertStreamedEqually(variableDomainFuelSeq, fuelSeqProblemFileContents);
+    }
+
+    @Test
+    public void streamTemporal() throws Exception {
+        assertStreamedEqually(variableDomainTemp, tempProblemFileContents);
+        assertStreamedEqually(variableDomainTemp, tempBigProblemFileContents);
+    }
+
+    @Test
+    public void streamObjectLists() throws Exception {
+        DefaultProblem problem = new DefaultProblemIO(sequentialDomain).parseDefault(new StringReader(
+                "; comment\n(define (problem list) (:domain transport)\n"
+                        + "(:objects l1 l2 - location t1 t2 - vehicle p1 - package) ; trailing comment\n"
+                        + "(:init (road l1 l2) (= (road-length l1 l2) 3) (at t1 l1) (at t2 l2) (at p1 l1))\n"
+                        + "(:goal (at p1 l2)))"));
+        assertThat(problem.getAllVehicles()).hasSize(2);
+        assertThat(problem.getVehicle("t2").getLocation()).isEqualTo(problem.getRoadGraph().getLocation("l2"));
+        assertThat(problem.getPackage("p1").getTarget()).isEqualTo(problem.getRoadGraph().getLocation("l2"));
+    }
+
+    @Test
+    public void streamRejectsMalformedInput() throws Exception {
+        DefaultProblemIO io = new DefaultProblemIO(sequentialDomain);
+        assertThatThrownBy(() -> io.parseDefault(new StringReader("(define (problem p) (:domain transport)")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("end of input");
+        assertThatThrownBy(() -> io.parseDefault(new StringReader("(define (problem p)\n(:domain logistics))")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> io.parseDefault(new StringReader("(define (problem p)\n(:objects (t1)))")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("line 2");
+        assertThatThrownBy(() -> io.parseDefault(new StringReader(
+                "(define (problem p)\n(:objects l1 - location p1 - package)\n(:init (not (at p1 l1))))")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("positive");
+        assertThatThrownBy(() -> io.parseDefault(new StringReader(
+                "(define (problem p)\n(:objects l1 - location p1 - package)\n(:init (at 10 (at p1 l1))))")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("untimed");
+    }
+
+    @Test
+    public void serializeToFile() throws Exception {
+        DefaultProblemIO io = new DefaultProblemIO(variableDomainTemp);
+        DefaultProblem problem = io.parseDefault(tempBigProblemFileContents);
+        Path file = Files.createTempFile("problem-", ".pddl");
+        try {
+            io.serialize(problem, file);
+            assertEquals(io.serialize(problem), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertThat(io.parseDefault(file)).isEqualTo(problem);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
@@ -8,8 +8,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 
 import static com.oskopek.transport.persistence.IOUtils.concatReadAllLines;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -65,4 +68,25 @@ public class SequentialPlanIOIT {
         assertNotNull(plan);
         TestUtils.assertPDDLContentEquals(P20SequentialPlanFileContents, sequentialPlanIO.serialize(plan));
     }
+
+    @Test
+    public void parseReader() throws Exception {
+        SequentialPlanIO sequentialPlanIO = new SequentialPlanIO(domain, p20Problem);
+        assertEquals(sequentialPlanIO.parse(P20SequentialPlanFileContents),
+                sequentialPlanIO.parse(new StringReader(P20SequentialPlanFileContents)));
+    }
+
+    @Test
+    public void parseReportsLineErrorsWithPartialPlan() throws Exception {
+        String[] lines = P01SequentialPlanFileContents.split("\n");
+        lines[1] = "(pick-up truck-9 city-loc-4 package-2 capacity-0 capacity-1)";
+        lines[2] = "(fly truck-1 city-loc-4 city-loc-5)";
+        Throwable thrown = catchThrowable(() -> new SequentialPlanIO(domain, p01Problem)
+                .parse(String.join("\n", lines)));
+        assertThat(thrown).isInstanceOf(PlanParseException.class);
+        PlanParseException e = (PlanParseException) thrown;
+        assertThat(e.getLineErrors()).containsExactly("line 2: Unknown vehicle: truck-9",
+                "line 3: Unknown action name: fly");
+        assertThat(e.getPartialPlan().getActions()).hasSize(TestUtils.P01SequentialPlan().getActions().size() - 2);
+    }
 }
@@ -11,10 +11,12 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.StringReader;
 import java.util.stream.Collectors;
 
 import static com.oskopek.transport.persistence.IOUtils.readAllLines;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -73,4 +75,15 @@ public class TemporalPlanIOIT {
         assertEquals(0, plan.getActionsAt(53).size());
     }
 
+    @Test
+    public void parseReportsLineErrorsWithPartialPlan() throws Exception {
+        String contents = p01TemporalPlanContents.replaceFirst("\\[1\\.00000]", "[one]");
+        Throwable thrown = catchThrowable(() -> new TemporalPlanIO(temporalDomain, p01Temporal)
+                .parse(new StringReader(contents)));
+        assertThat(thrown).isInstanceOf(PlanParseException.class);
+        PlanParseException e = (PlanParseException) thrown;
+        assertThat(e.getLineErrors()).hasSize(1).allMatch(error -> error.startsWith("line 1: "));
+        assertThat(e.getPartialPlan().getActions()).hasSize(5);
+    }
+
 }
@@ -0,0 +1,57 @@
+package com.oskopek.transport.tools.executables;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.persistence.SequentialPlanIOIT;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ExecutableTemporarySerializerIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("seq");
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        SequentialPlanIOIT.initialize();
+    }
+
+    @Test
+    public void reusesDirectoryOfThreadWithUniqueRuns() throws Exception {
+        Path directory;
+        Path problemFile;
+        try (ExecutableTemporarySerializer serializer = new ExecutableTemporarySerializer(domain,
+                SequentialPlanIOIT.p20Problem, null)) {
+            directory = serializer.getWorkspace().getDirectory();
+            problemFile = serializer.getProblemTmpFile();
+            assertThat(problemFile.getParent()).isEqualTo(directory);
+            assertThat(Files.size(problemFile)).isPositive();
+            assertThat(serializer.getPlanTmpFile()).exists();
+            Files.createFile(serializer.getWorkspace().resolve("output.sas"));
+        }
+        assertThat(directory).doesNotExist();
+        assertThat(directory.getParent()).isDirectory();
+        try (ExecutableTemporarySerializer serializer = new ExecutableTemporarySerializer(domain,
+                SequentialPlanIOIT.p20Problem, null)) {
+            assertThat(serializer.getWorkspace().getDirectory().getParent()).isEqualTo(directory.getParent());
+            assertThat(serializer.getProblemTmpFile()).isNotEqualTo(problemFile);
+        }
+    }
+
+    @Test
+    public void nestedUseCreatesSeparateRun() throws Exception {
+        try (ExecutableTemporarySerializer outer = new ExecutableTemporarySerializer(domain, null, null)) {
+            Path nestedDirectory;
+            try (ExecutableTemporarySerializer inner = new ExecutableTemporarySerializer(domain, null, null)) {
+                nestedDirectory = inner.getWorkspace().getDirectory();
+                assertThat(nestedDirectory).isNotEqualTo(outer.getWorkspace().getDirectory());
+            }
+            assertThat(nestedDirectory).doesNotExist();
+            assertThat(outer.getDomainTmpFile()).exists();
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests of {@link com.oskopek.transport.tools.executables}.
+ */
+package com.oskopek.transport.tools.executables;
@@ -0,0 +1,113 @@
+package com.oskopek.transport.validation;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.SequentialPlanIO;
+import com.oskopek.transport.persistence.SequentialPlanIOIT;
+import com.oskopek.transport.persistence.TemporalPlanIO;
+import com.oskopek.transport.persistence.VariableDomainIO;
+import com.oskopek.transport.persistence.VariableDomainIOIT;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.oskopek.transport.persistence.IOUtils.concatReadAllLines;
+import static org.assertj.core.api.Assertions.*;
+
+public class TemporalPlanValidatorIT {
+
+    private static Domain temporalDomain;
+    private static Problem p01Temporal;
+    private static String p01TemporalPlanContents;
+    private static String separatedPlanContents;
+    private final TemporalPlanValidator validator = new TemporalPlanValidator();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        temporalDomain = new VariableDomainIO().parse(concatReadAllLines(
+                VariableDomainIOIT.class.getResourceAsStream("variableDomainTemp.pddl")));
+        p01Temporal = new DefaultProblemIO(temporalDomain).parse(concatReadAllLines(
+                VariableDomainIOIT.class.getResourceAsStream("p01TempProblem.pddl")));
+        p01TemporalPlanContents = concatReadAllLines(
+                VariableDomainIOIT.class.getResourceAsStream("p01TempPlan.val"));
+        separatedPlanContents = p01TemporalPlanContents.replace("1.00001:", "1.00100:")
+                .replace("46.00002:", "46.00200:").replace("51.00002:", "51.00200:");
+    }
+
+    private static Plan temporalPlan(String contents) {
+        return new TemporalPlanIO(temporalDomain, p01Temporal).parse(contents);
+    }
+
+    @Test
+    public void validatesTemporalPlan() throws Exception {
+        assertThat(validator.isValid(temporalDomain, p01Temporal, temporalPlan(separatedPlanContents))).isTrue();
+    }
+
+    @Test
+    public void rejectsMutexHappeningsCloserThanEpsilon() throws Exception {
+        List<String> messages = new ArrayList<>();
+        validator.subscribe(messages::add);
+        assertThat(validator.isValid(temporalDomain, p01Temporal, temporalPlan(p01TemporalPlanContents)))
+                .isFalse();
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0)).contains("not separated");
+    }
+
+    @Test
+    public void rejectsDrivingWhileLoading() throws Exception {
+        Plan plan = temporalPlan(separatedPlanContents.replace("1.00100: (drive truck-2",
+                "0.50000: (drive truck-2"));
+        assertThat(validator.isValid(temporalDomain, p01Temporal, plan)).isFalse();
+    }
+
+    @Test
+    public void rejectsUnreachedGoal() throws Exception {
+        Plan plan = temporalPlan(separatedPlanContents.replace("51.00200: (drop truck-1 city-loc-2 package-1)",
+                "; removed"));
+        assertThat(validator.isValid(temporalDomain, p01Temporal, plan)).isFalse();
+    }
+
+    @Test
+    public void rejectsDropBeforeArrival() throws Exception {
+        Plan plan = temporalPlan(separatedPlanContents.replace("46.00200: (drop truck-2",
+                "44.00200: (drop truck-2"));
+        assertThat(validator.isValid(temporalDomain, p01Temporal, plan)).isFalse();
+    }
+
+    @Test
+    public void validatesPlansInParallel() throws Exception {
+        Plan valid = temporalPlan(separatedPlanContents);
+        Plan invalid = temporalPlan(separatedPlanContents.replace("46.00200: (drop truck-2",
+                "44.00200: (drop truck-2"));
+        List<String> messages = new ArrayList<>();
+        validator.subscribe(messages::add);
+        assertThat(validator.areValid(temporalDomain, p01Temporal, Arrays.asList(valid, invalid, valid)))
+                .containsExactly(true, false, true);
+        assertThat(messages).hasSize(1);
+    }
+
+    @Test
+    public void crossCheckDoesNotOverrideInProcessResult() throws Exception {
+        Plan invalid = temporalPlan(separatedPlanContents.replace("1.00100: (drive truck-2",
+                "0.50000: (drive truck-2"));
+        TemporalPlanValidator crossChecked = new TemporalPlanValidator(new EmptyValidator());
+        assertThat(crossChecked.isAvailable()).isTrue();
+        assertThat(crossChecked.isValid(temporalDomain, p01Temporal, invalid)).isFalse();
+    }
+
+    @Test
+    public void validatesSequentialPlan() throws Exception {
+        SequentialPlanIOIT.initialize();
+        Domain domain = new SequentialDomain("seq");
+        Problem problem = SequentialPlanIOIT.p20Problem;
+        Plan plan = new SequentialPlanIO(domain, problem).parse(SequentialPlanIOIT.P20SequentialPlanFileContents);
+        assertThat(validator.isValid(domain, problem, plan)).isTrue();
+    }
+
+}
@@ -57,10 +57,7 @@ public final class TemporalPlannerMain {
         try (InputStream inputStream = Files.newInputStream(Paths.get(args[0]))) {
             domain = new VariableDomainIO().parse(IOUtils.concatReadAllLines(inputStream));
         }
-        Problem problem;
-        try (InputStream inputStream = Files.newInputStream(Paths.get(args[1]))) {
-            problem = new DefaultProblemIO(domain).parse(IOUtils.concatReadAllLines(inputStream));
-        }
+        Problem problem = new DefaultProblemIO(domain).parseDefault(Paths.get(args[1]));
 
         Plan plan = planner.startAndWait(domain, problem);
         if (plan != null) {
@@ -1,35 +1,86 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.domain.action.Action;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.plan.SequentialPlan;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.planners.sequential.state.CacheEvictionPolicy;
+import com.oskopek.transport.planners.sequential.state.CompactState;
+import com.oskopek.transport.planners.sequential.state.CompactStateEncoder;
+import com.oskopek.transport.planners.sequential.state.HeuristicCache;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
 import com.oskopek.transport.planners.AbstractPlanner;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.OpenList;
+import com.oskopek.transport.planners.sequential.state.OpenListStrategy;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
+import com.oskopek.transport.planners.sequential.state.TieBreaking;
 import org.slf4j.LoggerFactory;
-import org.teneighty.heap.AbstractHeap;
-import org.teneighty.heap.BinaryHeap;
-import org.teneighty.heap.Heap;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Stream;
 
 /**
- * A forward planner using A* as search. Utilized {@link PlannerUtils}
- * for generating actions. Uses a binary heap ({@link org.teneighty.heap.BinaryHeap}) internally to keep track
- * of open states.
+ * A forward planner using A* as search. Utilizes a {@link SuccessorGenerator}
+ * for generating actions. Keeps track of open states in a bounded {@link OpenList} with primitive integer f-scores,
+ * selected by an {@link OpenListStrategy} (a double-ended heap by default) and a {@link TieBreaking} policy
+ * when the search starts. When the open list is full, the open state with the worst score is evicted.
+ * Closed and open set membership is tested on bit-packed {@link CompactState} keys, so closed
+ * states themselves do not need to be retained. Raw heuristic values are memoized by the same keys
+ * in a bounded {@link HeuristicCache}, which is kept across searches of the same problem and scaled by
+ * the {@link #getHeuristicWeight() heuristic weight}.
+ * <p>
+ * With a {@link #setParallelism(int) parallelism} higher than one, the search is distributed over several
+ * threads by a {@link HashDistributedAstar}. The heuristic is then called concurrently and therefore must not
+ * modify any shared state during the search.
+ * <p>
+ * In the {@link #isAnytimeSearch() anytime} mode (used by {@link MetaSFAPlanner}), the closed and open states
+ * of a sequential search are kept after it returns and the next search of the same problem resumes them
+ * (as in anytime weighted A*): open states are re-keyed with the current heuristic weight, closed states reached
+ * by a cheaper path are reopened and states whose total time reaches the score of the best plan are pruned.
  */
 public abstract class ForwardAstarPlanner extends AbstractPlanner {
 
-    private Map<ImmutablePlanState, Heap.Entry<Integer, ImmutablePlanState>> entryMap;
-    private Set<ImmutablePlanState> closedSet;
-    private AbstractHeap<Integer, ImmutablePlanState> openSet;
-    private ArrayTable<String, String, ShortestPath> distanceMatrix;
+    /**
+     * The maximal number of open states.
+     */
+    private static final int OPEN_MAX_SIZE = 800_000;
+
+    /**
+     * How often the parallel search is checked for cancellation, in milliseconds.
+     */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100L;
+
+    /**
+     * The default maximal number of memoized heuristic values.
+     */
+    private static final int DEFAULT_HEURISTIC_CACHE_SIZE = 200_000;
+
+    /**
+     * The number of heuristic cache stripes per worker of the parallel search, so that workers rarely contend.
+     */
+    private static final int HEURISTIC_CACHE_STRIPES_PER_WORKER = 8;
+
+    /**
+     * The maximal h-score, weighted heuristic values are saturated to it (e.g. of dead ends), so that f-scores
+     * stay non-negative.
+     */
+    private static final int MAX_H_SCORE = Integer.MAX_VALUE / 2;
+
+    private Map<CompactState, OpenList.Entry<ImmutablePlanState>> entryMap;
+    private Map<CompactState, Integer> closedMap;
+    private OpenList<ImmutablePlanState> openSet;
+    private OpenListStrategy openListStrategy = OpenListStrategy.BOUNDED_HEAP;
+    private TieBreaking tieBreaking = TieBreaking.NONE;
+    private int parallelism = 1;
+    private CacheEvictionPolicy heuristicCachePolicy = CacheEvictionPolicy.LRU;
+    private int heuristicCacheSize = DEFAULT_HEURISTIC_CACHE_SIZE;
+    private HeuristicCache heuristicCache;
+    private Problem heuristicCacheProblem;
+    private ShortestPathMatrix distanceMatrix;
+    private CompactStateEncoder stateEncoder;
+    private Problem searchProblem;
     private Plan myBestPlan;
     private int myBestPlanScore = Integer.MAX_VALUE;
     private boolean stopAtFirstSolution;
@@ -64,14 +115,204 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
     }
 
     /**
-     * Get the heuristic score, used in A*.
+     * Does the search run in the anytime mode? If so, the next search of the same problem resumes the closed
+     * and open states of the previous one, instead of starting from the initial state. Subclasses returning true
+     * have to call {@link #discardSearch()} when they are done with the problem.
+     * Ignored by the parallel search.
+     *
+     * @return true iff searches are resumed, false by default
+     */
+    protected boolean isAnytimeSearch() {
+        return false;
+    }
+
+    /**
+     * Discard the closed and open states kept by the anytime search, the next search will start from
+     * the initial state. Also discards the best found plan, because its score bounds the anytime search.
+     */
+    protected void discardSearch() {
+        myBestPlan = null;
+        myBestPlanScore = Integer.MAX_VALUE;
+        closedMap = null;
+        openSet = null;
+        entryMap = null;
+        searchProblem = null;
+        distanceMatrix = null;
+        stateEncoder = null;
+    }
+
+    /**
+     * Get the open list implementation used by the search.
+     *
+     * @return the open list strategy
+     */
+    public OpenListStrategy getOpenListStrategy() {
+        return openListStrategy;
+    }
+
+    /**
+     * Set the open list implementation, used from the next search.
+     *
+     * @param openListStrategy the open list strategy
+     */
+    public void setOpenListStrategy(OpenListStrategy openListStrategy) {
+        this.openListStrategy = openListStrategy;
+    }
+
+    /**
+     * Get the tie-breaking policy of the open list.
+     *
+     * @return the tie-breaking policy
+     */
+    public TieBreaking getTieBreaking() {
+        return tieBreaking;
+    }
+
+    /**
+     * Set the tie-breaking policy of the open list, used from the next search.
+     *
+     * @param tieBreaking the tie-breaking policy
+     */
+    public void setTieBreaking(TieBreaking tieBreaking) {
+        this.tieBreaking = tieBreaking;
+    }
+
+    /**
+     * Get the number of threads searching in parallel.
+     *
+     * @return the parallelism, 1 for the sequential search
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads searching in parallel, used from the next search.
+     *
+     * @param parallelism the parallelism, 1 for the sequential search
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the eviction policy of the heuristic cache.
+     *
+     * @return the heuristic cache policy
+     */
+    public CacheEvictionPolicy getHeuristicCachePolicy() {
+        return heuristicCachePolicy;
+    }
+
+    /**
+     * Set the eviction policy of the heuristic cache, used from the next search.
+     * {@link CacheEvictionPolicy#NONE} disables the cache.
+     *
+     * @param heuristicCachePolicy the heuristic cache policy
+     */
+    public void setHeuristicCachePolicy(CacheEvictionPolicy heuristicCachePolicy) {
+        this.heuristicCachePolicy = heuristicCachePolicy;
+    }
+
+    /**
+     * Get the maximal number of memoized heuristic values.
+     *
+     * @return the heuristic cache size
+     */
+    public int getHeuristicCacheSize() {
+        return heuristicCacheSize;
+    }
+
+    /**
+     * Set the maximal number of memoized heuristic values, used from the next search.
+     *
+     * @param heuristicCacheSize the heuristic cache size
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public void setHeuristicCacheSize(int heuristicCacheSize) {
+        if (heuristicCacheSize < 1) {
+            throw new IllegalArgumentException("Heuristic cache size has to be positive: " + heuristicCacheSize);
+        }
+        this.heuristicCacheSize = heuristicCacheSize;
+    }
+
+    /**
+     * Get the heuristic cache of the last search, with its hit-rate statistics.
+     *
+     * @return the heuristic cache, or null if no search was started yet
+     */
+    public HeuristicCache getHeuristicCache() {
+        return heuristicCache;
+    }
+
+    /**
+     * Configure the search from a string parameter, used by planner constructors with a string parameter
+     * (e.g. in benchmark configurations). The format is
+     * {@code STRATEGY[,TIE_BREAKING[,PARALLELISM[,CACHE_POLICY]]]}, using the names of {@link OpenListStrategy}
+     * and {@link TieBreaking} constants, the number of search threads and the name of a {@link CacheEvictionPolicy}
+     * constant, e.g. {@code BUCKET,HIGHER_G} or {@code BUCKET,HIGHER_G,4,FIFO}.
+     *
+     * @param searchConfiguration the configuration
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    protected void configureSearch(String searchConfiguration) {
+        String[] parts = searchConfiguration.trim().split("\\s*,\\s*");
+        if (parts.length > 4) {
+            throw new IllegalArgumentException("Invalid search configuration: " + searchConfiguration);
+        }
+        setOpenListStrategy(OpenListStrategy.valueOf(parts[0].toUpperCase()));
+        if (parts.length >= 2) {
+            setTieBreaking(TieBreaking.valueOf(parts[1].toUpperCase()));
+        }
+        if (parts.length >= 3) {
+            setParallelism(Integer.parseInt(parts[2]));
+        }
+        if (parts.length == 4) {
+            setHeuristicCachePolicy(CacheEvictionPolicy.valueOf(parts[3].toUpperCase()));
+        }
+    }
+
+    /**
+     * Copy the search settings of this planner to the other planner, used in {@link #copy()}.
+     *
+     * @param planner the planner to configure
+     * @param <P> the planner type
+     * @return the configured planner
+     */
+    protected <P extends ForwardAstarPlanner> P copySearchSettingsTo(P planner) {
+        planner.setOpenListStrategy(openListStrategy);
+        planner.setTieBreaking(tieBreaking);
+        planner.setParallelism(parallelism);
+        planner.setHeuristicCachePolicy(heuristicCachePolicy);
+        planner.setHeuristicCacheSize(heuristicCacheSize);
+        return planner;
+    }
+
+    /**
+     * Get the heuristic score, used in A*: the memoized raw heuristic value scaled by the heuristic weight,
+     * saturated to {@link #MAX_H_SCORE}.
      *
      * @param s the state whose score to get
+     * @param key the key of the state
      * @return the estimated distance to a goal state
      */
-    private Integer getHScore(ImmutablePlanState s) {
-        return calculateHeuristic(s, distanceMatrix,
-                PlannerUtils.getUnfinishedPackages(s.getProblem().getAllPackages()));
+    int getHScore(ImmutablePlanState s, CompactState key) {
+        long hScore = (long) getHeuristicWeight() * heuristicCache.get(key, () -> calculateHeuristic(s,
+                distanceMatrix, PlannerUtils.getUnfinishedPackages(s.getProblem().getAllPackages())));
+        return (int) Math.min(MAX_H_SCORE, hScore);
+    }
+
+    /**
+     * Get the weight of the heuristic, by which all heuristic values are multiplied (as in weighted A*).
+     *
+     * @return the weight, 1 by default
+     */
+    protected int getHeuristicWeight() {
+        return 1;
     }
 
     /**
@@ -79,17 +320,27 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
      *
      * @return the shortest path length (sum of lengths of roads on the shortest paths)
      */
-    public ArrayTable<String, String, ShortestPath> getDistanceMatrix() {
+    public ShortestPathMatrix getDistanceMatrix() {
         return distanceMatrix;
     }
 
+    /**
+     * The encoder of the closed and open set keys.
+     *
+     * @return the state encoder
+     */
+    CompactStateEncoder getStateEncoder() {
+        return stateEncoder;
+    }
+
     /**
      * Resets to planner to an original state.
      */
     void resetState() {
-        closedSet = new HashSet<>();
-        openSet = new BinaryHeap<>();
+        closedMap = new HashMap<>();
         entryMap = new HashMap<>();
+        openSet = openListStrategy.create(OPEN_MAX_SIZE, tieBreaking,
+                evicted -> entryMap.remove(stateEncoder.encode(evicted.getProblem())));
         resetBestPlan();
     }
 
@@ -107,19 +358,95 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
      * @param problem the problem to initialize the planner from
      */
     void initialize(Problem problem) {
-        distanceMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
+        precompute(problem);
+        searchProblem = problem;
         ImmutablePlanState start = new ImmutablePlanState(problem);
-        int startHScore = getHScore(start);
-        entryMap.put(start, openSet.insert(startHScore, start));
+        CompactState startKey = stateEncoder.encode(start.getProblem());
+        entryMap.put(startKey, openSet.insert(getHScore(start, startKey), 0, start));
+    }
+
+    /**
+     * Precompute the shortest paths, the state encoder and the heuristic data of the problem.
+     * The heuristic cache is kept if the problem and cache settings did not change since the last search.
+     *
+     * @param problem the problem
+     */
+    private void precompute(Problem problem) {
+        distanceMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
+        stateEncoder = new CompactStateEncoder(problem);
+        precomputeHeuristic(problem, distanceMatrix);
+        int stripeCount = parallelism == 1 ? 1 : HEURISTIC_CACHE_STRIPES_PER_WORKER * parallelism;
+        if (heuristicCache == null || heuristicCacheProblem != problem
+                || heuristicCache.getPolicy() != heuristicCachePolicy
+                || heuristicCache.getMaxSize() != heuristicCacheSize
+                || heuristicCache.getStripeCount() > 0 && heuristicCache.getStripeCount() < stripeCount) {
+            heuristicCache = new HeuristicCache(heuristicCacheSize, heuristicCachePolicy, stripeCount);
+            heuristicCacheProblem = problem;
+        }
+    }
+
+    /**
+     * Precompute the per-problem data of the heuristic, called once before every search, before
+     * {@link #calculateHeuristic(ImmutablePlanState, ShortestPathMatrix, Collection)} is called for its states.
+     * Does nothing by default.
+     *
+     * @param problem the problem
+     * @param distanceMatrix the shortest path length matrix
+     */
+    protected void precomputeHeuristic(Problem problem, ShortestPathMatrix distanceMatrix) {
+        // intentionally empty
+    }
+
+    /**
+     * Offer a goal state as a new best plan. If a plan transformation is given, the plan is scored by
+     * the makespan of the transformed plan, otherwise by the total time of the state.
+     * Synchronized, because the workers of a parallel search offer their goal states concurrently.
+     *
+     * @param goal the goal state
+     * @param planTransformation the intermediate transformation function, may be null
+     * @return the score of the best plan found so far, including the offered one
+     */
+    synchronized int offerGoal(ImmutablePlanState goal, Function<Plan, Plan> planTransformation) {
+        int score = goal.getTotalTime();
+        Plan plan = null;
+        if (planTransformation != null) {
+            plan = planTransformation.apply(new SequentialPlan(goal.getAllActionsInList()));
+            if (plan != null) {
+                score = Math.round(plan.calculateMakespan().floatValue());
+            }
+        }
+        if ((planTransformation == null || plan != null) && myBestPlanScore > score) {
+            formatLog("Found new best plan {} -> {}", myBestPlanScore, score);
+            myBestPlanScore = score;
+            if (plan == null) {
+                plan = new SequentialPlan(goal.getAllActionsInList());
+            }
+            myBestPlan = plan;
+        }
+        return myBestPlanScore;
+    }
+
+    /**
+     * Re-key all open states with the current heuristic weight, before resuming an anytime search.
+     * The weight may only decrease between searches, so the keys never increase.
+     */
+    private void reweightOpenStates() {
+        for (Map.Entry<CompactState, OpenList.Entry<ImmutablePlanState>> open : entryMap.entrySet()) {
+            OpenList.Entry<ImmutablePlanState> entry = open.getValue();
+            ImmutablePlanState state = entry.getValue();
+            int fScore = state.getTotalTime() + getHScore(state, open.getKey());
+            if (fScore < entry.getKey()) {
+                openSet.decreaseKey(entry, fScore, state.getTotalTime());
+            }
+        }
     }
 
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem, Function<Plan, Plan> planTransformation) {
         Optional<Plan> maybePlan = planInternal(domain, problem, planTransformation);
-        closedSet = null;
-        openSet = null;
-        entryMap = null;
-        distanceMatrix = null;
+        if (!isAnytimeSearch()) {
+            discardSearch();
+        }
         return maybePlan;
     }
 
@@ -138,32 +465,34 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
      */
     public Optional<Plan> planInternal(Domain domain, Problem problem, Function<Plan, Plan> planTransformation) {
         formatLog("Initializing planning...");
+        if (parallelism > 1) {
+            return planInParallel(domain, problem, planTransformation);
+        }
 
-        resetState();
-        initialize(problem);
-        formatLog("Starting planning...");
-        int openMaxSize = 800_000;
+        boolean anytime = isAnytimeSearch();
+        if (anytime && entryMap != null && searchProblem == problem) {
+            formatLog("Resuming search with {} closed and {} open states...", closedMap.size(), entryMap.size());
+            reweightOpenStates();
+        } else {
+            resetState();
+            initialize(problem);
+        }
+        SuccessorGenerator successorGenerator = new SuccessorGenerator(domain, distanceMatrix);
+        List<Action> successors = new ArrayList<>();
+        formatLog("Starting planning with {} open list ({} tie-breaking)...", openListStrategy, tieBreaking);
 
         while (!entryMap.isEmpty()) {
             ImmutablePlanState current = openSet.extractMinimum().getValue();
-            entryMap.remove(current);
+            CompactState currentKey = stateEncoder.encode(current.getProblem());
+            entryMap.remove(currentKey);
+            // plans are scored by total time without a transformation, so no cheaper plan can go through
+            int bound = anytime && planTransformation == null ? myBestPlanScore : Integer.MAX_VALUE;
+            if (current.getTotalTime() >= bound) {
+                continue;
+            }
+            closedMap.put(currentKey, current.getTotalTime());
             if (current.isGoalState()) {
-                int score = current.getTotalTime();
-                Plan plan = null;
-                if (planTransformation != null) {
-                    plan = planTransformation.apply(new SequentialPlan(current.getAllActionsInList()));
-                    if (plan != null) {
-                        score = Math.round(plan.calculateMakespan().floatValue());
-                    }
-                }
-                if ((planTransformation == null || plan != null) && myBestPlanScore > score) {
-                    formatLog("Found new best plan {} -> {}", myBestPlanScore, score);
-                    myBestPlanScore = score;
-                    if (plan == null) {
-                        plan = new SequentialPlan(current.getAllActionsInList());
-                    }
-                    myBestPlan = plan;
-                }
+                offerGoal(current, planTransformation);
                 if (stopAtFirstSolution) {
                     return Optional.ofNullable(myBestPlan);
                 }
@@ -174,48 +503,94 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
                 return Optional.ofNullable(myBestPlan);
             }
 
-            closedSet.add(current);
 
-            Stream<Action> generatedActions = PlannerUtils.generateActions(domain, current, distanceMatrix,
-                    PlannerUtils.getUnfinishedPackages(current.getProblem().getAllPackages()));
-            generatedActions.forEach(generatedAction -> {
-                // Ignore the neighbor state which is already evaluated or invalid
-                Optional<ImmutablePlanState> maybeNeighbor = current.apply(generatedAction)
-                        .filter(state -> !closedSet.contains(state));
+            successors.clear();
+            successorGenerator.generate(current,
+                    PlannerUtils.getUnfinishedPackages(current.getProblem().getAllPackages()), successors);
+            for (Action generatedAction : successors) {
+                // Ignore the neighbor state which is invalid or already evaluated
+                Optional<ImmutablePlanState> maybeNeighbor = current.apply(generatedAction);
                 if (maybeNeighbor.isPresent()) {
                     ImmutablePlanState neighbor = maybeNeighbor.get();
-
+                    CompactState neighborKey = stateEncoder.encode(neighbor.getProblem());
                     // The distance from start to a neighbor
                     int tentativeGScore = neighbor.getTotalTime(); // G score
-                    int neighborFScore = tentativeGScore + getHScore(neighbor);
+                    if (tentativeGScore >= bound) {
+                        continue;
+                    }
+                    Integer closedGScore = closedMap.get(neighborKey);
+                    if (closedGScore != null) {
+                        if (!anytime || tentativeGScore >= closedGScore) {
+                            continue;
+                        }
+                        closedMap.remove(neighborKey); // reopen, the weighted search closed it too early
+                    }
+
+                    int neighborFScore = tentativeGScore + getHScore(neighbor, neighborKey);
 
-                    Heap.Entry<Integer, ImmutablePlanState> neighborEntry = entryMap.get(neighbor);
+                    OpenList.Entry<ImmutablePlanState> neighborEntry = entryMap.get(neighborKey);
                     if (neighborEntry == null) {
-                        if (entryMap.size() >= openMaxSize) {
-                            Heap.Entry<Integer, ImmutablePlanState> maxEntry = entryMap.values().stream()
-                                    .max(Comparator.comparing(Heap.Entry::getKey)).get();
-                            if (maxEntry.getKey() <= neighborFScore) {
-                                return;
-                            }
-                            entryMap.remove(maxEntry.getValue());
-                            openSet.delete(maxEntry);
+                        // may evict the worst open state, or reject this one if the open list is full of better ones
+                        neighborEntry = openSet.insert(neighborFScore, tentativeGScore, neighbor);
+                        if (neighborEntry != null) {
+                            entryMap.put(neighborKey, neighborEntry);
                         }
-                        neighborEntry = openSet.insert(neighborFScore, neighbor);
-                        entryMap.put(neighbor, neighborEntry);
+                        continue;
                     } else if (tentativeGScore >= neighborEntry.getValue().getTotalTime()) {
-                        return;
+                        continue;
+                    } else { // the key is equal, but the path to it is better
+                        neighborEntry.setValue(neighbor);
                     }
 
                     // this path is the best until now
-                    openSet.decreaseKey(neighborEntry, neighborFScore);
+                    openSet.decreaseKey(neighborEntry, neighborFScore, tentativeGScore);
                 }
-            });
-            if (closedSet.size() % 100_000 == 0) {
-                formatLog("Closed {} states, open: {} ({})", closedSet.size(), openSet.getEntries().size(),
-                        entryMap.size());
+            }
+            if (closedMap.size() % 100_000 == 0) {
+                formatLog("Closed {} states, open: {} ({}), evicted: {}, rejected: {}", closedMap.size(),
+                        openSet.size(), entryMap.size(), openSet.getEvictionCount(), openSet.getRejectionCount());
             }
         }
 
+        formatLog("Open list exhausted, evicted: {}, rejected: {}, heuristic cache hit rate: {}",
+                openSet.getEvictionCount(), openSet.getRejectionCount(), heuristicCache.getHitRate());
+        return Optional.ofNullable(myBestPlan);
+    }
+
+    /**
+     * Runs the hash-distributed A* algorithm on {@link #getParallelism()} threads, see
+     * {@link HashDistributedAstar}. The calling thread waits for the search to finish and cancels it
+     * if requested.
+     *
+     * @param domain the domain
+     * @param problem the problem
+     * @param planTransformation the intermediate transformation function (used for temporal scheduling)
+     * @return the plan, or an empty optional if no plan was found
+     */
+    private Optional<Plan> planInParallel(Domain domain, Problem problem, Function<Plan, Plan> planTransformation) {
+        resetBestPlan();
+        precompute(problem);
+        HashDistributedAstar search = new HashDistributedAstar(this, domain, planTransformation,
+                Math.max(1, OPEN_MAX_SIZE / parallelism));
+        formatLog("Starting planning on {} threads with {} open lists ({} tie-breaking)...", parallelism,
+                openListStrategy, tieBreaking);
+        search.start(new ImmutablePlanState(problem));
+        try {
+            while (!search.awaitTermination(CANCEL_CHECK_INTERVAL_MS)) {
+                if (shouldCancel()) {
+                    formatLog("Cancelling, returning best found plan so far with score: {}.", myBestPlanScore);
+                    search.stop();
+                }
+            }
+        } catch (InterruptedException e) {
+            search.stop();
+            Thread.currentThread().interrupt();
+            return Optional.ofNullable(myBestPlan);
+        }
+        search.rethrowFailure();
+        formatLog("Parallel search finished, expanded: {}, evicted: {}, rejected: {}, heuristic cache hit rate: {}",
+                search.getExpandedCount(), search.getEvictionCount(), search.getRejectionCount(),
+                heuristicCache.getHitRate());
         return Optional.ofNullable(myBestPlan);
     }
 
@@ -229,8 +604,8 @@ public abstract class ForwardAstarPlanner extends AbstractPlanner {
      * @param unfinishedPackages the packages that have not yet been delivered
      * @return the heuristic value (score)
      */
-    protected abstract Integer calculateHeuristic(ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Collection<Package> unfinishedPackages);
+    protected abstract int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages);
 
     @Override
     public abstract ForwardAstarPlanner copy();
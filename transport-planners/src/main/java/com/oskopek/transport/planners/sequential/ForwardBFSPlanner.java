@@ -1,6 +1,5 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.domain.action.Action;
 import com.oskopek.transport.model.plan.Plan;
@@ -8,11 +7,10 @@ import com.oskopek.transport.model.plan.SequentialPlan;
 import com.oskopek.transport.model.problem.Problem;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
 import com.oskopek.transport.planners.AbstractPlanner;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * Breadth-first forward search planner. Still has bugs, highly experimental and very slow.
@@ -31,7 +29,10 @@ public class ForwardBFSPlanner extends AbstractPlanner {
 
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
-        ArrayTable<String, String, ShortestPath> distanceMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
+        ShortestPathMatrix distanceMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
+        SuccessorGenerator successorGenerator = new SuccessorGenerator(domain, distanceMatrix);
+        List<Action> successors = new ArrayList<>();
+        List<ImmutablePlanState> generatedStates = new ArrayList<>();
 
         Deque<ImmutablePlanState> states = new ArrayDeque<>();
         states.add(new ImmutablePlanState(problem));
@@ -53,16 +54,16 @@ public class ForwardBFSPlanner extends AbstractPlanner {
                 return Optional.of(new SequentialPlan(state.getAllActionsInList()));
             }
 
-            Stream.Builder<ImmutablePlanState> generatedStates = Stream.builder();
-            Stream<Action> generatedActions = PlannerUtils.generateActions(domain, state, distanceMatrix,
-                    PlannerUtils.getUnfinishedPackages(state.getProblem().getAllPackages()));
-            generatedActions.forEach(generatedAction -> {
-                Optional<ImmutablePlanState> maybeNewState = state.apply(generatedAction);
-                maybeNewState.ifPresent(generatedStates::accept);
-            });
+            successors.clear();
+            successorGenerator.generate(state,
+                    PlannerUtils.getUnfinishedPackages(state.getProblem().getAllPackages()), successors);
+            generatedStates.clear();
+            for (Action generatedAction : successors) {
+                state.apply(generatedAction).ifPresent(generatedStates::add);
+            }
 
-            generatedStates.build().sorted(Comparator.comparing(ImmutablePlanState::getTotalTime))
-                    .forEach(states::addLast);
+            generatedStates.sort(Comparator.comparing(ImmutablePlanState::getTotalTime));
+            states.addAll(generatedStates);
 
             counter++;
             if (counter % 100_000 == 0) {
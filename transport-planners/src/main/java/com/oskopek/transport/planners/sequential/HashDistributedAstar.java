@@ -0,0 +1,384 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.planners.sequential.state.CompactState;
+import com.oskopek.transport.planners.sequential.state.CompactStateEncoder;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+import com.oskopek.transport.planners.sequential.state.OpenList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Hash-distributed A* (HDA*) search of a {@link ForwardAstarPlanner}. Every state is owned by exactly one worker
+ * thread, chosen by the hash of its {@link CompactState} key (the key used for duplicate detection, so all
+ * duplicates of a state meet at the same worker). Every worker owns its open list, open entry map and closed map,
+ * expands its best open state and sends the generated successors to their owners through lock-free
+ * {@link ConcurrentLinkedQueue} inboxes.
+ * <p>
+ * Because the workers do not expand the states in a global f-score order, a closed state is reopened if it is
+ * reached by a cheaper path later. Goal states are offered to the planner (see
+ * {@link ForwardAstarPlanner#offerGoal(ImmutablePlanState, Function)}). Without a plan transformation, the score
+ * of a plan is its total time, therefore states with a total time not lower than the best plan's score are pruned
+ * (this bound is sound for every heuristic, admissible or not). With a transformation, the plans are scored
+ * by makespan, which may be lower than the total time, and no states are pruned.
+ * <p>
+ * If the planner stops at the first solution, an expanded goal does not stop the search, because it may be worse
+ * than the goal a sequential A* would expand first. Instead, its f-score (its total time) becomes an upper bound
+ * on the f-scores of states worth expanding: states with a higher or equal f-score are discarded when received
+ * and the open list of a worker is discarded when its minimum reaches the bound. The search therefore ends
+ * when the minimal f-score of every worker is at least the score of the best goal, as in sequential A*.
+ * <p>
+ * The search terminates when there is no work left: a shared counter tracks the number of states that
+ * are in an inbox, in an open list or being expanded. Successors are counted before their parent is uncounted,
+ * so the counter only reaches zero when all workers are idle and all inboxes are empty, and stays zero afterwards.
+ */
+final class HashDistributedAstar {
+
+    /**
+     * How long an idle worker waits before polling its inbox again, in nanoseconds.
+     */
+    private static final long IDLE_PARK_NANOS = 50_000L;
+
+    private final ForwardAstarPlanner planner;
+    private final Function<Plan, Plan> planTransformation;
+    private final CompactStateEncoder stateEncoder;
+    private final Worker[] workers;
+    private final AtomicLong pendingStates = new AtomicLong();
+    private final AtomicLong expandedCount = new AtomicLong();
+    private final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicInteger solutionBound = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CountDownLatch finished;
+    private volatile boolean stopped;
+
+    /**
+     * Default constructor. The planner has to be initialized (the distance matrix and state encoder computed)
+     * and its search settings are read here.
+     *
+     * @param planner the planner, provides the heuristic, the search settings and collects the plans
+     * @param domain the domain
+     * @param planTransformation the intermediate transformation function (used for temporal scheduling), may be null
+     * @param maxOpenSize the maximal number of open states of every worker
+     */
+    HashDistributedAstar(ForwardAstarPlanner planner, Domain domain, Function<Plan, Plan> planTransformation,
+            int maxOpenSize) {
+        this.planner = planner;
+        this.planTransformation = planTransformation;
+        this.stateEncoder = planner.getStateEncoder();
+        workers = new Worker[planner.getParallelism()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(domain, maxOpenSize);
+        }
+        finished = new CountDownLatch(workers.length);
+    }
+
+    /**
+     * Start the worker threads, searching from the start state. Can only be called once.
+     *
+     * @param start the start state
+     */
+    void start(ImmutablePlanState start) {
+        send(stateEncoder.encode(start.getProblem()), start);
+        for (int i = 0; i < workers.length; i++) {
+            Thread thread = new Thread(workers[i], planner.getName() + "-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Wait for all the worker threads to finish.
+     *
+     * @param timeoutMillis the maximal time to wait, in milliseconds
+     * @return true iff all the workers finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        return finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Request the workers to stop, they finish after their current expansion.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Rethrow the first failure of a worker, if any. Call after the workers finished.
+     *
+     * @throws IllegalStateException wrapping the failure of a worker
+     */
+    void rethrowFailure() {
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            throw new IllegalStateException("Parallel search failed.", throwable);
+        }
+    }
+
+    /**
+     * Get the number of expanded states of all workers.
+     *
+     * @return the expanded state count
+     */
+    long getExpandedCount() {
+        return expandedCount.get();
+    }
+
+    /**
+     * Get the number of evicted open states of all workers. Call after the workers finished.
+     *
+     * @return the eviction count
+     */
+    long getEvictionCount() {
+        long count = 0;
+        for (Worker worker : workers) {
+            count += worker.openSet.getEvictionCount();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of rejected open states of all workers. Call after the workers finished.
+     *
+     * @return the rejection count
+     */
+    long getRejectionCount() {
+        long count = 0;
+        for (Worker worker : workers) {
+            count += worker.openSet.getRejectionCount();
+        }
+        return count;
+    }
+
+    /**
+     * Get the worker owning the state with the key.
+     *
+     * @param key the state key
+     * @return the owning worker
+     */
+    private Worker ownerOf(CompactState key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return workers[Math.floorMod(hash, workers.length)];
+    }
+
+    /**
+     * Send the state to the inbox of its owner, counting it as pending.
+     *
+     * @param key the state key
+     * @param state the state
+     */
+    private void send(CompactState key, ImmutablePlanState state) {
+        pendingStates.incrementAndGet();
+        ownerOf(key).inbox.add(new Message(key, state));
+    }
+
+    /**
+     * A state sent to its owner, with its precomputed key.
+     */
+    private static final class Message {
+
+        private final CompactState key;
+        private final ImmutablePlanState state;
+
+        /**
+         * Default constructor.
+         *
+         * @param key the state key
+         * @param state the state
+         */
+        Message(CompactState key, ImmutablePlanState state) {
+            this.key = key;
+            this.state = state;
+        }
+    }
+
+    /**
+     * A search thread, owning a part of the state space. Only the inbox is accessed by other threads.
+     */
+    private final class Worker implements Runnable {
+
+        private final Queue<Message> inbox = new ConcurrentLinkedQueue<>();
+        private final Map<CompactState, OpenList.Entry<ImmutablePlanState>> entryMap = new HashMap<>();
+        private final Map<CompactState, Integer> closedMap = new HashMap<>();
+        private final OpenList<ImmutablePlanState> openSet;
+        private final SuccessorGenerator successorGenerator;
+        private final List<Action> successors = new ArrayList<>();
+
+        /**
+         * Default constructor.
+         *
+         * @param domain the domain
+         * @param maxOpenSize the maximal number of open states
+         */
+        Worker(Domain domain, int maxOpenSize) {
+            openSet = planner.getOpenListStrategy().create(maxOpenSize, planner.getTieBreaking(), evicted -> {
+                entryMap.remove(stateEncoder.encode(evicted.getProblem()));
+                pendingStates.decrementAndGet();
+            });
+            successorGenerator = new SuccessorGenerator(domain, planner.getDistanceMatrix());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    boolean received = receiveAll();
+                    if (!openSet.isEmpty()) {
+                        OpenList.Entry<ImmutablePlanState> minimum = openSet.extractMinimum();
+                        if (minimum.getKey() >= solutionBound.get()) {
+                            discardOpen();
+                        } else {
+                            expand(minimum.getValue());
+                        }
+                    } else if (pendingStates.get() == 0) {
+                        return;
+                    } else if (!received) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                stopped = true;
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Discard all open states, after the minimum was extracted and its f-score reached the solution bound.
+         * No open state can then lead to a better goal.
+         */
+        private void discardOpen() {
+            long discarded = 1; // the extracted minimum
+            while (!openSet.isEmpty()) {
+                openSet.extractMinimum();
+                discarded++;
+            }
+            entryMap.clear();
+            pendingStates.addAndGet(-discarded);
+        }
+
+        /**
+         * Receive all states from the inbox.
+         *
+         * @return true iff at least one state was received
+         */
+        private boolean receiveAll() {
+            boolean received = false;
+            Message message;
+            while ((message = inbox.poll()) != null) {
+                received = true;
+                if (!receive(message.key, message.state)) {
+                    pendingStates.decrementAndGet();
+                }
+            }
+            return received;
+        }
+
+        /**
+         * Receive a state owned by this worker, adding it to the open list if it is new or reached
+         * by a cheaper path, and its f-score is lower than the solution bound.
+         *
+         * @param key the state key
+         * @param state the state
+         * @return true iff a new open list entry was created for the state
+         */
+        private boolean receive(CompactState key, ImmutablePlanState state) {
+            int gScore = state.getTotalTime();
+            if (gScore >= bound.get()) {
+                return false;
+            }
+            Integer closedGScore = closedMap.get(key);
+            if (closedGScore != null) {
+                if (gScore >= closedGScore) {
+                    return false;
+                }
+                closedMap.remove(key); // reached by a cheaper path, reopen
+            }
+
+            OpenList.Entry<ImmutablePlanState> entry = entryMap.get(key);
+            if (entry == null) {
+                int fScore = gScore + planner.getHScore(state, key);
+                if (fScore >= solutionBound.get()) {
+                    return false;
+                }
+                entry = openSet.insert(fScore, gScore, state);
+                if (entry == null) {
+                    return false;
+                }
+                entryMap.put(key, entry);
+                return true;
+            } else if (gScore < entry.getValue().getTotalTime()) {
+                int fScore = gScore + planner.getHScore(state, key);
+                if (fScore < solutionBound.get()) { // otherwise, the entry is discarded when extracted
+                    entry.setValue(state);
+                    openSet.decreaseKey(entry, fScore, gScore);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Close the state and distribute its successors.
+         *
+         * @param current the state extracted from the open list
+         */
+        private void expand(ImmutablePlanState current) {
+            CompactState currentKey = stateEncoder.encode(current.getProblem());
+            entryMap.remove(currentKey);
+            int gScore = current.getTotalTime();
+            if (gScore >= bound.get()) { // a better plan was found since the state was opened
+                pendingStates.decrementAndGet();
+                return;
+            }
+            closedMap.put(currentKey, gScore);
+
+            if (current.isGoalState()) {
+                int bestScore = planner.offerGoal(current, planTransformation);
+                if (planTransformation == null) {
+                    bound.accumulateAndGet(bestScore, Math::min);
+                }
+                if (planner.isStopAtFirstSolution()) { // the f-score of a goal is its total time
+                    solutionBound.accumulateAndGet(gScore, Math::min);
+                    pendingStates.decrementAndGet();
+                    return;
+                }
+            }
+
+            successors.clear();
+            successorGenerator.generate(current,
+                    PlannerUtils.getUnfinishedPackages(current.getProblem().getAllPackages()), successors);
+            for (Action generatedAction : successors) {
+                Optional<ImmutablePlanState> maybeNeighbor = current.apply(generatedAction);
+                if (maybeNeighbor.isPresent() && maybeNeighbor.get().getTotalTime() < bound.get()) {
+                    ImmutablePlanState neighbor = maybeNeighbor.get();
+                    CompactState neighborKey = stateEncoder.encode(neighbor.getProblem());
+                    if (ownerOf(neighborKey) != this) {
+                        send(neighborKey, neighbor);
+                    } else if (receive(neighborKey, neighbor)) {
+                        pendingStates.incrementAndGet();
+                    }
+                }
+            }
+            expandedCount.incrementAndGet();
+            pendingStates.decrementAndGet();
+        }
+    }
+}
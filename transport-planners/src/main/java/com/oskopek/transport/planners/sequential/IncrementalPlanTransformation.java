@@ -0,0 +1,44 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.plan.Plan;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * A plan transformation (e.g. a temporal scheduler) that can also score a growing partial plan incrementally.
+ * Used by planners that extend a partial plan action by action and need its score after every extension,
+ * without transforming the whole partial plan from scratch every time.
+ */
+public interface IncrementalPlanTransformation extends Function<Plan, Plan> {
+
+    /**
+     * Start scoring a new, empty, partial plan.
+     *
+     * @return the partial plan
+     */
+    PartialPlan startPartialPlan();
+
+    /**
+     * A partial plan, extended by appending actions to its end.
+     */
+    interface PartialPlan {
+
+        /**
+         * Append the actions to the end of the partial plan.
+         *
+         * @param actions the actions, in sequential order
+         * @return the score of the extended partial plan
+         */
+        int append(Collection<? extends Action> actions);
+
+        /**
+         * Get the score of the partial plan. The score should not be higher than the score
+         * of the transformed partial plan, so that it can be used as a bound.
+         *
+         * @return the score
+         */
+        int getScore();
+    }
+}
@@ -1,13 +1,14 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 
 /**
  * SFA* with
- * {@link PlannerUtils#calculateSumOfDistancesToVehiclesPackageTargetsAdmissible(Collection, Collection, ArrayTable)}
+ * {@link PlannerUtils#calculateSumOfDistancesToVehiclesPackageTargetsAdmissible(Collection, Collection,
+ * ShortestPathMatrix)}
  * as a heuristic.
  * Acts as a Weighted A* with a metaheuristically decreasing weight.
  */
@@ -24,6 +25,17 @@ public final class MetaSFA5Planner extends MetaSFAPlanner {
         heuristicReferencePlanner = new SFA5Planner();
     }
 
+    /**
+     * Constructor with a configurable search, used in benchmark configurations.
+     *
+     * @param searchConfiguration the search configuration, in the format of
+     * {@link ForwardAstarPlanner#configureSearch(String)}
+     */
+    public MetaSFA5Planner(String searchConfiguration) {
+        this();
+        configureSearch(searchConfiguration);
+    }
+
     @Override
     protected SFA5Planner getHeuristicReferencePlanner() {
         return heuristicReferencePlanner;
@@ -31,7 +43,7 @@ public final class MetaSFA5Planner extends MetaSFAPlanner {
 
     @Override
     public MetaSFA5Planner copy() {
-        return new MetaSFA5Planner();
+        return copySearchSettingsTo(new MetaSFA5Planner());
     }
 
     @Override
@@ -1,12 +1,11 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.plan.Plan;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.model.problem.Problem;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
@@ -15,6 +14,8 @@ import java.util.function.Function;
 
 /**
  * An abstraction over Weighted A* forward search, using exponential decay of the weight.
+ * Runs as an anytime search: every weight iteration resumes the closed and open states of the previous one
+ * (see {@link ForwardAstarPlanner#isAnytimeSearch()}), instead of restarting from the initial state.
  */
 public abstract class MetaSFAPlanner extends ForwardAstarPlanner {
 
@@ -32,6 +33,22 @@ public abstract class MetaSFAPlanner extends ForwardAstarPlanner {
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Always true, the weight iterations of one problem share the search.
+     */
+    @Override
+    protected boolean isAnytimeSearch() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Does not reset between the weight iterations, the best plan bounds the next iteration. The best plan
+     * is reset by {@link #discardSearch()} at the start of every {@link #plan(Domain, Problem, Function)}.
+     */
     @Override
     void resetBestPlan() {
         // Intentionally do not reset: super.resetBestPlan();
@@ -50,6 +67,7 @@ public abstract class MetaSFAPlanner extends ForwardAstarPlanner {
         final float coef = 0.5f;
         bestPlan = null;
         bestPlanScore = Integer.MAX_VALUE;
+        discardSearch();
 
         while (true) {
             if (weight == 1) {
@@ -68,6 +86,7 @@ public abstract class MetaSFAPlanner extends ForwardAstarPlanner {
             });
             if (shouldCancel() || weight == 1) { // plan ended with weight == 1
                 formatLog("Cancelling, returning WASTAR best plan so far with score: {}.", bestPlanScore);
+                discardSearch();
                 return Optional.ofNullable(bestPlan);
             }
             float updatedWeight = coef * weight;
@@ -76,9 +95,24 @@ public abstract class MetaSFAPlanner extends ForwardAstarPlanner {
     }
 
     @Override
-    protected Integer calculateHeuristic(ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Collection<Package> unfinishedPackages) {
-        return weight * getHeuristicReferencePlanner().calculateHeuristic(state, distanceMatrix, unfinishedPackages);
+    protected void precomputeHeuristic(Problem problem, ShortestPathMatrix distanceMatrix) {
+        getHeuristicReferencePlanner().precomputeHeuristic(problem, distanceMatrix);
+    }
+
+    @Override
+    protected int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages) {
+        return getHeuristicReferencePlanner().calculateHeuristic(state, distanceMatrix, unfinishedPackages);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The current weight of the weighted A* iteration. The raw heuristic values are memoized across iterations.
+     */
+    @Override
+    protected int getHeuristicWeight() {
+        return weight;
     }
 
     @Override
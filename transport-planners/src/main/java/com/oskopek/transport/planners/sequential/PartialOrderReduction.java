@@ -0,0 +1,94 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drive;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+
+import java.util.Iterator;
+
+/**
+ * A partial-order reduction stage of the {@link SuccessorGenerator}, pruning successors that only reorder
+ * independent actions into a non-canonical order. Drops of different packages commute: they lead to the same state
+ * at the same cost and the generator produces the same successors after either order, because it does not
+ * distinguish which vehicle dropped last. Therefore, a drop directly following another drop is pruned if it is
+ * smaller in the canonical order (by vehicle id, then package id) and the swapped order would have been generated
+ * too, i.e. if the last drop was not forced (not at the package's target) and was not the first drop after a drive
+ * of another vehicle than the pruned drop's. Every pruned action sequence can then be reordered into a generated one
+ * by swapping adjacent drops, so the reduction does not lose completeness.
+ * <p>
+ * Other interleavings of independent vehicles are not reduced: after a pick-up or a drive, the generator only
+ * continues with the last vehicle, so swapping such actions would change the generated successors.
+ * <p>
+ * Keeps the anchor of the current state between {@link #prepare(ImmutablePlanState, SymbolTable)} and
+ * {@link #isPrunedDrop(int, int)}, therefore an instance must not be shared between threads.
+ */
+final class PartialOrderReduction {
+
+    private static final int NONE = -1;
+
+    private int packageCount;
+    private int anchorVehicleId = NONE;
+    private int anchorKey = NONE;
+    private boolean anchorAfterDrive;
+
+    /**
+     * Prepare the reduction for generating successors of the state, remembering the last drop
+     * (the anchor), if it can be commuted.
+     *
+     * @param state the state
+     * @param symbols the symbol table of the problem
+     */
+    void prepare(ImmutablePlanState state, SymbolTable symbols) {
+        anchorKey = NONE;
+        Iterator<Action> reversed = state.getAllActionsReversed();
+        if (!reversed.hasNext()) {
+            return;
+        }
+        Action last = reversed.next();
+        if (!(last instanceof Drop) || !reversed.hasNext()) {
+            return;
+        }
+        Action previous = reversed.next();
+        int vehicleId = symbols.getVehicleId(last.getWho().getName());
+        int packageId = symbols.getPackageId(last.getWhat().getName());
+        if (previous instanceof PickUp || vehicleId < 0 || packageId < 0
+                || state.getPackageLocationId(packageId) == symbols.getLocationId(
+                        state.getProblem().getPackage(packageId).getTarget())) {
+            return; // the last drop was forced, or was the only drop possible
+        }
+        packageCount = symbols.getPackageCount();
+        anchorVehicleId = vehicleId;
+        anchorKey = key(vehicleId, packageId);
+        anchorAfterDrive = previous instanceof Drive;
+    }
+
+    /**
+     * Test if the drop should be pruned, because it only reorders it with the last drop into a non-canonical order.
+     *
+     * @param vehicleId the vehicle id of the drop
+     * @param packageId the package id of the drop
+     * @return true iff the drop should not be generated
+     */
+    boolean isPrunedDrop(int vehicleId, int packageId) {
+        if (anchorKey == NONE || key(vehicleId, packageId) > anchorKey) {
+            return false;
+        }
+        // after a drive, only the drops of the driven vehicle were generated before the last drop
+        return !anchorAfterDrive || vehicleId == anchorVehicleId;
+    }
+
+    /**
+     * Get the canonical order key of a drop.
+     *
+     * @param vehicleId the vehicle id
+     * @param packageId the package id
+     * @return the key
+     */
+    private int key(int vehicleId, int packageId) {
+        return vehicleId * packageCount + packageId;
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.google.common.collect.Lists;
 import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.domain.action.Action;
@@ -13,17 +12,12 @@ import com.oskopek.transport.model.problem.graph.RoadEdge;
 import com.oskopek.transport.model.problem.graph.RoadGraph;
 import com.oskopek.transport.model.problem.Vehicle;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrixCache;
 import javaslang.Tuple;
 import javaslang.Tuple3;
-import org.graphstream.algorithm.APSP;
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Element;
-import org.graphstream.graph.Path;
-import org.graphstream.graph.implementations.Graphs;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -41,6 +35,7 @@ public final class PlannerUtils {
     /**
      * Generate reasonable actions that are applicable to the the current state. Does not generate all of them,
      * it prunes away all that are unnecessary (driving in circles, etc).
+     * Prefer reusing a {@link SuccessorGenerator} and a buffer when generating actions for many states.
      *
      * @param domain the domain
      * @param state the state
@@ -49,128 +44,28 @@ public final class PlannerUtils {
      * @return a stream of applicable actions
      */
     public static Stream<Action> generateActions(Domain domain, ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Set<Package> packagesUnfinished) {
-        if (PlannerUtils.hasCycle(state.getAllActionsReversed())) { // TODO: Convert to non-generation
-            return Stream.empty();
-        }
-
-        Stream.Builder<Action> generated = Stream.builder();
-        Collection<Vehicle> vehicles = state.getProblem().getAllVehicles();
-        RoadGraph graph = state.getProblem().getRoadGraph();
-        Map<Location, Set<Vehicle>> vehicleMap = PlannerUtils.computeVehicleMap(vehicles);
-        Map<Location, Set<Package>> packageMap = PlannerUtils.computePackageMap(packagesUnfinished);
-
-        // drop at target above all else
-        for (Package pkg : packagesUnfinished) {
-            if (pkg.getLocation() == null) { // unfinished package is in vehicle
-                Location target = pkg.getTarget();
-                Set<Vehicle> vehiclesAtLoc = vehicleMap.get(target);
-                if (vehiclesAtLoc != null) {
-                    for (Vehicle vehicle : vehiclesAtLoc) { // vehicles at target
-                        if (vehicle.getPackageList().contains(pkg)) {
-                            generated.accept(domain.buildDrop(vehicle, target, pkg));
-                            return generated.build();
-                        }
-                    }
-                }
-            }
-        }
-
-        Optional<Action> lastAction = Optional.ofNullable(state.getAction());
-        // pick-up
-        Optional<Vehicle> lastVehicleAndLastDrive = lastAction
-                .filter(a -> a instanceof Drive).map(a -> (Vehicle) a.getWho())
-                .map(v -> state.getProblem().getVehicle(v.getName()));
-        if (lastVehicleAndLastDrive.isPresent()) { // only use active vehicle
-            Vehicle vehicle = lastVehicleAndLastDrive.get();
-            Location location = vehicle.getLocation();
-
-            Set<Package> packages = packageMap.get(location);
-            if (packages != null) {
-                for (Package pkg : packages) {
-                    if (pkg.getSize().compareTo(vehicle.getCurCapacity()) <= 0) {
-                        PickUp nextAction = domain.buildPickUp(vehicle, location, pkg);
-                        if (PlannerUtils.needlessDropAndPickupOccurred(state.getProblem().getAllVehicles(),
-                                state.getAllActionsInList(), nextAction)) {
-                            continue;
-                        }
-                        generated.accept(nextAction);
-                    }
-                }
-            }
-        } else {
-            Map<String, Set<String>> vehicleDroppedAfterLastMove = PlannerUtils
-                    .getPackagesDroppedAfterLastMoveMap(vehicles.size(), state.getAllActionsInList());
-            packageMap.keySet().forEach(location -> {
-                Set<Package> packages = packageMap.get(location);
-                Set<Vehicle> vehiclesAtLoc = vehicleMap.get(location);
-                if (packages == null || vehiclesAtLoc == null) {
-                    return;
-                }
-
-                for (Vehicle vehicle : vehiclesAtLoc) {
-                    Set<String> droppedNames = vehicleDroppedAfterLastMove.get(vehicle.getName());
-                    for (Package pkg : packages) {
-                        if (droppedNames != null && droppedNames.contains(pkg.getName())) {
-                            continue;
-                        }
-                        if (pkg.getSize().compareTo(vehicle.getCurCapacity()) <= 0) {
-                            PickUp nextAction = domain.buildPickUp(vehicle, location, pkg);
-                            if (PlannerUtils.needlessDropAndPickupOccurred(state.getProblem().getAllVehicles(),
-                                    state.getAllActionsInList(), nextAction)) {
-                                continue;
-                            }
-                            generated.accept(nextAction);
-                        }
-                    }
-                }
-            });
-        }
-
-        // drop
-
-        if (lastAction.filter(a -> !(a instanceof PickUp)).isPresent()) { // do not drop after pick up
-            if (lastVehicleAndLastDrive.isPresent()) { // only drop from active vehicle
-                Vehicle vehicle = lastVehicleAndLastDrive.get();
-                Location current = vehicle.getLocation();
-                for (Package pkg : vehicle.getPackageList()) {
-                    Drop drop = domain.buildDrop(vehicle, current, pkg);
-                    if (PlannerUtils.droppedPackageWhereWePickedItUp(state, drop)) {
-                        continue;
-                    }
-                    generated.accept(drop);
-                }
-            } else {
-                for (Vehicle vehicle : vehicles) {
-                    Location current = vehicle.getLocation();
-                    for (Package pkg : vehicle.getPackageList()) {
-                        Drop drop = domain.buildDrop(vehicle, current, pkg);
-                        if (PlannerUtils.droppedPackageWhereWePickedItUp(state, drop)) {
-                            continue;
-                        }
-                        generated.accept(drop);
-                    }
-                }
-            }
-        }
-
-        // drive
-        Optional<Vehicle> lastVehicleAndNotDrop = lastAction
-                .filter(a -> !(a instanceof Drop)).map(a -> (Vehicle) a.getWho())
-                .map(v -> state.getProblem().getVehicle(v.getName()));
+            ShortestPathMatrix distanceMatrix, Set<Package> packagesUnfinished) {
+        return generateActions(domain, state, distanceMatrix, packagesUnfinished, true);
+    }
 
-        List<Action> reversedActions = Lists.newArrayList(state.getAllActionsReversed());
-        if (lastVehicleAndNotDrop.isPresent()) { // continue driving if driving
-            Vehicle vehicle = lastVehicleAndNotDrop.get();
-            generateDrivesForVehicle(vehicle, graph, domain, distanceMatrix, reversedActions)
-                    .forEach(generated::add);
-        } else {
-            for (Vehicle vehicle : vehicles) {
-                generateDrivesForVehicle(vehicle, graph, domain, distanceMatrix, reversedActions)
-                        .forEach(generated::add);
-            }
-        }
-        return generated.build();
+    /**
+     * Generate reasonable actions that are applicable to the the current state, with an optional
+     * {@link PartialOrderReduction partial-order reduction} of independent actions.
+     *
+     * @param domain the domain
+     * @param state the state
+     * @param distanceMatrix the distance matrix
+     * @param packagesUnfinished the undelivered packages
+     * @param partialOrderReduction if reorderings of independent actions should be pruned
+     * @return a stream of applicable actions
+     * @see #generateActions(Domain, ImmutablePlanState, ShortestPathMatrix, Set)
+     */
+    public static Stream<Action> generateActions(Domain domain, ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Set<Package> packagesUnfinished, boolean partialOrderReduction) {
+        List<Action> generated = new ArrayList<>();
+        new SuccessorGenerator(domain, distanceMatrix, partialOrderReduction).generate(state, packagesUnfinished,
+                generated);
+        return generated.stream();
     }
 
 
@@ -261,152 +156,15 @@ public final class PlannerUtils {
     }
 
     /**
-     * Generate drive actions for the vehicle (only if they are on the shortest paths).
-     *
-     * @param vehicle the vehicle
-     * @param graph the road graph
-     * @param domain the domain
-     * @param distanceMatrix the distance matrix
-     * @param reversedActions reversed actions generated up to now
-     * @return a stream of generated drive actions
-     */
-    private static Stream<Drive> generateDrivesForVehicle(Vehicle vehicle, RoadGraph graph, Domain domain,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Iterable<Action> reversedActions) {
-        Stream.Builder<Drive> vehicleActions = Stream.builder();
-        Location current = vehicle.getLocation();
-        for (Edge edge : graph.getNode(current.getName()).getEachLeavingEdge()) {
-            Location target = graph.getLocation(edge.getTargetNode().getId());
-            if (doesShorterPathExist(vehicle, target, reversedActions.iterator(), distanceMatrix)) {
-                continue;
-            }
-            vehicleActions.accept(domain.buildDrive(vehicle, current, target, graph.getRoad(edge.getId())));
-        }
-        return vehicleActions.build();
-    }
-
-    /**
-     * Calculates a map of packages that were dropped by a vehicle after its last move so far.
-     *
-     * @param vehicleCount the number of vehicles (used for allocation)
-     * @param plannedActions the actions generated up to now
-     * @return a map of vehicle names to sets of packages (Vehicle -> [Package])
-     */
-    private static Map<String, Set<String>> getPackagesDroppedAfterLastMoveMap(int vehicleCount,
-            List<Action> plannedActions) {
-        // Vehicle -> int (index into plannedActions)
-        Map<String, Integer> lastDriveIndexMap = new HashMap<>(vehicleCount);
-        for (int i = 0; i < plannedActions.size(); i++) {
-            Action action = plannedActions.get(i);
-            Drive drive;
-            if (!(action instanceof Drive)) {
-                continue;
-            }
-            drive = (Drive) action;
-            lastDriveIndexMap.put(drive.getWho().getName(), i);
-        }
-
-        Map<String, Set<String>> packagesDroppedAfterLastMoveMap = new HashMap<>(lastDriveIndexMap.size());
-        for (Map.Entry<String, Integer> entry : lastDriveIndexMap.entrySet()) {
-            String vehicleName = entry.getKey();
-            int lastDriveIndex = entry.getValue();
-
-            for (int i = lastDriveIndex + 1; i < plannedActions.size(); i++) {
-                Action action = plannedActions.get(i);
-                if (action instanceof Drop && vehicleName.equals(action.getWho().getName())) {
-                    packagesDroppedAfterLastMoveMap.computeIfAbsent(vehicleName, v -> new HashSet<>(2))
-                            .add(action.getWhat().getName());
-                }
-            }
-        }
-        return packagesDroppedAfterLastMoveMap;
-    }
-
-    /**
-     * Computes a map of locations to sets of vehicles present at that location.
-     *
-     * @param vehicles the vehicles
-     * @return the map
-     */
-    private static Map<Location, Set<Vehicle>> computeVehicleMap(Collection<Vehicle> vehicles) {
-        Map<Location, Set<Vehicle>> vehicleMap = new HashMap<>();
-        for (Vehicle vehicle : vehicles) {
-            Location current = vehicle.getLocation();
-            vehicleMap.computeIfAbsent(current, c -> {
-                Set<Vehicle> set = new HashSet<>();
-                set.add(vehicle);
-                return set;
-            });
-        }
-        return vehicleMap;
-    }
-
-    /**
-     * Computes a map of locations to sets of packages present at that location.
-     *
-     * @param pkgs the packages
-     * @return the map
-     */
-    private static Map<Location, Set<Package>> computePackageMap(Collection<Package> pkgs) {
-        Map<Location, Set<Package>> pkgMap = new HashMap<>();
-        for (Package pkg : pkgs) {
-            Location current = pkg.getLocation();
-            pkgMap.computeIfAbsent(current, c -> {
-                Set<Package> set = new HashSet<>(2);
-                set.add(pkg);
-                return set;
-            });
-        }
-        return pkgMap;
-    }
-
-    /**
-     * Computes the All-pairs shortest path algorithm (Floyd-Warshall) on the road graph.
+     * Computes the all-pairs shortest paths on the road graph, or reuses the matrix of a structurally equal graph
+     * from the {@link ShortestPathMatrixCache#getShared() shared cache}.
      *
      * @param graph the graph
      * @return a lookup matrix of shortest paths
+     * @see ShortestPathMatrix#compute(RoadGraph)
      */
-    public static ArrayTable<String, String, ShortestPath> computeAPSP(final RoadGraph graph) {
-        final String ATTRIBUTE_NAME = "weight";
-        RoadGraph originalAPSPGraph = (RoadGraph) Graphs.clone(graph);
-        originalAPSPGraph.getAllRoads().forEach(roadEdge -> originalAPSPGraph.getEdge(roadEdge.getRoad().getName())
-                .addAttribute(ATTRIBUTE_NAME, roadEdge.getRoad().getLength().getCost()));
-        new APSP(originalAPSPGraph, ATTRIBUTE_NAME, true).compute();
-        List<String> locationNames = originalAPSPGraph.getNodeSet().stream().map(Element::getId).collect(
-                Collectors.toList());
-        ArrayTable<String, String, ShortestPath> distanceMatrix = ArrayTable.create(locationNames, locationNames);
-        for (String from : locationNames) {
-            APSP.APSPInfo current = originalAPSPGraph.getNode(from).getAttribute(APSP.APSPInfo.ATTRIBUTE_NAME);
-            for (String to : locationNames) {
-                Path shortestPath = current.getShortestPathTo(to);
-                List<RoadEdge> roads = new ArrayList<>(shortestPath.getEdgeCount());
-                int distance = (int) getLengthToCorrect(current, to);
-                if (distance > 0) {
-                    for (Edge edge : shortestPath.getEachEdge()) {
-                        roads.add(graph.getRoadEdge(edge.getId()));
-                    }
-                }
-                if (null != distanceMatrix.put(from, to, new ShortestPath(roads, distance))) {
-                    throw new IllegalStateException("Overwritten a value.");
-                }
-            }
-        }
-        return distanceMatrix;
-    }
-
-    /**
-     * Corrects the distance returned by Floyd-Warshall's implementation in {@link APSP} to correctly return 0
-     * for the shortest path from a point A to A.
-     *
-     * @param current the current node APSP info
-     * @param targetName the target location name
-     * @return the shortest path length
-     */
-    public static double getLengthToCorrect(APSP.APSPInfo current, String targetName) {
-        if (targetName.equals(current.getNodeId())) { // fix weird behavior of APSP
-            return 0d;
-        } else {
-            return current.getLengthTo(targetName);
-        }
+    public static ShortestPathMatrix computeAPSP(final RoadGraph graph) {
+        return ShortestPathMatrixCache.getShared().get(graph);
     }
 
     /**
@@ -419,7 +177,7 @@ public final class PlannerUtils {
      * @return true iff a shorter path than the current one exists (making the sequential plan suboptimal)
      */
     public static boolean doesShorterPathExist(Vehicle vehicle, Location target,
-            Iterator<Action> reversedActionsIterator, ArrayTable<String, String, ShortestPath> distanceMatrix) {
+            Iterator<Action> reversedActionsIterator, ShortestPathMatrix distanceMatrix) {
 
         if (!reversedActionsIterator.hasNext()) {
             return false;
@@ -449,7 +207,7 @@ public final class PlannerUtils {
             sourceOfPreviousDrives = lastDrive.getWhere();
         }
 
-        return distanceMatrix.get(sourceOfPreviousDrives.getName(), target.getName()).getDistance() < lengthOfPath;
+        return distanceMatrix.getDistance(sourceOfPreviousDrives.getName(), target.getName()) < lengthOfPath;
     }
 
     /**
@@ -462,19 +220,19 @@ public final class PlannerUtils {
      * @return the heuristic value.
      */
     public static int calculateSumOfDistancesToPackageTargets(Collection<Package> packageList,
-            Collection<Vehicle> vehicleList, ArrayTable<String, String, ShortestPath> distanceMatrix) {
+            Collection<Vehicle> vehicleList, ShortestPathMatrix distanceMatrix) {
         int sumDistances = 0;
         for (Vehicle vehicle : vehicleList) { // vehicles are never in the middle of a drive
             for (Package pkg : vehicle.getPackageList()) {
-                sumDistances += distanceMatrix.get(vehicle.getLocation().getName(), pkg.getTarget().getName())
-                        .getDistance() + 1; // + drop action
+                sumDistances += distanceMatrix.getDistance(vehicle.getLocation().getName(), pkg.getTarget().getName())
+                        + 1; // + drop action
             }
         }
         for (Package pkg : packageList) {
             Location pkgLocation = pkg.getLocation();
             if (pkgLocation != null) {
-                sumDistances += distanceMatrix.get(pkgLocation.getName(), pkg.getTarget().getName())
-                        .getDistance() + 2; // + pickup and drop
+                sumDistances += distanceMatrix.getDistance(pkgLocation.getName(), pkg.getTarget().getName())
+                        + 2; // + pickup and drop
             }
         }
         return sumDistances;
@@ -506,7 +264,7 @@ public final class PlannerUtils {
      * using the shortest available paths.
      * Also adds costs for drop and pickup actions. Is <strong>not admissible</strong>.
      * As a rule, this heuristic returns larger values than
-     * {@link #calculateSumOfDistancesToPackageTargets(Collection, Collection, ArrayTable)}.
+     * {@link #calculateSumOfDistancesToPackageTargets(Collection, Collection, ShortestPathMatrix)}.
      *
      * @param packageList the package list
      * @param vehicleList the vehicle list
@@ -514,7 +272,7 @@ public final class PlannerUtils {
      * @return the heuristic value.
      */
     public static int calculateSumOfDistancesToVehiclesPackageTargetsAdmissible(Collection<Package> packageList,
-            Collection<Vehicle> vehicleList, ArrayTable<String, String, ShortestPath> distanceMatrix) {
+            Collection<Vehicle> vehicleList, ShortestPathMatrix distanceMatrix) {
         int sumDistances = 0;
 //        for (Vehicle vehicle : vehicleList) { // vehicles are never in the middle of a drive
 //            int maxPkgDistance = 0;
@@ -532,20 +290,21 @@ public final class PlannerUtils {
             if (pkgLocation != null) {
                 String pkgLocName = pkgLocation.getName();
                 // calculate the distance to the target + pickup and drop
-                sumDistances += distanceMatrix.get(pkgLocName, pkg.getTarget().getName()) // WARNING: not admissible
-                        .getDistance() + 2; // + pickup and drop
+                // WARNING: not admissible
+                sumDistances += distanceMatrix.getDistance(pkgLocName, pkg.getTarget().getName())
+                        + 2; // + pickup and drop
 
                 // Calculate the distance to the nearest vehicle or package
                 int minVehicleDistance = Integer.MAX_VALUE;
                 for (Vehicle vehicle : vehicleList) {
-                    int dist = distanceMatrix.get(pkgLocName, vehicle.getLocation().getName()).getDistance();
+                    int dist = distanceMatrix.getDistance(pkgLocName, vehicle.getLocation().getName());
                     if (dist < minVehicleDistance) {
                         minVehicleDistance = dist;
                     }
                 }
                 for (Package pkg2 : packageList) {
                     if (pkg2.getLocation() != null) {
-                        int dist = distanceMatrix.get(pkgLocName, pkg2.getLocation().getName()).getDistance();
+                        int dist = distanceMatrix.getDistance(pkgLocName, pkg2.getLocation().getName());
                         if (dist < minVehicleDistance) {
                             minVehicleDistance = dist;
                         }
@@ -571,7 +330,7 @@ public final class PlannerUtils {
      * @return the heuristic value.
      */
     public static int calculateSumOfDistancesToVehiclesPackageTargetsAdmissibleMark(Collection<Package> packageList,
-            Collection<Vehicle> vehicleList, ArrayTable<String, String, ShortestPath> distanceMatrix) {
+            Collection<Vehicle> vehicleList, ShortestPathMatrix distanceMatrix) {
         int sumDistances = 0;
         Set<RoadEdge> edgesDriven = new HashSet<>();
         for (Package pkg : packageList) {
@@ -584,24 +343,26 @@ public final class PlannerUtils {
 
                 // Calculate the distance to the nearest vehicle or package
                 int minVehicleDistance = Integer.MAX_VALUE;
-                List<RoadEdge> minVehPath = Collections.emptyList();
+                String minVehPathTarget = null;
                 for (Vehicle vehicle : vehicleList) {
-                    ShortestPath path = distanceMatrix.get(pkgLocName, vehicle.getLocation().getName());
-                    if (path.getDistance() < minVehicleDistance) {
-                        minVehicleDistance = path.getDistance();
-                        minVehPath = path.getRoads();
+                    int dist = distanceMatrix.getDistance(pkgLocName, vehicle.getLocation().getName());
+                    if (dist < minVehicleDistance) {
+                        minVehicleDistance = dist;
+                        minVehPathTarget = vehicle.getLocation().getName();
                     }
                 }
                 for (Package pkg2 : packageList) {
                     if (pkg2.getLocation() != null) {
-                        ShortestPath path = distanceMatrix.get(pkgLocName, pkg2.getLocation().getName());
-                        if (path.getDistance() < minVehicleDistance) {
-                            minVehicleDistance = path.getDistance();
-                            minVehPath = path.getRoads();
+                        int dist = distanceMatrix.getDistance(pkgLocName, pkg2.getLocation().getName());
+                        if (dist < minVehicleDistance) {
+                            minVehicleDistance = dist;
+                            minVehPathTarget = pkg2.getLocation().getName();
                         }
                     }
                 }
-                edgesDriven.addAll(minVehPath);
+                if (minVehPathTarget != null) {
+                    edgesDriven.addAll(distanceMatrix.get(pkgLocName, minVehPathTarget).getRoads());
+                }
             } else {
                 sumDistances += 1; // drop, at least
             }
@@ -617,7 +378,7 @@ public final class PlannerUtils {
      * using the shortest available paths.
      * Also adds costs for drop and pickup actions. Is <strong>not admissible</strong>.
      * As a rule, this heuristic returns larger values than
-     * {@link #calculateSumOfDistancesToPackageTargets(Collection, Collection, ArrayTable)}.
+     * {@link #calculateSumOfDistancesToPackageTargets(Collection, Collection, ShortestPathMatrix)}.
      *
      * @param packageList the package list
      * @param vehicleList the vehicle list
@@ -625,7 +386,7 @@ public final class PlannerUtils {
      * @return the heuristic value.
      */
     public static int calculateSumOfDistancesToVehiclesPackageTargetsAdmissibleReally(Collection<Package> packageList,
-            Collection<Vehicle> vehicleList, ArrayTable<String, String, ShortestPath> distanceMatrix) {
+            Collection<Vehicle> vehicleList, ShortestPathMatrix distanceMatrix) {
         int sumDistances = 0;
         for (Package pkg : packageList) {
             Location pkgLocation = pkg.getLocation();
@@ -645,15 +406,15 @@ public final class PlannerUtils {
             }
 
             int pkgMinDist = Integer.MAX_VALUE;
-            pkgMinDist = Math.min(pkgMinDist, distanceMatrix.get(pkgLocation.getName(), pkg.getTarget().getName())
-                    .getDistance());
+            pkgMinDist = Math.min(pkgMinDist,
+                    distanceMatrix.getDistance(pkgLocation.getName(), pkg.getTarget().getName()));
             if (inVehicle != null) { // pkg in vehicle
                 int vehDist = Integer.MAX_VALUE;
                 for (Vehicle vehicle : vehicleList) {
                     if (vehicle.getName().equals(inVehicle.getName())) {
                         continue;
                     }
-                    int dist = distanceMatrix.get(pkgLocation.getName(), vehicle.getLocation().getName()).getDistance();
+                    int dist = distanceMatrix.getDistance(pkgLocation.getName(), vehicle.getLocation().getName());
                     vehDist = Math.min(vehDist, dist);
                 }
                 pkgMinDist = Math.min(pkgMinDist, vehDist);
@@ -667,7 +428,7 @@ public final class PlannerUtils {
                 if (pkg2.getLocation() == null) {
                     continue; // already counted in vehicles in that case
                 }
-                int dist = distanceMatrix.get(pkgLocation.getName(), pkg2.getLocation().getName()).getDistance();
+                int dist = distanceMatrix.getDistance(pkgLocation.getName(), pkg2.getLocation().getName());
                 pkgDist = Math.min(pkgDist, dist);
             }
             pkgMinDist = Math.min(pkgMinDist, pkgDist);
@@ -676,37 +437,6 @@ public final class PlannerUtils {
         return sumDistances;
     }
 
-    /**
-     * Detects cycles in generated drive actions.
-     *
-     * @param reversedActions an iterator over generated actions, in reverse order
-     * @return true iff a cycle was detected (without pickup or drop between 2 visits of one location)
-     */
-    private static boolean hasCycle(Iterator<Action> reversedActions) {
-        Set<String> drives = new HashSet<>();
-        if (!reversedActions.hasNext()) {
-            return false;
-        }
-        Action lastAction = reversedActions.next();
-        if (!reversedActions.hasNext()) { // has to have at least two actions
-            return false;
-        }
-        if (lastAction instanceof Drive) { // add last target
-            drives.add(lastAction.getWhat().getName());
-        }
-        while (reversedActions.hasNext()) {
-            Action plannedAction = reversedActions.next();
-            if (plannedAction instanceof Drive) {
-                if (!drives.add(plannedAction.getWhere().getName())) {
-                    return true;
-                }
-            } else {
-                break;
-            }
-        }
-        return false;
-    }
-
     /**
      * Calculate a set of packages not yet at their target locations.
      *
@@ -725,41 +455,6 @@ public final class PlannerUtils {
         return unfinishedPackages;
     }
 
-    /**
-     * Detects drop actions that occurred at the same location as a pickup action of the same package and vehicle,
-     * which is suboptimal (due to the costs of pickup and drop).
-     * Similar to {@link #needlessDropAndPickup(Iterator, Vehicle, Package)}.
-     *
-     * @param state the state
-     * @param newAction the newly generated drop action
-     * @return true iff an unnecessary drop and pickup occurred
-     */
-    private static boolean droppedPackageWhereWePickedItUp(ImmutablePlanState state, Drop newAction) {
-        Map<String, Set<String>> pickedUpAt = new HashMap<>();
-        for (Iterator<Action> it = state.getAllActionsReversed(); it.hasNext();) {
-            Action a = it.next();
-            if (a instanceof PickUp) {
-                pickedUpAt.computeIfAbsent(a.getWhat().getName(), s -> new HashSet<>(2))
-                        .add(a.getWhere().getName());
-            }
-        }
-
-        Set<String> pickedBySameCar = pickedUpAt.get(newAction.getWhat().getName());
-        if (pickedBySameCar != null && pickedBySameCar.contains(newAction.getWhere().getName())) {
-            return true;
-        }
-        for (Iterator<Action> it = state.getAllActionsReversed(); it.hasNext();) {
-            Action a = it.next();
-            if (a instanceof Drop) {
-                pickedBySameCar = pickedUpAt.get(newAction.getWhat().getName());
-                if (pickedBySameCar != null && pickedBySameCar.contains(newAction.getWhere().getName())) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /**
      * Calculate the maximum capacity needed at any point in time for a vehicle to contain the packages,
      * assuming the integers are "start" and "stop" times (i.e. loading and unloading times).
@@ -31,8 +31,21 @@ public class RandomizedBacktrackAroundPathNearbyPlanner extends SequentialRandom
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedBacktrackAroundPathNearbyPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         formatLog("Initializing planning...");
         resetState();
         initialize(problem);
@@ -127,7 +140,7 @@ public class RandomizedBacktrackAroundPathNearbyPlanner extends SequentialRandom
 
     @Override
     public RandomizedBacktrackAroundPathNearbyPlanner copy() {
-        return new RandomizedBacktrackAroundPathNearbyPlanner();
+        return copyRestartSettingsTo(new RandomizedBacktrackAroundPathNearbyPlanner());
     }
 
 }
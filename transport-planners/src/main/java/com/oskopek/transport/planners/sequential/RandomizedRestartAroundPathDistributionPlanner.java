@@ -30,8 +30,21 @@ public class RandomizedRestartAroundPathDistributionPlanner extends SequentialRa
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedRestartAroundPathDistributionPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         formatLog("Initializing planning...");
         resetState();
         initialize(problem);
@@ -85,6 +98,6 @@ public class RandomizedRestartAroundPathDistributionPlanner extends SequentialRa
 
     @Override
     public RandomizedRestartAroundPathDistributionPlanner copy() {
-        return new RandomizedRestartAroundPathDistributionPlanner();
+        return copyRestartSettingsTo(new RandomizedRestartAroundPathDistributionPlanner());
     }
 }
@@ -36,13 +36,29 @@ public class RandomizedRestartAroundPathNearbyPlanner extends RandomizedRestartO
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedRestartAroundPathNearbyPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         return planWithOptionalTransformations(domain, problem, null);
     }
 
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem, Function<Plan, Plan> planTransformation) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, planTransformation);
+        }
         return planWithOptionalTransformations(domain, problem, planTransformation);
     }
 
@@ -61,6 +77,38 @@ public class RandomizedRestartAroundPathNearbyPlanner extends RandomizedRestartO
         return curScore;
     }
 
+    /**
+     * Start an incrementally scored partial plan, if the plan transformation supports it.
+     *
+     * @param planTransformation the plan transformation, optionally null
+     * @return the empty partial plan, or null if the transformation is not incremental
+     */
+    protected static IncrementalPlanTransformation.PartialPlan startPartialPlan(
+            Function<Plan, Plan> planTransformation) {
+        if (planTransformation instanceof IncrementalPlanTransformation) {
+            return ((IncrementalPlanTransformation) planTransformation).startPartialPlan();
+        }
+        return null;
+    }
+
+    /**
+     * Calculates the score of the current partial plan, used to bound the restarts. Uses the incrementally scored
+     * partial plan if available, otherwise transforms the whole partial plan (if there is a transformation).
+     *
+     * @param current the current state
+     * @param planTransformation the plan transformation, optionally null
+     * @param partialPlan the incrementally scored partial plan of the current state, or null
+     * @return the score
+     */
+    protected static int calculatePartialPlanScore(ImmutablePlanState current, Function<Plan, Plan> planTransformation,
+            IncrementalPlanTransformation.PartialPlan partialPlan) {
+        if (partialPlan != null) {
+            return partialPlan.getScore();
+        }
+        return calculateCurrentScore(current, planTransformation == null ? null
+                : planTransformation.apply(new SequentialPlan(current.getAllActionsInList())));
+    }
+
     /**
      * Plan, optionally with intermediate plan transformations.
      *
@@ -80,9 +128,9 @@ public class RandomizedRestartAroundPathNearbyPlanner extends RandomizedRestartO
         float exploration = 0.2f; // best so far: 0.2 or 0.1
         while (true) {
             ImmutablePlanState current = new ImmutablePlanState(problem);
-            while (!current.isGoalState() && calculateCurrentScore(current, planTransformation == null ? null
-                    : planTransformation.apply(new SequentialPlan(current.getAllActionsInList())))
-                    < getBestPlanScore()) {
+            IncrementalPlanTransformation.PartialPlan partialPlan = startPartialPlan(planTransformation);
+            while (!current.isGoalState()
+                    && calculatePartialPlanScore(current, planTransformation, partialPlan) < getBestPlanScore()) {
                 Problem curProblem = current.getProblem();
                 List<Package> unfinished = new ArrayList<>(
                         PlannerUtils.getUnfinishedPackages(curProblem.getAllPackages()));
@@ -118,6 +166,9 @@ public class RandomizedRestartAroundPathNearbyPlanner extends RandomizedRestartO
                 current = Stream.ofAll(newActions).foldLeft(Optional.of(current),
                         (state, action) -> state.flatMap(state2 -> state2.apply(action)))
                         .orElseThrow(() -> new IllegalStateException("Could not apply all new actions to state."));
+                if (partialPlan != null) {
+                    partialPlan.append(newActions);
+                }
 
                 if (shouldCancel()) {
                     formatLog("Cancelling, returning best found plan so far with score: {}.", getBestPlanScore());
@@ -151,6 +202,6 @@ public class RandomizedRestartAroundPathNearbyPlanner extends RandomizedRestartO
 
     @Override
     public RandomizedRestartAroundPathNearbyPlanner copy() {
-        return new RandomizedRestartAroundPathNearbyPlanner();
+        return copyRestartSettingsTo(new RandomizedRestartAroundPathNearbyPlanner());
     }
 }
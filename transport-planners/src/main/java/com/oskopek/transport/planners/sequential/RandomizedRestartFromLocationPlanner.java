@@ -32,8 +32,21 @@ public class RandomizedRestartFromLocationPlanner extends SequentialRandomizedPl
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedRestartFromLocationPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         formatLog("Initializing planning...");
         resetState();
         initialize(problem);
@@ -150,7 +163,7 @@ public class RandomizedRestartFromLocationPlanner extends SequentialRandomizedPl
 
     @Override
     public RandomizedRestartFromLocationPlanner copy() {
-        return new RandomizedRestartFromLocationPlanner();
+        return copyRestartSettingsTo(new RandomizedRestartFromLocationPlanner());
     }
 
     @Override
@@ -31,8 +31,21 @@ public class RandomizedRestartOnPathNearbyPlanner extends SequentialRandomizedPl
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedRestartOnPathNearbyPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         formatLog("Initializing planning...");
         resetState();
         initialize(problem);
@@ -110,6 +123,6 @@ public class RandomizedRestartOnPathNearbyPlanner extends SequentialRandomizedPl
 
     @Override
     public RandomizedRestartOnPathNearbyPlanner copy() {
-        return new RandomizedRestartOnPathNearbyPlanner();
+        return copyRestartSettingsTo(new RandomizedRestartOnPathNearbyPlanner());
     }
 }
@@ -30,8 +30,21 @@ public class RandomizedRestartOnPathPlanner extends SequentialRandomizedPlanner
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads, see {@link #setParallelism(int)}
+     */
+    public RandomizedRestartOnPathPlanner(String parallelism) {
+        this();
+        setParallelism(Integer.parseInt(parallelism.trim()));
+    }
+
     @Override
     public Optional<Plan> plan(Domain domain, Problem problem) {
+        if (getParallelism() > 1) {
+            return planInParallel(domain, problem, null);
+        }
         formatLog("Initializing planning...");
         resetState();
         initialize(problem);
@@ -87,6 +100,6 @@ public class RandomizedRestartOnPathPlanner extends SequentialRandomizedPlanner
 
     @Override
     public RandomizedRestartOnPathPlanner copy() {
-        return new RandomizedRestartOnPathPlanner();
+        return copyRestartSettingsTo(new RandomizedRestartOnPathPlanner());
     }
 }
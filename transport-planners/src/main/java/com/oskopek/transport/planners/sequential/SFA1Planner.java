@@ -1,15 +1,14 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 
 import java.util.Collection;
 
 /**
  * SFA* with
- * {@link PlannerUtils#calculateSumOfDistancesToPackageTargets(Collection, Collection, ArrayTable)}
+ * {@link PlannerUtils#calculateSumOfDistancesToPackageTargets(Collection, Collection, ShortestPathMatrix)}
  * as a heuristic.
  */
 public class SFA1Planner extends ForwardAstarPlanner {
@@ -21,6 +20,17 @@ public class SFA1Planner extends ForwardAstarPlanner {
         this(false);
     }
 
+    /**
+     * Constructor with a configurable search, used in benchmark configurations.
+     *
+     * @param searchConfiguration the search configuration, in the format of
+     * {@link ForwardAstarPlanner#configureSearch(String)}
+     */
+    public SFA1Planner(String searchConfiguration) {
+        this();
+        configureSearch(searchConfiguration);
+    }
+
     /**
      * Default constructor.
      *
@@ -32,15 +42,15 @@ public class SFA1Planner extends ForwardAstarPlanner {
     }
 
     @Override
-    protected Integer calculateHeuristic(ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Collection<Package> unfinishedPackages) {
+    protected int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages) {
         return PlannerUtils.calculateSumOfDistancesToPackageTargets(unfinishedPackages,
                 state.getProblem().getAllVehicles(), distanceMatrix);
     }
 
     @Override
     public SFA1Planner copy() {
-        return new SFA1Planner(isStopAtFirstSolution());
+        return copySearchSettingsTo(new SFA1Planner(isStopAtFirstSolution()));
     }
 
     @Override
@@ -1,27 +1,33 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.problem.Location;
 import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
 import com.oskopek.transport.model.problem.Vehicle;
 import com.oskopek.transport.model.problem.graph.RoadGraph;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
-import org.graphstream.algorithm.Dijkstra;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 import org.graphstream.algorithm.Kruskal;
 import org.graphstream.graph.Edge;
-import org.graphstream.graph.Graph;
-import org.graphstream.graph.Path;
-import org.graphstream.graph.implementations.SingleGraph;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * SFA* with a Minimum Spanning Tree based heuristic.
+ * <p>
+ * The spanning tree (a forest, if the graph is not connected) is computed once per search on a private copy
+ * of the road graph and stored as parent arrays, therefore the heuristic does not modify any shared state
+ * and can be used in parallel searches.
  */
 public final class SFA2Planner extends ForwardAstarPlanner {
 
+    private SymbolTable locationSymbols;
+    private int[] treeParents;
+    private int[] treeParentWeights;
+    private int[] treeDepths;
+    private int[] treeRoots;
+
     /**
      * Default constructor.
      */
@@ -30,77 +36,148 @@ public final class SFA2Planner extends ForwardAstarPlanner {
         setName(SFA2Planner.class.getSimpleName());
     }
 
+    /**
+     * Constructor with a configurable search, used in benchmark configurations.
+     *
+     * @param searchConfiguration the search configuration, in the format of
+     * {@link ForwardAstarPlanner#configureSearch(String)}
+     */
+    public SFA2Planner(String searchConfiguration) {
+        this();
+        configureSearch(searchConfiguration);
+    }
+
+    @Override
+    protected void precomputeHeuristic(Problem problem, ShortestPathMatrix distanceMatrix) {
+        locationSymbols = distanceMatrix.getSymbolTable();
+        int locationCount = locationSymbols.getLocationCount();
+        List<List<int[]>> treeEdges = new ArrayList<>(locationCount);
+        for (int i = 0; i < locationCount; i++) {
+            treeEdges.add(new ArrayList<>());
+        }
+        for (Edge edge : mst(problem.getRoadGraph().copy())) {
+            int from = locationSymbols.getLocationId(edge.getNode0().getId());
+            int to = locationSymbols.getLocationId(edge.getNode1().getId());
+            int weight = edge.getAttribute("weight");
+            treeEdges.get(from).add(new int[] {to, weight});
+            treeEdges.get(to).add(new int[] {from, weight});
+        }
+
+        treeParents = new int[locationCount];
+        treeParentWeights = new int[locationCount];
+        treeDepths = new int[locationCount];
+        treeRoots = new int[locationCount];
+        Arrays.fill(treeRoots, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int root = 0; root < locationCount; root++) {
+            if (treeRoots[root] >= 0) {
+                continue;
+            }
+            treeRoots[root] = root;
+            treeParents[root] = -1;
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int[] edge : treeEdges.get(node)) {
+                    int child = edge[0];
+                    if (treeRoots[child] < 0) {
+                        treeRoots[child] = root;
+                        treeParents[child] = node;
+                        treeParentWeights[child] = edge[1];
+                        treeDepths[child] = treeDepths[node] + 1;
+                        queue.add(child);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
-    protected Integer calculateHeuristic(ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Collection<Package> unfinishedPackages) {
+    protected int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages) {
         int heuristic = 0;
-        Map<Location, Set<Package>> targetMap = new HashMap<>();
-        Map<Package, Location> packageMap = new HashMap<>();
+        Map<String, Location> loadedAt = new HashMap<>();
         for (Vehicle vehicle : state.getProblem().getAllVehicles()) {
             for (Package pkg : vehicle.getPackageList()) {
-                packageMap.put(pkg, vehicle.getLocation());
+                loadedAt.put(pkg.getName(), vehicle.getLocation());
                 heuristic += 1; // drop
             }
         }
+        boolean[] marked = new boolean[treeParents.length]; // the tree edges to the parents of the nodes
         for (Package pkg : unfinishedPackages) {
-            targetMap.computeIfAbsent(pkg.getTarget(), n -> new HashSet<>()).add(pkg);
-            if (pkg.getLocation() != null) {
-                packageMap.put(pkg, pkg.getLocation());
+            Location location = pkg.getLocation();
+            if (location != null) {
                 heuristic += 2; // pickup and drop
+            } else {
+                location = loadedAt.get(pkg.getName());
             }
-        }
-
-        Graph T = mst(state.getProblem().getRoadGraph());
-
-        for (Map.Entry<Location, Set<Package>> entry : targetMap.entrySet()) {
-            Dijkstra dijkstra = new Dijkstra(Dijkstra.Element.EDGE, null, "weight");
-            dijkstra.init(T);
-            dijkstra.setSource(T.getNode(entry.getKey().getName()));
-            dijkstra.compute();
-            for (Package pkg : entry.getValue()) {
-                String loc = packageMap.get(pkg).getName();
-                Path path = dijkstra.getPath(T.getNode(loc));
-                for (Edge e : path.getEachEdge()) {
-                    e.setAttribute("marked");
-                }
+            if (location != null) {
+                markTreePath(marked, locationSymbols.getLocationId(location),
+                        locationSymbols.getLocationId(pkg.getTarget()));
             }
         }
 
-        for (Edge e : T.getEdgeSet()) {
-            if (e.hasAttribute("marked")) {
-                heuristic += (int) e.getAttribute("weight");
+        for (int node = 0; node < marked.length; node++) {
+            if (marked[node]) {
+                heuristic += treeParentWeights[node];
             }
         }
-
         return heuristic;
     }
 
     /**
-     * Calculate the minimum spanning tree, using {@link Kruskal}'s algorithm.
+     * Mark the edges of the unique path between the two nodes of the spanning tree. Does nothing if the nodes
+     * are in different trees of the forest.
      *
-     * @param graph the graph to calculate the MST of
-     * @return the MST, as a graph
+     * @param marked the marked edges, indexed by the node the edge leads from to its parent
+     * @param from the first location id
+     * @param to the second location id
      */
-    private Graph mst(RoadGraph graph) {
+    private void markTreePath(boolean[] marked, int from, int to) {
+        if (treeRoots[from] != treeRoots[to]) {
+            return;
+        }
+        while (treeDepths[from] > treeDepths[to]) {
+            marked[from] = true;
+            from = treeParents[from];
+        }
+        while (treeDepths[to] > treeDepths[from]) {
+            marked[to] = true;
+            to = treeParents[to];
+        }
+        while (from != to) {
+            marked[from] = true;
+            marked[to] = true;
+            from = treeParents[from];
+            to = treeParents[to];
+        }
+    }
+
+    /**
+     * Calculate the minimum spanning tree, using {@link Kruskal}'s algorithm. Writes attributes to the graph,
+     * therefore has to be called on a private copy.
+     *
+     * @param graph the graph to calculate the MST of, modified
+     * @return the edges of the MST, with their {@code weight} attributes
+     */
+    private static Collection<Edge> mst(RoadGraph graph) {
         graph.getAllRoads().forEach(re -> graph.getEdge(re.getRoad().getName())
                 .setAttribute("weight", re.getRoad().getLength().getCost()));
         Kruskal kruskal = new Kruskal("weight", "mst", "on", "off");
         kruskal.init(graph);
         kruskal.compute();
-        Collection<Edge> edgeSet = graph.getEdgeSet().stream().filter(e -> e.getAttribute("mst").equals("on"))
-                .collect(Collectors.toSet());
-        Graph T = new SingleGraph("tree");
-        graph.getNodeSet().forEach(n -> T.addNode(n.getId()));
-        for (Edge e : edgeSet) {
-            Edge e2 = T.addEdge(e.getId(), e.getNode0().getIndex(), e.getNode1().getIndex(), false);
-            e2.addAttribute("weight", (int) e.getAttribute("weight"));
+        Collection<Edge> edges = new ArrayList<>();
+        for (Edge edge : graph.getEdgeSet()) {
+            if ("on".equals(edge.getAttribute("mst"))) {
+                edges.add(edge);
+            }
         }
-        return T;
+        return edges;
     }
 
     @Override
     public SFA2Planner copy() {
-        return new SFA2Planner();
+        return copySearchSettingsTo(new SFA2Planner());
     }
 
     @Override
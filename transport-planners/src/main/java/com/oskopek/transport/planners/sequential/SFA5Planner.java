@@ -1,15 +1,15 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.problem.Package;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
-import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 
 import java.util.Collection;
 
 /**
  * SFA* with
- * {@link PlannerUtils#calculateSumOfDistancesToVehiclesPackageTargetsAdmissible(Collection, Collection, ArrayTable)}
+ * {@link PlannerUtils#calculateSumOfDistancesToVehiclesPackageTargetsAdmissible(Collection, Collection,
+ * ShortestPathMatrix)}
  * as a heuristic.
  */
 public class SFA5Planner extends ForwardAstarPlanner {
@@ -22,6 +22,17 @@ public class SFA5Planner extends ForwardAstarPlanner {
         setName(SFA5Planner.class.getSimpleName());
     }
 
+    /**
+     * Constructor with a configurable search, used in benchmark configurations.
+     *
+     * @param searchConfiguration the search configuration, in the format of
+     * {@link ForwardAstarPlanner#configureSearch(String)}
+     */
+    public SFA5Planner(String searchConfiguration) {
+        this();
+        configureSearch(searchConfiguration);
+    }
+
     /**
      * Default constructor.
      *
@@ -33,15 +44,15 @@ public class SFA5Planner extends ForwardAstarPlanner {
     }
 
     @Override
-    protected Integer calculateHeuristic(ImmutablePlanState state,
-            ArrayTable<String, String, ShortestPath> distanceMatrix, Collection<Package> unfinishedPackages) {
+    protected int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages) {
         return PlannerUtils.calculateSumOfDistancesToVehiclesPackageTargetsAdmissibleMark(unfinishedPackages,
                 state.getProblem().getAllVehicles(), distanceMatrix);
     }
 
     @Override
     public SFA5Planner copy() {
-        return new SFA5Planner(isStopAtFirstSolution());
+        return copySearchSettingsTo(new SFA5Planner(isStopAtFirstSolution()));
     }
 
     @Override
@@ -0,0 +1,74 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+import com.oskopek.transport.planners.sequential.state.PackagePatternDatabase;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
+
+import java.util.Collection;
+
+/**
+ * SFA* with the admissible {@link PackagePatternDatabase} heuristic, precomputed once per problem.
+ */
+public class SFA6Planner extends ForwardAstarPlanner {
+
+    private PackagePatternDatabase patternDatabase;
+
+    /**
+     * Default constructor. Stops at the first solution, which is not guaranteed to be optimal: the heuristic
+     * is admissible, but it may be inconsistent and closed states are not reopened, a bounded open list may evict
+     * states and the successor generator prunes some actions.
+     */
+    public SFA6Planner() {
+        super(true);
+        setName(SFA6Planner.class.getSimpleName());
+    }
+
+    /**
+     * Constructor with a configurable search, used in benchmark configurations.
+     *
+     * @param searchConfiguration the search configuration, in the format of
+     * {@link ForwardAstarPlanner#configureSearch(String)}
+     */
+    public SFA6Planner(String searchConfiguration) {
+        this();
+        configureSearch(searchConfiguration);
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param stopAtFirstSolution true iff the algorithm should stop after the first found solution
+     */
+    public SFA6Planner(boolean stopAtFirstSolution) {
+        super(stopAtFirstSolution);
+        setName(SFA6Planner.class.getSimpleName());
+    }
+
+    @Override
+    protected void precomputeHeuristic(Problem problem, ShortestPathMatrix distanceMatrix) {
+        patternDatabase = new PackagePatternDatabase(problem, distanceMatrix);
+    }
+
+    @Override
+    protected int calculateHeuristic(ImmutablePlanState state,
+            ShortestPathMatrix distanceMatrix, Collection<Package> unfinishedPackages) {
+        return patternDatabase.estimate(state.getProblem());
+    }
+
+    @Override
+    public SFA6Planner copy() {
+        return copySearchSettingsTo(new SFA6Planner(isStopAtFirstSolution()));
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().getSimpleName().hashCode();
+    }
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SFA6Planner;
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.oskopek.transport.planners.sequential;
 
-import com.google.common.collect.ArrayTable;
 import com.oskopek.transport.model.domain.Domain;
 import com.oskopek.transport.model.domain.action.Action;
 import com.oskopek.transport.model.plan.Plan;
@@ -12,6 +11,7 @@ import com.oskopek.transport.model.problem.graph.RoadEdge;
 import com.oskopek.transport.planners.AbstractPlanner;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
 import com.oskopek.transport.planners.sequential.state.ShortestPath;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
 import javaslang.Tuple;
 import javaslang.Tuple2;
 import javaslang.Tuple3;
@@ -19,24 +19,81 @@ import javaslang.Value;
 import javaslang.collection.Stream;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Abstract superclass of randomized sequential planners.
+ * <p>
+ * With a {@link #setParallelism(int) parallelism} higher than one, the restarts run in a portfolio
+ * of worker threads (see {@link #planInParallel(Domain, Problem, Function)}). Every worker is a {@link #copy()}
+ * of the planner with its own seeded random instance and state, only the best plan (and its score, used as a bound
+ * by the restarts) is shared.
  */
 public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
 
-    private ArrayTable<String, String, ShortestPath> shortestPathMatrix;
+    /**
+     * The seed of the random instance, incremented for every additional worker of a portfolio.
+     */
+    private static final long SEED = 2017L;
+
+    /**
+     * How often the portfolio workers are checked for cancellation, in milliseconds.
+     */
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100L;
+
+    private ShortestPathMatrix shortestPathMatrix;
     private Random random;
-    private Plan bestPlan;
-    private int bestPlanScore;
+    private long seed = SEED;
+    private int parallelism = 1;
+    private SequentialRandomizedPlanner portfolio;
+    private volatile Plan bestPlan;
+    private final AtomicInteger bestPlanScore = new AtomicInteger();
+
+    /**
+     * Get the number of restart worker threads.
+     *
+     * @return the parallelism, 1 for the single-threaded restarts
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of restart worker threads, used from the next planning.
+     *
+     * @param parallelism the parallelism, 1 for the single-threaded restarts
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Copy the restart settings of this planner to the other planner, used in {@link #copy()}.
+     *
+     * @param planner the planner to configure
+     * @param <P> the planner type
+     * @return the configured planner
+     */
+    protected <P extends SequentialRandomizedPlanner> P copyRestartSettingsTo(P planner) {
+        planner.setParallelism(parallelism);
+        return planner;
+    }
 
     /**
      * Get the precalculated shortest path lookup matrix.
      *
      * @return shortest path table
      */
-    protected ArrayTable<String, String, ShortestPath> getShortestPathMatrix() {
+    protected ShortestPathMatrix getShortestPathMatrix() {
         return shortestPathMatrix;
     }
 
@@ -55,28 +112,32 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
      * @return the best plan
      */
     protected Plan getBestPlan() {
-        return bestPlan;
+        return portfolio == null ? bestPlan : portfolio.getBestPlan();
     }
 
     /**
-     * Get the best plan score so far.
+     * Get the best plan score so far. In a portfolio, this is the best score of all workers.
      *
      * @return the best plan score
      */
     protected int getBestPlanScore() {
-        return bestPlanScore;
+        return portfolio == null ? bestPlanScore.get() : portfolio.getBestPlanScore();
     }
 
     /**
      * Save the plan if it has a lower score than the currently best found plan.
+     * In a portfolio, the plan is published to the coordinating planner.
      *
      * @param score the score of the plan
      * @param plan the plan
      */
-    protected void savePlanIfBetter(int score, Plan plan) {
-        if (bestPlanScore > score) {
-            formatLog("Found new best plan {} -> {}", bestPlanScore, score);
-            bestPlanScore = score;
+    protected synchronized void savePlanIfBetter(int score, Plan plan) {
+        if (portfolio != null) {
+            portfolio.savePlanIfBetter(score, plan);
+            return;
+        }
+        if (bestPlanScore.get() > score) {
+            formatLog("Found new best plan {} -> {}", bestPlanScore.get(), score);
             if (plan instanceof SequentialPlan) {
                 bestPlan = new SequentialPlan(plan.getActions());
             } else if (plan instanceof TemporalPlan) {
@@ -84,6 +145,7 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
             } else {
                 throw new IllegalStateException("Cannot save plan of type: " + plan.getClass());
             }
+            bestPlanScore.set(score);
         }
     }
 
@@ -93,7 +155,7 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
     protected void resetState() {
         random = null;
         bestPlan = null;
-        bestPlanScore = Integer.MAX_VALUE;
+        bestPlanScore.set(Integer.MAX_VALUE);
     }
 
     /**
@@ -103,7 +165,65 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
      */
     protected void initialize(Problem problem) {
         shortestPathMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
-        random = new Random(2017L);
+        random = new Random(seed);
+    }
+
+    /**
+     * Run the restarts of this planner in {@link #getParallelism()} worker threads until cancelled. Every worker
+     * is a {@link #copy()} of this planner, seeded with a different seed (the first one with the seed
+     * of the single-threaded planner), and publishes its plans through {@link #savePlanIfBetter(int, Plan)}
+     * of this planner. Planners call this at the start of planning if the parallelism is higher than one.
+     *
+     * @param domain the domain
+     * @param problem the problem
+     * @param planTransformation the plan transformation, optionally null
+     * @return the best plan of all workers, or an empty optional
+     * @throws IllegalStateException if a worker failed
+     */
+    protected Optional<Plan> planInParallel(Domain domain, Problem problem, Function<Plan, Plan> planTransformation) {
+        formatLog("Starting planning with {} restart workers...", parallelism);
+        resetState();
+        List<SequentialRandomizedPlanner> workers = new ArrayList<>(parallelism);
+        CountDownLatch finished = new CountDownLatch(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < parallelism; i++) {
+            SequentialRandomizedPlanner worker = copy();
+            worker.parallelism = 1;
+            worker.seed = SEED + i;
+            worker.portfolio = this;
+            workers.add(worker);
+            Thread thread = new Thread(() -> {
+                try {
+                    if (planTransformation == null) {
+                        worker.plan(domain, problem);
+                    } else {
+                        worker.plan(domain, problem, planTransformation);
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    finished.countDown();
+                }
+            }, getName() + "-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            while (!finished.await(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (shouldCancel() || failure.get() != null) {
+                    workers.forEach(SequentialRandomizedPlanner::cancel);
+                }
+            }
+        } catch (InterruptedException e) {
+            workers.forEach(SequentialRandomizedPlanner::cancel);
+            Thread.currentThread().interrupt();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Restart worker failed.", failure.get());
+        }
+        formatLog("Cancelling, returning best found plan so far with score: {}.", getBestPlanScore());
+        return Optional.ofNullable(getBestPlan());
     }
 
     /**
@@ -117,7 +237,7 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
     protected Optional<Vehicle> nearestVehicle(Collection<Vehicle> vehicles, Location curLocation,
             int minFreeCapacity) {
         return Stream.ofAll(vehicles).filter(v -> v.getCurCapacity().getCost() >= minFreeCapacity)
-                .minBy(v -> getShortestPathMatrix().get(v.getLocation().getName(), curLocation.getName()).getDistance())
+                .minBy(v -> getShortestPathMatrix().getDistance(v.getLocation().getName(), curLocation.getName()))
                 .toJavaOptional();
     }
 
@@ -298,11 +418,11 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
                 .sorted(Comparator.comparing(ActionObject::getName))
                 .map(v -> {
                     if (!inverse) {
-                        return Tuple.of((double) getShortestPathMatrix().get(v.getLocation().getName(), to.getName())
-                                .getDistance(), v);
+                        return Tuple.of((double) getShortestPathMatrix().getDistance(v.getLocation().getName(),
+                                to.getName()), v);
                     } else {
-                        return Tuple.of((double) getShortestPathMatrix().get(to.getName(), v.getLocation().getName())
-                                .getDistance(), v);
+                        return Tuple.of((double) getShortestPathMatrix().getDistance(to.getName(),
+                                v.getLocation().getName()), v);
                     }
                 })
                 .collect(Collectors.toList());
@@ -326,6 +446,9 @@ public abstract class SequentialRandomizedPlanner extends AbstractPlanner {
         return locatableDistances.get(chosenIndex)._2;
     }
 
+    @Override
+    public abstract SequentialRandomizedPlanner copy();
+
     @Override
     public boolean equals(Object o) {
         return o != null && getClass().equals(o.getClass());
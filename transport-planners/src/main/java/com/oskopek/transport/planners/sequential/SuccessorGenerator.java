@@ -0,0 +1,246 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drive;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.Vehicle;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Generates reasonable actions that are applicable to planning states. Does not generate all of them,
+ * it prunes away all that are unnecessary (driving in circles, etc). Optionally, reorderings of independent
+ * actions are pruned by a {@link PartialOrderReduction} stage (enabled by default).
+ * <p>
+ * Writes the generated actions into a caller-provided buffer and reuses its location-indexed lookup arrays
+ * between calls, therefore an instance must not be shared between threads.
+ */
+public final class SuccessorGenerator {
+
+    private final Domain domain;
+    private final ShortestPathMatrix distanceMatrix;
+    private final PartialOrderReduction partialOrderReduction;
+    private int[] vehicleAt = new int[0];
+    private Package[] packageAt = new Package[0];
+    private int[] packageIdAt = new int[0];
+    private ImmutablePlanState state;
+
+    /**
+     * Default constructor.
+     *
+     * @param domain the domain
+     * @param distanceMatrix the distance matrix of the problem's road graph
+     */
+    public SuccessorGenerator(Domain domain, ShortestPathMatrix distanceMatrix) {
+        this(domain, distanceMatrix, true);
+    }
+
+    /**
+     * Constructor with an optional partial-order reduction.
+     *
+     * @param domain the domain
+     * @param distanceMatrix the distance matrix of the problem's road graph
+     * @param partialOrderReduction if reorderings of independent actions should be pruned
+     */
+    public SuccessorGenerator(Domain domain, ShortestPathMatrix distanceMatrix, boolean partialOrderReduction) {
+        this.domain = domain;
+        this.distanceMatrix = distanceMatrix;
+        this.partialOrderReduction = partialOrderReduction ? new PartialOrderReduction() : null;
+    }
+
+    /**
+     * Generate reasonable actions applicable to the state and append them to the buffer.
+     *
+     * @param state the state
+     * @param packagesUnfinished the undelivered packages
+     * @param buffer the buffer to append the actions to
+     */
+    public void generate(ImmutablePlanState state, Collection<Package> packagesUnfinished, List<Action> buffer) {
+        this.state = state;
+        try {
+            generateInternal(packagesUnfinished, buffer);
+        } finally {
+            this.state = null;
+        }
+    }
+
+    /**
+     * Generate reasonable actions applicable to the current state and append them to the buffer.
+     *
+     * @param packagesUnfinished the undelivered packages
+     * @param buffer the buffer to append the actions to
+     */
+    private void generateInternal(Collection<Package> packagesUnfinished, List<Action> buffer) {
+        if (state.hasCycle()) { // TODO: Convert to non-generation
+            return;
+        }
+
+        Problem problem = state.getProblem();
+        SymbolTable symbols = problem.getSymbolTable();
+        int vehicleCount = symbols.getVehicleCount();
+        indexLocations(symbols, packagesUnfinished);
+
+        // drop at target above all else
+        for (Package pkg : packagesUnfinished) {
+            if (pkg.getLocation() == null) { // unfinished package is in vehicle
+                Location target = pkg.getTarget();
+                int vehicleId = vehicleAt[symbols.getLocationId(target)]; // vehicle at target
+                if (vehicleId >= 0 && problem.getVehicle(vehicleId).getPackageList().contains(pkg)) {
+                    buffer.add(domain.buildDrop(problem.getVehicle(vehicleId), target, pkg));
+                    return;
+                }
+            }
+        }
+
+        Action lastAction = state.getAction();
+        // pick-up
+        int lastVehicleAndLastDrive = -1;
+        if (lastAction instanceof Drive) {
+            lastVehicleAndLastDrive = symbols.getVehicleId(lastAction.getWho().getName());
+        }
+        if (lastVehicleAndLastDrive >= 0) { // only use active vehicle
+            Vehicle vehicle = problem.getVehicle(lastVehicleAndLastDrive);
+            Location location = vehicle.getLocation();
+            int locationId = symbols.getLocationId(location);
+            Package pkg = packageAt[locationId];
+            if (pkg != null && pkg.getSize().compareTo(vehicle.getCurCapacity()) <= 0
+                    && !state.isNeedlessPickUp(lastVehicleAndLastDrive, packageIdAt[locationId])) {
+                buffer.add(domain.buildPickUp(vehicle, location, pkg));
+            }
+        } else {
+            for (int locationId = 0; locationId < symbols.getLocationCount(); locationId++) {
+                Package pkg = packageAt[locationId];
+                int vehicleId = vehicleAt[locationId];
+                if (pkg == null || vehicleId < 0) {
+                    continue;
+                }
+
+                int packageId = packageIdAt[locationId];
+                if (state.wasDroppedSinceLastDrive(vehicleId, packageId)) {
+                    continue;
+                }
+                Vehicle vehicle = problem.getVehicle(vehicleId);
+                if (pkg.getSize().compareTo(vehicle.getCurCapacity()) <= 0
+                        && !state.isNeedlessPickUp(vehicleId, packageId)) {
+                    buffer.add(domain.buildPickUp(vehicle, vehicle.getLocation(), pkg));
+                }
+            }
+        }
+
+        // drop
+        if (lastAction != null && !(lastAction instanceof PickUp)) { // do not drop after pick up
+            if (partialOrderReduction != null) {
+                partialOrderReduction.prepare(state, symbols);
+            }
+            if (lastVehicleAndLastDrive >= 0) { // only drop from active vehicle
+                generateDropsForVehicle(lastVehicleAndLastDrive, problem, symbols, buffer);
+            } else {
+                for (int vehicleId = 0; vehicleId < vehicleCount; vehicleId++) {
+                    generateDropsForVehicle(vehicleId, problem, symbols, buffer);
+                }
+            }
+        }
+
+        // drive
+        int lastVehicleAndNotDrop = -1;
+        if (lastAction != null && !(lastAction instanceof Drop)) {
+            lastVehicleAndNotDrop = symbols.getVehicleId(lastAction.getWho().getName());
+        }
+        if (lastVehicleAndNotDrop >= 0) { // continue driving if driving
+            generateDrivesForVehicle(lastVehicleAndNotDrop, problem, symbols, buffer);
+        } else {
+            for (int vehicleId = 0; vehicleId < vehicleCount; vehicleId++) {
+                generateDrivesForVehicle(vehicleId, problem, symbols, buffer);
+            }
+        }
+    }
+
+    /**
+     * Fill the location-indexed lookup arrays with the first vehicle id (in vehicle id order) and the first
+     * unfinished package (and its id) at every location. Packages loaded in vehicles are skipped.
+     *
+     * @param symbols the symbol table
+     * @param packagesUnfinished the undelivered packages
+     */
+    private void indexLocations(SymbolTable symbols, Collection<Package> packagesUnfinished) {
+        int locationCount = symbols.getLocationCount();
+        if (vehicleAt.length != locationCount) {
+            vehicleAt = new int[locationCount];
+            packageAt = new Package[locationCount];
+            packageIdAt = new int[locationCount];
+        } else {
+            Arrays.fill(packageAt, null);
+        }
+        Arrays.fill(vehicleAt, -1);
+        for (int vehicleId = 0; vehicleId < symbols.getVehicleCount(); vehicleId++) {
+            int locationId = state.getVehicleLocationId(vehicleId);
+            if (vehicleAt[locationId] < 0) {
+                vehicleAt[locationId] = vehicleId;
+            }
+        }
+        for (Package pkg : packagesUnfinished) {
+            int packageId = symbols.getPackageId(pkg.getName());
+            int locationId = state.getPackageLocationId(packageId);
+            if (locationId >= 0 && packageAt[locationId] == null) {
+                packageAt[locationId] = pkg;
+                packageIdAt[locationId] = packageId;
+            }
+        }
+    }
+
+    /**
+     * Generate drop actions for all packages in the vehicle, except for packages that would be dropped where
+     * they were picked up and drops pruned by the partial-order reduction.
+     *
+     * @param vehicleId the id of the vehicle
+     * @param problem the problem of the current state
+     * @param symbols the symbol table of the problem
+     * @param buffer the buffer to append the actions to
+     */
+    private void generateDropsForVehicle(int vehicleId, Problem problem, SymbolTable symbols, List<Action> buffer) {
+        Vehicle vehicle = problem.getVehicle(vehicleId);
+        Location current = vehicle.getLocation();
+        int locationId = state.getVehicleLocationId(vehicleId);
+        for (Package pkg : vehicle.getPackageList()) {
+            int packageId = symbols.getPackageId(pkg.getName());
+            if (state.wasPickedUpAt(packageId, locationId)) {
+                continue; // unnecessary drop and pickup (due to their costs)
+            }
+            if (partialOrderReduction != null && partialOrderReduction.isPrunedDrop(vehicleId, packageId)) {
+                continue; // the same drops are generated in the canonical order
+            }
+            buffer.add(domain.buildDrop(vehicle, current, pkg));
+        }
+    }
+
+    /**
+     * Generate drive actions for the vehicle (only if they are on the shortest paths).
+     *
+     * @param vehicleId the id of the vehicle
+     * @param problem the problem of the current state
+     * @param symbols the symbol table of the problem
+     * @param buffer the buffer to append the actions to
+     */
+    private void generateDrivesForVehicle(int vehicleId, Problem problem, SymbolTable symbols, List<Action> buffer) {
+        Vehicle vehicle = problem.getVehicle(vehicleId);
+        Location current = vehicle.getLocation();
+        for (int road : symbols.getOutgoingRoads(state.getVehicleLocationId(vehicleId))) {
+            int targetId = symbols.getRoadTo(road);
+            if (state.doesShorterPathExist(vehicleId, targetId, distanceMatrix)) {
+                continue;
+            }
+            buffer.add(domain.buildDrive(vehicle, current, symbols.getLocation(targetId), symbols.getRoad(road)));
+        }
+    }
+
+}
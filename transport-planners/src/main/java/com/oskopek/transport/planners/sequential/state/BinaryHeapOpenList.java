@@ -0,0 +1,115 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import org.teneighty.heap.BinaryHeap;
+import org.teneighty.heap.Heap;
+
+/**
+ * An unbounded open list backed by a {@link BinaryHeap} with boxed {@link Long} keys
+ * (the {@link TieBreaking#priority(int, int) priorities} of the entries). Mainly used as a baseline
+ * for benchmarking the other {@link OpenList} implementations.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public final class BinaryHeapOpenList<V> implements OpenList<V> {
+
+    private final TieBreaking tieBreaking;
+    private final BinaryHeap<Long, Entry<V>> heap = new BinaryHeap<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param tieBreaking the tie-breaking policy
+     */
+    public BinaryHeapOpenList(TieBreaking tieBreaking) {
+        this.tieBreaking = tieBreaking;
+    }
+
+    @Override
+    public Entry<V> insert(int key, int gScore, V value) {
+        Entry<V> entry = new Entry<>(key, value);
+        entry.heapEntry = heap.insert(tieBreaking.priority(key, gScore), entry);
+        return entry;
+    }
+
+    @Override
+    public Entry<V> extractMinimum() {
+        Entry<V> entry = heap.extractMinimum().getValue();
+        entry.heapEntry = null;
+        return entry;
+    }
+
+    @Override
+    public void decreaseKey(OpenList.Entry<V> openListEntry, int key, int gScore) {
+        if (!(openListEntry instanceof Entry) || ((Entry<V>) openListEntry).heapEntry == null) {
+            throw new IllegalArgumentException("Entry is not in this open list: " + openListEntry);
+        }
+        Entry<V> entry = (Entry<V>) openListEntry;
+        heap.decreaseKey(entry.heapEntry, tieBreaking.priority(key, gScore));
+        entry.key = key;
+    }
+
+    @Override
+    public int size() {
+        return heap.getSize();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return 0;
+    }
+
+    @Override
+    public long getRejectionCount() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryHeapOpenList[size=" + heap.getSize() + ']';
+    }
+
+    /**
+     * An entry of the binary heap open list, wrapping the entry of the heap.
+     *
+     * @param <V> the value type
+     */
+    public static final class Entry<V> implements OpenList.Entry<V> {
+
+        private int key;
+        private V value;
+        private Heap.Entry<Long, Entry<V>> heapEntry;
+
+        /**
+         * Default constructor.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        private Entry(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry[" + key + " -> " + value + ']';
+        }
+    }
+}
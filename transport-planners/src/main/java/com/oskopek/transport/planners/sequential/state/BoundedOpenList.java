@@ -0,0 +1,379 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A bounded double-ended priority queue with integer keys, used as the open list of A*-like searches.
+ * Supports insert, extract-min, decrease-key, delete and remove-max in O(log n).
+ * <p>
+ * Internally, every entry is held by two binary heaps at once (a min-heap and a max-heap), and knows its position
+ * in both. Entries are ordered by their {@link TieBreaking#priority(int, int) priority}. When the list is full,
+ * inserting an entry with a priority smaller than the maximal priority evicts the maximal entry (and reports it
+ * to the eviction listener), inserting any other entry is rejected. Eviction and rejection counts are tracked.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public final class BoundedOpenList<V> implements OpenList<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int maxSize;
+    private final TieBreaking tieBreaking;
+    private final Consumer<? super V> evictionListener;
+    private Entry<V>[] minHeap;
+    private Entry<V>[] maxHeap;
+    private int size;
+    private long evictionCount;
+    private long rejectionCount;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxSize the maximal number of entries, has to be positive
+     * @param tieBreaking the tie-breaking policy
+     * @param evictionListener called with the value of every evicted entry
+     * @throws IllegalArgumentException if the max size is not positive
+     */
+    public BoundedOpenList(int maxSize, TieBreaking tieBreaking, Consumer<? super V> evictionListener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.tieBreaking = tieBreaking;
+        this.evictionListener = evictionListener;
+        minHeap = newArray(Math.min(maxSize, DEFAULT_CAPACITY));
+        maxHeap = newArray(minHeap.length);
+    }
+
+    /**
+     * Create a new entry array.
+     *
+     * @param length the array length
+     * @param <V> the value type
+     * @return the array
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[] newArray(int length) {
+        return (Entry<V>[]) new Entry[length];
+    }
+
+    @Override
+    public Entry<V> insert(int key, int gScore, V value) {
+        long priority = tieBreaking.priority(key, gScore);
+        if (size >= maxSize) {
+            if (maxHeap[0].priority <= priority) {
+                rejectionCount++;
+                return null;
+            }
+            Entry<V> evicted = deleteMaximum();
+            evictionCount++;
+            evictionListener.accept(evicted.value);
+        }
+        if (size == minHeap.length) {
+            int capacity = (int) Math.min(maxSize, 2L * size);
+            Entry<V>[] newMinHeap = newArray(capacity);
+            System.arraycopy(minHeap, 0, newMinHeap, 0, size);
+            minHeap = newMinHeap;
+            Entry<V>[] newMaxHeap = newArray(capacity);
+            System.arraycopy(maxHeap, 0, newMaxHeap, 0, size);
+            maxHeap = newMaxHeap;
+        }
+        Entry<V> entry = new Entry<>(key, priority, value);
+        entry.minIndex = size;
+        entry.maxIndex = size;
+        minHeap[size] = entry;
+        maxHeap[size] = entry;
+        size++;
+        siftUpMin(entry.minIndex);
+        siftUpMax(entry.maxIndex);
+        return entry;
+    }
+
+    /**
+     * Get the entry with the minimal key, without removing it.
+     *
+     * @return the entry
+     * @throws NoSuchElementException if the list is empty
+     */
+    public Entry<V> getMinimum() {
+        if (size == 0) {
+            throw new NoSuchElementException("Open list is empty.");
+        }
+        return minHeap[0];
+    }
+
+    /**
+     * Get the entry with the maximal key, without removing it.
+     *
+     * @return the entry
+     * @throws NoSuchElementException if the list is empty
+     */
+    public Entry<V> getMaximum() {
+        if (size == 0) {
+            throw new NoSuchElementException("Open list is empty.");
+        }
+        return maxHeap[0];
+    }
+
+    @Override
+    public Entry<V> extractMinimum() {
+        Entry<V> entry = getMinimum();
+        delete(entry);
+        return entry;
+    }
+
+    /**
+     * Remove and return the entry with the maximal key. Not counted as an eviction.
+     *
+     * @return the entry
+     * @throws NoSuchElementException if the list is empty
+     */
+    public Entry<V> deleteMaximum() {
+        Entry<V> entry = getMaximum();
+        delete(entry);
+        return entry;
+    }
+
+    @Override
+    public void decreaseKey(OpenList.Entry<V> openListEntry, int key, int gScore) {
+        Entry<V> entry = checkHeld(openListEntry);
+        long priority = tieBreaking.priority(key, gScore);
+        if (priority > entry.priority) {
+            throw new IllegalArgumentException("Cannot increase key " + entry.key + " to " + key + ".");
+        }
+        entry.key = key;
+        entry.priority = priority;
+        siftUpMin(entry.minIndex);
+        siftDownMax(entry.maxIndex);
+    }
+
+    /**
+     * Delete the entry.
+     *
+     * @param entry the entry
+     * @throws IllegalArgumentException if the entry is not in this list
+     */
+    public void delete(Entry<V> entry) {
+        checkHeld(entry);
+        size--;
+        Entry<V> lastMin = minHeap[size];
+        minHeap[size] = null;
+        if (lastMin != entry) {
+            minHeap[entry.minIndex] = lastMin;
+            lastMin.minIndex = entry.minIndex;
+            siftDownMin(siftUpMin(lastMin.minIndex));
+        }
+        Entry<V> lastMax = maxHeap[size];
+        maxHeap[size] = null;
+        if (lastMax != entry) {
+            maxHeap[entry.maxIndex] = lastMax;
+            lastMax.maxIndex = entry.maxIndex;
+            siftDownMax(siftUpMax(lastMax.maxIndex));
+        }
+        entry.minIndex = -1;
+        entry.maxIndex = -1;
+    }
+
+    /**
+     * Check that the entry is held by this list.
+     *
+     * @param entry the entry
+     * @return the entry
+     * @throws IllegalArgumentException if the entry is not in this list
+     */
+    private Entry<V> checkHeld(OpenList.Entry<V> entry) {
+        if (entry instanceof Entry) {
+            Entry<V> held = (Entry<V>) entry;
+            if (held.minIndex >= 0 && held.minIndex < size && minHeap[held.minIndex] == held) {
+                return held;
+            }
+        }
+        throw new IllegalArgumentException("Entry is not in this open list: " + entry);
+    }
+
+    /**
+     * Move the entry at the index up the min-heap.
+     *
+     * @param index the index
+     * @return the new index of the entry
+     */
+    private int siftUpMin(int index) {
+        Entry<V> entry = minHeap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (minHeap[parent].priority <= entry.priority) {
+                break;
+            }
+            placeMin(minHeap[parent], index);
+            index = parent;
+        }
+        placeMin(entry, index);
+        return index;
+    }
+
+    /**
+     * Move the entry at the index down the min-heap.
+     *
+     * @param index the index
+     */
+    private void siftDownMin(int index) {
+        Entry<V> entry = minHeap[index];
+        int child = 2 * index + 1;
+        while (child < size) {
+            if (child + 1 < size && minHeap[child + 1].priority < minHeap[child].priority) {
+                child++;
+            }
+            if (entry.priority <= minHeap[child].priority) {
+                break;
+            }
+            placeMin(minHeap[child], index);
+            index = child;
+            child = 2 * index + 1;
+        }
+        placeMin(entry, index);
+    }
+
+    /**
+     * Move the entry at the index up the max-heap.
+     *
+     * @param index the index
+     * @return the new index of the entry
+     */
+    private int siftUpMax(int index) {
+        Entry<V> entry = maxHeap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (maxHeap[parent].priority >= entry.priority) {
+                break;
+            }
+            placeMax(maxHeap[parent], index);
+            index = parent;
+        }
+        placeMax(entry, index);
+        return index;
+    }
+
+    /**
+     * Move the entry at the index down the max-heap.
+     *
+     * @param index the index
+     */
+    private void siftDownMax(int index) {
+        Entry<V> entry = maxHeap[index];
+        int child = 2 * index + 1;
+        while (child < size) {
+            if (child + 1 < size && maxHeap[child + 1].priority > maxHeap[child].priority) {
+                child++;
+            }
+            if (entry.priority >= maxHeap[child].priority) {
+                break;
+            }
+            placeMax(maxHeap[child], index);
+            index = child;
+            child = 2 * index + 1;
+        }
+        placeMax(entry, index);
+    }
+
+    /**
+     * Put the entry at the index of the min-heap.
+     *
+     * @param entry the entry
+     * @param index the index
+     */
+    private void placeMin(Entry<V> entry, int index) {
+        minHeap[index] = entry;
+        entry.minIndex = index;
+    }
+
+    /**
+     * Put the entry at the index of the max-heap.
+     *
+     * @param entry the entry
+     * @param index the index
+     */
+    private void placeMax(Entry<V> entry, int index) {
+        maxHeap[index] = entry;
+        entry.maxIndex = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the maximal number of entries.
+     *
+     * @return the max size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedOpenList[size=" + size + ", maxSize=" + maxSize + ", evicted=" + evictionCount
+                + ", rejected=" + rejectionCount + ']';
+    }
+
+    /**
+     * An entry of the bounded open list.
+     *
+     * @param <V> the value type
+     */
+    public static final class Entry<V> implements OpenList.Entry<V> {
+
+        private int key;
+        private long priority;
+        private V value;
+        private int minIndex;
+        private int maxIndex;
+
+        /**
+         * Default constructor.
+         *
+         * @param key the key
+         * @param priority the priority
+         * @param value the value
+         */
+        private Entry(int key, long priority, V value) {
+            this.key = key;
+            this.priority = priority;
+            this.value = value;
+        }
+
+        @Override
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry[" + key + " -> " + value + ']';
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A bounded bucket priority queue keyed by primitive non-negative integer f-scores. F-scores in the transport
+ * domain are small integers (sums of road lengths and action durations), therefore every f-score smaller than
+ * {@link #OVERFLOW_KEY} has its own bucket in an array indexed by the f-score. All larger f-scores (e.g. of dead
+ * ends, estimated by a very large heuristic value) share a single overflow bucket, so that the array size does not
+ * depend on them. Inside a bucket, the entries are kept in a min-heap and a max-heap ordered by their
+ * {@link TieBreaking#priority(int, int) priority}, i.e. by the f-score and the tie-breaking rank.
+ * <p>
+ * Insert and decrease-key take O(log b) time, where b is the size of the bucket, extract-min additionally
+ * has to skip the empty buckets between the last and the current minimal f-score. When the list is full,
+ * inserting an entry with an f-score smaller than the maximal f-score evicts the worst entry (with the maximal
+ * priority) and reports it to the eviction listener, inserting any other entry is rejected.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public final class BucketOpenList<V> implements OpenList<V> {
+
+    /**
+     * The minimal f-score stored in the overflow bucket, instead of the bucket array.
+     */
+    public static final int OVERFLOW_KEY = 1 << 20;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int maxSize;
+    private final TieBreaking tieBreaking;
+    private final Consumer<? super V> evictionListener;
+    private final Bucket<V> overflow = new Bucket<>();
+    private Bucket<V>[] buckets;
+    private int size;
+    private int minIndex;
+    private int maxIndex = -1;
+    private long evictionCount;
+    private long rejectionCount;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxSize the maximal number of entries, has to be positive
+     * @param tieBreaking the tie-breaking policy
+     * @param evictionListener called with the value of every evicted entry
+     * @throws IllegalArgumentException if the max size is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public BucketOpenList(int maxSize, TieBreaking tieBreaking, Consumer<? super V> evictionListener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.tieBreaking = tieBreaking;
+        this.evictionListener = evictionListener;
+        buckets = (Bucket<V>[]) new Bucket[DEFAULT_CAPACITY];
+    }
+
+    @Override
+    public Entry<V> insert(int key, int gScore, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key has to be non-negative: " + key);
+        }
+        if (size >= maxSize) {
+            Bucket<V> worstBucket = bucket(findMaxIndex());
+            if (worstBucket.getMaximum().key <= key) {
+                rejectionCount++;
+                return null;
+            }
+            Entry<V> evicted = worstBucket.getMaximum();
+            worstBucket.remove(evicted);
+            size--;
+            evictionCount++;
+            evictionListener.accept(evicted.value);
+        }
+        Entry<V> entry = new Entry<>(value);
+        add(entry, key, tieBreaking.priority(key, gScore));
+        return entry;
+    }
+
+    /**
+     * Get the bucket index of the key.
+     *
+     * @param key the key
+     * @return the key itself, or {@link #OVERFLOW_KEY} for all larger keys
+     */
+    private static int index(int key) {
+        return Math.min(key, OVERFLOW_KEY);
+    }
+
+    /**
+     * Get the bucket at the index.
+     *
+     * @param index the bucket index
+     * @return the bucket, or null if it was not created yet
+     */
+    private Bucket<V> bucket(int index) {
+        if (index == OVERFLOW_KEY) {
+            return overflow;
+        }
+        return index < buckets.length ? buckets[index] : null;
+    }
+
+    /**
+     * Add the entry to the bucket of the key.
+     *
+     * @param entry the entry, not held by any bucket
+     * @param key the key
+     * @param priority the priority
+     */
+    @SuppressWarnings("unchecked")
+    private void add(Entry<V> entry, int key, long priority) {
+        int index = index(key);
+        if (index != OVERFLOW_KEY) {
+            if (index >= buckets.length) {
+                int capacity = Math.min(OVERFLOW_KEY, Math.max(index + 1, 2 * buckets.length));
+                Bucket<V>[] newBuckets = (Bucket<V>[]) new Bucket[capacity];
+                System.arraycopy(buckets, 0, newBuckets, 0, buckets.length);
+                buckets = newBuckets;
+            }
+            if (buckets[index] == null) {
+                buckets[index] = new Bucket<>();
+            }
+        }
+        entry.key = key;
+        entry.priority = priority;
+        bucket(index).add(entry);
+        size++;
+        if (size == 1 || index < minIndex) {
+            minIndex = index;
+        }
+        if (index > maxIndex) {
+            maxIndex = index;
+        }
+    }
+
+    /**
+     * Test if the bucket at the index is empty.
+     *
+     * @param index the bucket index
+     * @return true iff the bucket does not exist or holds no entries
+     */
+    private boolean isEmpty(int index) {
+        Bucket<V> bucket = bucket(index);
+        return bucket == null || bucket.size == 0;
+    }
+
+    /**
+     * Find the maximal non-empty bucket, the list has to be non-empty.
+     *
+     * @return the maximal bucket index
+     */
+    private int findMaxIndex() {
+        if (maxIndex == OVERFLOW_KEY && overflow.size == 0) {
+            maxIndex = buckets.length - 1;
+        }
+        while (isEmpty(maxIndex)) {
+            maxIndex--;
+        }
+        return maxIndex;
+    }
+
+    @Override
+    public Entry<V> extractMinimum() {
+        if (size == 0) {
+            throw new NoSuchElementException("Open list is empty.");
+        }
+        while (isEmpty(minIndex)) {
+            minIndex++;
+            if (minIndex >= buckets.length) {
+                minIndex = OVERFLOW_KEY; // only the overflow bucket is left
+            }
+        }
+        size--;
+        Bucket<V> bucket = bucket(minIndex);
+        Entry<V> minimum = bucket.getMinimum();
+        bucket.remove(minimum);
+        return minimum;
+    }
+
+    @Override
+    public void decreaseKey(OpenList.Entry<V> openListEntry, int key, int gScore) {
+        Entry<V> entry = checkHeld(openListEntry);
+        long priority = tieBreaking.priority(key, gScore);
+        if (key > entry.key || priority > entry.priority) {
+            throw new IllegalArgumentException("Cannot increase key " + entry.key + " to " + key + ".");
+        }
+        bucket(index(entry.key)).remove(entry);
+        size--;
+        add(entry, key, priority);
+    }
+
+    /**
+     * Check that the entry is held by this list.
+     *
+     * @param entry the entry
+     * @return the entry
+     * @throws IllegalArgumentException if the entry is not in this list
+     */
+    private Entry<V> checkHeld(OpenList.Entry<V> entry) {
+        if (entry instanceof Entry) {
+            Entry<V> held = (Entry<V>) entry;
+            Bucket<V> bucket = bucket(index(held.key));
+            if (held.minIndex >= 0 && bucket != null && bucket.holds(held)) {
+                return held;
+            }
+        }
+        throw new IllegalArgumentException("Entry is not in this open list: " + entry);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the maximal number of entries.
+     *
+     * @return the max size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BucketOpenList[size=" + size + ", maxSize=" + maxSize + ", evicted=" + evictionCount
+                + ", rejected=" + rejectionCount + ']';
+    }
+
+    /**
+     * A bucket of entries: a binary min-heap and a binary max-heap of the same entries, ordered by the priority.
+     * The entries of a bucket in the array have equal keys, the overflow bucket holds entries with various keys.
+     *
+     * @param <V> the value type
+     */
+    private static final class Bucket<V> {
+
+        private Entry<V>[] minHeap;
+        private Entry<V>[] maxHeap;
+        private int size;
+
+        /**
+         * Default constructor.
+         */
+        @SuppressWarnings("unchecked")
+        Bucket() {
+            minHeap = (Entry<V>[]) new Entry[4];
+            maxHeap = (Entry<V>[]) new Entry[4];
+        }
+
+        /**
+         * Test if the entry is in this bucket.
+         *
+         * @param entry the entry
+         * @return true iff the entry is held
+         */
+        boolean holds(Entry<V> entry) {
+            return entry.minIndex < size && minHeap[entry.minIndex] == entry;
+        }
+
+        /**
+         * Get the entry with the minimal priority, the bucket has to be non-empty.
+         *
+         * @return the entry
+         */
+        Entry<V> getMinimum() {
+            return minHeap[0];
+        }
+
+        /**
+         * Get the entry with the maximal priority (the worst entry), the bucket has to be non-empty.
+         *
+         * @return the entry
+         */
+        Entry<V> getMaximum() {
+            return maxHeap[0];
+        }
+
+        /**
+         * Add the entry.
+         *
+         * @param entry the entry
+         */
+        @SuppressWarnings("unchecked")
+        void add(Entry<V> entry) {
+            if (size == minHeap.length) {
+                Entry<V>[] newMinHeap = (Entry<V>[]) new Entry[2 * size];
+                System.arraycopy(minHeap, 0, newMinHeap, 0, size);
+                minHeap = newMinHeap;
+                Entry<V>[] newMaxHeap = (Entry<V>[]) new Entry[2 * size];
+                System.arraycopy(maxHeap, 0, newMaxHeap, 0, size);
+                maxHeap = newMaxHeap;
+            }
+            placeMin(entry, size);
+            placeMax(entry, size);
+            size++;
+            siftUpMin(entry.minIndex);
+            siftUpMax(entry.maxIndex);
+        }
+
+        /**
+         * Remove the entry.
+         *
+         * @param entry the entry
+         */
+        void remove(Entry<V> entry) {
+            size--;
+            Entry<V> lastMin = minHeap[size];
+            minHeap[size] = null;
+            if (lastMin != entry) {
+                placeMin(lastMin, entry.minIndex);
+                siftDownMin(siftUpMin(lastMin.minIndex));
+            }
+            Entry<V> lastMax = maxHeap[size];
+            maxHeap[size] = null;
+            if (lastMax != entry) {
+                placeMax(lastMax, entry.maxIndex);
+                siftDownMax(siftUpMax(lastMax.maxIndex));
+            }
+            entry.minIndex = -1;
+            entry.maxIndex = -1;
+        }
+
+        /**
+         * Move the entry at the index up the min-heap.
+         *
+         * @param index the index
+         * @return the new index of the entry
+         */
+        private int siftUpMin(int index) {
+            Entry<V> entry = minHeap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (minHeap[parent].priority <= entry.priority) {
+                    break;
+                }
+                placeMin(minHeap[parent], index);
+                index = parent;
+            }
+            placeMin(entry, index);
+            return index;
+        }
+
+        /**
+         * Move the entry at the index down the min-heap.
+         *
+         * @param index the index
+         */
+        private void siftDownMin(int index) {
+            Entry<V> entry = minHeap[index];
+            int child = 2 * index + 1;
+            while (child < size) {
+                if (child + 1 < size && minHeap[child + 1].priority < minHeap[child].priority) {
+                    child++;
+                }
+                if (entry.priority <= minHeap[child].priority) {
+                    break;
+                }
+                placeMin(minHeap[child], index);
+                index = child;
+                child = 2 * index + 1;
+            }
+            placeMin(entry, index);
+        }
+
+        /**
+         * Move the entry at the index up the max-heap.
+         *
+         * @param index the index
+         * @return the new index of the entry
+         */
+        private int siftUpMax(int index) {
+            Entry<V> entry = maxHeap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (maxHeap[parent].priority >= entry.priority) {
+                    break;
+                }
+                placeMax(maxHeap[parent], index);
+                index = parent;
+            }
+            placeMax(entry, index);
+            return index;
+        }
+
+        /**
+         * Move the entry at the index down the max-heap.
+         *
+         * @param index the index
+         */
+        private void siftDownMax(int index) {
+            Entry<V> entry = maxHeap[index];
+            int child = 2 * index + 1;
+            while (child < size) {
+                if (child + 1 < size && maxHeap[child + 1].priority > maxHeap[child].priority) {
+                    child++;
+                }
+                if (entry.priority >= maxHeap[child].priority) {
+                    break;
+                }
+                placeMax(maxHeap[child], index);
+                index = child;
+                child = 2 * index + 1;
+            }
+            placeMax(entry, index);
+        }
+
+        /**
+         * Put the entry at the index of the min-heap.
+         *
+         * @param entry the entry
+         * @param index the index
+         */
+        private void placeMin(Entry<V> entry, int index) {
+            minHeap[index] = entry;
+            entry.minIndex = index;
+        }
+
+        /**
+         * Put the entry at the index of the max-heap.
+         *
+         * @param entry the entry
+         * @param index the index
+         */
+        private void placeMax(Entry<V> entry, int index) {
+            maxHeap[index] = entry;
+            entry.maxIndex = index;
+        }
+    }
+
+    /**
+     * An entry of the bucket open list.
+     *
+     * @param <V> the value type
+     */
+    public static final class Entry<V> implements OpenList.Entry<V> {
+
+        private int key;
+        private long priority;
+        private int minIndex = -1;
+        private int maxIndex = -1;
+        private V value;
+
+        /**
+         * Default constructor.
+         *
+         * @param value the value
+         */
+        private Entry(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry[" + key + " -> " + value + ']';
+        }
+    }
+}
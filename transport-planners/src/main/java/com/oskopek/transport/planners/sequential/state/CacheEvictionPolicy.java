@@ -0,0 +1,42 @@
+package com.oskopek.transport.planners.sequential.state;
+
+/**
+ * The eviction policies of a {@link HeuristicCache}, applied when the cache is full.
+ */
+public enum CacheEvictionPolicy {
+
+    /**
+     * Evict the least recently used value (looked up or stored).
+     */
+    LRU(true),
+
+    /**
+     * Evict the least recently stored value.
+     */
+    FIFO(false),
+
+    /**
+     * Do not cache at all.
+     */
+    NONE(false);
+
+    private final boolean accessOrder;
+
+    /**
+     * Default constructor.
+     *
+     * @param accessOrder true iff lookups refresh the cached values
+     */
+    CacheEvictionPolicy(boolean accessOrder) {
+        this.accessOrder = accessOrder;
+    }
+
+    /**
+     * Do lookups refresh the cached values?
+     *
+     * @return true iff values are ordered by their last access, false if by their insertion
+     */
+    boolean isAccessOrder() {
+        return accessOrder;
+    }
+}
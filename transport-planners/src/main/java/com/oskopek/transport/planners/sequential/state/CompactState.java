@@ -0,0 +1,57 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.Arrays;
+
+/**
+ * A bit-packed key of a planning state, created by a {@link CompactStateEncoder}. Only contains the variable
+ * parts of the state (vehicle locations, capacities and fuel, package locations or holders) and is therefore
+ * much smaller than the {@link ImmutablePlanState} it was created from. Suitable for closed and open set membership.
+ * <p>
+ * Keys are only comparable if they were created by the same encoder.
+ */
+public final class CompactState {
+
+    private final long[] words;
+    private final int hashCode;
+
+    /**
+     * Default constructor. Does not copy the array.
+     *
+     * @param words the packed state
+     */
+    CompactState(long[] words) {
+        this.words = words;
+        this.hashCode = Arrays.hashCode(words);
+    }
+
+    /**
+     * Get the packed words. Intentionally not copied, do not modify.
+     *
+     * @return the packed state
+     */
+    long[] getWords() {
+        return words;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactState)) {
+            return false;
+        }
+        CompactState that = (CompactState) o;
+        return hashCode == that.hashCode && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactState" + Arrays.toString(words);
+    }
+}
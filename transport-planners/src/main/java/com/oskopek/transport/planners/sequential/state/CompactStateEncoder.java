@@ -0,0 +1,345 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.action.ActionCost;
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Packs the variable parts of a problem into a {@link CompactState}. Uses the dense integer ids
+ * of the initial problem's {@link SymbolTable} and computes the minimal bit width of every field once,
+ * when constructed. All problems encoded by one encoder have to originate from the same initial problem
+ * (i.e. share the road graph and the action object names).
+ * <p>
+ * Layout: for every vehicle (in id order) its location, current capacity, current fuel (only in fuel domains)
+ * and the ready-loading flag, followed by every package's holder (in id order). A package holder is either
+ * the id of the location it lies at or the number of locations plus the id of the vehicle it is loaded in.
+ * <p>
+ * With symmetry reduction, all states symmetric under the {@link SymmetryGroups} of the initial problem
+ * are encoded equally (orbit-based canonicalization): the vehicles of every orbit are sorted by their
+ * location, capacity, fuel, ready-loading flag and the groups of their loaded packages, and written in that order.
+ * Then the holders (using the sorted vehicle order) of the packages of every orbit are sorted and written
+ * in that order.
+ * <p>
+ * Thread-safe. Encoding does not allocate anything but the key: every thread reuses its own scratch buffers.
+ */
+public final class CompactStateEncoder {
+
+    private static final int WORD_BITS = Long.SIZE;
+    private static final int LOCATION = 0;
+    private static final int CAPACITY = 1;
+    private static final int FUEL = 2;
+    private static final int READY_LOADING = 3;
+    private static final int FIELD_COUNT = 4;
+
+    private final SymbolTable symbols;
+    private final int locationBits;
+    private final int capacityBits;
+    private final int fuelBits;
+    private final int holderBits;
+    private final int wordCount;
+    private final SymmetryGroups symmetries;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Default constructor, with symmetry reduction.
+     *
+     * @param problem the initial problem
+     */
+    public CompactStateEncoder(Problem problem) {
+        this(problem, true);
+    }
+
+    /**
+     * Constructor with an optional symmetry reduction.
+     *
+     * @param problem the initial problem
+     * @param symmetryReduction if states symmetric under interchangeable vehicles and packages
+     * should be encoded equally
+     */
+    public CompactStateEncoder(Problem problem, boolean symmetryReduction) {
+        symbols = problem.getSymbolTable();
+        SymmetryGroups groups = symmetryReduction ? new SymmetryGroups(problem) : null;
+        symmetries = groups == null || groups.isTrivial() ? null : groups;
+
+        int maxCapacity = 0;
+        int maxFuel = 0;
+        for (Vehicle vehicle : problem.getAllVehicles()) {
+            maxCapacity = Math.max(maxCapacity, costOf(vehicle.getMaxCapacity()));
+            maxFuel = Math.max(maxFuel, costOf(vehicle.getMaxFuelCapacity()));
+        }
+        locationBits = bitsFor(symbols.getLocationCount());
+        capacityBits = bitsFor(maxCapacity);
+        fuelBits = maxFuel == 0 ? 0 : bitsFor(maxFuel);
+        holderBits = bitsFor(symbols.getLocationCount() + symbols.getVehicleCount());
+        int totalBits = symbols.getVehicleCount() * (locationBits + capacityBits + fuelBits + 1)
+                + symbols.getPackageCount() * holderBits;
+        wordCount = (totalBits + WORD_BITS - 1) / WORD_BITS;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(symbols.getVehicleCount(), symbols.getPackageCount()));
+    }
+
+    /**
+     * Get the number of bits needed to represent all values from 0 to the given value (inclusive).
+     *
+     * @param maxValue the maximal value
+     * @return the number of bits, at least 1
+     */
+    private static int bitsFor(int maxValue) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    /**
+     * Null-safe cost getter.
+     *
+     * @param cost the cost, may be null
+     * @return the cost, or 0 if null
+     */
+    private static int costOf(ActionCost cost) {
+        return cost == null ? 0 : cost.getCost();
+    }
+
+    /**
+     * Get the number of 64-bit words in every encoded state.
+     *
+     * @return the word count
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Encode the problem into a compact state key.
+     *
+     * @param problem the problem to encode, has to originate from the problem this encoder was created with
+     * @return the packed key
+     * @throws IllegalArgumentException if the problem contains values not seen during the encoder construction
+     */
+    public CompactState encode(Problem problem) {
+        Scratch buffers = scratch.get();
+        int vehicleCount = symbols.getVehicleCount();
+        int[] fields = buffers.vehicleFields;
+        int[] holders = buffers.holders;
+        int[] order = buffers.vehicleOrder;
+        Arrays.fill(holders, 0);
+        for (int vehicleId = 0; vehicleId < vehicleCount; vehicleId++) {
+            Vehicle vehicle = problem.getVehicle(vehicleId);
+            int base = vehicleId * FIELD_COUNT;
+            fields[base + LOCATION] = locationId(vehicle.getLocation());
+            fields[base + CAPACITY] = costOf(vehicle.getCurCapacity());
+            fields[base + FUEL] = costOf(vehicle.getCurFuelCapacity());
+            fields[base + READY_LOADING] = vehicle.isReadyLoading() ? 1 : 0;
+            for (Package pkg : vehicle.getPackageList()) {
+                holders[symbols.getPackageId(pkg.getName())] = symbols.getLocationCount() + vehicleId;
+            }
+            order[vehicleId] = vehicleId;
+        }
+        for (int packageId = 0; packageId < holders.length; packageId++) {
+            Location location = problem.getPackage(packageId).getLocation();
+            if (location != null) {
+                holders[packageId] = locationId(location);
+            }
+        }
+        if (symmetries != null) {
+            canonicalize(buffers);
+        }
+
+        long[] words = new long[wordCount];
+        int offset = 0;
+        for (int position = 0; position < vehicleCount; position++) {
+            int base = order[position] * FIELD_COUNT;
+            offset = write(words, offset, locationBits, fields[base + LOCATION]);
+            offset = write(words, offset, capacityBits, fields[base + CAPACITY]);
+            if (fuelBits > 0) {
+                offset = write(words, offset, fuelBits, fields[base + FUEL]);
+            }
+            offset = write(words, offset, 1, fields[base + READY_LOADING]);
+        }
+        for (int holder : holders) {
+            offset = write(words, offset, holderBits, holder);
+        }
+        return new CompactState(words);
+    }
+
+    /**
+     * Reorder the vehicles and packages of every orbit into the canonical order, in the scratch buffers.
+     * Vehicles are compared by their fields and then by the sorted groups of their loaded packages,
+     * so that vehicles with equal fields are only equal if their loads are interchangeable too.
+     * The vehicle order is updated to hold the id of the vehicle written at every position
+     * and the package holders are rewritten to the canonical vehicle positions.
+     *
+     * @param buffers the scratch buffers, filled with the vehicle fields and package holders of the state
+     */
+    private void canonicalize(Scratch buffers) {
+        int locationCount = symbols.getLocationCount();
+        int[] holders = buffers.holders;
+        int[] loadStarts = buffers.loadStarts;
+        int[] loadEnds = buffers.loadEnds;
+        int[] loads = buffers.loads;
+        Arrays.fill(loadStarts, 0);
+        for (int holder : holders) {
+            if (holder >= locationCount) {
+                loadStarts[holder - locationCount + 1]++;
+            }
+        }
+        for (int vehicleId = 0; vehicleId < loadEnds.length; vehicleId++) {
+            loadStarts[vehicleId + 1] += loadStarts[vehicleId];
+            loadEnds[vehicleId] = loadStarts[vehicleId];
+        }
+        for (int packageId = 0; packageId < holders.length; packageId++) {
+            if (holders[packageId] >= locationCount) {
+                loads[loadEnds[holders[packageId] - locationCount]++] = symmetries.getPackageGroup(packageId);
+            }
+        }
+        for (int vehicleId = 0; vehicleId < loadEnds.length; vehicleId++) {
+            Arrays.sort(loads, loadStarts[vehicleId], loadEnds[vehicleId]);
+        }
+
+        int[] order = buffers.vehicleOrder;
+        int[] canonicalVehicleIds = buffers.canonicalVehicleIds;
+        int[] sorted = buffers.orbitBuffer;
+        for (int vehicleId = 0; vehicleId < canonicalVehicleIds.length; vehicleId++) {
+            canonicalVehicleIds[vehicleId] = vehicleId;
+        }
+        for (int[] orbit : symmetries.getVehicleOrbits()) {
+            for (int i = 0; i < orbit.length; i++) { // insertion sort, orbits are small
+                int vehicleId = orbit[i];
+                int j = i - 1;
+                while (j >= 0 && compareSignatures(buffers, sorted[j], vehicleId) > 0) {
+                    sorted[j + 1] = sorted[j];
+                    j--;
+                }
+                sorted[j + 1] = vehicleId;
+            }
+            for (int i = 0; i < orbit.length; i++) {
+                order[orbit[i]] = sorted[i];
+                canonicalVehicleIds[sorted[i]] = orbit[i];
+            }
+        }
+
+        for (int packageId = 0; packageId < holders.length; packageId++) {
+            if (holders[packageId] >= locationCount) {
+                holders[packageId] = locationCount + canonicalVehicleIds[holders[packageId] - locationCount];
+            }
+        }
+        int[] orbitHolders = buffers.orbitBuffer;
+        for (int[] orbit : symmetries.getPackageOrbits()) {
+            for (int i = 0; i < orbit.length; i++) {
+                orbitHolders[i] = holders[orbit[i]];
+            }
+            Arrays.sort(orbitHolders, 0, orbit.length);
+            for (int i = 0; i < orbit.length; i++) {
+                holders[orbit[i]] = orbitHolders[i];
+            }
+        }
+    }
+
+    /**
+     * Compare the signatures of two vehicles lexicographically: by their fields, then by the sorted groups
+     * of their loaded packages.
+     *
+     * @param buffers the scratch buffers, with the fields and sorted loads of vehicles
+     * @param first the id of the first vehicle
+     * @param second the id of the second vehicle
+     * @return a negative number, zero or a positive number if the first signature is smaller, equal or greater
+     */
+    private static int compareSignatures(Scratch buffers, int first, int second) {
+        int[] fields = buffers.vehicleFields;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            int comparison = Integer.compare(fields[first * FIELD_COUNT + i], fields[second * FIELD_COUNT + i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        int[] loads = buffers.loads;
+        int firstStart = buffers.loadStarts[first];
+        int firstLength = buffers.loadEnds[first] - firstStart;
+        int secondStart = buffers.loadStarts[second];
+        int secondLength = buffers.loadEnds[second] - secondStart;
+        for (int i = 0; i < Math.min(firstLength, secondLength); i++) {
+            if (loads[firstStart + i] != loads[secondStart + i]) {
+                return Integer.compare(loads[firstStart + i], loads[secondStart + i]);
+            }
+        }
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    /**
+     * Look up the location's id.
+     *
+     * @param location the location
+     * @return the id
+     * @throws IllegalArgumentException if the location is unknown
+     */
+    private int locationId(Location location) {
+        int id = symbols.getLocationId(location);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown location: " + location.getName());
+        }
+        return id;
+    }
+
+    /**
+     * Write the value into the bit array at the given offset.
+     *
+     * @param words the bit array
+     * @param offset the bit offset
+     * @param width the number of bits to write, at most 32
+     * @param value the value, non-negative
+     * @return the offset after the written value
+     * @throws IllegalArgumentException if the value does not fit into the given width
+     */
+    private static int write(long[] words, int offset, int width, int value) {
+        if (value < 0 || value >= (1L << width)) {
+            throw new IllegalArgumentException("Value " + value + " does not fit into " + width + " bits.");
+        }
+        int index = offset / WORD_BITS;
+        int shift = offset % WORD_BITS;
+        words[index] |= ((long) value) << shift;
+        if (shift + width > WORD_BITS) {
+            words[index + 1] |= ((long) value) >>> (WORD_BITS - shift);
+        }
+        return offset + width;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactStateEncoder[vehicles=" + symbols.getVehicleCount() + ", packages="
+                + symbols.getPackageCount() + ", words=" + wordCount + ", symmetries=" + symmetries + ']';
+    }
+
+    /**
+     * Scratch buffers of a single thread, reused between encodings.
+     */
+    private static final class Scratch {
+
+        private final int[] vehicleFields;
+        private final int[] holders;
+        private final int[] vehicleOrder;
+        private final int[] canonicalVehicleIds;
+        private final int[] loadStarts;
+        private final int[] loadEnds;
+        private final int[] loads;
+        private final int[] orbitBuffer;
+
+        /**
+         * Default constructor.
+         *
+         * @param vehicleCount the number of vehicles
+         * @param packageCount the number of packages
+         */
+        Scratch(int vehicleCount, int packageCount) {
+            vehicleFields = new int[vehicleCount * FIELD_COUNT];
+            holders = new int[packageCount];
+            vehicleOrder = new int[vehicleCount];
+            canonicalVehicleIds = new int[vehicleCount];
+            loadStarts = new int[vehicleCount + 1];
+            loadEnds = new int[vehicleCount];
+            loads = new int[packageCount];
+            orbitBuffer = new int[Math.max(vehicleCount, packageCount)];
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * A bounded memo of raw (unweighted) heuristic values, keyed by {@link CompactState} fingerprints of states.
+ * When full, values are evicted according to a {@link CacheEvictionPolicy}. Hits and misses are counted.
+ * <p>
+ * Thread-safe. The values are split into stripes by the key hash, every stripe is a separately locked and bounded
+ * map (with an equal share of the max size), so that parallel searches rarely contend for a lock. Eviction is
+ * applied per stripe. A lookup locks its stripe once, a miss computes the heuristic under that lock.
+ * The counters are not locked at all, neither is the {@link CacheEvictionPolicy#NONE disabled} cache.
+ */
+public final class HeuristicCache {
+
+    private final int maxSize;
+    private final CacheEvictionPolicy policy;
+    private final Stripe[] stripes;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Default constructor, with a single stripe (for sequential searches).
+     *
+     * @param maxSize the maximal number of cached values, has to be positive unless the policy is
+     * {@link CacheEvictionPolicy#NONE}
+     * @param policy the eviction policy
+     * @throws IllegalArgumentException if the max size is not positive
+     */
+    public HeuristicCache(int maxSize, CacheEvictionPolicy policy) {
+        this(maxSize, policy, 1);
+    }
+
+    /**
+     * Constructor with a configurable number of stripes.
+     *
+     * @param maxSize the maximal number of cached values, has to be positive unless the policy is
+     * {@link CacheEvictionPolicy#NONE}
+     * @param policy the eviction policy
+     * @param stripeCount the number of stripes, rounded up to a power of two
+     * @throws IllegalArgumentException if the max size or the stripe count is not positive
+     */
+    public HeuristicCache(int maxSize, CacheEvictionPolicy policy, int stripeCount) {
+        if (maxSize < 1 && policy != CacheEvictionPolicy.NONE) {
+            throw new IllegalArgumentException("Max size has to be positive: " + maxSize);
+        }
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count has to be positive: " + stripeCount);
+        }
+        this.maxSize = maxSize;
+        this.policy = policy;
+        int count = Integer.highestOneBit(stripeCount);
+        if (count < stripeCount) {
+            count <<= 1;
+        }
+        stripes = new Stripe[policy == CacheEvictionPolicy.NONE ? 0 : count];
+        int stripeMaxSize = (int) Math.max(1, ((long) maxSize + count - 1) / count);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeMaxSize, policy.isAccessOrder());
+        }
+    }
+
+    /**
+     * Get the cached heuristic value of the state, or compute and cache it.
+     *
+     * @param key the state key
+     * @param heuristic computes the raw heuristic value of the state
+     * @return the heuristic value
+     */
+    public int get(CompactState key, IntSupplier heuristic) {
+        if (stripes.length == 0) {
+            missCount.increment();
+            return heuristic.getAsInt();
+        }
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        synchronized (stripe) {
+            Integer value = stripe.get(key);
+            if (value != null) {
+                hitCount.increment();
+                return value;
+            }
+            missCount.increment();
+            int computed = heuristic.getAsInt();
+            stripe.put(key, computed);
+            return computed;
+        }
+    }
+
+    /**
+     * Get the number of cached values.
+     *
+     * @return the size
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the maximal number of cached values.
+     *
+     * @return the max size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the eviction policy.
+     *
+     * @return the policy
+     */
+    public CacheEvictionPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Get the number of stripes.
+     *
+     * @return the stripe count, 0 for the disabled cache
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Get the number of lookups that had to compute the heuristic.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Get the ratio of lookups answered from the cache.
+     *
+     * @return the hit rate, between 0 and 1, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return lookups == 0 ? 0d : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "HeuristicCache[" + policy + ", size=" + size() + "/" + maxSize + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ']';
+    }
+
+    /**
+     * A bounded stripe of the cache, guarded by its own monitor.
+     */
+    private static final class Stripe extends LinkedHashMap<CompactState, Integer> {
+
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+        /**
+         * Default constructor.
+         *
+         * @param maxSize the maximal number of values in this stripe
+         * @param accessOrder true iff lookups refresh the values
+         */
+        Stripe(int maxSize, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CompactState, Integer> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.oskopek.transport.planners.sequential.state;
 
-import com.google.common.collect.Lists;
 import com.oskopek.transport.model.domain.action.Action;
 import com.oskopek.transport.model.problem.*;
 import com.oskopek.transport.model.problem.Package;
@@ -14,30 +13,50 @@ import java.util.*;
  * <p>
  * Wrapper of a problem used in planning: does not use standard hash code and equals,
  * but assumes the graph (and other things, like the action object names) do not change and does not compare them.
+ * <p>
+ * Keeps small indexes derived incrementally from the predecessor state, addressed by the ids
+ * of the problem's {@link SymbolTable}: the location of every vehicle and package and a {@link PruningSummary}
+ * of the actions, which answers the pruning queries of successor generation in constant time.
+ * The index arrays are shared with the predecessor if the action did not change them.
  */
 public class ImmutablePlanState {
 
-    private final Action action;
-    private final ImmutablePlanState lastState;
+    private final ActionChain actions;
     private final int totalTime;
+    private final int actionCount;
+    private final int[] vehicleLocations;
+    private final int[] packageLocations;
+    private final PruningSummary summary;
 
     private final Problem problem;
     private int planningHashCode;
 
     /**
-     * Default start constructor.
+     * Default start constructor. Wraps other problem implementations into a {@link DefaultProblem} sharing
+     * the road graph, so that the {@link Problem#getSymbolTable() symbol table} is computed only once per search.
      *
      * @param problem the problem
      */
     public ImmutablePlanState(Problem problem) {
-        this.problem = problem;
-        this.lastState = null;
-        this.action = null;
+        this.problem = problem instanceof DefaultProblem ? problem : new DefaultProblem(problem.getName(),
+                problem.getRoadGraph(), problem.getVehicleMap(), problem.getPackageMap());
+        this.actions = null;
         this.totalTime = 0;
+        this.actionCount = 0;
+        SymbolTable symbols = this.problem.getSymbolTable();
+        vehicleLocations = new int[symbols.getVehicleCount()];
+        for (int i = 0; i < vehicleLocations.length; i++) {
+            vehicleLocations[i] = locationId(symbols, this.problem.getVehicle(i).getLocation());
+        }
+        packageLocations = new int[symbols.getPackageCount()];
+        for (int i = 0; i < packageLocations.length; i++) {
+            packageLocations[i] = locationId(symbols, this.problem.getPackage(i).getLocation());
+        }
+        summary = PruningSummary.initial(this.problem, symbols);
     }
 
     /**
-     * Default constructor.
+     * Default constructor. Does not keep a reference to the last state, only to its chain of actions.
      *
      * @param problem the problem
      * @param lastState the last state
@@ -45,9 +64,37 @@ public class ImmutablePlanState {
      */
     public ImmutablePlanState(Problem problem, ImmutablePlanState lastState, Action action) {
         this.problem = problem;
-        this.lastState = lastState;
-        this.action = action;
+        this.actions = new ActionChain(action, lastState.actions);
         totalTime = lastState.totalTime + action.getDuration().getCost();
+        actionCount = lastState.actionCount + 1;
+
+        SymbolTable symbols = problem.getSymbolTable();
+        int vehicleId = symbols.getVehicleId(action.getWho().getName());
+        if (vehicleId >= 0) {
+            vehicleLocations = PruningSummary.update(lastState.vehicleLocations, vehicleId,
+                    locationId(symbols, problem.getVehicle(vehicleId).getLocation()));
+        } else {
+            vehicleLocations = lastState.vehicleLocations;
+        }
+        int packageId = symbols.getPackageId(action.getWhat().getName());
+        if (packageId >= 0) {
+            packageLocations = PruningSummary.update(lastState.packageLocations, packageId,
+                    locationId(symbols, problem.getPackage(packageId).getLocation()));
+        } else {
+            packageLocations = lastState.packageLocations;
+        }
+        summary = lastState.summary.next(symbols, action, lastState.actionCount);
+    }
+
+    /**
+     * Null-safe location id lookup.
+     *
+     * @param symbols the symbol table
+     * @param location the location, may be null
+     * @return the location id, or -1 if the location is null
+     */
+    private static int locationId(SymbolTable symbols, Location location) {
+        return location == null ? -1 : symbols.getLocationId(location);
     }
 
     /**
@@ -56,7 +103,7 @@ public class ImmutablePlanState {
      * @return the action that led to this state
      */
     public Action getAction() {
-        return action;
+        return actions == null ? null : actions.action;
     }
 
     /**
@@ -77,13 +124,118 @@ public class ImmutablePlanState {
         return totalTime;
     }
 
+    /**
+     * Get the number of actions leading to this state.
+     *
+     * @return the action count
+     */
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    /**
+     * Get the vehicle's location id.
+     *
+     * @param vehicleId the vehicle id
+     * @return the location id
+     */
+    public int getVehicleLocationId(int vehicleId) {
+        return vehicleLocations[vehicleId];
+    }
+
+    /**
+     * Get the package's location id.
+     *
+     * @param packageId the package id
+     * @return the location id, or -1 if the package is loaded in a vehicle
+     */
+    public int getPackageLocationId(int packageId) {
+        return packageLocations[packageId];
+    }
+
+    /**
+     * Get the index of the last drive action of the vehicle in the actions leading to this state.
+     *
+     * @param vehicleId the vehicle id
+     * @return the index into {@link #getAllActionsInList()}, or -1 if the vehicle has not moved yet
+     */
+    public int getLastDriveIndex(int vehicleId) {
+        return summary.getLastDriveIndex(vehicleId);
+    }
+
+    /**
+     * Test if the trailing drive actions leading to this state visit a location twice, without pickup or drop
+     * between the two visits. Needs at least two actions.
+     *
+     * @return true iff a cycle was detected
+     */
+    public boolean hasCycle() {
+        return summary.hasCycle();
+    }
+
+    /**
+     * Test if a shorter path leads from the start of the trailing drives of the vehicle to the target than
+     * the path driven. Equivalent to {@code PlannerUtils.doesShorterPathExist} on the actions leading to this state.
+     *
+     * @param vehicleId the vehicle id
+     * @param targetId the target location id
+     * @param distanceMatrix the distance matrix
+     * @return true iff a shorter path than the current one exists
+     */
+    public boolean doesShorterPathExist(int vehicleId, int targetId, ShortestPathMatrix distanceMatrix) {
+        int start = summary.getDriveStart(vehicleId);
+        return start >= 0 && distanceMatrix.getDistance(start, targetId) < summary.getDriveLength(vehicleId);
+    }
+
+    /**
+     * Test if the vehicle dropped the package after its last drive. Drops of vehicles that have not moved yet
+     * are not recorded.
+     *
+     * @param vehicleId the vehicle id
+     * @param packageId the package id
+     * @return true iff the package was dropped by the vehicle since its last drive
+     */
+    public boolean wasDroppedSinceLastDrive(int vehicleId, int packageId) {
+        return summary.wasDroppedSinceLastDrive(vehicleId, packageId);
+    }
+
+    /**
+     * Test if the package was picked up at the location by any vehicle in the actions leading to this state.
+     *
+     * @param packageId the package id
+     * @param locationId the location id
+     * @return true iff the package was picked up at the location
+     */
+    public boolean wasPickedUpAt(int packageId, int locationId) {
+        return summary.wasPickedUpAt(packageId, locationId);
+    }
+
+    /**
+     * Test if a pick up of the package by the vehicle would make the vehicle's last drop of it needless,
+     * i.e. no other vehicle touched the package since and the vehicle was never full in the meantime.
+     * Equivalent to {@code PlannerUtils.needlessDropAndPickupOccurred}, assuming that no earlier pick up
+     * in the actions was needless.
+     *
+     * @param vehicleId the vehicle id
+     * @param packageId the package id
+     * @return true iff the drop and pick up would be needless
+     */
+    public boolean isNeedlessPickUp(int vehicleId, int packageId) {
+        return summary.isNeedlessPickUp(vehicleId, packageId);
+    }
+
     /**
      * Get the actions.
      *
      * @return the actions
      */
     public List<Action> getAllActionsInList() {
-        return Lists.reverse(Lists.newArrayList(getAllActionsReversed()));
+        Action[] list = new Action[actionCount];
+        int i = actionCount;
+        for (ActionChain chain = actions; chain != null; chain = chain.previous) {
+            list[--i] = chain.action;
+        }
+        return Arrays.asList(list);
     }
 
     /**
@@ -222,12 +374,33 @@ public class ImmutablePlanState {
         builder.append(location);
     }
 
+    /**
+     * A singly linked list of actions, from the last one back to the first one. Shared between states and
+     * their successors, so that a state does not have to keep its predecessor states (and their problems) alive.
+     */
+    private static final class ActionChain {
+
+        private final Action action;
+        private final ActionChain previous;
+
+        /**
+         * Default constructor.
+         *
+         * @param action the action
+         * @param previous the chain before the action, null if this is the first action
+         */
+        ActionChain(Action action, ActionChain previous) {
+            this.action = action;
+            this.previous = previous;
+        }
+    }
+
     /**
      * Reverse iterator jumping from the current state back, returning actions on the way.
      */
     private static final class ReversedActionIterator implements Iterator<Action> {
 
-        private ImmutablePlanState current;
+        private ActionChain current;
 
         /**
          * Default constructor.
@@ -235,18 +408,21 @@ public class ImmutablePlanState {
          * @param begin the current state
          */
         ReversedActionIterator(ImmutablePlanState begin) {
-            current = begin;
+            current = begin.actions;
         }
 
         @Override
         public boolean hasNext() {
-            return current.lastState != null;
+            return current != null;
         }
 
         @Override
         public Action next() {
+            if (current == null) {
+                throw new NoSuchElementException("No more actions.");
+            }
             Action retVal = current.action;
-            current = current.lastState;
+            current = current.previous;
             return retVal;
         }
     }
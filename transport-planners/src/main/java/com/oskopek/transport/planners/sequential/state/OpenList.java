@@ -0,0 +1,104 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The open list of A*-like searches: a priority queue of states keyed by their primitive integer f-scores.
+ * Ties between equal f-scores are broken according to a {@link TieBreaking} policy, using the g-scores.
+ * Implementations may be bounded, in which case they evict their worst entries when full.
+ *
+ * @param <V> the value type
+ * @see OpenListStrategy
+ */
+public interface OpenList<V> {
+
+    /**
+     * Insert the value. A bounded open list that is full either evicts an entry with the maximal key,
+     * or rejects the value if its key is not smaller than the maximal key.
+     *
+     * @param key the key (f-score), non-negative
+     * @param gScore the g-score of the value, used for tie-breaking
+     * @param value the value
+     * @return the new entry, or null if it was rejected
+     */
+    Entry<V> insert(int key, int gScore, V value);
+
+    /**
+     * Remove and return an entry with the minimal key. Entries with equal keys are ordered by the tie-breaking
+     * policy.
+     *
+     * @return the entry
+     * @throws NoSuchElementException if the list is empty
+     */
+    Entry<V> extractMinimum();
+
+    /**
+     * Decrease the key of the entry.
+     *
+     * @param entry the entry
+     * @param key the new key, not larger than the current key
+     * @param gScore the new g-score of the entry's value
+     * @throws IllegalArgumentException if the key is larger than the current key or the entry is not in this list
+     */
+    void decreaseKey(Entry<V> entry, int key, int gScore);
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the size
+     */
+    int size();
+
+    /**
+     * Is the list empty?
+     *
+     * @return true iff there are no entries
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Get the number of entries evicted because the list was full.
+     *
+     * @return the eviction count, 0 for unbounded lists
+     */
+    long getEvictionCount();
+
+    /**
+     * Get the number of inserts rejected because the list was full.
+     *
+     * @return the rejection count, 0 for unbounded lists
+     */
+    long getRejectionCount();
+
+    /**
+     * An entry of the open list. The key can only be changed using
+     * {@link OpenList#decreaseKey(Entry, int, int)}.
+     *
+     * @param <V> the value type
+     */
+    interface Entry<V> {
+
+        /**
+         * Get the key.
+         *
+         * @return the key
+         */
+        int getKey();
+
+        /**
+         * Get the value.
+         *
+         * @return the value
+         */
+        V getValue();
+
+        /**
+         * Set the value.
+         *
+         * @param value the value
+         */
+        void setValue(V value);
+    }
+}
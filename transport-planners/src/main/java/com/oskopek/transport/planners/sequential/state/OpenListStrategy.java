@@ -0,0 +1,51 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import java.util.function.Consumer;
+
+/**
+ * The available {@link OpenList} implementations, used to select the open list of a search.
+ */
+public enum OpenListStrategy {
+
+    /**
+     * A bounded double-ended binary heap, see {@link BoundedOpenList}.
+     */
+    BOUNDED_HEAP {
+        @Override
+        public <V> OpenList<V> create(int maxSize, TieBreaking tieBreaking, Consumer<? super V> evictionListener) {
+            return new BoundedOpenList<>(maxSize, tieBreaking, evictionListener);
+        }
+    },
+
+    /**
+     * A bounded bucket queue with primitive integer keys, see {@link BucketOpenList}.
+     */
+    BUCKET {
+        @Override
+        public <V> OpenList<V> create(int maxSize, TieBreaking tieBreaking, Consumer<? super V> evictionListener) {
+            return new BucketOpenList<>(maxSize, tieBreaking, evictionListener);
+        }
+    },
+
+    /**
+     * An unbounded binary heap with boxed keys, see {@link BinaryHeapOpenList}. Ignores the max size.
+     */
+    BINARY_HEAP {
+        @Override
+        public <V> OpenList<V> create(int maxSize, TieBreaking tieBreaking, Consumer<? super V> evictionListener) {
+            return new BinaryHeapOpenList<>(tieBreaking);
+        }
+    };
+
+    /**
+     * Create a new empty open list.
+     *
+     * @param maxSize the maximal number of entries of bounded lists
+     * @param tieBreaking the tie-breaking policy
+     * @param evictionListener called with the value of every evicted entry of bounded lists
+     * @param <V> the value type
+     * @return the open list
+     */
+    public abstract <V> OpenList<V> create(int maxSize, TieBreaking tieBreaking,
+            Consumer<? super V> evictionListener);
+}
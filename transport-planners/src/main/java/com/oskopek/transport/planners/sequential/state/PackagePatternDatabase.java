@@ -0,0 +1,244 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed goal distance tables (pattern databases projecting the problem onto a single package or vehicle)
+ * and landmark costs, built once per problem and used as an <strong>admissible</strong> heuristic
+ * in sequential domains.
+ * <p>
+ * For every package (and every vehicle with a target), the table holds the shortest path length from every
+ * location to its target. For every location, the landmark cost is the length of its shortest incoming road.
+ * A state is then estimated using array lookups only (and a nearest vehicle search for every package that is not
+ * loaded), into per-thread scratch buffers, so that no memory is allocated per state:
+ * <ul>
+ * <li>Every undelivered package still needs a drop (and a pick-up, if it is not loaded). These actions are
+ * distinct for every package, therefore their costs are summed.</li>
+ * <li>Drives are bounded by the maximum of two lower bounds. First, every undelivered package has to be driven
+ * to its target (by a vehicle that first has to get to it) and every vehicle with a target has to drive to it.
+ * Second, some drive has to end at every landmark location: at the target of every package that is not
+ * already loaded in a vehicle there, at the location of every package with no vehicle there, and at the target
+ * of every vehicle not already there. These drives are distinct, therefore the landmark costs are summed.</li>
+ * </ul>
+ * Thread-safe: apart from the per-thread scratch buffers, immutable.
+ */
+public final class PackagePatternDatabase {
+
+    /**
+     * Estimate returned for states, from which a goal is unreachable.
+     */
+    private static final int DEAD_END = Integer.MAX_VALUE / 2;
+
+    private final ShortestPathMatrix distanceMatrix;
+    private final SymbolTable locationSymbols;
+    private final SymbolTable symbols;
+    private final int[][] packageGoalDistances;
+    private final int[] packageTargets;
+    private final int[][] vehicleGoalDistances;
+    private final int[] landmarkCosts;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Default constructor.
+     *
+     * @param problem the problem (any state of it, only targets are used)
+     * @param distanceMatrix the shortest path matrix of the problem's graph
+     */
+    public PackagePatternDatabase(Problem problem, ShortestPathMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        this.locationSymbols = distanceMatrix.getSymbolTable();
+        this.symbols = problem.getSymbolTable();
+        packageGoalDistances = new int[symbols.getPackageCount()][];
+        packageTargets = new int[symbols.getPackageCount()];
+        for (int packageId = 0; packageId < packageGoalDistances.length; packageId++) {
+            Package pkg = problem.getPackage(packageId);
+            packageGoalDistances[packageId] = goalDistances(pkg.getTarget());
+            packageTargets[packageId] = locationId(pkg.getTarget());
+        }
+        vehicleGoalDistances = new int[symbols.getVehicleCount()][];
+        for (int vehicleId = 0; vehicleId < vehicleGoalDistances.length; vehicleId++) {
+            Location target = problem.getVehicle(vehicleId).getTarget();
+            vehicleGoalDistances[vehicleId] = target == null ? null : goalDistances(target);
+        }
+        landmarkCosts = new int[locationSymbols.getLocationCount()];
+        Arrays.fill(landmarkCosts, DEAD_END);
+        for (int roadId = 0; roadId < locationSymbols.getRoadCount(); roadId++) {
+            int to = locationSymbols.getRoadTo(roadId);
+            landmarkCosts[to] = Math.min(landmarkCosts[to], locationSymbols.getRoadLength(roadId));
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(symbols.getVehicleCount(), symbols.getPackageCount(),
+                landmarkCosts.length));
+    }
+
+    /**
+     * Build the table of shortest path lengths from all locations to the target.
+     *
+     * @param target the target location
+     * @return the distances, indexed by location ids
+     */
+    private int[] goalDistances(Location target) {
+        int targetId = locationId(target);
+        int[] distances = new int[locationSymbols.getLocationCount()];
+        for (int locationId = 0; locationId < distances.length; locationId++) {
+            distances[locationId] = distanceMatrix.getDistance(locationId, targetId);
+        }
+        return distances;
+    }
+
+    /**
+     * Look up the location's id.
+     *
+     * @param location the location
+     * @return the id
+     * @throws IllegalArgumentException if the location is unknown
+     */
+    private int locationId(Location location) {
+        int id = locationSymbols.getLocationId(location);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown location: " + location.getName());
+        }
+        return id;
+    }
+
+    /**
+     * Estimate the cost of reaching a goal from the state. Never overestimates.
+     *
+     * @param state the state, has to originate from the problem this database was built for
+     * @return the estimated cost
+     */
+    public int estimate(Problem state) {
+        Scratch buffers = scratch.get();
+        int stamp = buffers.nextStamp();
+        int[] vehicleLocations = buffers.vehicleLocations;
+        int[] loadedPackageHolders = buffers.loadedPackageHolders;
+        long drives = 0;
+        long landmarkDrives = 0;
+        int vehicleCount = 0;
+        for (int vehicleId = 0; vehicleId < vehicleGoalDistances.length; vehicleId++) {
+            Vehicle vehicle = state.getVehicle(vehicleId);
+            int location = locationId(vehicle.getLocation());
+            buffers.vehicleAt[location] = stamp;
+            int[] goalDistances = vehicleGoalDistances[vehicleId];
+            if (goalDistances != null && goalDistances[location] > 0) {
+                drives = Math.max(drives, goalDistances[location]);
+                landmarkDrives += mark(buffers, stamp, locationId(vehicle.getTarget()));
+            }
+            for (Package pkg : vehicle.getPackageList()) {
+                loadedPackageHolders[symbols.getPackageId(pkg.getName())] = vehicleCount;
+            }
+            vehicleLocations[vehicleCount++] = location;
+        }
+
+        int loads = 0;
+        for (int packageId = 0; packageId < packageGoalDistances.length; packageId++) {
+            Package pkg = state.getPackage(packageId);
+            int[] goalDistances = packageGoalDistances[packageId];
+            int location;
+            if (pkg.getLocation() == null) { // loaded
+                loads += 1; // drop
+                location = vehicleLocations[loadedPackageHolders[packageId]];
+                drives = Math.max(drives, goalDistances[location]);
+            } else {
+                location = locationId(pkg.getLocation());
+                if (location == packageTargets[packageId]) { // delivered
+                    continue;
+                }
+                loads += 2; // pick-up and drop
+                drives = Math.max(drives, (long) nearestVehicle(vehicleLocations, vehicleCount, location)
+                        + goalDistances[location]);
+                if (buffers.vehicleAt[location] != stamp) {
+                    landmarkDrives += mark(buffers, stamp, location);
+                }
+            }
+            if (goalDistances[location] > 0) { // not loaded in a vehicle at the target
+                landmarkDrives += mark(buffers, stamp, locationId(pkg.getTarget()));
+            }
+        }
+        return (int) Math.min(DEAD_END, loads + Math.max(drives, landmarkDrives));
+    }
+
+    /**
+     * Find the distance of the nearest vehicle to the location.
+     *
+     * @param vehicleLocations the location ids of vehicles
+     * @param vehicleCount the number of vehicles
+     * @param location the location id
+     * @return the shortest distance, or {@link ShortestPathMatrix#UNREACHABLE}
+     */
+    private int nearestVehicle(int[] vehicleLocations, int vehicleCount, int location) {
+        int nearest = ShortestPathMatrix.UNREACHABLE;
+        for (int i = 0; i < vehicleCount; i++) {
+            nearest = Math.min(nearest, distanceMatrix.getDistance(vehicleLocations[i], location));
+        }
+        return nearest;
+    }
+
+    /**
+     * Mark the location as a landmark.
+     *
+     * @param buffers the scratch buffers
+     * @param stamp the stamp of the current estimate
+     * @param location the location id
+     * @return the landmark cost of the location, if it was not marked yet, or zero
+     */
+    private int mark(Scratch buffers, int stamp, int location) {
+        if (buffers.landmarks[location] == stamp) {
+            return 0;
+        }
+        buffers.landmarks[location] = stamp;
+        return landmarkCosts[location];
+    }
+
+    @Override
+    public String toString() {
+        return "PackagePatternDatabase[packages=" + packageGoalDistances.length + ", vehicles="
+                + vehicleGoalDistances.length + ']';
+    }
+
+    /**
+     * Scratch buffers of a single thread, reused between estimates. Location flags are stamped with the number
+     * of the estimate instead of being cleared.
+     */
+    private static final class Scratch {
+
+        private final int[] vehicleLocations;
+        private final int[] loadedPackageHolders;
+        private final int[] vehicleAt;
+        private final int[] landmarks;
+        private int stamp;
+
+        /**
+         * Default constructor.
+         *
+         * @param vehicleCount the number of vehicles
+         * @param packageCount the number of packages
+         * @param locationCount the number of locations
+         */
+        Scratch(int vehicleCount, int packageCount, int locationCount) {
+            vehicleLocations = new int[vehicleCount];
+            loadedPackageHolders = new int[packageCount];
+            vehicleAt = new int[locationCount];
+            landmarks = new int[locationCount];
+        }
+
+        /**
+         * Start a new estimate, invalidating all location flags.
+         *
+         * @return the stamp of the new estimate, positive
+         */
+        int nextStamp() {
+            if (++stamp <= 0) { // wrapped around, clear the stale stamps
+                Arrays.fill(vehicleAt, 0);
+                Arrays.fill(landmarks, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+}
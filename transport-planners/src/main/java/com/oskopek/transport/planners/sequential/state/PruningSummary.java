@@ -0,0 +1,294 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drive;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * Immutable summaries of the actions leading to a planning state, used by the pruning rules
+ * of the successor generation. Every summary is derived from the predecessor's summary in O(1) or
+ * O(vehicles + packages) time, so that the pruning rules do not have to walk the whole action chain.
+ * Arrays are copied on write and shared with the predecessor if the action did not change them.
+ * <p>
+ * All vehicles, packages and locations are addressed by the ids of the problem's {@link SymbolTable}.
+ */
+final class PruningSummary {
+
+    private static final int WORD_BITS = Long.SIZE;
+
+    // the fields are never modified after the construction in initial() or next()
+    private boolean cycle;
+    private long[] driveRunSources;
+    private boolean driveRunHasDuplicate;
+    private int[] lastDrives;
+    private int[] vehicleDriveStarts;
+    private int[] vehicleDriveLengths;
+    private long[][] droppedSinceDrive;
+    private int[] trackedCapacities;
+    private int[] lastZeroCapacities;
+    private int[] droppedBy;
+    private int[] droppedAt;
+    private long[][] pickUpLocations;
+
+    /**
+     * Private constructor of the summary of an empty action sequence.
+     *
+     * @param vehicleCount the number of vehicles
+     * @param packageCount the number of packages
+     */
+    private PruningSummary(int vehicleCount, int packageCount) {
+        lastDrives = filled(vehicleCount, -1);
+        vehicleDriveStarts = filled(vehicleCount, -1);
+        vehicleDriveLengths = new int[vehicleCount];
+        droppedSinceDrive = new long[vehicleCount][];
+        trackedCapacities = new int[vehicleCount];
+        lastZeroCapacities = filled(vehicleCount, -1);
+        droppedBy = filled(packageCount, -1);
+        droppedAt = new int[packageCount];
+        pickUpLocations = new long[packageCount][];
+    }
+
+    /**
+     * Private copy constructor. Shares all arrays with the original, except for the trailing drive run
+     * (of any vehicles) and the cycle flag, which are reset.
+     *
+     * @param other the summary to copy
+     */
+    private PruningSummary(PruningSummary other) {
+        lastDrives = other.lastDrives;
+        vehicleDriveStarts = other.vehicleDriveStarts;
+        vehicleDriveLengths = other.vehicleDriveLengths;
+        droppedSinceDrive = other.droppedSinceDrive;
+        trackedCapacities = other.trackedCapacities;
+        lastZeroCapacities = other.lastZeroCapacities;
+        droppedBy = other.droppedBy;
+        droppedAt = other.droppedAt;
+        pickUpLocations = other.pickUpLocations;
+    }
+
+    /**
+     * Create an array filled with the value.
+     *
+     * @param length the array length
+     * @param value the value
+     * @return the array
+     */
+    private static int[] filled(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /**
+     * Create the summary of an empty action sequence.
+     *
+     * @param problem the initial problem
+     * @param symbols the symbol table of the problem
+     * @return the initial summary
+     */
+    static PruningSummary initial(Problem problem, SymbolTable symbols) {
+        PruningSummary summary = new PruningSummary(symbols.getVehicleCount(), symbols.getPackageCount());
+        for (int i = 0; i < symbols.getVehicleCount(); i++) {
+            summary.trackedCapacities[i] = problem.getVehicle(i).getMaxCapacity().getCost();
+        }
+        return summary;
+    }
+
+    /**
+     * Derive the summary after the given action.
+     *
+     * @param symbols the symbol table
+     * @param action the applied action
+     * @param index the index of the action in the action sequence
+     * @return the updated summary
+     */
+    PruningSummary next(SymbolTable symbols, Action action, int index) {
+        PruningSummary next = new PruningSummary(this);
+        int vehicleId = symbols.getVehicleId(action.getWho().getName());
+        if (vehicleId >= 0 && action instanceof Drive) {
+            int from = symbols.getLocationId(action.getWhere());
+            int to = symbols.getLocationId(action.getWhat().getName());
+            next.cycle = index >= 1 && (driveRunHasDuplicate || hasBit(driveRunSources, to));
+            next.driveRunSources = withBit(driveRunSources, from, symbols.getLocationCount());
+            next.driveRunHasDuplicate = driveRunHasDuplicate || hasBit(driveRunSources, from);
+            next.lastDrives = update(lastDrives, vehicleId, index);
+            boolean driving = vehicleDriveStarts[vehicleId] >= 0;
+            next.vehicleDriveStarts = driving ? vehicleDriveStarts : update(vehicleDriveStarts, vehicleId, from);
+            next.vehicleDriveLengths = update(vehicleDriveLengths, vehicleId,
+                    (driving ? vehicleDriveLengths[vehicleId] : 0) + action.getDuration().getCost());
+            if (droppedSinceDrive[vehicleId] != null) {
+                next.droppedSinceDrive = droppedSinceDrive.clone();
+                next.droppedSinceDrive[vehicleId] = null;
+            }
+            return next;
+        }
+
+        next.cycle = index >= 1 && driveRunHasDuplicate;
+        if (vehicleId < 0) {
+            return next;
+        }
+        next.vehicleDriveStarts = update(vehicleDriveStarts, vehicleId, -1);
+        int packageId = symbols.getPackageId(action.getWhat().getName());
+        if (packageId < 0 || !(action instanceof PickUp || action instanceof Drop)) {
+            return next;
+        }
+
+        int capacity = trackedCapacities[vehicleId];
+        if (capacity == 0) {
+            next.lastZeroCapacities = update(lastZeroCapacities, vehicleId, index - 1);
+        }
+        if (action instanceof PickUp) {
+            next.trackedCapacities = update(trackedCapacities, vehicleId, capacity - 1);
+            if (droppedBy[packageId] != vehicleId) {
+                next.droppedBy = update(droppedBy, packageId, -1);
+            }
+            int location = symbols.getLocationId(action.getWhere());
+            if (!hasBit(pickUpLocations[packageId], location)) {
+                next.pickUpLocations = pickUpLocations.clone();
+                next.pickUpLocations[packageId] = withBit(pickUpLocations[packageId], location,
+                        symbols.getLocationCount());
+            }
+        } else {
+            next.trackedCapacities = update(trackedCapacities, vehicleId, capacity + 1);
+            next.droppedBy = update(droppedBy, packageId, vehicleId);
+            next.droppedAt = update(droppedAt, packageId, index);
+            if (lastDrives[vehicleId] >= 0) {
+                next.droppedSinceDrive = droppedSinceDrive.clone();
+                next.droppedSinceDrive[vehicleId] = withBit(droppedSinceDrive[vehicleId], packageId,
+                        symbols.getPackageCount());
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Test if the trailing drive actions (of any vehicles) visit a location twice, without pickup or drop
+     * between the two visits.
+     *
+     * @return true iff a cycle was detected
+     */
+    boolean hasCycle() {
+        return cycle;
+    }
+
+    /**
+     * Get the index of the last drive action of the vehicle.
+     *
+     * @param vehicleId the vehicle id
+     * @return the index, or -1 if the vehicle has not moved yet
+     */
+    int getLastDriveIndex(int vehicleId) {
+        return lastDrives[vehicleId];
+    }
+
+    /**
+     * Get the location the trailing drive actions of the vehicle started at. Actions of other vehicles
+     * do not interrupt the drives.
+     *
+     * @param vehicleId the vehicle id
+     * @return the location id, or -1 if the last action of the vehicle is not a drive
+     */
+    int getDriveStart(int vehicleId) {
+        return vehicleDriveStarts[vehicleId];
+    }
+
+    /**
+     * Get the total length (duration) of the trailing drive actions of the vehicle.
+     *
+     * @param vehicleId the vehicle id
+     * @return the length, undefined if {@link #getDriveStart(int)} is -1
+     */
+    int getDriveLength(int vehicleId) {
+        return vehicleDriveLengths[vehicleId];
+    }
+
+    /**
+     * Test if the vehicle dropped the package after its last drive. Drops of vehicles that have not moved yet
+     * are not recorded.
+     *
+     * @param vehicleId the vehicle id
+     * @param packageId the package id
+     * @return true iff the package was dropped by the vehicle since its last drive
+     */
+    boolean wasDroppedSinceLastDrive(int vehicleId, int packageId) {
+        return hasBit(droppedSinceDrive[vehicleId], packageId);
+    }
+
+    /**
+     * Test if the package was picked up at the location by any vehicle.
+     *
+     * @param packageId the package id
+     * @param locationId the location id
+     * @return true iff the package was picked up at the location
+     */
+    boolean wasPickedUpAt(int packageId, int locationId) {
+        return hasBit(pickUpLocations[packageId], locationId);
+    }
+
+    /**
+     * Test if picking up the package by the vehicle would make the vehicle's last drop of the package needless:
+     * no other vehicle touched the package since and the vehicle was never full in the meantime.
+     *
+     * @param vehicleId the vehicle id
+     * @param packageId the package id
+     * @return true iff the drop and pickup would be needless
+     */
+    boolean isNeedlessPickUp(int vehicleId, int packageId) {
+        if (droppedBy[packageId] != vehicleId) {
+            return false;
+        }
+        boolean fullSinceDrop = trackedCapacities[vehicleId] == 0
+                || lastZeroCapacities[vehicleId] >= droppedAt[packageId];
+        return !fullSinceDrop;
+    }
+
+    /**
+     * Test if the bit is set.
+     *
+     * @param bits the bit set, may be null (empty)
+     * @param index the bit index
+     * @return true iff the bit is set
+     */
+    private static boolean hasBit(long[] bits, int index) {
+        return bits != null && (bits[index / WORD_BITS] & (1L << (index % WORD_BITS))) != 0;
+    }
+
+    /**
+     * Copy-on-write bit setter.
+     *
+     * @param bits the bit set, may be null (empty), not modified
+     * @param index the bit index
+     * @param size the number of bits in the set
+     * @return an updated copy, or the original if the bit was already set
+     */
+    private static long[] withBit(long[] bits, int index, int size) {
+        if (hasBit(bits, index)) {
+            return bits;
+        }
+        long[] copy = bits == null ? new long[(size + WORD_BITS - 1) / WORD_BITS] : bits.clone();
+        copy[index / WORD_BITS] |= 1L << (index % WORD_BITS);
+        return copy;
+    }
+
+    /**
+     * Copy-on-write update of an index array.
+     *
+     * @param array the array, not modified
+     * @param index the index to update
+     * @param value the new value
+     * @return the original array if the value is unchanged, an updated copy otherwise
+     */
+    static int[] update(int[] array, int index, int value) {
+        if (array[index] == value) {
+            return array;
+        }
+        int[] copy = array.clone();
+        copy[index] = value;
+        return copy;
+    }
+}
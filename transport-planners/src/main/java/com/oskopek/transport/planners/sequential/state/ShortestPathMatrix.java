@@ -0,0 +1,260 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.graph.RoadEdge;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable all-pairs shortest path matrix of a road graph. Distances are stored in a flat {@code int[]}
+ * and paths are represented by the first road on the path in another flat {@code int[]}, both indexed
+ * by the location ids of the graph's {@link SymbolTable}. Paths are reconstructed lazily, only when requested.
+ * <p>
+ * Computed by running Dijkstra's algorithm from every location, in parallel.
+ */
+public final class ShortestPathMatrix {
+
+    /**
+     * The distance between two locations, if there is no path between them.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int NO_ROAD = -1;
+    private static final long NODE_MASK = 0xFFFFFFFFL;
+
+    private final SymbolTable symbols;
+    private final int size;
+    private final int[] distances;
+    private final int[] firstRoads;
+
+    /**
+     * Private default constructor.
+     *
+     * @param symbols the symbol table of the graph
+     * @param distances the distance matrix, row-major
+     * @param firstRoads the matrix of first roads on the shortest paths, row-major
+     */
+    private ShortestPathMatrix(SymbolTable symbols, int[] distances, int[] firstRoads) {
+        this.symbols = symbols;
+        this.size = symbols.getLocationCount();
+        this.distances = distances;
+        this.firstRoads = firstRoads;
+    }
+
+    /**
+     * Computes the all-pairs shortest paths of the road graph.
+     *
+     * @param graph the graph
+     * @return the shortest path matrix
+     */
+    public static ShortestPathMatrix compute(RoadGraph graph) {
+        SymbolTable symbols = SymbolTable.of(graph);
+        int size = symbols.getLocationCount();
+        int[] distances = new int[size * size];
+        int[] firstRoads = new int[size * size];
+        IntStream.range(0, size).parallel().forEach(source -> dijkstra(symbols, source, distances, firstRoads));
+        return new ShortestPathMatrix(symbols, distances, firstRoads);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the source and fills in the source's row of both matrices.
+     * Uses a primitive binary heap with lazy deletion, entries are distances and location ids packed into longs.
+     *
+     * @param symbols the symbol table of the graph
+     * @param source the source location id
+     * @param distances the distance matrix
+     * @param firstRoads the first road matrix
+     */
+    private static void dijkstra(SymbolTable symbols, int source, int[] distances, int[] firstRoads) {
+        int size = symbols.getLocationCount();
+        int offset = source * size;
+        Arrays.fill(distances, offset, offset + size, UNREACHABLE);
+        Arrays.fill(firstRoads, offset, offset + size, NO_ROAD);
+        boolean[] settled = new boolean[size];
+        long[] heap = new long[symbols.getRoadCount() + 1];
+        int heapSize = 0;
+
+        distances[offset + source] = 0;
+        heap[heapSize++] = source;
+        while (heapSize > 0) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            int from = (int) (top & NODE_MASK);
+            if (settled[from]) {
+                continue;
+            }
+            settled[from] = true;
+            long fromDistance = top >>> Integer.SIZE;
+            for (int road : symbols.getOutgoingRoads(from)) {
+                int to = symbols.getRoadTo(road);
+                long distance = fromDistance + symbols.getRoadLength(road);
+                if (settled[to] || distance >= distances[offset + to]) {
+                    continue;
+                }
+                distances[offset + to] = (int) distance;
+                firstRoads[offset + to] = from == source ? road : firstRoads[offset + from];
+                heap[heapSize] = (distance << Integer.SIZE) | to;
+                siftUp(heap, heapSize++);
+            }
+        }
+    }
+
+    /**
+     * Restore the min-heap property by moving the element at the given index up.
+     *
+     * @param heap the heap
+     * @param index the index of the element
+     */
+    private static void siftUp(long[] heap, int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Restore the min-heap property by moving the root element down.
+     *
+     * @param heap the heap
+     * @param heapSize the number of elements in the heap
+     */
+    private static void siftDown(long[] heap, int heapSize) {
+        if (heapSize == 0) {
+            return;
+        }
+        long value = heap[0];
+        int index = 0;
+        int child = 1;
+        while (child < heapSize) {
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+            child = 2 * index + 1;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Get the symbol table of the graph. Location ids in this matrix are the location ids of this table.
+     *
+     * @return the symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    /**
+     * Look up the location id.
+     *
+     * @param name the location name
+     * @return the location id
+     * @throws IllegalArgumentException if the location is unknown
+     */
+    private int locationId(String name) {
+        int id = symbols.getLocationId(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown location: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Get the shortest path length.
+     *
+     * @param fromId the from location id
+     * @param toId the to location id
+     * @return the distance, or {@link #UNREACHABLE}
+     */
+    public int getDistance(int fromId, int toId) {
+        return distances[fromId * size + toId];
+    }
+
+    /**
+     * Get the shortest path length.
+     *
+     * @param from the from location name
+     * @param to the to location name
+     * @return the distance, or {@link #UNREACHABLE}
+     */
+    public int getDistance(String from, String to) {
+        return getDistance(locationId(from), locationId(to));
+    }
+
+    /**
+     * Get the id of the first road on the shortest path.
+     *
+     * @param fromId the from location id
+     * @param toId the to location id
+     * @return the road id, or -1 if the locations are equal or there is no path
+     */
+    public int getFirstRoad(int fromId, int toId) {
+        return firstRoads[fromId * size + toId];
+    }
+
+    /**
+     * Reconstruct the roads of the shortest path.
+     *
+     * @param fromId the from location id
+     * @param toId the to location id
+     * @return the roads, empty if the locations are equal or there is no path
+     */
+    public List<RoadEdge> getRoads(int fromId, int toId) {
+        if (getFirstRoad(fromId, toId) == NO_ROAD) {
+            return Collections.emptyList();
+        }
+        List<RoadEdge> roads = new ArrayList<>();
+        int current = fromId;
+        while (current != toId) {
+            int road = getFirstRoad(current, toId);
+            roads.add(symbols.getRoadEdge(road));
+            current = symbols.getRoadTo(road);
+        }
+        return roads;
+    }
+
+    /**
+     * Get the shortest path. The roads are reconstructed on every call, prefer
+     * {@link #getDistance(String, String)} if only the distance is needed.
+     *
+     * @param fromId the from location id
+     * @param toId the to location id
+     * @return the shortest path
+     */
+    public ShortestPath get(int fromId, int toId) {
+        return new ShortestPath(getRoads(fromId, toId), getDistance(fromId, toId));
+    }
+
+    /**
+     * Get the shortest path. The roads are reconstructed on every call, prefer
+     * {@link #getDistance(String, String)} if only the distance is needed.
+     *
+     * @param from the from location name
+     * @param to the to location name
+     * @return the shortest path
+     */
+    public ShortestPath get(String from, String to) {
+        return get(locationId(from), locationId(to));
+    }
+
+    @Override
+    public String toString() {
+        return "ShortestPathMatrix[locations=" + size + ']';
+    }
+}
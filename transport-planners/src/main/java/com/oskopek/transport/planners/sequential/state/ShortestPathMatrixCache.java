@@ -0,0 +1,235 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.graph.RoadEdge;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A bounded, thread-safe LRU cache of {@link ShortestPathMatrix} instances, keyed by a structural fingerprint
+ * of the road graph (its locations, roads, their lengths and endpoints). Planners running repeatedly
+ * or concurrently on the same graph (e.g. in benchmarks) share one immutable matrix.
+ * <p>
+ * The cache is bounded by the total number of matrix cells (squared location counts) of the cached matrices.
+ * Concurrent requests for the same graph wait for a single computation.
+ */
+public final class ShortestPathMatrixCache {
+
+    /**
+     * The default maximal number of cached matrix cells (each cell takes 8 bytes).
+     */
+    public static final long DEFAULT_MAX_CELLS = 4L * 1024L * 1024L;
+
+    private static final ShortestPathMatrixCache shared = new ShortestPathMatrixCache(DEFAULT_MAX_CELLS);
+
+    private final long maxCells;
+    private final Map<Fingerprint, FutureTask<ShortestPathMatrix>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cells;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxCells the maximal total number of cells of the cached matrices, the most recently used matrix
+     * is kept even if it is larger
+     */
+    public ShortestPathMatrixCache(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Get the cache shared by all planners in this JVM.
+     *
+     * @return the shared cache
+     */
+    public static ShortestPathMatrixCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Get the shortest path matrix of the graph, computing it if it is not cached.
+     *
+     * @param graph the graph
+     * @return the shortest path matrix
+     * @throws IllegalStateException if the computation failed or the thread was interrupted while waiting
+     */
+    public ShortestPathMatrix get(RoadGraph graph) {
+        Fingerprint key = new Fingerprint(graph);
+        FutureTask<ShortestPathMatrix> task;
+        boolean computeHere = false;
+        synchronized (this) {
+            task = cache.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> ShortestPathMatrix.compute(graph));
+                cache.put(key, task);
+                cells += key.getCells();
+                missCount++;
+                computeHere = true;
+                evict();
+            } else {
+                hitCount++;
+            }
+        }
+        if (computeHere) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shortest paths.", e);
+        } catch (ExecutionException e) {
+            remove(key, task);
+            throw new IllegalStateException("Could not compute shortest paths.", e.getCause());
+        }
+    }
+
+    /**
+     * Evict the least recently used matrices until the cache fits into the bound. Never evicts the most recently
+     * used matrix.
+     */
+    private synchronized void evict() {
+        Iterator<Fingerprint> keys = cache.keySet().iterator();
+        while (cells > maxCells && cache.size() > 1) {
+            Fingerprint eldest = keys.next();
+            keys.remove();
+            cells -= eldest.getCells();
+        }
+    }
+
+    /**
+     * Remove the task, if it is still cached under the key.
+     *
+     * @param key the key
+     * @param task the task
+     */
+    private synchronized void remove(Fingerprint key, FutureTask<ShortestPathMatrix> task) {
+        if (cache.remove(key, task)) {
+            cells -= key.getCells();
+        }
+    }
+
+    /**
+     * Remove all cached matrices.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        cells = 0;
+    }
+
+    /**
+     * Get the number of cached matrices.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Get the number of requests served from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests that had to compute a new matrix.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ShortestPathMatrixCache[size=" + cache.size() + ", cells=" + cells + ", hits=" + hitCount
+                + ", misses=" + missCount + ']';
+    }
+
+    /**
+     * A structural fingerprint of a road graph: all locations (names, coordinates and petrol stations)
+     * and all roads (including lengths) with their endpoints, in name order.
+     */
+    static final class Fingerprint {
+
+        private final List<Object> parts;
+        private final long cells;
+        private final int hashCode;
+
+        /**
+         * Default constructor.
+         *
+         * @param graph the graph
+         */
+        Fingerprint(RoadGraph graph) {
+            parts = new ArrayList<>();
+            graph.getAllLocations().sorted(Comparator.comparing(Location::getName)).forEach(this::addLocation);
+            long locationCount = parts.size() / 4;
+            graph.getAllRoads().sorted(Comparator.comparing(e -> e.getRoad().getName())).forEach(this::addRoad);
+            cells = locationCount * locationCount;
+            hashCode = parts.hashCode();
+        }
+
+        /**
+         * Add the location to the fingerprint.
+         *
+         * @param location the location
+         */
+        private void addLocation(Location location) {
+            parts.add(location.getName());
+            parts.add(location.getxCoordinate());
+            parts.add(location.getyCoordinate());
+            parts.add(location.getPetrolStation());
+        }
+
+        /**
+         * Add the road edge to the fingerprint.
+         *
+         * @param edge the road edge
+         */
+        private void addRoad(RoadEdge edge) {
+            parts.add(edge.getRoad());
+            parts.add(edge.getFrom().getName());
+            parts.add(edge.getTo().getName());
+        }
+
+        /**
+         * Get the number of cells of the shortest path matrix of the graph.
+         *
+         * @return the squared location count
+         */
+        long getCells() {
+            return cells;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return hashCode == that.hashCode && parts.equals(that.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
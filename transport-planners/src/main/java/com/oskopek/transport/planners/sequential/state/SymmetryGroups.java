@@ -0,0 +1,174 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.action.ActionCost;
+import com.oskopek.transport.model.problem.Location;
+import com.oskopek.transport.model.problem.Package;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups of interchangeable vehicles and packages of a problem, detected once from their static attributes.
+ * Vehicles are interchangeable if they have the same maximal capacity, maximal fuel capacity and target
+ * (if any), packages if they have the same size and target. Swapping the variable parts (locations, loads, ...)
+ * of two interchangeable objects results in a symmetric state: it has the same optimal plan cost and
+ * is a goal state iff the original state is. The groups with more than one member are the orbits,
+ * used by {@link CompactStateEncoder} to encode all symmetric states equally.
+ * <p>
+ * All vehicles and packages are addressed by the ids of the problem's {@link SymbolTable}. Immutable.
+ */
+public final class SymmetryGroups {
+
+    private final int[] vehicleGroups;
+    private final int[] packageGroups;
+    private final int[][] vehicleOrbits;
+    private final int[][] packageOrbits;
+
+    /**
+     * Default constructor.
+     *
+     * @param problem the problem (any state of it, only static attributes are used)
+     */
+    public SymmetryGroups(Problem problem) {
+        SymbolTable symbols = problem.getSymbolTable();
+        List<List<Object>> vehicleKeys = new ArrayList<>(symbols.getVehicleCount());
+        for (int vehicleId = 0; vehicleId < symbols.getVehicleCount(); vehicleId++) {
+            Vehicle vehicle = problem.getVehicle(vehicleId);
+            vehicleKeys.add(Arrays.asList(costOf(vehicle.getMaxCapacity()), costOf(vehicle.getMaxFuelCapacity()),
+                    nameOf(vehicle.getTarget())));
+        }
+        vehicleGroups = group(vehicleKeys);
+        vehicleOrbits = orbits(vehicleGroups);
+
+        List<List<Object>> packageKeys = new ArrayList<>(symbols.getPackageCount());
+        for (int packageId = 0; packageId < symbols.getPackageCount(); packageId++) {
+            Package pkg = problem.getPackage(packageId);
+            packageKeys.add(Arrays.asList(costOf(pkg.getSize()), nameOf(pkg.getTarget())));
+        }
+        packageGroups = group(packageKeys);
+        packageOrbits = orbits(packageGroups);
+    }
+
+    /**
+     * Null-safe cost getter.
+     *
+     * @param cost the cost, may be null
+     * @return the cost, or 0 if null
+     */
+    private static int costOf(ActionCost cost) {
+        return cost == null ? 0 : cost.getCost();
+    }
+
+    /**
+     * Null-safe location name getter.
+     *
+     * @param location the location, may be null
+     * @return the name, or null if the location is null
+     */
+    private static String nameOf(Location location) {
+        return location == null ? null : location.getName();
+    }
+
+    /**
+     * Assign group ids to objects, equal keys get equal ids. Ids are assigned in the order of first occurrence.
+     *
+     * @param keys the keys of the objects, in id order
+     * @return the group id of every object
+     */
+    private static int[] group(List<List<Object>> keys) {
+        Map<List<Object>, Integer> groupIds = new HashMap<>();
+        int[] groups = new int[keys.size()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = groupIds.computeIfAbsent(keys.get(i), key -> groupIds.size());
+        }
+        return groups;
+    }
+
+    /**
+     * Collect the members of all groups with more than one member.
+     *
+     * @param groups the group id of every object
+     * @return the member ids of every orbit, in increasing order
+     */
+    private static int[][] orbits(int[] groups) {
+        int[] sizes = new int[groups.length];
+        for (int group : groups) {
+            sizes[group]++;
+        }
+        List<int[]> orbits = new ArrayList<>();
+        for (int group = 0; group < sizes.length; group++) {
+            if (sizes[group] > 1) {
+                int[] members = new int[sizes[group]];
+                int count = 0;
+                for (int id = 0; id < groups.length; id++) {
+                    if (groups[id] == group) {
+                        members[count++] = id;
+                    }
+                }
+                orbits.add(members);
+            }
+        }
+        return orbits.toArray(new int[orbits.size()][]);
+    }
+
+    /**
+     * Get the group of the vehicle.
+     *
+     * @param vehicleId the vehicle id
+     * @return the group id
+     */
+    public int getVehicleGroup(int vehicleId) {
+        return vehicleGroups[vehicleId];
+    }
+
+    /**
+     * Get the group of the package.
+     *
+     * @param packageId the package id
+     * @return the group id
+     */
+    public int getPackageGroup(int packageId) {
+        return packageGroups[packageId];
+    }
+
+    /**
+     * Get the vehicle orbits: the groups of more than one interchangeable vehicle.
+     * Intentionally not copied, do not modify.
+     *
+     * @return the member ids of every orbit, in increasing order
+     */
+    int[][] getVehicleOrbits() {
+        return vehicleOrbits;
+    }
+
+    /**
+     * Get the package orbits: the groups of more than one interchangeable package.
+     * Intentionally not copied, do not modify.
+     *
+     * @return the member ids of every orbit, in increasing order
+     */
+    int[][] getPackageOrbits() {
+        return packageOrbits;
+    }
+
+    /**
+     * Test if there are no interchangeable objects.
+     *
+     * @return true iff all groups have a single member
+     */
+    public boolean isTrivial() {
+        return vehicleOrbits.length == 0 && packageOrbits.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SymmetryGroups[vehicleOrbits=" + vehicleOrbits.length + ", packageOrbits=" + packageOrbits.length
+                + ']';
+    }
+}
@@ -0,0 +1,58 @@
+package com.oskopek.transport.planners.sequential.state;
+
+/**
+ * Tie-breaking policies of {@link OpenList}s, ordering entries with equal f-scores.
+ * Every policy maps the scores of an entry to a non-negative rank, entries with lower ranks are preferred.
+ */
+public enum TieBreaking {
+
+    /**
+     * No explicit tie-breaking, the order of equal entries is implementation dependent.
+     */
+    NONE {
+        @Override
+        public int rank(int fScore, int gScore) {
+            return 0;
+        }
+    },
+
+    /**
+     * Prefer entries with a higher g-score (equivalently, with a lower h-score), i.e. states closer to a goal.
+     */
+    HIGHER_G {
+        @Override
+        public int rank(int fScore, int gScore) {
+            return Math.max(0, fScore - gScore);
+        }
+    },
+
+    /**
+     * Prefer entries with a lower g-score (equivalently, with a higher h-score), i.e. states closer to the start.
+     */
+    LOWER_G {
+        @Override
+        public int rank(int fScore, int gScore) {
+            return Math.max(0, gScore);
+        }
+    };
+
+    /**
+     * Compute the tie-breaking rank of an entry.
+     *
+     * @param fScore the f-score
+     * @param gScore the g-score
+     * @return the rank, non-negative
+     */
+    public abstract int rank(int fScore, int gScore);
+
+    /**
+     * Compute the total priority of an entry: its f-score, with ties broken by the rank.
+     *
+     * @param fScore the f-score, non-negative
+     * @param gScore the g-score
+     * @return the priority, lower is better
+     */
+    public long priority(int fScore, int gScore) {
+        return ((long) fScore << Integer.SIZE) | rank(fScore, gScore);
+    }
+}
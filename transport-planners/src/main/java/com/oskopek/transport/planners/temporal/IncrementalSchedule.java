@@ -0,0 +1,103 @@
+package com.oskopek.transport.planners.temporal;
+
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drive;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.domain.action.Refuel;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.planners.sequential.IncrementalPlanTransformation;
+
+import java.util.Collection;
+
+/**
+ * An incremental variant of {@link SequentialScheduler#schedule(com.oskopek.transport.model.domain.Domain, Problem,
+ * Collection)} for a growing sequential plan. Follows the same mutexes, but instead of building the mutex DAG
+ * of the whole plan, it keeps the times at which every vehicle and package becomes ready and schedules every
+ * appended action at the earliest time after its mutexes: O(1) per appended action.
+ * <p>
+ * No refuel actions are added and the plan is not validated, therefore the makespan is a lower bound of the makespan
+ * of the fully scheduled plan (which additionally includes refuels and small delays between the mutexes).
+ * It is used to bound partial plans, the full schedule is still needed for the final plan.
+ * <p>
+ * Not thread-safe.
+ */
+public final class IncrementalSchedule implements IncrementalPlanTransformation.PartialPlan {
+
+    private final SymbolTable symbols;
+    private final double[] vehicleDriveEnd;
+    private final double[] vehicleRefuelEnd;
+    private final double[] vehicleLoadEnd;
+    private final double[] packageReady;
+    private double makespan;
+
+    /**
+     * Default constructor, creates an empty schedule.
+     *
+     * @param temporalProblem the temporal problem
+     */
+    public IncrementalSchedule(Problem temporalProblem) {
+        symbols = temporalProblem.getSymbolTable();
+        vehicleDriveEnd = new double[symbols.getVehicleCount()];
+        vehicleRefuelEnd = new double[symbols.getVehicleCount()];
+        vehicleLoadEnd = new double[symbols.getVehicleCount()];
+        packageReady = new double[symbols.getPackageCount()];
+    }
+
+    /**
+     * Schedule the action after the already scheduled actions it is mutex with.
+     * Actions of the same vehicle are mutex, except refuels with pick-ups and drops.
+     * Pick-ups and drops of the same package are mutex.
+     *
+     * @param action the action
+     * @return the end time of the action
+     */
+    private double schedule(Action action) {
+        int vehicleId = symbols.getVehicleId(action.getWho().getName());
+        double start = vehicleDriveEnd[vehicleId];
+        double end;
+        if (action instanceof Refuel) {
+            start = Math.max(start, vehicleRefuelEnd[vehicleId]);
+            end = start + action.getDuration().getCost();
+            vehicleRefuelEnd[vehicleId] = end;
+        } else if (action instanceof PickUp || action instanceof Drop) {
+            int packageId = symbols.getPackageId(action.getWhat().getName());
+            start = Math.max(start, Math.max(vehicleLoadEnd[vehicleId], packageReady[packageId]));
+            end = start + action.getDuration().getCost();
+            vehicleLoadEnd[vehicleId] = end;
+            packageReady[packageId] = end;
+        } else {
+            start = Math.max(start, Math.max(vehicleRefuelEnd[vehicleId], vehicleLoadEnd[vehicleId]));
+            end = start + action.getDuration().getCost();
+            if (!(action instanceof Drive)) { // unknown actions are mutex with all the actions of the vehicle
+                vehicleRefuelEnd[vehicleId] = end;
+                vehicleLoadEnd[vehicleId] = end;
+            }
+            vehicleDriveEnd[vehicleId] = end;
+        }
+        return end;
+    }
+
+    @Override
+    public int append(Collection<? extends Action> actions) {
+        for (Action action : actions) {
+            makespan = Math.max(makespan, schedule(action));
+        }
+        return getScore();
+    }
+
+    @Override
+    public int getScore() {
+        return Math.round((float) makespan);
+    }
+
+    /**
+     * Get the makespan of the scheduled actions.
+     *
+     * @return the makespan
+     */
+    public double getMakespan() {
+        return makespan;
+    }
+}
@@ -14,7 +14,24 @@ import java.util.function.Function;
  */
 public class RRAPNSequentialScheduler extends SequentialScheduler {
 
-    private final AbstractPlanner planner = new RandomizedRestartAroundPathNearbyPlanner();
+    private final RandomizedRestartAroundPathNearbyPlanner planner = new RandomizedRestartAroundPathNearbyPlanner();
+
+    /**
+     * Default constructor.
+     */
+    public RRAPNSequentialScheduler() {
+        // intentionally empty
+    }
+
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads of the internal planner,
+     * see {@link RandomizedRestartAroundPathNearbyPlanner#setParallelism(int)}
+     */
+    public RRAPNSequentialScheduler(String parallelism) {
+        planner.setParallelism(Integer.parseInt(parallelism.trim()));
+    }
 
     @Override
     public Optional<Plan> plan(Domain seqDomain, Problem seqProblem,
@@ -29,6 +46,8 @@ public class RRAPNSequentialScheduler extends SequentialScheduler {
 
     @Override
     public RRAPNSequentialScheduler copy() {
-        return new RRAPNSequentialScheduler();
+        RRAPNSequentialScheduler copy = new RRAPNSequentialScheduler();
+        copy.planner.setParallelism(planner.getParallelism());
+        return copy;
     }
 }
@@ -0,0 +1,163 @@
+package com.oskopek.transport.planners.temporal;
+
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.domain.action.Refuel;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.problem.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The mutex DAG of a sequential plan, used by {@link SequentialScheduler#schedule(
+ * com.oskopek.transport.model.domain.Domain, com.oskopek.transport.model.problem.Problem, java.util.Collection)}.
+ * Nodes are the indices of the actions, the predecessors of every action are stored in compressed sparse row
+ * arrays. Mutexes are:
+ * <ul>
+ * <li>Actions of the same vehicle, except refuels with pick-ups and drops</li>
+ * <li>Drops and pick-ups of the same package</li>
+ * </ul>
+ * Mutex actions of one vehicle (and one package) are totally ordered, therefore only the last conflicting
+ * predecessor of every kind is recorded (and only if it does not precede the last drive of the vehicle,
+ * which follows all earlier actions of the vehicle, and only from other vehicles for packages):
+ * at most three per action, which makes the graph linear in size.
+ * All edges go from a lower to a higher index, so the sequential order is a topological order.
+ */
+final class ScheduleGraph {
+
+    private static final int NONE = -1;
+
+    /**
+     * The maximal number of recorded predecessors of an action.
+     */
+    private static final int MAX_PREDECESSORS = 3;
+
+    private final List<Action> actions;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+
+    /**
+     * Default constructor.
+     *
+     * @param symbols the symbol table of the problem, used for vehicle and package ids
+     * @param actions the sequential actions
+     */
+    ScheduleGraph(SymbolTable symbols, List<Action> actions) {
+        this.actions = actions;
+        int[] lastDrive = filled(symbols.getVehicleCount());
+        int[] lastRefuel = filled(symbols.getVehicleCount());
+        int[] lastLoad = filled(symbols.getVehicleCount());
+        int[] lastPickUp = filled(symbols.getPackageCount());
+        int[] lastDrop = filled(symbols.getPackageCount());
+        int[] vehicleIds = new int[actions.size()];
+        predecessorOffsets = new int[actions.size() + 1];
+        int[] edges = new int[MAX_PREDECESSORS * actions.size()];
+        int edgeCount = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            predecessorOffsets[i] = edgeCount;
+            Action action = actions.get(i);
+            int vehicleId = symbols.getVehicleId(action.getWho().getName());
+            vehicleIds[i] = vehicleId;
+            int drive = lastDrive[vehicleId];
+            edgeCount = add(edges, edgeCount, drive);
+            if (action instanceof Refuel) { // concurrent with pick-ups and drops
+                edgeCount = add(edges, edgeCount, after(lastRefuel[vehicleId], drive));
+                lastRefuel[vehicleId] = i;
+            } else if (action instanceof PickUp || action instanceof Drop) { // concurrent with refuels
+                edgeCount = add(edges, edgeCount, after(lastLoad[vehicleId], drive));
+                lastLoad[vehicleId] = i;
+                int packageId = symbols.getPackageId(action.getWhat().getName());
+                int packagePredecessor = action instanceof PickUp ? lastDrop[packageId] : lastPickUp[packageId];
+                // a package predecessor of the same vehicle is already a transitive predecessor
+                if (packagePredecessor != NONE && vehicleIds[packagePredecessor] != vehicleId) {
+                    edgeCount = add(edges, edgeCount, packagePredecessor);
+                }
+                if (action instanceof PickUp) {
+                    lastPickUp[packageId] = i;
+                } else {
+                    lastDrop[packageId] = i;
+                }
+            } else { // drives are mutex with all actions of the vehicle
+                edgeCount = add(edges, edgeCount, after(lastRefuel[vehicleId], drive));
+                edgeCount = add(edges, edgeCount, after(lastLoad[vehicleId], drive));
+                lastDrive[vehicleId] = i;
+            }
+        }
+        predecessorOffsets[actions.size()] = edgeCount;
+        predecessors = Arrays.copyOf(edges, edgeCount);
+    }
+
+    /**
+     * Create an array filled with {@link #NONE}.
+     *
+     * @param length the length
+     * @return the array
+     */
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+
+    /**
+     * Filter out the predecessor if it is not after the last drive (and therefore is its transitive predecessor).
+     *
+     * @param predecessor the predecessor index, or {@link #NONE}
+     * @param lastDrive the index of the last drive of the vehicle, or {@link #NONE}
+     * @return the predecessor index, or {@link #NONE}
+     */
+    private static int after(int predecessor, int lastDrive) {
+        return predecessor > lastDrive ? predecessor : NONE;
+    }
+
+    /**
+     * Add the predecessor, if there is one.
+     *
+     * @param edges the predecessor array
+     * @param edgeCount the number of predecessors in the array
+     * @param predecessor the predecessor index, or {@link #NONE}
+     * @return the new number of predecessors in the array
+     */
+    private static int add(int[] edges, int edgeCount, int predecessor) {
+        if (predecessor == NONE) {
+            return edgeCount;
+        }
+        edges[edgeCount] = predecessor;
+        return edgeCount + 1;
+    }
+
+    /**
+     * Get the recorded predecessors of the action.
+     *
+     * @param index the action index
+     * @return the predecessor indices
+     */
+    int[] getPredecessors(int index) {
+        return Arrays.copyOfRange(predecessors, predecessorOffsets[index], predecessorOffsets[index + 1]);
+    }
+
+    /**
+     * Schedule every action at the earliest time after the end of all its predecessors (plus a delay),
+     * in one pass in the sequential order. Actions without predecessors start at zero.
+     *
+     * @param delta the delay between the end of the last predecessor and the start of an action
+     * @return the scheduled actions, in the sequential order
+     */
+    List<TemporalPlanAction> schedule(double delta) {
+        double[] endTimes = new double[actions.size()];
+        List<TemporalPlanAction> scheduled = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            double start = 0d;
+            for (int edge = predecessorOffsets[i]; edge < predecessorOffsets[i + 1]; edge++) {
+                start = Math.max(start, endTimes[predecessors[edge]] + delta);
+            }
+            Action action = actions.get(i);
+            endTimes[i] = start + action.getDuration().getCost();
+            scheduled.add(new TemporalPlanAction(action, start, endTimes[i]));
+        }
+        return scheduled;
+    }
+}
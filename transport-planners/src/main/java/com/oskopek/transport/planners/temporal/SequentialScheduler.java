@@ -12,12 +12,9 @@ import com.oskopek.transport.model.problem.graph.DefaultRoadGraph;
 import com.oskopek.transport.model.problem.graph.RoadGraph;
 import com.oskopek.transport.model.state.TemporalPlanStateManager;
 import com.oskopek.transport.planners.AbstractPlanner;
+import com.oskopek.transport.planners.sequential.IncrementalPlanTransformation;
 import javaslang.Tuple;
 import javaslang.collection.Stream;
-import org.graphstream.algorithm.TopologicalSort;
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Graph;
-import org.graphstream.graph.implementations.MultiGraph;
 
 import java.util.*;
 import java.util.stream.*;
@@ -35,8 +32,7 @@ public abstract class SequentialScheduler extends AbstractPlanner {
     public Optional<Plan> plan(Domain domain, Problem problem) {
         SequentialDomain seqDomain = new SequentialDomain(domain.getName() + "-seq");
         Problem seqProblem = translateToSequential(problem);
-        Optional<Plan> sequentialPlan = plan(seqDomain, seqProblem, plan -> schedule(domain, problem,
-                plan.getActions()));
+        Optional<Plan> sequentialPlan = plan(seqDomain, seqProblem, new ScheduleTransformation(domain, problem));
         return sequentialPlan.map(plan -> {
             if (plan instanceof TemporalPlan) {
                 return plan;
@@ -53,111 +49,56 @@ public abstract class SequentialScheduler extends AbstractPlanner {
     protected abstract Planner getInternalPlanner();
 
     /**
-     * Calculate a list of indices to potentially add refuel actions to.
+     * Calculate the minimal set of refuels for all vehicles, in one pass over the actions.
+     * Every vehicle postpones refueling as long as possible: when its fuel does not suffice for the next drive,
+     * a refuel is placed before its latest drive from a petrol station since its last refuel (a refuel there leaves
+     * the most fuel for the drives ahead). Because every refuel fills the tank, this greedy choice
+     * uses the minimal number of refuels per vehicle. If even the latest petrol station is too far,
+     * no placement of refuels is valid.
      *
-     * @param vehicle the vehicle
-     * @param actions the actions
-     * @param problem the problem
-     * @return a list of indices into actions
-     */
-    private static List<Integer> calculateRefuelPositions(Vehicle vehicle, List<Action> actions,
-            Problem problem) {
-        List<Integer> positions = new ArrayList<>();
-        for (int i = 0; i < actions.size(); i++) {
-            Action action = actions.get(i);
-            if (action instanceof Drive && action.getWho().getName().equals(vehicle.getName())) {
-                Location temporalFrom = problem.getRoadGraph().getLocation(action.getWhere().getName());
-                if (temporalFrom.hasPetrolStation()) {
-                    positions.add(i);
-                }
-            }
-        }
-        return positions;
-    }
-
-    /**
-     * Add refuel actions at the specified indices.
-     *
-     * @param vehicleName the name of the vehicle
-     * @param domain the domain
-     * @param temporalProblem the problem
-     * @param actions the actions
-     * @param refuels a list of potential refuel indices into actions
-     * @param refuelPointers pointers into refuels
-     * @param refSize length of refuel pointers
-     * @return actions with the added refuels
+     * @param temporalProblem the temporal problem
+     * @param actions the actions, all drives of which are temporal
+     * @return flags of the actions (drives) that should be preceded by a refuel, or null if fuel does not suffice
      */
-    private static List<Action> addRefuels(String vehicleName, Domain domain, Problem temporalProblem,
-            List<Action> actions, List<Integer> refuels, Iterator<Integer> refuelPointers, int refSize) {
-        List<Action> newActions = new ArrayList<>(actions.size() + refSize);
-        Vehicle temporalVehicle = temporalProblem.getVehicle(vehicleName);
-        final int maxFuelCapacity = temporalVehicle.getMaxFuelCapacity().getCost();
-        int curFuelCapacity = temporalVehicle.getCurFuelCapacity().getCost();
-        int refuelVal = -1;
-        if (refuelPointers.hasNext()) {
-            refuelVal = refuels.get(refuelPointers.next());
+    private static boolean[] calculateRefuelPositions(Problem temporalProblem, List<Action> actions) {
+        SymbolTable symbols = temporalProblem.getSymbolTable();
+        int[] maxFuel = new int[symbols.getVehicleCount()];
+        int[] fuel = new int[symbols.getVehicleCount()];
+        for (Vehicle vehicle : temporalProblem.getAllVehicles()) {
+            int vehicleId = symbols.getVehicleId(vehicle.getName());
+            maxFuel[vehicleId] = vehicle.getMaxFuelCapacity().getCost();
+            fuel[vehicleId] = vehicle.getCurFuelCapacity().getCost();
         }
-        for (int i = 0, refuelI = 0; i < actions.size(); i++) {
+        int[] lastStation = new int[symbols.getVehicleCount()]; // latest refuel candidate since the last refuel
+        Arrays.fill(lastStation, -1);
+        int[] costSinceStation = new int[symbols.getVehicleCount()];
+        boolean[] refuelBefore = new boolean[actions.size()];
+        for (int i = 0; i < actions.size(); i++) {
             Action action = actions.get(i);
-            if (refuelI < refSize) {
-                if (refuelVal == i) {
-                    newActions.add(domain.buildRefuel(temporalProblem.getVehicle(action.getWho().getName()),
-                            temporalProblem.getRoadGraph().getLocation(action.getWhere().getName())));
-                    curFuelCapacity = maxFuelCapacity;
-                    refuelI++;
-                    if (refuelPointers.hasNext()) {
-                        refuelVal = refuels.get(refuelPointers.next());
-                    }
-                }
+            if (!(action instanceof Drive)) {
+                continue;
             }
-            if (action instanceof Drive && action.getWho().getName().equals(vehicleName)) {
-                FuelRoad road = (FuelRoad) temporalProblem.getRoadGraph().getRoad(((Drive) action).getRoad().getName());
-                curFuelCapacity -= road.getFuelCost().getCost();
+            int vehicleId = symbols.getVehicleId(action.getWho().getName());
+            if (action.getWhere().hasPetrolStation()) {
+                lastStation[vehicleId] = i;
+                costSinceStation[vehicleId] = 0;
             }
-            newActions.add(action);
-            if (curFuelCapacity < 0) {
-                return null;
+            int cost = ((FuelRoad) ((Drive) action).getRoad()).getFuelCost().getCost();
+            if (fuel[vehicleId] < cost) {
+                if (lastStation[vehicleId] < 0) {
+                    return null;
+                }
+                refuelBefore[lastStation[vehicleId]] = true;
+                fuel[vehicleId] = maxFuel[vehicleId] - costSinceStation[vehicleId];
+                lastStation[vehicleId] = -1;
+                if (fuel[vehicleId] < cost) {
+                    return null;
+                }
             }
+            fuel[vehicleId] -= cost;
+            costSinceStation[vehicleId] += cost;
         }
-        return newActions;
-    }
-
-    /**
-     * Produce an set of random integers between zero and to (excluding) of length count.
-     *
-     * @param count the length
-     * @param to the upper bound (exclusive)
-     * @param random the random instance
-     * @return a set of random integers
-     */
-    private static Set<Integer> randomDistinctInternal(int count, int to, Random random) {
-        Set<Integer> set = new HashSet<>(count);
-        while (set.size() < count) {
-            set.add(random.nextInt(to));
-        }
-        return set;
-    }
-
-    /**
-     * Produce an iterator over random sorted integers between zero and to (excluding) of length count.
-     *
-     * @param count the length
-     * @param to the upper bound (exclusive)
-     * @param random the random instance
-     * @return the iterator
-     */
-    private static Iterator<Integer> randomDistinct(int count, int to, Random random) {
-        if (to < 0) {
-            throw new IllegalArgumentException("To < From.");
-        } else if (to < count) {
-            throw new IllegalArgumentException("To - From < Count.");
-        }
-        if (count * 2 > to) {
-            Set<Integer> inverse = randomDistinctInternal(to - count, to, random);
-            return IntStream.range(0, to).filter(n -> !inverse.contains(n)).iterator();
-        } else {
-            return randomDistinctInternal(count, to, random).stream().sorted().iterator();
-        }
+        return refuelBefore;
     }
 
     /**
@@ -170,7 +111,6 @@ public abstract class SequentialScheduler extends AbstractPlanner {
      */
     private static List<Action> addFuelToSeqPlan(Domain domain, Problem temporalProblem,
             Collection<Action> seqActions) {
-        Random random = new Random(2017L);
         List<Action> seqActionList = new ArrayList<>(seqActions);
         for (int i = 0; i < seqActionList.size(); i++) {
             Action action = seqActionList.get(i);
@@ -187,52 +127,33 @@ public abstract class SequentialScheduler extends AbstractPlanner {
                 seqActionList.set(i, domain.buildDrive(temporalVehicle, temporalFrom, temporalTo, road));
             }
         }
+        if (fuelAll) {
+            return seqActionList;
+        }
 
-        if (!fuelAll) {
-            // fuel // TODO: try to calculate this for all vehicles simultaneously
-            for (Vehicle vehicle : temporalProblem.getAllVehicles()) {
-                final List<Action> vehicleActions = seqActionList;
-                List<Integer> refuelPositions
-                        = calculateRefuelPositions(vehicle, vehicleActions, temporalProblem);
-                final int maxk = refuelPositions.size();
-                if (maxk == 0) {
-                    List<Action> fueled = addRefuels(vehicle.getName(), domain, temporalProblem, vehicleActions,
-                            Collections.emptyList(), Collections.emptyIterator(), 0);
-                    if (fueled == null) {
-                        return null;
-                    } else {
-                        seqActionList = fueled;
-                        continue;
-                    }
-                }
-                boolean foundEnoughFuel = false;
-                for (int k = 0; k < maxk; k++) {
-                    List<Action> fueled = null;
-                    for (int i = 0; fueled == null && i < 1_000; i++) {
-                        fueled = addRefuels(vehicle.getName(), domain, temporalProblem, vehicleActions,
-                                refuelPositions, randomDistinct(k, maxk, random), k);
-                    }
-                    if (fueled != null) {
-                        seqActionList = fueled;
-                        foundEnoughFuel = true;
-                        break;
-                    }
-                }
-                if (!foundEnoughFuel) {
-                    return null;
-                }
+        boolean[] refuelBefore = calculateRefuelPositions(temporalProblem, seqActionList);
+        if (refuelBefore == null) {
+            return null;
+        }
+        List<Action> fueled = new ArrayList<>(seqActionList.size());
+        for (int i = 0; i < seqActionList.size(); i++) {
+            Action action = seqActionList.get(i);
+            if (refuelBefore[i]) {
+                fueled.add(domain.buildRefuel(temporalProblem.getVehicle(action.getWho().getName()),
+                        action.getWhere()));
             }
+            fueled.add(action);
         }
-        return seqActionList;
+        return fueled;
     }
 
     /**
      * Schedules a sequential plan using mutexes.
      * Computes the following:
      * <ol>
-     * <li>Find mutexes in the plan (ordered pairs of actions)</li>
+     * <li>Find mutexes in the plan (ordered pairs of actions), see {@link ScheduleGraph}</li>
      * <li>Plan actions with no mutexes at 0 and incrementally plan others after the max mutex of previous ones,
-     * following a DAG</li>
+     * following a DAG (in the sequential order, which is topological)</li>
      * </ol>
      * Mutexes are:
      * <ul>
@@ -254,53 +175,9 @@ public abstract class SequentialScheduler extends AbstractPlanner {
             return null;
         }
 
-        Graph mutexDag = new MultiGraph("mutexDag", true, false, seqActionList.size(),
-                seqActionList.size());
-        for (int i = 0; i < seqActionList.size(); i++) {
-            mutexDag.addNode(i + "");
-        }
-        int id = 0;
-        for (int i = 0; i < seqActionList.size(); i++) {
-            Action from = seqActionList.get(i);
-            for (int j = i + 1; j < seqActionList.size(); j++) {
-                Action to = seqActionList.get(j);
-                if (from.getWho().getName().equals(to.getWho().getName())) { // vehicle mutex
-                    if ((from instanceof Refuel && (to instanceof Drop || to instanceof PickUp))
-                            || (to instanceof Refuel && (from instanceof Drop || from instanceof PickUp))) {
-                        continue; // pickup/drop and refuel can be concurrent
-                    }
-                    // for sequential drive actions, only add the needed transitive ones
-                    mutexDag.addEdge(i + "->" + j + "_" + id++, i, j, true);
-                    continue;
-                }
-                if (((from instanceof Drop && to instanceof PickUp) || (to instanceof Drop && from instanceof PickUp))
-                        && from.getWhat().getName().equals(to.getWhat().getName())) {
-                    mutexDag.addEdge(i + "->" + j + "_" + id++, i, j, true);
-                    continue;
-                }
-            }
-        }
-        Map<Integer, TemporalPlanAction> plannedActions = new HashMap<>();
-        TopologicalSort sort = new TopologicalSort(TopologicalSort.SortAlgorithm.KAHN);
-        sort.init(mutexDag);
-        sort.compute();
-        List<Integer> topoSorted = sort.getSortedNodes().stream().map(n -> Integer.parseInt(n.getId()))
-                .collect(Collectors.toList());
         final double delta = 0.001;
-        for (int actionIndex : topoSorted) {
-            double maxEndTimeOfPrevious = 0d;
-            for (Iterator<Edge> it = mutexDag.getNode(actionIndex).getEnteringEdgeIterator(); it.hasNext();) {
-                Edge enteringEdge = it.next();
-                int sourceActionIndex = Integer.parseInt(enteringEdge.getSourceNode().getId());
-                TemporalPlanAction plannedAction = plannedActions.get(sourceActionIndex);
-                maxEndTimeOfPrevious = Math.max(plannedAction.getEndTimestamp(), maxEndTimeOfPrevious) + delta;
-            }
-            Action action = seqActionList.get(actionIndex);
-            plannedActions.put(actionIndex, new TemporalPlanAction(action, maxEndTimeOfPrevious,
-                    maxEndTimeOfPrevious + action.getDuration().getCost()));
-        }
-
-        TemporalPlan proposedPlan = new TemporalPlan(plannedActions.values());
+        ScheduleGraph mutexDag = new ScheduleGraph(temporalProblem.getSymbolTable(), seqActionList);
+        TemporalPlan proposedPlan = new TemporalPlan(mutexDag.schedule(delta));
         TemporalPlanStateManager manager = new TemporalPlanStateManager(domain, temporalProblem, proposedPlan);
         double endTime = proposedPlan.calculateMakespan();
         try {
@@ -360,4 +237,35 @@ public abstract class SequentialScheduler extends AbstractPlanner {
 
     @Override
     public abstract SequentialScheduler copy();
+
+    /**
+     * The plan transformation passed to the wrapped planner: schedules whole plans using
+     * {@link #schedule(Domain, Problem, Collection)} and partial plans incrementally using {@link IncrementalSchedule}.
+     */
+    private static final class ScheduleTransformation implements IncrementalPlanTransformation {
+
+        private final Domain domain;
+        private final Problem temporalProblem;
+
+        /**
+         * Default constructor.
+         *
+         * @param domain the temporal domain
+         * @param temporalProblem the temporal problem
+         */
+        ScheduleTransformation(Domain domain, Problem temporalProblem) {
+            this.domain = domain;
+            this.temporalProblem = temporalProblem;
+        }
+
+        @Override
+        public Plan apply(Plan plan) {
+            return schedule(domain, temporalProblem, plan.getActions());
+        }
+
+        @Override
+        public IncrementalSchedule startPartialPlan() {
+            return new IncrementalSchedule(temporalProblem);
+        }
+    }
 }
@@ -11,6 +11,7 @@ import com.oskopek.transport.model.problem.Problem;
 import com.oskopek.transport.model.problem.Vehicle;
 import com.oskopek.transport.model.problem.graph.RoadEdge;
 import com.oskopek.transport.planners.AbstractPlanner;
+import com.oskopek.transport.planners.sequential.IncrementalPlanTransformation;
 import com.oskopek.transport.planners.sequential.PlannerUtils;
 import com.oskopek.transport.planners.sequential.RandomizedRestartAroundPathNearbyPlanner;
 import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
@@ -29,10 +30,33 @@ import java.util.stream.Collectors;
 public class TRRAPNSequentialScheduler extends SequentialScheduler {
 
     private TemporalRandomizedRestartAroundPathNearbyPlanner planner;
+    private final int parallelism;
+
+    /**
+     * Default constructor.
+     */
+    public TRRAPNSequentialScheduler() {
+        this("1");
+    }
+
+    /**
+     * Constructor with a configurable number of restart workers, used in benchmark configurations.
+     *
+     * @param parallelism the number of restart worker threads of the internal planner,
+     * see {@link RandomizedRestartAroundPathNearbyPlanner#setParallelism(int)}
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public TRRAPNSequentialScheduler(String parallelism) {
+        this.parallelism = Integer.parseInt(parallelism.trim());
+        if (this.parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be positive: " + parallelism);
+        }
+    }
 
     @Override
     public Optional<Plan> plan(Domain domain, Problem tempProblem) {
         planner = new TemporalRandomizedRestartAroundPathNearbyPlanner(tempProblem);
+        planner.setParallelism(parallelism);
         return super.plan(domain, tempProblem);
     }
 
@@ -49,7 +73,7 @@ public class TRRAPNSequentialScheduler extends SequentialScheduler {
 
     @Override
     public TRRAPNSequentialScheduler copy() {
-        return new TRRAPNSequentialScheduler();
+        return new TRRAPNSequentialScheduler(Integer.toString(parallelism));
     }
 
     /**
@@ -119,9 +143,9 @@ public class TRRAPNSequentialScheduler extends SequentialScheduler {
                 }
 
                 ImmutablePlanState current = new ImmutablePlanState(problem);
-                while (!current.isGoalState() && calculateCurrentScore(current, planTransformation == null ? null
-                        : planTransformation.apply(new SequentialPlan(current.getAllActionsInList())))
-                        < getBestPlanScore()) {
+                IncrementalPlanTransformation.PartialPlan partialPlan = startPartialPlan(planTransformation);
+                while (!current.isGoalState()
+                        && calculatePartialPlanScore(current, planTransformation, partialPlan) < getBestPlanScore()) {
                     Problem curProblem = current.getProblem();
                     List<Package> unfinished = new ArrayList<>(
                             PlannerUtils.getUnfinishedPackages(curProblem.getAllPackages()));
@@ -169,6 +193,9 @@ public class TRRAPNSequentialScheduler extends SequentialScheduler {
                     current = Stream.ofAll(newActions).foldLeft(Optional.of(current),
                             (state, action) -> state.flatMap(state2 -> state2.apply(action)))
                             .orElseThrow(() -> new IllegalStateException("Could not apply all new actions to state."));
+                    if (partialPlan != null) {
+                        partialPlan.append(newActions);
+                    }
 
                     if (shouldCancel()) {
                         formatLog("Cancelling, returning best found plan so far with score: {}.",
@@ -205,7 +232,7 @@ public class TRRAPNSequentialScheduler extends SequentialScheduler {
 
         @Override
         public TemporalRandomizedRestartAroundPathNearbyPlanner copy() {
-            return new TemporalRandomizedRestartAroundPathNearbyPlanner(tempProblem);
+            return copyRestartSettingsTo(new TemporalRandomizedRestartAroundPathNearbyPlanner(tempProblem));
         }
     }
 
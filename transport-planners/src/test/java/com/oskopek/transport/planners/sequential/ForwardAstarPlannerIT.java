@@ -11,6 +11,8 @@ import com.oskopek.transport.model.problem.Vehicle;
 import com.oskopek.transport.persistence.DefaultProblemIO;
 import com.oskopek.transport.persistence.IOUtils;
 import com.oskopek.transport.persistence.SequentialPlanIO;
+import com.oskopek.transport.planners.sequential.state.CacheEvictionPolicy;
+import com.oskopek.transport.planners.sequential.state.HeuristicCache;
 import com.oskopek.transport.tools.test.TestUtils;
 import javaslang.collection.Stream;
 import org.junit.Before;
@@ -91,6 +93,91 @@ public class ForwardAstarPlannerIT {
         assertThat(plan.getTemporalPlanActions()).last().hasFieldOrPropertyWithValue("endTimestamp", 369);
     }
 
+    @Test
+    public void plansP01InParallel() throws Exception {
+        Plan sequentialPlan = new SFA3Planner("BUCKET").startAndWait(domain, problem);
+        SFA3Planner parallelPlanner = new SFA3Planner("BUCKET,HIGHER_G,4");
+        assertThat(parallelPlanner.copy().getParallelism()).isEqualTo(4);
+        Plan parallelPlan = parallelPlanner.startAndWait(domain, problem);
+        assertThat(parallelPlan).isNotNull();
+        assertThat(parallelPlan.calculateMakespan()).isEqualTo(sequentialPlan.calculateMakespan());
+        assertThat(PlannerUtils.needlessDropAndPickupOccurred(problem.getAllVehicles(), parallelPlan.getActions()))
+                .isFalse();
+    }
+
+    @Test
+    public void plansP01WithSpanningTreeInParallel() throws Exception {
+        Plan sequentialPlan = new SFA2Planner().startAndWait(domain, problem);
+        Plan parallelPlan = new SFA2Planner("BUCKET,HIGHER_G,4").startAndWait(domain, problem);
+        assertThat(parallelPlan).isNotNull();
+        assertThat(parallelPlan.calculateMakespan()).isEqualTo(sequentialPlan.calculateMakespan());
+        assertThat(problem.getRoadGraph().getEdgeSet().stream().noneMatch(edge -> edge.hasAttribute("mst")))
+                .isTrue();
+    }
+
+    @Test
+    public void plansOptimallyWithPatternDatabase() throws Exception {
+        Plan p01 = new SFA6Planner().startAndWait(domain, problem);
+        assertThat(p01.calculateMakespan()).isEqualTo(plan.calculateMakespan());
+        Plan p02 = new SFA6Planner().startAndWait(domain, p02Problem);
+        assertThat(p02.calculateMakespan()).isEqualTo(p02Plan.calculateMakespan());
+        assertThat(PlannerUtils.needlessDropAndPickupOccurred(p02Problem.getAllVehicles(), p02.getActions()))
+                .isFalse();
+    }
+
+    @Test
+    public void plansWithPatternDatabaseInParallel() throws Exception {
+        for (Problem instance : Arrays.asList(problem, p02Problem)) {
+            Plan sequentialPlan = new SFA6Planner().startAndWait(domain, instance);
+            SFA6Planner parallelPlanner = new SFA6Planner("BUCKET,HIGHER_G,4");
+            assertThat(parallelPlanner.isStopAtFirstSolution()).isTrue();
+            Plan parallelPlan = parallelPlanner.startAndWait(domain, instance);
+            assertThat(parallelPlan).isNotNull();
+            assertThat(parallelPlan.calculateMakespan()).isEqualTo(sequentialPlan.calculateMakespan());
+        }
+    }
+
+    @Test
+    public void reusesHeuristicValuesAcrossWeights() throws Exception {
+        MetaSFA3Planner metaPlanner = new MetaSFA3Planner("BUCKET,NONE,1,FIFO");
+        assertThat(metaPlanner.copy().getHeuristicCachePolicy()).isEqualTo(CacheEvictionPolicy.FIFO);
+        Plan metaPlan = metaPlanner.startAndWait(domain, problem);
+        assertThat(metaPlan).isNotNull();
+        HeuristicCache cache = metaPlanner.getHeuristicCache();
+        assertThat(cache.getHitCount()).isPositive();
+        assertThat(cache.size()).isPositive().isEqualTo((int) cache.getMissCount());
+    }
+
+    @Test
+    public void resumesAnytimeSearchToOptimalPlan() throws Exception {
+        SFA6Planner reference = new SFA6Planner();
+        MetaSFAPlanner metaPlanner = new MetaSFAPlanner() {
+            @Override
+            protected ForwardAstarPlanner getHeuristicReferencePlanner() {
+                return reference;
+            }
+
+            @Override
+            public MetaSFAPlanner copy() {
+                return this;
+            }
+        };
+        for (int i = 0; i < 2; i++) { // the second search must not resume the finished one
+            Plan metaPlan = metaPlanner.startAndWait(domain, problem);
+            assertThat(metaPlan).isNotNull();
+            assertThat(metaPlan.calculateMakespan()).isEqualTo(plan.calculateMakespan());
+        }
+        Plan longerPlan = metaPlanner.startAndWait(domain, p02Problem); // not bounded by the previous plan
+        assertThat(longerPlan).isNotNull();
+        assertThat(longerPlan.calculateMakespan()).isEqualTo(p02Plan.calculateMakespan())
+                .isGreaterThan(plan.calculateMakespan());
+    }
+
+    @Test
+    public void rejectsInvalidParallelism() throws Exception {
+        assertThatThrownBy(() -> new SFA3Planner("BUCKET,NONE,0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void simplePickupDrop() throws Exception {
         SequentialPlan plan = new SequentialPlanIO(domain, p03Problem).parse(IOUtils.concatReadAllLines(getClass()
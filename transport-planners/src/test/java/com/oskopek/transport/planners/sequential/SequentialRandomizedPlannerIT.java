@@ -0,0 +1,52 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SequentialRandomizedPlannerIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("");
+    private static Problem problem;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+    }
+
+    @Test
+    public void plansInParallelUntilCancelled() throws Exception {
+        RandomizedRestartAroundPathNearbyPlanner planner = new RandomizedRestartAroundPathNearbyPlanner("3");
+        assertThat(planner.copy().getParallelism()).isEqualTo(3);
+        CompletableFuture<Optional<Plan>> future = CompletableFuture.supplyAsync(() -> planner.plan(domain, problem));
+        Thread.sleep(1_000);
+        planner.cancel();
+        Optional<Plan> plan = future.get(10, TimeUnit.SECONDS);
+        assertThat(plan).isPresent();
+
+        Optional<ImmutablePlanState> state = Optional.of(new ImmutablePlanState(problem));
+        for (Action action : plan.get().getActions()) {
+            state = state.flatMap(s -> s.apply(action));
+        }
+        assertThat(state).isPresent();
+        assertThat(state.get().isGoalState()).isTrue();
+    }
+
+    @Test
+    public void rejectsInvalidParallelism() throws Exception {
+        assertThatThrownBy(() -> new RandomizedRestartOnPathPlanner("0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.oskopek.transport.planners.sequential;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.planners.sequential.state.ImmutablePlanState;
+import com.oskopek.transport.planners.sequential.state.ShortestPathMatrix;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SuccessorGeneratorIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("");
+    private static Problem problem;
+    private static ShortestPathMatrix distanceMatrix;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+        distanceMatrix = PlannerUtils.computeAPSP(problem.getRoadGraph());
+    }
+
+    private static ImmutablePlanState apply(ImmutablePlanState state, Action action) {
+        return state.apply(action).orElseThrow(() -> new IllegalStateException("Invalid action: " + action));
+    }
+
+    private static List<Action> generate(ImmutablePlanState state, boolean partialOrderReduction) {
+        List<Action> generated = new ArrayList<>();
+        new SuccessorGenerator(domain, distanceMatrix, partialOrderReduction).generate(state,
+                PlannerUtils.getUnfinishedPackages(state.getProblem().getAllPackages()), generated);
+        return generated;
+    }
+
+    private static List<String> drops(List<Action> actions) {
+        List<String> drops = new ArrayList<>();
+        for (Action action : actions) {
+            if (action instanceof Drop) {
+                drops.add(action.getWhat().getName());
+            }
+        }
+        return drops;
+    }
+
+    /**
+     * Truck 1 picks up both packages and drops them at city-loc-1 (not a target of any of them).
+     *
+     * @return the state after driving to city-loc-1
+     */
+    private static ImmutablePlanState driveBothPackages() {
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        state = apply(state, domain.buildPickUp(state.getProblem().getVehicle("truck-1"),
+                g.getLocation("city-loc-4"), state.getProblem().getPackage("package-1")));
+        state = apply(state, domain.buildPickUp(state.getProblem().getVehicle("truck-1"),
+                g.getLocation("city-loc-4"), state.getProblem().getPackage("package-2")));
+        return apply(state, domain.buildDrive(state.getProblem().getVehicle("truck-1"),
+                g.getLocation("city-loc-4"), g.getLocation("city-loc-1"), g));
+    }
+
+    @Test
+    public void generatesCommutingDropsInCanonicalOrder() throws Exception {
+        ImmutablePlanState driven = driveBothPackages();
+        assertThat(drops(generate(driven, true))).containsExactlyInAnyOrder("package-1", "package-2");
+
+        ImmutablePlanState droppedFirst = apply(driven, domain.buildDrop(driven.getProblem().getVehicle("truck-1"),
+                problem.getRoadGraph().getLocation("city-loc-1"), driven.getProblem().getPackage("package-1")));
+        assertThat(drops(generate(droppedFirst, true))).containsExactly("package-2");
+
+        ImmutablePlanState droppedSecond = apply(driven, domain.buildDrop(driven.getProblem().getVehicle("truck-1"),
+                problem.getRoadGraph().getLocation("city-loc-1"), driven.getProblem().getPackage("package-2")));
+        assertThat(drops(generate(droppedSecond, false))).containsExactly("package-1");
+        assertThat(drops(generate(droppedSecond, true))).isEmpty();
+        assertThat(generate(droppedSecond, false)).containsAll(generate(droppedSecond, true));
+    }
+
+}
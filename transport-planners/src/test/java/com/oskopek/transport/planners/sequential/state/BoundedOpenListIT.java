@@ -0,0 +1,59 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class BoundedOpenListIT {
+
+    @Test
+    public void tracksMaximum() throws Exception {
+        BoundedOpenList<String> list = new BoundedOpenList<>(10, TieBreaking.NONE, v -> fail("Evicted " + v));
+        list.insert(2, 0, "two");
+        BoundedOpenList.Entry<String> entry = list.insert(9, 0, "nine");
+        list.insert(5, 0, "five");
+        assertThat(list.getMaximum()).isSameAs(entry);
+        list.decreaseKey(entry, 1, 0);
+        assertThat(list.getMaximum().getValue()).isEqualTo("five");
+        assertThat(list.getMinimum()).isSameAs(entry);
+        assertThat(list.deleteMaximum().getValue()).isEqualTo("five");
+        assertThat(list.getEvictionCount()).isEqualTo(0);
+        assertThatThrownBy(() -> list.decreaseKey(list.getMinimum(), 3, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void matchesSortedListOnRandomOperations() throws Exception {
+        Random random = new Random(42);
+        BoundedOpenList<Integer> list = new BoundedOpenList<>(1000, TieBreaking.NONE, v -> fail("Evicted " + v));
+        List<BoundedOpenList.Entry<Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int operation = random.nextInt(5);
+            if (entries.size() < 1000 && (operation <= 1 || entries.isEmpty())) {
+                entries.add(list.insert(random.nextInt(100), 0, i));
+            } else if (operation == 2) {
+                BoundedOpenList.Entry<Integer> entry = entries.get(random.nextInt(entries.size()));
+                list.decreaseKey(entry, entry.getKey() - random.nextInt(10), 0);
+            } else if (operation == 3) {
+                BoundedOpenList.Entry<Integer> min = entries.stream()
+                        .min(Comparator.comparing(BoundedOpenList.Entry::getKey)).get();
+                BoundedOpenList.Entry<Integer> extracted = list.extractMinimum();
+                assertThat(extracted.getKey()).isEqualTo(min.getKey());
+                entries.remove(extracted);
+            } else {
+                BoundedOpenList.Entry<Integer> max = entries.stream()
+                        .max(Comparator.comparing(BoundedOpenList.Entry::getKey)).get();
+                BoundedOpenList.Entry<Integer> deleted = list.deleteMaximum();
+                assertThat(deleted.getKey()).isEqualTo(max.getKey());
+                entries.remove(deleted);
+            }
+            assertThat(list.size()).isEqualTo(entries.size());
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.ActionCost;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.Vehicle;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CompactStateEncoderIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("");
+    private static Problem problem;
+    private CompactStateEncoder encoder;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        encoder = new CompactStateEncoder(problem);
+    }
+
+    private static ImmutablePlanState applyAll(List<Action> actions) {
+        return applyAll(problem, actions);
+    }
+
+    private static ImmutablePlanState applyAll(Problem problem, List<Action> actions) {
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        for (Action action : actions) {
+            state = state.apply(action).orElseThrow(() -> new IllegalStateException("Invalid action: " + action));
+        }
+        return state;
+    }
+
+    @Test
+    public void encodesSameProblemEqually() throws Exception {
+        assertThat(encoder.encode(problem)).isEqualTo(encoder.encode(problem));
+        assertThat(encoder.encode(problem).hashCode()).isEqualTo(encoder.encode(problem).hashCode());
+        assertThat(encoder.getWordCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void encodesDriveDifferently() throws Exception {
+        Vehicle truck = problem.getVehicle("truck-1");
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState state = applyAll(Arrays.asList(
+                domain.buildDrive(truck, g.getLocation("city-loc-4"), g.getLocation("city-loc-1"), g)));
+        assertThat(encoder.encode(state.getProblem())).isNotEqualTo(encoder.encode(problem));
+    }
+
+    @Test
+    public void encodesCycleEqually() throws Exception {
+        Vehicle truck = problem.getVehicle("truck-1");
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState state = applyAll(Arrays.asList(
+                domain.buildDrive(truck, g.getLocation("city-loc-4"), g.getLocation("city-loc-1"), g),
+                domain.buildDrive(truck, g.getLocation("city-loc-1"), g.getLocation("city-loc-4"), g)));
+        assertThat(state.getAllActionsInList()).hasSize(2);
+        assertThat(encoder.encode(state.getProblem())).isEqualTo(encoder.encode(problem));
+    }
+
+    @Test
+    public void encodesPickUpOrderIndependently() throws Exception {
+        Vehicle truck = problem.getVehicle("truck-1");
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState first = applyAll(Arrays.asList(
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), problem.getPackage("package-1")),
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), problem.getPackage("package-2"))));
+        ImmutablePlanState second = applyAll(Arrays.asList(
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), problem.getPackage("package-2")),
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), problem.getPackage("package-1"))));
+        assertThat(encoder.encode(first.getProblem())).isEqualTo(encoder.encode(second.getProblem()))
+                .isNotEqualTo(encoder.encode(problem));
+    }
+
+    /**
+     * Both trucks have the same capacity and both packages the same target.
+     *
+     * @return the symmetric problem
+     */
+    private static Problem symmetricProblem() {
+        Problem symmetric = problem.putVehicle("truck-1", problem.getVehicle("truck-1")
+                .updateMaxCapacity(ActionCost.valueOf(4)).updateCurCapacity(ActionCost.valueOf(4)));
+        return symmetric.putPackage("package-2", symmetric.getPackage("package-2")
+                .updateTarget(symmetric.getRoadGraph().getLocation("city-loc-5")));
+    }
+
+    @Test
+    public void encodesSymmetricVehiclesEqually() throws Exception {
+        Problem symmetric = symmetricProblem();
+        RoadGraph g = symmetric.getRoadGraph();
+        ImmutablePlanState swapped = applyAll(symmetric, Arrays.asList(
+                domain.buildDrive(symmetric.getVehicle("truck-1"), g.getLocation("city-loc-4"),
+                        g.getLocation("city-loc-5"), g),
+                domain.buildDrive(symmetric.getVehicle("truck-2"), g.getLocation("city-loc-5"),
+                        g.getLocation("city-loc-4"), g)));
+        CompactStateEncoder symmetryEncoder = new CompactStateEncoder(symmetric);
+        assertThat(symmetryEncoder.encode(swapped.getProblem())).isEqualTo(symmetryEncoder.encode(symmetric));
+        CompactStateEncoder plainEncoder = new CompactStateEncoder(symmetric, false);
+        assertThat(plainEncoder.encode(swapped.getProblem())).isNotEqualTo(plainEncoder.encode(symmetric));
+    }
+
+    @Test
+    public void encodesSymmetricPackagesEqually() throws Exception {
+        Problem symmetric = symmetricProblem();
+        Vehicle truck = symmetric.getVehicle("truck-1");
+        RoadGraph g = symmetric.getRoadGraph();
+        ImmutablePlanState first = applyAll(symmetric, Arrays.asList(
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), symmetric.getPackage("package-1"))));
+        ImmutablePlanState second = applyAll(symmetric, Arrays.asList(
+                domain.buildPickUp(truck, g.getLocation("city-loc-4"), symmetric.getPackage("package-2"))));
+        CompactStateEncoder symmetryEncoder = new CompactStateEncoder(symmetric);
+        assertThat(symmetryEncoder.encode(first.getProblem())).isEqualTo(symmetryEncoder.encode(second.getProblem()));
+        CompactStateEncoder plainEncoder = new CompactStateEncoder(symmetric, false);
+        assertThat(plainEncoder.encode(first.getProblem())).isNotEqualTo(plainEncoder.encode(second.getProblem()));
+    }
+
+    @Test
+    public void encodesLoadsWithTheirVehicles() throws Exception {
+        Problem symmetric = symmetricProblem();
+        RoadGraph g = symmetric.getRoadGraph();
+        Vehicle truck1 = symmetric.getVehicle("truck-1");
+        Vehicle truck2 = symmetric.getVehicle("truck-2");
+        ImmutablePlanState pickedUp = applyAll(symmetric, Arrays.asList(
+                domain.buildPickUp(truck1, g.getLocation("city-loc-4"), symmetric.getPackage("package-1"))));
+        ImmutablePlanState byTruck1 = applyAll(symmetric, Arrays.asList(
+                domain.buildPickUp(truck1, g.getLocation("city-loc-4"), symmetric.getPackage("package-1")),
+                domain.buildDrive(truck1, g.getLocation("city-loc-4"), g.getLocation("city-loc-5"), g),
+                domain.buildDrive(truck2, g.getLocation("city-loc-5"), g.getLocation("city-loc-4"), g)));
+        ImmutablePlanState byTruck2 = applyAll(symmetric, Arrays.asList(
+                domain.buildDrive(truck2, g.getLocation("city-loc-5"), g.getLocation("city-loc-4"), g),
+                domain.buildPickUp(truck2, g.getLocation("city-loc-4"), symmetric.getPackage("package-1")),
+                domain.buildDrive(truck2, g.getLocation("city-loc-4"), g.getLocation("city-loc-5"), g)));
+        CompactStateEncoder symmetryEncoder = new CompactStateEncoder(symmetric);
+        assertThat(symmetryEncoder.encode(byTruck1.getProblem())).isEqualTo(symmetryEncoder.encode(
+                byTruck2.getProblem())).isNotEqualTo(symmetryEncoder.encode(pickedUp.getProblem()));
+    }
+
+}
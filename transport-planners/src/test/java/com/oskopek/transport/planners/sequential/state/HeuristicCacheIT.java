@@ -0,0 +1,75 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class HeuristicCacheIT {
+
+    private static CompactState key(long value) {
+        return new CompactState(new long[] {value});
+    }
+
+    @Test
+    public void memoizesValues() throws Exception {
+        HeuristicCache cache = new HeuristicCache(10, CacheEvictionPolicy.LRU);
+        AtomicInteger computations = new AtomicInteger();
+        assertThat(cache.get(key(1), () -> computations.incrementAndGet() * 7)).isEqualTo(7);
+        assertThat(cache.get(key(1), () -> computations.incrementAndGet() * 7)).isEqualTo(7);
+        assertThat(computations.get()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitRate()).isEqualTo(0.5d);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        HeuristicCache cache = new HeuristicCache(2, CacheEvictionPolicy.LRU);
+        cache.get(key(1), () -> 1);
+        cache.get(key(2), () -> 2);
+        cache.get(key(1), () -> -1); // refreshes 1
+        cache.get(key(3), () -> 3); // evicts 2
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(key(1), () -> -1)).isEqualTo(1);
+        assertThat(cache.get(key(2), () -> -2)).isEqualTo(-2);
+    }
+
+    @Test
+    public void evictsFirstStored() throws Exception {
+        HeuristicCache cache = new HeuristicCache(2, CacheEvictionPolicy.FIFO);
+        cache.get(key(1), () -> 1);
+        cache.get(key(2), () -> 2);
+        cache.get(key(1), () -> -1); // does not refresh 1
+        cache.get(key(3), () -> 3); // evicts 1
+        assertThat(cache.get(key(2), () -> -2)).isEqualTo(2);
+        assertThat(cache.get(key(1), () -> -1)).isEqualTo(-1);
+    }
+
+    @Test
+    public void disabledCacheOnlyCounts() throws Exception {
+        HeuristicCache cache = new HeuristicCache(0, CacheEvictionPolicy.NONE);
+        cache.get(key(1), () -> 1);
+        assertThat(cache.get(key(1), () -> 2)).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getHitRate()).isEqualTo(0d);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void stripedCacheIsConsistentUnderParallelLookups() throws Exception {
+        HeuristicCache cache = new HeuristicCache(1000, CacheEvictionPolicy.LRU, 6);
+        assertThat(cache.getStripeCount()).isEqualTo(8);
+        AtomicInteger computations = new AtomicInteger();
+        assertThat(IntStream.range(0, 20_000).parallel().allMatch(i -> cache.get(key(i % 500), () -> {
+            computations.incrementAndGet();
+            return i % 500;
+        }) == i % 500)).isTrue();
+        assertThat(cache.getHitCount() + cache.getMissCount()).isEqualTo(20_000L);
+        assertThat(cache.getMissCount()).isEqualTo(computations.get()).isGreaterThanOrEqualTo(500);
+        assertThat(cache.size()).isEqualTo(500);
+    }
+
+}
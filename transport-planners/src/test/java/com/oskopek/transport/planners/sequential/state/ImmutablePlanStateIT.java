@@ -0,0 +1,132 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.google.common.collect.Lists;
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.SymbolTable;
+import com.oskopek.transport.model.problem.Vehicle;
+import com.oskopek.transport.model.problem.graph.RoadGraph;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.IOUtils;
+import com.oskopek.transport.persistence.SequentialPlanIO;
+import com.oskopek.transport.planners.sequential.PlannerUtils;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImmutablePlanStateIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("");
+    private static Problem problem;
+    private static Problem p03Problem;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+        p03Problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p03SeqProblem.pddl"));
+    }
+
+    private static ImmutablePlanState apply(ImmutablePlanState state, Action action) {
+        return state.apply(action).orElseThrow(() -> new IllegalStateException("Invalid action: " + action));
+    }
+
+    private static ImmutablePlanState applyAll(Problem problem, List<Action> actions) {
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        for (Action action : actions) {
+            state = apply(state, action);
+        }
+        return state;
+    }
+
+    @Test
+    public void detectsCycle() throws Exception {
+        Vehicle truck = problem.getVehicle("truck-1");
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState state = applyAll(problem, Arrays.asList(
+                domain.buildDrive(truck, g.getLocation("city-loc-4"), g.getLocation("city-loc-1"), g)));
+        assertThat(state.hasCycle()).isFalse();
+        state = apply(state, domain.buildDrive(state.getProblem().getVehicle("truck-1"), g.getLocation("city-loc-1"),
+                g.getLocation("city-loc-5"), g));
+        assertThat(state.hasCycle()).isFalse();
+        state = apply(state, domain.buildDrive(state.getProblem().getVehicle("truck-1"), g.getLocation("city-loc-5"),
+                g.getLocation("city-loc-4"), g));
+        assertThat(state.hasCycle()).isTrue();
+    }
+
+    @Test
+    public void pickUpBreaksCycle() throws Exception {
+        Vehicle truck = problem.getVehicle("truck-1");
+        RoadGraph g = problem.getRoadGraph();
+        ImmutablePlanState state = applyAll(problem, Arrays.asList(
+                domain.buildDrive(truck, g.getLocation("city-loc-4"), g.getLocation("city-loc-5"), g)));
+        state = apply(state, domain.buildDrive(state.getProblem().getVehicle("truck-1"), g.getLocation("city-loc-5"),
+                g.getLocation("city-loc-4"), g));
+        assertThat(state.hasCycle()).isTrue();
+        state = apply(state, domain.buildPickUp(state.getProblem().getVehicle("truck-1"),
+                g.getLocation("city-loc-4"), state.getProblem().getPackage("package-1")));
+        state = apply(state, domain.buildDrive(state.getProblem().getVehicle("truck-1"), g.getLocation("city-loc-4"),
+                g.getLocation("city-loc-5"), g));
+        assertThat(state.hasCycle()).isFalse();
+    }
+
+    @Test
+    public void summariesMatchActionHistory() throws Exception {
+        List<Action> actions = new SequentialPlanIO(domain, problem)
+                .parse(TestUtils.getPersistenceTestFile("p01SeqPlan.val")).getActions();
+        ShortestPathMatrix matrix = ShortestPathMatrix.compute(problem.getRoadGraph());
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        SymbolTable symbols = state.getProblem().getSymbolTable();
+        List<Action> history = new ArrayList<>();
+        for (Action action : actions) {
+            state = apply(state, action);
+            history.add(action);
+            for (int v = 0; v < symbols.getVehicleCount(); v++) {
+                Vehicle vehicle = state.getProblem().getVehicle(v);
+                for (int l = 0; l < symbols.getLocationCount(); l++) {
+                    assertThat(state.doesShorterPathExist(v, l, matrix)).isEqualTo(PlannerUtils
+                            .doesShorterPathExist(vehicle, symbols.getLocation(l), Lists.reverse(history).iterator(),
+                                    matrix));
+                }
+            }
+            for (int p = 0; p < symbols.getPackageCount(); p++) {
+                for (int l = 0; l < symbols.getLocationCount(); l++) {
+                    String pkg = symbols.getPackageName(p);
+                    String location = symbols.getLocation(l).getName();
+                    assertThat(state.wasPickedUpAt(p, l)).isEqualTo(history.stream().anyMatch(a -> a instanceof PickUp
+                            && a.getWhat().getName().equals(pkg) && a.getWhere().getName().equals(location)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void detectsNeedlessPickUp() throws Exception {
+        List<Action> actions = new SequentialPlanIO(domain, p03Problem).parse(IOUtils.concatReadAllLines(
+                getClass().getResourceAsStream("../simpleDropPickup.val"))).getActions();
+        ImmutablePlanState state = new ImmutablePlanState(p03Problem);
+        SymbolTable symbols = state.getProblem().getSymbolTable();
+        List<Action> history = new ArrayList<>();
+        for (Action action : actions) {
+            if (action instanceof PickUp) {
+                boolean expected = PlannerUtils.needlessDropAndPickupOccurred(p03Problem.getAllVehicles(), history,
+                        (PickUp) action);
+                assertThat(state.isNeedlessPickUp(symbols.getVehicleId(action.getWho().getName()),
+                        symbols.getPackageId(action.getWhat().getName()))).isEqualTo(expected);
+            }
+            state = apply(state, action);
+            history.add(action);
+        }
+        Action last = actions.get(actions.size() - 1);
+        assertThat(PlannerUtils.needlessDropAndPickupOccurred(p03Problem.getAllVehicles(),
+                history.subList(0, history.size() - 1), (PickUp) last)).isTrue();
+    }
+
+}
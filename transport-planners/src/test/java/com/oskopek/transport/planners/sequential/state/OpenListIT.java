@@ -0,0 +1,168 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+@RunWith(Parameterized.class)
+public class OpenListIT {
+
+    private final OpenListStrategy strategy;
+
+    public OpenListIT(OpenListStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<OpenListStrategy> strategies() {
+        return Arrays.asList(OpenListStrategy.values());
+    }
+
+    private <V> OpenList<V> create(int maxSize, TieBreaking tieBreaking, List<V> evicted) {
+        return strategy.create(maxSize, tieBreaking, evicted::add);
+    }
+
+    @Test
+    public void extractsInKeyOrder() throws Exception {
+        OpenList<String> list = create(10, TieBreaking.NONE, new ArrayList<>());
+        list.insert(5, 0, "five");
+        list.insert(1, 0, "one");
+        list.insert(3, 0, "three");
+        assertThat(list.size()).isEqualTo(3);
+        assertThat(list.extractMinimum().getValue()).isEqualTo("one");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("three");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("five");
+        assertThat(list.isEmpty()).isTrue();
+        assertThatThrownBy(list::extractMinimum).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void breaksTiesByHigherG() throws Exception {
+        OpenList<String> list = create(10, TieBreaking.HIGHER_G, new ArrayList<>());
+        list.insert(10, 2, "shallow");
+        list.insert(10, 8, "deep");
+        list.insert(10, 5, "middle");
+        list.insert(11, 11, "goal");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("deep");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("middle");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("shallow");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("goal");
+    }
+
+    @Test
+    public void breaksTiesByLowerG() throws Exception {
+        OpenList<String> list = create(10, TieBreaking.LOWER_G, new ArrayList<>());
+        list.insert(10, 2, "shallow");
+        list.insert(10, 8, "deep");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("shallow");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("deep");
+    }
+
+    @Test
+    public void decreasesKey() throws Exception {
+        OpenList<String> list = create(10, TieBreaking.NONE, new ArrayList<>());
+        list.insert(2, 0, "two");
+        OpenList.Entry<String> entry = list.insert(9, 0, "nine");
+        list.decreaseKey(entry, 1, 0);
+        assertThat(entry.getKey()).isEqualTo(1);
+        assertThat(list.extractMinimum()).isSameAs(entry);
+        assertThatThrownBy(() -> list.decreaseKey(entry, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void evictsWorstWhenFull() throws Exception {
+        Assume.assumeTrue(strategy != OpenListStrategy.BINARY_HEAP);
+        List<String> evicted = new ArrayList<>();
+        OpenList<String> list = create(2, TieBreaking.NONE, evicted);
+        list.insert(4, 0, "four");
+        list.insert(6, 0, "six");
+        assertThat(list.insert(7, 0, "seven")).isNull();
+        assertThat(list.insert(6, 0, "six again")).isNull();
+        assertThat(list.insert(5, 0, "five")).isNotNull();
+        assertThat(evicted).containsExactly("six");
+        assertThat(list.size()).isEqualTo(2);
+        assertThat(list.getEvictionCount()).isEqualTo(1);
+        assertThat(list.getRejectionCount()).isEqualTo(2);
+        assertThat(list.extractMinimum().getValue()).isEqualTo("four");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("five");
+    }
+
+    @Test
+    public void evictsWorstRankedOfWorstKey() throws Exception {
+        Assume.assumeTrue(strategy != OpenListStrategy.BINARY_HEAP);
+        List<String> evicted = new ArrayList<>();
+        OpenList<String> list = create(4, TieBreaking.HIGHER_G, evicted);
+        list.insert(10, 5, "middle");
+        list.insert(10, 2, "shallow");
+        list.insert(10, 8, "deep");
+        list.insert(3, 3, "three");
+        list.insert(7, 7, "seven");
+        list.insert(8, 8, "eight");
+        assertThat(evicted).containsExactly("shallow", "middle");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("three");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("seven");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("eight");
+        assertThat(list.extractMinimum().getValue()).isEqualTo("deep");
+    }
+
+    @Test
+    public void ordersHugeKeys() throws Exception {
+        List<String> evicted = new ArrayList<>();
+        OpenList<String> list = create(3, TieBreaking.HIGHER_G, evicted);
+        list.insert(Integer.MAX_VALUE, 0, "max");
+        OpenList.Entry<String> deadEnd = list.insert(Integer.MAX_VALUE / 2 + 3, 3, "dead end");
+        list.insert(Integer.MAX_VALUE / 2 + 3, 0, "shallow dead end");
+        if (strategy != OpenListStrategy.BINARY_HEAP) {
+            assertThat(list.insert(Integer.MAX_VALUE, 0, "rejected")).isNull();
+            list.insert(2, 0, "two");
+            assertThat(evicted).containsExactly("max");
+        }
+        list.decreaseKey(deadEnd, 4, 3);
+        assertThat(list.extractMinimum().getValue()).isEqualTo(strategy != OpenListStrategy.BINARY_HEAP ? "two"
+                : "dead end");
+        if (strategy != OpenListStrategy.BINARY_HEAP) {
+            assertThat(list.extractMinimum().getValue()).isEqualTo("dead end");
+        }
+        assertThat(list.extractMinimum().getValue()).isEqualTo("shallow dead end");
+    }
+
+    @Test
+    public void matchesSortedListOnRandomOperations() throws Exception {
+        Random random = new Random(42);
+        TieBreaking tieBreaking = TieBreaking.HIGHER_G;
+        OpenList<Integer> list = create(Integer.MAX_VALUE, tieBreaking, new ArrayList<>());
+        List<OpenList.Entry<Integer>> entries = new ArrayList<>();
+        int[] gScores = new int[20_000];
+        for (int i = 0; i < gScores.length; i++) {
+            int operation = random.nextInt(4);
+            if (operation <= 1 || entries.isEmpty()) {
+                int g = random.nextInt(100);
+                gScores[i] = g;
+                entries.add(list.insert(g + random.nextInt(100), g, i));
+            } else if (operation == 2) {
+                OpenList.Entry<Integer> entry = entries.get(random.nextInt(entries.size()));
+                int decrease = Math.min(gScores[entry.getValue()], random.nextInt(10));
+                gScores[entry.getValue()] -= decrease;
+                list.decreaseKey(entry, entry.getKey() - decrease, gScores[entry.getValue()]);
+            } else {
+                long min = entries.stream().mapToLong(e -> tieBreaking.priority(e.getKey(), gScores[e.getValue()]))
+                        .min().getAsLong();
+                OpenList.Entry<Integer> extracted = list.extractMinimum();
+                assertThat(tieBreaking.priority(extracted.getKey(), gScores[extracted.getValue()])).isEqualTo(min);
+                entries.remove(extracted);
+            }
+            assertThat(list.size()).isEqualTo(entries.size());
+        }
+    }
+
+}
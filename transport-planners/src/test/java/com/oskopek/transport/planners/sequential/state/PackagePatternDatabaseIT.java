@@ -0,0 +1,70 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.plan.SequentialPlan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.SequentialPlanIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PackagePatternDatabaseIT {
+
+    private static final SequentialDomain domain = new SequentialDomain("");
+    private static Problem problem;
+    private static List<Action> actions;
+    private static PackagePatternDatabase database;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+        SequentialPlan plan = new SequentialPlanIO(domain, problem)
+                .parse(TestUtils.getPersistenceTestFile("p01SeqPlan.val"));
+        actions = plan.getActions();
+        database = new PackagePatternDatabase(problem, ShortestPathMatrix.compute(problem.getRoadGraph()));
+    }
+
+    private static int estimate(Problem state) {
+        return database.estimate(state);
+    }
+
+    @Test
+    public void neverOverestimatesAlongOptimalPlan() throws Exception {
+        int remaining = actions.stream().mapToInt(a -> a.getDuration().getCost()).sum();
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        assertThat(estimate(state.getProblem())).isPositive().isLessThanOrEqualTo(remaining);
+        for (Action action : actions) {
+            state = state.apply(action).orElseThrow(() -> new IllegalStateException("Invalid action: " + action));
+            remaining -= action.getDuration().getCost();
+            assertThat(estimate(state.getProblem())).isLessThanOrEqualTo(remaining);
+        }
+        assertThat(state.isGoalState()).isTrue();
+        assertThat(estimate(state.getProblem())).isEqualTo(0);
+    }
+
+    @Test
+    public void reusesScratchBuffersAcrossStatesAndThreads() throws Exception {
+        List<Problem> states = new ArrayList<>();
+        ImmutablePlanState state = new ImmutablePlanState(problem);
+        states.add(state.getProblem());
+        for (Action action : actions) {
+            state = state.apply(action).orElseThrow(() -> new IllegalStateException("Invalid action: " + action));
+            states.add(state.getProblem());
+        }
+        List<Integer> sequential = states.stream().map(PackagePatternDatabaseIT::estimate)
+                .collect(Collectors.toList());
+        for (int i = 0; i < 10; i++) {
+            assertThat(states.parallelStream().map(PackagePatternDatabaseIT::estimate).collect(Collectors.toList()))
+                    .isEqualTo(sequential);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ShortestPathMatrixCacheIT {
+
+    private static Problem p01;
+    private static Problem p02;
+    private ShortestPathMatrixCache cache;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        DefaultProblemIO io = new DefaultProblemIO(new SequentialDomain(""));
+        p01 = io.parse(TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+        p02 = io.parse(TestUtils.getPersistenceTestFile("p02SeqProblem.pddl"));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ShortestPathMatrixCache(ShortestPathMatrixCache.DEFAULT_MAX_CELLS);
+    }
+
+    @Test
+    public void reusesStructurallyEqualGraph() throws Exception {
+        ShortestPathMatrix matrix = cache.get(p01.getRoadGraph());
+        assertThat(cache.get(p01.getRoadGraph().copy())).isSameAs(matrix);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void distinguishesRoadLengths() throws Exception {
+        ShortestPathMatrix matrix = cache.get(p01.getRoadGraph());
+        Problem changed = new DefaultProblemIO(new SequentialDomain("")).parse(
+                TestUtils.getPersistenceTestFile("p01SeqProblem.pddl").replace("city-loc-4) 28)", "city-loc-4) 29)"));
+        assertThat(cache.get(changed.getRoadGraph())).isNotSameAs(matrix);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        cache = new ShortestPathMatrixCache(1);
+        ShortestPathMatrix matrix = cache.get(p01.getRoadGraph());
+        cache.get(p02.getRoadGraph());
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(p01.getRoadGraph())).isNotSameAs(matrix);
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.oskopek.transport.planners.sequential.state;
+
+import com.oskopek.transport.model.domain.SequentialDomain;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.graph.RoadEdge;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ShortestPathMatrixIT {
+
+    private static Problem problem;
+    private static ShortestPathMatrix matrix;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        problem = new DefaultProblemIO(new SequentialDomain("")).parse(
+                TestUtils.getPersistenceTestFile("p01SeqProblem.pddl"));
+        matrix = ShortestPathMatrix.compute(problem.getRoadGraph());
+    }
+
+    @Test
+    public void distances() throws Exception {
+        assertThat(matrix.getDistance("city-loc-4", "city-loc-4")).isEqualTo(0);
+        assertThat(matrix.getDistance("city-loc-4", "city-loc-5")).isEqualTo(32);
+        assertThat(matrix.getDistance("city-loc-4", "city-loc-2")).isEqualTo(50);
+        assertThat(matrix.getDistance("city-loc-2", "city-loc-3")).isEqualTo(30);
+    }
+
+    @Test
+    public void paths() throws Exception {
+        ShortestPath path = matrix.get("city-loc-4", "city-loc-2");
+        assertThat(path.getDistance()).isEqualTo(50);
+        assertThat(path.getRoads()).extracting(e -> e.getRoad().getName()).containsExactly("city-loc-4->city-loc-5",
+                "city-loc-5->city-loc-2");
+        assertThat(path.lastLocation()).isEqualTo(problem.getRoadGraph().getLocation("city-loc-2"));
+        assertThat(matrix.get("city-loc-1", "city-loc-1").getRoads()).isEmpty();
+    }
+
+    @Test
+    public void pathLengthsMatchDistances() throws Exception {
+        int size = matrix.getSymbolTable().getLocationCount();
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                List<RoadEdge> roads = matrix.getRoads(from, to);
+                assertThat(roads.stream().mapToInt(e -> e.getRoad().getLength().getCost()).sum())
+                        .isEqualTo(matrix.getDistance(from, to));
+                if (!roads.isEmpty()) {
+                    assertThat(roads.get(0).getFrom()).isEqualTo(matrix.getSymbolTable().getLocation(from));
+                    assertThat(roads.get(roads.size() - 1).getTo()).isEqualTo(matrix.getSymbolTable().getLocation(to));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownLocation() throws Exception {
+        matrix.getDistance("city-loc-1", "city-loc-42");
+    }
+
+}
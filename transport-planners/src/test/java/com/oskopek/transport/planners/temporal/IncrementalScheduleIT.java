@@ -0,0 +1,60 @@
+package com.oskopek.transport.planners.temporal;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.TemporalPlanIO;
+import com.oskopek.transport.persistence.VariableDomainIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class IncrementalScheduleIT {
+
+    private static Domain domain;
+    private static Problem problem;
+    private static List<Action> actions;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        domain = new VariableDomainIO().parse(TestUtils.getPersistenceTestFile("variableDomainTemp.pddl"));
+        problem = new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile("p01TempProblem.pddl"));
+        Plan plan = new TemporalPlanIO(domain, problem).parse(TestUtils.getPersistenceTestFile("p01TempPlan.val"));
+        actions = plan.getTemporalPlanActions().stream()
+                .sorted(Comparator.comparing(TemporalPlanAction::getStartTimestamp))
+                .map(TemporalPlanAction::getAction).collect(Collectors.toList());
+    }
+
+    @Test
+    public void matchesFullSchedule() throws Exception {
+        Plan scheduled = SequentialScheduler.schedule(domain, problem, actions);
+        IncrementalSchedule schedule = new IncrementalSchedule(problem);
+        assertThat(schedule.getScore()).isEqualTo(0);
+        assertThat(schedule.append(actions)).isEqualTo(Math.round(scheduled.calculateMakespan().floatValue()));
+        assertThat(schedule.getMakespan()).isLessThanOrEqualTo(scheduled.calculateMakespan());
+    }
+
+    @Test
+    public void appendsInBatches() throws Exception {
+        IncrementalSchedule whole = new IncrementalSchedule(problem);
+        whole.append(actions);
+        IncrementalSchedule batched = new IncrementalSchedule(problem);
+        for (int i = 0; i < actions.size(); i += 2) {
+            batched.append(actions.subList(i, Math.min(actions.size(), i + 2)));
+            Plan prefix = SequentialScheduler.schedule(domain, problem, actions.subList(0, Math.min(actions.size(),
+                    i + 2)));
+            assertThat(batched.getMakespan()).isLessThanOrEqualTo(prefix.calculateMakespan());
+        }
+        assertThat(batched.getMakespan()).isEqualTo(whole.getMakespan());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.oskopek.transport.planners.temporal;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.Drive;
+import com.oskopek.transport.model.domain.action.Drop;
+import com.oskopek.transport.model.domain.action.PickUp;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.TemporalPlanIO;
+import com.oskopek.transport.persistence.VariableDomainIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ScheduleGraphIT {
+
+    private static Domain domain;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        domain = new VariableDomainIO().parse(TestUtils.getPersistenceTestFile("variableDomainTemp.pddl"));
+    }
+
+    private static Problem parseProblem(String name) throws Exception {
+        return new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile(name));
+    }
+
+    private static List<Action> parseActions(Problem problem, String name) throws Exception {
+        Plan plan = new TemporalPlanIO(domain, problem).parse(TestUtils.getPersistenceTestFile(name));
+        return plan.getTemporalPlanActions().stream()
+                .sorted(Comparator.comparing(TemporalPlanAction::getStartTimestamp))
+                .map(TemporalPlanAction::getAction).collect(Collectors.toList());
+    }
+
+    @Test
+    public void recordsOnlyConflictingPredecessors() throws Exception {
+        Problem problem = parseProblem("p01TempProblem.pddl");
+        List<Action> actions = parseActions(problem, "p01TempPlan.val");
+        ScheduleGraph graph = new ScheduleGraph(problem.getSymbolTable(), actions);
+        for (int i = 0; i < actions.size(); i++) {
+            Action action = actions.get(i);
+            int[] predecessors = graph.getPredecessors(i);
+            assertThat(predecessors).doesNotHaveDuplicates().hasSize(i < 2 ? 0 : 1);
+            for (int predecessor : predecessors) {
+                assertThat(predecessor).isLessThan(i);
+                assertThat(actions.get(predecessor).getWho()).isEqualTo(action.getWho());
+            }
+            if (action instanceof Drive) { // each drive follows the pick-up of its vehicle
+                assertThat(actions.get(predecessors[0])).isInstanceOf(PickUp.class);
+            } else if (action instanceof Drop) { // the pick-up precedes the drive of the vehicle
+                assertThat(actions.get(predecessors[0])).isInstanceOf(Drive.class);
+            }
+        }
+    }
+
+    @Test
+    public void schedulesAfterPredecessors() throws Exception {
+        Problem problem = parseProblem("p20TempProblem.pddl");
+        List<Action> actions = parseActions(problem, "p20TempPlan.val");
+        ScheduleGraph graph = new ScheduleGraph(problem.getSymbolTable(), actions);
+        List<TemporalPlanAction> scheduled = graph.schedule(0.001);
+        assertThat(scheduled).hasSize(actions.size());
+        for (int i = 0; i < scheduled.size(); i++) {
+            assertThat(scheduled.get(i).getAction()).isSameAs(actions.get(i));
+            for (int predecessor : graph.getPredecessors(i)) {
+                assertThat(scheduled.get(i).getStartTimestamp())
+                        .isGreaterThan(scheduled.get(predecessor).getEndTimestamp());
+            }
+        }
+        assertThat(SequentialScheduler.schedule(domain, problem, actions)).isNotNull();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.oskopek.transport.planners.temporal;
+
+import com.oskopek.transport.model.domain.Domain;
+import com.oskopek.transport.model.domain.action.Action;
+import com.oskopek.transport.model.domain.action.ActionCost;
+import com.oskopek.transport.model.domain.action.Refuel;
+import com.oskopek.transport.model.domain.action.TemporalPlanAction;
+import com.oskopek.transport.model.plan.Plan;
+import com.oskopek.transport.model.plan.TemporalPlan;
+import com.oskopek.transport.model.problem.Problem;
+import com.oskopek.transport.model.problem.Vehicle;
+import com.oskopek.transport.persistence.DefaultProblemIO;
+import com.oskopek.transport.persistence.TemporalPlanIO;
+import com.oskopek.transport.persistence.VariableDomainIO;
+import com.oskopek.transport.tools.test.TestUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SequentialSchedulerIT {
+
+    private static Domain domain;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        domain = new VariableDomainIO().parse(TestUtils.getPersistenceTestFile("variableDomainTemp.pddl"));
+    }
+
+    private static Problem parseProblem(String name) throws Exception {
+        return new DefaultProblemIO(domain).parse(TestUtils.getPersistenceTestFile(name));
+    }
+
+    private static List<Action> parseActions(Problem problem, String name) throws Exception {
+        Plan plan = new TemporalPlanIO(domain, problem).parse(TestUtils.getPersistenceTestFile(name));
+        return plan.getTemporalPlanActions().stream()
+                .sorted(Comparator.comparing(TemporalPlanAction::getStartTimestamp))
+                .map(TemporalPlanAction::getAction).collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> countRefuels(Collection<Action> actions) {
+        return actions.stream().filter(a -> a instanceof Refuel)
+                .collect(Collectors.groupingBy(a -> a.getWho().getName(), Collectors.counting()));
+    }
+
+    @Test
+    public void addsAtMostAsManyRefuelsAsValidPlans() throws Exception {
+        for (String name : new String[] {"p01", "p20", "p30"}) {
+            Problem problem = parseProblem(name + "TempProblem.pddl");
+            List<Action> actions = parseActions(problem, name + "TempPlan.val");
+            Map<String, Long> validRefuels = countRefuels(actions);
+            List<Action> withoutRefuels = actions.stream().filter(a -> !(a instanceof Refuel))
+                    .collect(Collectors.toList());
+
+            TemporalPlan scheduled = SequentialScheduler.schedule(domain, problem, withoutRefuels);
+            assertThat(scheduled).as(name).isNotNull();
+            Map<String, Long> refuels = countRefuels(scheduled.getActions());
+            refuels.forEach((vehicle, count) -> assertThat(count).as(name + " " + vehicle)
+                    .isLessThanOrEqualTo(validRefuels.getOrDefault(vehicle, 0L)));
+        }
+    }
+
+    @Test
+    public void failsWhenFuelDoesNotSuffice() throws Exception {
+        Problem problem = parseProblem("p01TempProblem.pddl");
+        List<Action> actions = parseActions(problem, "p01TempPlan.val");
+        for (Vehicle vehicle : problem.getAllVehicles()) { // shorter than any road
+            problem = problem.putVehicle(vehicle.getName(), vehicle.updateMaxFuelCapacity(ActionCost.valueOf(10))
+                    .updateCurFuelCapacity(ActionCost.valueOf(10)));
+        }
+        assertThat(SequentialScheduler.schedule(domain, problem, actions)).isNull();
+    }
+
+}